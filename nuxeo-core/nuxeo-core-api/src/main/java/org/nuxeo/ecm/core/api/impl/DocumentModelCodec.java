@@ -0,0 +1,734 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.api.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+import org.nuxeo.common.utils.Path;
+import org.nuxeo.ecm.core.api.DataModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.Lock;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.api.model.DocumentPart;
+import org.nuxeo.ecm.core.api.model.Property;
+import org.nuxeo.ecm.core.api.model.impl.DocumentPartImpl;
+import org.nuxeo.ecm.core.schema.Prefetch;
+import org.nuxeo.ecm.core.schema.SchemaManager;
+import org.nuxeo.ecm.core.schema.types.FieldSlots;
+import org.nuxeo.ecm.core.schema.types.Schema;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Compact binary encoding of values that may hold {@link DocumentModelImpl}s, used instead of Java serialization when
+ * values are sent to other nodes or stored out of the JVM.
+ * <p>
+ * Detached and non-dirty documents are encoded using their schema: each property is identified by the name of its
+ * schema and the slot of its field in the schema {@link FieldSlots}, and the decoded documents get lazily materialized
+ * document parts. Integers use a variable length encoding and each string is written once per encoded value, later
+ * occurrences referring to it.
+ * <p>
+ * Strings, numbers, booleans, dates, arrays of those, {@link ArrayList}s and {@link HashMap}s are encoded natively,
+ * other values, as well as attached or dirty documents, fall back to Java serialization. Values produced by Java
+ * serialization are also accepted by {@link #decode}.
+ *
+ * @since 9.1
+ */
+public class DocumentModelCodec {
+
+    /** First byte of encoded values, Java serialization streams start with 0xAC. */
+    protected static final int MAGIC = 0xD0;
+
+    protected static final int VERSION = 1;
+
+    protected static final int JAVA_MAGIC = 0xAC;
+
+    /** Strings longer than this are not added to the dictionary. */
+    protected static final int MAX_DICTIONARY_STRING_LENGTH = 256;
+
+    protected static final int NULL = 0;
+
+    protected static final int STRING = 1;
+
+    protected static final int LONG = 2;
+
+    protected static final int INTEGER = 3;
+
+    protected static final int DOUBLE = 4;
+
+    protected static final int TRUE = 5;
+
+    protected static final int FALSE = 6;
+
+    protected static final int CALENDAR = 7;
+
+    protected static final int DATE = 8;
+
+    protected static final int ARRAY = 9;
+
+    protected static final int LIST = 10;
+
+    protected static final int MAP = 11;
+
+    protected static final int LINKED_MAP = 12;
+
+    protected static final int DOCUMENT = 13;
+
+    protected static final int JAVA = 14;
+
+    /** Component types of natively encoded arrays, indexed by code. */
+    protected static final Class<?>[] ARRAY_TYPES = { Object.class, String.class, Long.class, Integer.class,
+            Double.class, Boolean.class, Calendar.class, Date.class };
+
+    protected static final int NO_LOCK = 0;
+
+    protected static final int LOCK_UNKNOWN = 1;
+
+    protected static final int LOCK = 2;
+
+    protected static final int ID_REF = 1;
+
+    protected static final int PATH_REF = 2;
+
+    /**
+     * Thrown when decoding a document whose schema has changed since it was encoded. Caches should treat the value as
+     * missing.
+     */
+    public static class SchemaMismatchException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public SchemaMismatchException(String message) {
+            super(message);
+        }
+
+    }
+
+    private DocumentModelCodec() {
+        // utility class
+    }
+
+    /**
+     * Encodes a value.
+     */
+    public static byte[] encode(Serializable value) throws IOException {
+        ByteArrayOutputStream baout = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baout);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        new Encoder(out).writeValue(value);
+        out.flush();
+        return baout.toByteArray();
+    }
+
+    /**
+     * Decodes a value encoded by {@link #encode} or by Java serialization, returns {@code null} if the bytes are
+     * {@code null}.
+     */
+    public static Serializable decode(byte[] bytes) throws IOException {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length > 0 && (bytes[0] & 0xFF) == JAVA_MAGIC) {
+            return deserialize(bytes);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readUnsignedByte() != MAGIC) {
+            throw new StreamCorruptedException("Unknown encoding");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported encoding version: " + version);
+        }
+        return new Decoder(in).readValue();
+    }
+
+    protected static byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream baout = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baout)) {
+            out.writeObject(value);
+        }
+        return baout.toByteArray();
+    }
+
+    protected static Serializable deserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Serializable) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    protected static int getArrayType(Class<?> componentType) {
+        for (int i = 0; i < ARRAY_TYPES.length; i++) {
+            if (ARRAY_TYPES[i] == componentType) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Documents are encoded natively only if all their parts can be, and if they don't need to keep their dirty state
+     * or their connection to a session.
+     */
+    protected static boolean isEncodable(DocumentModelImpl doc) {
+        if (doc.getClass() != DocumentModelImpl.class || doc.sid != null || doc.dataModels == null) {
+            return false;
+        }
+        for (DataModel dm : doc.dataModels.values()) {
+            if (!(dm instanceof DataModelImpl)) {
+                return false;
+            }
+            DocumentPart part = ((DataModelImpl) dm).getDocumentPart();
+            if (part.getClass() != DocumentPartImpl.class || part.isDirty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static class Encoder {
+
+        protected final DataOutputStream out;
+
+        protected final Map<String, Integer> dictionary = new HashMap<>();
+
+        protected Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        protected void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        protected void writeSignedVarLong(long value) throws IOException {
+            // zigzag encoding so that small negative numbers are short
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        /**
+         * Writes 0 for null, 1 and 2 followed by the bytes for a new string (2 if it is added to the dictionary), or
+         * the dictionary index + 3.
+         */
+        protected void writeString(String string) throws IOException {
+            if (string == null) {
+                writeVarLong(0);
+                return;
+            }
+            Integer index = dictionary.get(string);
+            if (index != null) {
+                writeVarLong(index.longValue() + 3);
+                return;
+            }
+            if (string.length() <= MAX_DICTIONARY_STRING_LENGTH) {
+                dictionary.put(string, Integer.valueOf(dictionary.size()));
+                writeVarLong(2);
+            } else {
+                writeVarLong(1);
+            }
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+
+        protected void writeStrings(Set<String> strings) throws IOException {
+            if (strings == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(strings.size() + 1);
+            for (String string : strings) {
+                writeString(string);
+            }
+        }
+
+        protected void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+                return;
+            }
+            Class<?> klass = value.getClass();
+            if (klass == String.class) {
+                out.writeByte(STRING);
+                writeString((String) value);
+            } else if (klass == Long.class) {
+                out.writeByte(LONG);
+                writeSignedVarLong(((Long) value).longValue());
+            } else if (klass == Integer.class) {
+                out.writeByte(INTEGER);
+                writeSignedVarLong(((Integer) value).intValue());
+            } else if (klass == Double.class) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(((Double) value).doubleValue());
+            } else if (klass == Boolean.class) {
+                out.writeByte(((Boolean) value).booleanValue() ? TRUE : FALSE);
+            } else if (klass == GregorianCalendar.class) {
+                Calendar calendar = (Calendar) value;
+                out.writeByte(CALENDAR);
+                writeSignedVarLong(calendar.getTimeInMillis());
+                writeString(calendar.getTimeZone().getID());
+            } else if (klass == Date.class) {
+                out.writeByte(DATE);
+                writeSignedVarLong(((Date) value).getTime());
+            } else if (klass.isArray() && getArrayType(klass.getComponentType()) >= 0) {
+                Object[] array = (Object[]) value;
+                out.writeByte(ARRAY);
+                out.writeByte(getArrayType(klass.getComponentType()));
+                writeVarLong(array.length);
+                for (Object element : array) {
+                    writeValue(element);
+                }
+            } else if (klass == ArrayList.class) {
+                List<?> list = (List<?>) value;
+                out.writeByte(LIST);
+                writeVarLong(list.size());
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            } else if (klass == HashMap.class || klass == LinkedHashMap.class) {
+                out.writeByte(klass == HashMap.class ? MAP : LINKED_MAP);
+                writeMap((Map<?, ?>) value);
+            } else if (value instanceof DocumentModelImpl && isEncodable((DocumentModelImpl) value)) {
+                out.writeByte(DOCUMENT);
+                writeDocument((DocumentModelImpl) value);
+            } else {
+                out.writeByte(JAVA);
+                byte[] bytes = serialize((Serializable) value);
+                writeVarLong(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        protected void writeMap(Map<?, ?> map) throws IOException {
+            writeVarLong(map.size());
+            for (Map.Entry<?, ?> es : map.entrySet()) {
+                writeValue(es.getKey());
+                writeValue(es.getValue());
+            }
+        }
+
+        protected void writeRef(DocumentRef ref) throws IOException {
+            if (ref instanceof IdRef) {
+                out.writeByte(ID_REF);
+                writeString(((IdRef) ref).value);
+            } else if (ref instanceof PathRef) {
+                out.writeByte(PATH_REF);
+                writeString(((PathRef) ref).value);
+            } else if (ref == null) {
+                out.writeByte(NULL);
+            } else {
+                throw new IOException("Unsupported document reference: " + ref);
+            }
+        }
+
+        protected void writeDocument(DocumentModelImpl doc) throws IOException {
+            writeString(doc.typeName);
+            writeString(doc.id);
+            writeString(doc.path == null ? null : doc.path.toString());
+            writeRef(doc.ref);
+            writeRef(doc.parentRef);
+            writeValue(doc.pos);
+            writeString(doc.repositoryName);
+            writeString(doc.sourceId);
+            out.writeBoolean(doc.isVersion());
+            out.writeBoolean(doc.isProxy());
+            out.writeBoolean(doc.isImmutable());
+            if (doc.lock == DocumentModelImpl.LOCK_UNKNOWN) {
+                out.writeByte(LOCK_UNKNOWN);
+            } else if (doc.lock == null) {
+                out.writeByte(NO_LOCK);
+            } else {
+                out.writeByte(LOCK);
+                writeString(doc.lock.getOwner());
+                writeValue(doc.lock.getCreated());
+                out.writeBoolean(doc.lock.getFailed());
+            }
+            out.writeBoolean(doc.isStateLoaded);
+            if (doc.isStateLoaded) {
+                writeString(doc.currentLifeCycleState);
+                writeString(doc.lifeCyclePolicy);
+                out.writeBoolean(doc.isCheckedOut);
+                writeString(doc.versionSeriesId);
+                out.writeBoolean(doc.isLatestVersion);
+                out.writeBoolean(doc.isMajorVersion);
+                out.writeBoolean(doc.isLatestMajorVersion);
+                out.writeBoolean(doc.isVersionSeriesCheckedOut);
+                writeString(doc.checkinComment);
+            }
+            writeString(doc.detachedVersionLabel);
+            writeStrings(doc.instanceFacets);
+            writeStrings(doc.instanceFacetsOrig);
+            writeStrings(doc.facets);
+            writeStrings(doc.schemas);
+            writeStrings(doc.schemasOrig);
+            writeMap(doc.contextData);
+            writePrefetch(doc.prefetch);
+            writeVarLong(doc.dataModels.size());
+            for (DataModel dm : doc.dataModels.values()) {
+                writePart((DocumentPartImpl) ((DataModelImpl) dm).getDocumentPart());
+            }
+        }
+
+        protected void writePrefetch(Prefetch prefetch) throws IOException {
+            out.writeBoolean(prefetch != null);
+            if (prefetch == null) {
+                return;
+            }
+            writeMap(prefetch.values);
+            writeVarLong(prefetch.keysBySchema.size());
+            for (Map.Entry<String, List<String>> es : prefetch.keysBySchema.entrySet()) {
+                writeString(es.getKey());
+                writeVarLong(es.getValue().size());
+                for (String key : es.getValue()) {
+                    writeString(key);
+                }
+            }
+            writeVarLong(prefetch.keysBySchemaAndName.size());
+            for (Map.Entry<String, Map<String, String>> es : prefetch.keysBySchemaAndName.entrySet()) {
+                writeString(es.getKey());
+                writeVarLong(es.getValue().size());
+                for (Map.Entry<String, String> kv : es.getValue().entrySet()) {
+                    writeString(kv.getKey());
+                    writeString(kv.getValue());
+                }
+            }
+        }
+
+        /**
+         * Writes the non phantom properties as slot + 1 and value, ending with 0.
+         */
+        protected void writePart(DocumentPartImpl part) throws IOException {
+            Schema schema = part.getSchema();
+            FieldSlots slots = schema.getFieldSlots();
+            writeString(schema.getName());
+            writeVarLong(slots.size());
+            out.writeInt(slots.getFingerprint());
+            for (int i = 0; i < slots.size(); i++) {
+                Property property = part.getNonPhantomChild(slots.getField(i));
+                if (property != null && !property.isPhantom()) {
+                    writeVarLong(i + 1);
+                    writeValue(property.getValue());
+                }
+            }
+            writeVarLong(0);
+        }
+
+    }
+
+    protected static class Decoder {
+
+        protected final DataInputStream in;
+
+        protected final List<String> dictionary = new ArrayList<>();
+
+        protected SchemaManager schemaManager;
+
+        protected Decoder(DataInputStream in) {
+            this.in = in;
+        }
+
+        protected long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length integer");
+        }
+
+        protected int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new StreamCorruptedException("Invalid length: " + value);
+            }
+            return (int) value;
+        }
+
+        protected long readSignedVarLong() throws IOException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        protected String readString() throws IOException {
+            int code = readVarInt();
+            if (code == 0) {
+                return null;
+            }
+            if (code > 2) {
+                return dictionary.get(code - 3);
+            }
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            String string = new String(bytes, StandardCharsets.UTF_8);
+            if (code == 2) {
+                dictionary.add(string);
+            }
+            return string;
+        }
+
+        protected Set<String> readStrings() throws IOException {
+            int size = readVarInt();
+            if (size == 0) {
+                return null;
+            }
+            Set<String> strings = new HashSet<>();
+            for (int i = 0; i < size - 1; i++) {
+                strings.add(readString());
+            }
+            return strings;
+        }
+
+        protected Serializable readValue() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString();
+            case LONG:
+                return Long.valueOf(readSignedVarLong());
+            case INTEGER:
+                return Integer.valueOf((int) readSignedVarLong());
+            case DOUBLE:
+                return Double.valueOf(in.readDouble());
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case CALENDAR:
+                long time = readSignedVarLong();
+                Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone(readString()));
+                calendar.setTimeInMillis(time);
+                return calendar;
+            case DATE:
+                return new Date(readSignedVarLong());
+            case ARRAY:
+                int type = in.readUnsignedByte();
+                if (type >= ARRAY_TYPES.length) {
+                    throw new StreamCorruptedException("Unknown array type: " + type);
+                }
+                Object[] array = (Object[]) Array.newInstance(ARRAY_TYPES[type], readVarInt());
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readValue();
+                }
+                return array;
+            case LIST:
+                int size = readVarInt();
+                ArrayList<Serializable> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            case MAP:
+                return readMap(new HashMap<>());
+            case LINKED_MAP:
+                return readMap(new LinkedHashMap<>());
+            case DOCUMENT:
+                return readDocument();
+            case JAVA:
+                byte[] bytes = new byte[readVarInt()];
+                in.readFully(bytes);
+                return deserialize(bytes);
+            default:
+                throw new StreamCorruptedException("Unknown value type: " + tag);
+            }
+        }
+
+        protected <M extends Map<Serializable, Serializable> & Serializable> M readMap(M map) throws IOException {
+            int size = readVarInt();
+            for (int i = 0; i < size; i++) {
+                Serializable key = readValue();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        protected DocumentRef readRef() throws IOException {
+            int type = in.readUnsignedByte();
+            switch (type) {
+            case NULL:
+                return null;
+            case ID_REF:
+                return new IdRef(readString());
+            case PATH_REF:
+                return new PathRef(readString());
+            default:
+                throw new StreamCorruptedException("Unknown document reference type: " + type);
+            }
+        }
+
+        protected SchemaManager getSchemaManager() throws IOException {
+            if (schemaManager == null) {
+                schemaManager = Framework.getService(SchemaManager.class);
+                if (schemaManager == null) {
+                    throw new IOException("No SchemaManager available to decode documents");
+                }
+            }
+            return schemaManager;
+        }
+
+        protected DocumentModelImpl readDocument() throws IOException {
+            DocumentModelImpl doc = new DocumentModelImpl();
+            doc.typeName = readString();
+            doc.type = getSchemaManager().getDocumentType(doc.typeName);
+            doc.id = readString();
+            String path = readString();
+            doc.path = path == null ? null : new Path(path);
+            doc.ref = readRef();
+            doc.parentRef = readRef();
+            doc.pos = (Long) readValue();
+            doc.repositoryName = readString();
+            doc.sourceId = readString();
+            doc.setIsVersion(in.readBoolean());
+            doc.setIsProxy(in.readBoolean());
+            doc.setIsImmutable(in.readBoolean());
+            int lock = in.readUnsignedByte();
+            if (lock == NO_LOCK) {
+                doc.lock = null;
+            } else if (lock == LOCK) {
+                String owner = readString();
+                Calendar created = (Calendar) readValue();
+                doc.lock = new Lock(owner, created, in.readBoolean());
+            }
+            doc.isStateLoaded = in.readBoolean();
+            if (doc.isStateLoaded) {
+                doc.currentLifeCycleState = readString();
+                doc.lifeCyclePolicy = readString();
+                doc.isCheckedOut = in.readBoolean();
+                doc.versionSeriesId = readString();
+                doc.isLatestVersion = in.readBoolean();
+                doc.isMajorVersion = in.readBoolean();
+                doc.isLatestMajorVersion = in.readBoolean();
+                doc.isVersionSeriesCheckedOut = in.readBoolean();
+                doc.checkinComment = readString();
+            }
+            doc.detachedVersionLabel = readString();
+            doc.instanceFacets = readStrings();
+            doc.instanceFacetsOrig = readStrings();
+            doc.facets = readStrings();
+            doc.schemas = readStrings();
+            doc.schemasOrig = readStrings();
+            int size = readVarInt();
+            for (int i = 0; i < size; i++) {
+                String key = (String) readValue();
+                doc.contextData.put(key, readValue());
+            }
+            doc.prefetch = readPrefetch();
+            int parts = readVarInt();
+            doc.dataModels = new HashMap<>();
+            for (int i = 0; i < parts; i++) {
+                DocumentPart part = readPart();
+                doc.dataModels.put(part.getName(), new DataModelImpl(part));
+            }
+            return doc;
+        }
+
+        protected Prefetch readPrefetch() throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            Prefetch prefetch = new Prefetch();
+            int size = readVarInt();
+            for (int i = 0; i < size; i++) {
+                String key = (String) readValue();
+                prefetch.values.put(key, readValue());
+            }
+            size = readVarInt();
+            for (int i = 0; i < size; i++) {
+                String schema = readString();
+                int count = readVarInt();
+                List<String> keys = new LinkedList<>();
+                for (int j = 0; j < count; j++) {
+                    keys.add(readString());
+                }
+                prefetch.keysBySchema.put(schema, keys);
+            }
+            size = readVarInt();
+            for (int i = 0; i < size; i++) {
+                String schema = readString();
+                int count = readVarInt();
+                Map<String, String> keysByName = new HashMap<>();
+                for (int j = 0; j < count; j++) {
+                    String name = readString();
+                    keysByName.put(name, readString());
+                }
+                prefetch.keysBySchemaAndName.put(schema, keysByName);
+            }
+            return prefetch;
+        }
+
+        protected DocumentPart readPart() throws IOException {
+            String name = readString();
+            int count = readVarInt();
+            int fingerprint = in.readInt();
+            Schema schema = getSchemaManager().getSchema(name);
+            if (schema == null) {
+                throw new SchemaMismatchException("Unknown schema: " + name);
+            }
+            FieldSlots slots = schema.getFieldSlots();
+            if (slots.size() != count || slots.getFingerprint() != fingerprint) {
+                throw new SchemaMismatchException(
+                        "Schema " + name + " differs from the one used to encode the document");
+            }
+            Serializable[] values = new Serializable[count];
+            int slot;
+            while ((slot = readVarInt()) != 0) {
+                if (slot > count) {
+                    throw new StreamCorruptedException("Invalid field slot: " + slot);
+                }
+                values[slot - 1] = readValue();
+            }
+            DocumentPartImpl part = new DocumentPartImpl(schema);
+            part.initValues(values);
+            return part;
+        }
+
+    }
+
+}
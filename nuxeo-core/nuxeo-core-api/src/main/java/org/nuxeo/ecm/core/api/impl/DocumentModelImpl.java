@@ -194,7 +194,7 @@ public class DocumentModelImpl implements DocumentModel, Cloneable {
     // public for unit tests
     public Prefetch prefetch;
 
-    private String detachedVersionLabel;
+    protected String detachedVersionLabel;
 
     protected DocumentModelImpl() {
     }
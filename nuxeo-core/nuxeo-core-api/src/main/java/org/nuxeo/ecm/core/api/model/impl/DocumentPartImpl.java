@@ -22,6 +22,8 @@
 package org.nuxeo.ecm.core.api.model.impl;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Set;
 
 import org.nuxeo.common.utils.Path;
 import org.nuxeo.ecm.core.api.PropertyException;
@@ -30,6 +32,7 @@ import org.nuxeo.ecm.core.api.model.Property;
 import org.nuxeo.ecm.core.api.model.PropertyDiff;
 import org.nuxeo.ecm.core.api.model.PropertyVisitor;
 import org.nuxeo.ecm.core.schema.types.Field;
+import org.nuxeo.ecm.core.schema.types.FieldSlots;
 import org.nuxeo.ecm.core.schema.types.Schema;
 
 /**
@@ -41,11 +44,112 @@ public class DocumentPartImpl extends ComplexProperty implements DocumentPart {
 
     protected Schema schema;
 
+    /**
+     * Values of the fields not yet materialized as properties, indexed by field slot, or {@code null} if all the
+     * properties are materialized.
+     *
+     * @since 9.1
+     */
+    protected Serializable[] values;
+
     public DocumentPartImpl(Schema schema) {
         super(null);
         this.schema = schema;
     }
 
+    /**
+     * Initializes the part with the values of its fields, indexed by the slots of the schema
+     * {@link Schema#getFieldSlots field slots}. Properties are only created when first accessed.
+     * <p>
+     * Fields whose property already exists are ignored.
+     *
+     * @since 9.1
+     */
+    public void initValues(Serializable[] values) {
+        if (values.length != schema.getFieldSlots().size()) {
+            throw new IllegalArgumentException("Expected " + schema.getFieldSlots().size() + " values for schema "
+                    + schema.getName() + ", got " + values.length);
+        }
+        this.values = values;
+    }
+
+    /**
+     * Returns {@code true} if some properties of this part are not materialized yet.
+     *
+     * @since 9.1
+     */
+    public boolean hasLazyValues() {
+        return values != null;
+    }
+
+    @Override
+    protected Property internalGetChild(Field field) {
+        if (values == null) {
+            return null;
+        }
+        FieldSlots slots = schema.getFieldSlots();
+        int slot = slots.getSlot(field.getName().getPrefixedName());
+        if (slot < 0) {
+            return null;
+        }
+        // same state as a property initialized by the storage
+        Property property = createProperty(this, field, IS_PHANTOM);
+        property.init(values[slot]);
+        values[slot] = null;
+        return property;
+    }
+
+    /**
+     * Creates the properties of all the fields not materialized yet, before accessing the children directly.
+     *
+     * @since 9.1
+     */
+    protected void materialize() {
+        if (values != null) {
+            getChildren();
+            values = null;
+        }
+    }
+
+    @Override
+    public void setValue(Object value) throws PropertyException {
+        if (value == null) {
+            // all the children are removed
+            materialize();
+        }
+        super.setValue(value);
+    }
+
+    @Override
+    public Set<Entry<String, Property>> entrySet() {
+        materialize();
+        return super.entrySet();
+    }
+
+    @Override
+    public Property get(Object key) {
+        materialize();
+        return super.get(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        materialize();
+        return super.isEmpty();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        materialize();
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<Property> values() {
+        materialize();
+        return super.values();
+    }
+
     @Override
     public void internalSetValue(Serializable value) throws PropertyException {
     }
@@ -82,6 +186,8 @@ public class DocumentPartImpl extends ComplexProperty implements DocumentPart {
 
     @Override
     public Object clone() throws CloneNotSupportedException {
+        // the clone shares the children, they must all be materialized
+        materialize();
         return super.clone();
     }
 
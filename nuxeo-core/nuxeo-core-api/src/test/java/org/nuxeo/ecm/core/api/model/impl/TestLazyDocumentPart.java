@@ -0,0 +1,122 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.api.model.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.model.Property;
+import org.nuxeo.ecm.core.schema.types.FieldSlots;
+import org.nuxeo.ecm.core.schema.types.ListTypeImpl;
+import org.nuxeo.ecm.core.schema.types.SchemaImpl;
+import org.nuxeo.ecm.core.schema.types.primitives.StringType;
+
+/**
+ * @since 9.1
+ */
+public class TestLazyDocumentPart extends AbstractTestProperty {
+
+    protected static final int FIELDS = 30;
+
+    protected SchemaImpl schema;
+
+    @Before
+    public void createSchema() {
+        schema = getSchema();
+        for (int i = 0; i < FIELDS; i++) {
+            schema.addField("f" + i, StringType.INSTANCE, null, 0, new HashSet<>());
+        }
+        schema.addField("list", new ListTypeImpl("test", "list", StringType.INSTANCE, null, null, 0, new HashSet<>(),
+                0, -1), null, 0, new HashSet<>());
+    }
+
+    protected Serializable[] getValues() {
+        FieldSlots slots = schema.getFieldSlots();
+        Serializable[] values = new Serializable[slots.size()];
+        for (int i = 0; i < values.length; i++) {
+            String name = slots.getField(i).getName().getLocalName();
+            values[i] = "list".equals(name) ? new String[] { "a", "b" } : "value of " + name;
+        }
+        values[slots.getSlot("f1")] = null;
+        return values;
+    }
+
+    protected DocumentPartImpl getLazyPart() {
+        DocumentPartImpl part = new DocumentPartImpl(schema);
+        part.initValues(getValues());
+        return part;
+    }
+
+    protected DocumentPartImpl getEagerPart() {
+        DocumentPartImpl part = new DocumentPartImpl(schema);
+        FieldSlots slots = schema.getFieldSlots();
+        Serializable[] values = getValues();
+        for (Property property : part) {
+            property.init(values[slots.getSlot(property.getName())]);
+        }
+        return part;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLazyRead() {
+        DocumentPartImpl part = getLazyPart();
+        assertTrue(part.hasLazyValues());
+        assertEquals("value of f0", part.getValue("f0"));
+        assertEquals(1, part.children.size());
+
+        Property property = part.get("f1");
+        assertTrue(property.isPhantom());
+        assertNull(property.getValue());
+        assertArrayEquals(new String[] { "a", "b" }, (Object[]) part.getValue("list"));
+        assertFalse(part.isDirty());
+        assertEquals(3, part.children.size());
+
+        // same as an eagerly read part
+        Map<String, Serializable> expected = (Map<String, Serializable>) getEagerPart().getValue();
+        Map<String, Serializable> actual = (Map<String, Serializable>) part.getValue();
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((name, value) -> assertTrue(name, Objects.deepEquals(value, actual.get(name))));
+        assertEquals(FIELDS + 1, part.children.size());
+    }
+
+    @Test
+    public void testLazyWrite() {
+        DocumentPartImpl part = getLazyPart();
+        part.setValue("f2", "new");
+        assertTrue(part.get("f2").isDirty());
+        assertFalse(part.get("f3").isDirty());
+        assertEquals("new", part.getValue("f2"));
+
+        part.setValue(null);
+        assertTrue(part.get("f3").isRemoved());
+        assertEquals(FIELDS + 1, part.values().size());
+    }
+
+}
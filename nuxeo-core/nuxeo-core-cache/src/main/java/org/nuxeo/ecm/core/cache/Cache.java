@@ -20,6 +20,9 @@
 package org.nuxeo.ecm.core.cache;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -88,4 +91,35 @@ public interface Cache {
      */
     public boolean hasEntry(String key);
 
+    /**
+     * Gets the values of several keys at once. Implementations should override this method to avoid one lookup per
+     * key.
+     *
+     * @param keys the keys
+     * @return a map of the keys having a value to their value
+     * @since 9.1
+     */
+    public default Map<String, Serializable> getAll(Collection<String> keys) {
+        Map<String, Serializable> values = new HashMap<>();
+        for (String key : keys) {
+            Serializable value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Stores several values at once.
+     *
+     * @param values the values to store by key
+     * @since 9.1
+     */
+    public default void putAll(Map<String, Serializable> values) {
+        for (Map.Entry<String, Serializable> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
 }
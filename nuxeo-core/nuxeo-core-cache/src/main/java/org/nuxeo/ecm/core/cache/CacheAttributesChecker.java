@@ -20,6 +20,9 @@
 package org.nuxeo.ecm.core.cache;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -86,4 +89,20 @@ public class CacheAttributesChecker extends AbstractCache {
         return cache.hasEntry(key);
     }
 
+    @Override
+    public Map<String, Serializable> getAll(Collection<String> keys) {
+        if (keys.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException(String.format("Can't get a null key for the cache '%s'!", name));
+        }
+        return cache.getAll(keys);
+    }
+
+    @Override
+    public void putAll(Map<String, Serializable> values) {
+        if (values.keySet().stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException(String.format("Can't put a null key for the cache '%s'!", name));
+        }
+        cache.putAll(values);
+    }
+
 }
@@ -19,10 +19,14 @@
  */
 package org.nuxeo.ecm.core.cache;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.nuxeo.common.xmap.annotation.XNode;
 import org.nuxeo.common.xmap.annotation.XNodeMap;
 import org.nuxeo.common.xmap.annotation.XObject;
@@ -36,6 +40,8 @@ import org.nuxeo.ecm.core.api.NuxeoException;
 @XObject("cache")
 public class CacheDescriptor {
 
+    private static final Log log = LogFactory.getLog(CacheDescriptor.class);
+
     @XNode("@name")
     public String name;
 
@@ -103,6 +109,14 @@ public class CacheDescriptor {
         if (cacheChecker == null) {
             return;
         }
+        if (cacheChecker.cache instanceof Closeable) {
+            // release resources such as subscriptions held by the implementation
+            try {
+                ((Closeable) cacheChecker.cache).close();
+            } catch (IOException e) {
+                log.error("Failed to close cache " + name, e);
+            }
+        }
         cacheChecker.cache = null;
         cacheChecker = null;
     }
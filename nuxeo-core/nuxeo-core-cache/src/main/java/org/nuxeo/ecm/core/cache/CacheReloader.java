@@ -0,0 +1,40 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.cache;
+
+import java.io.Serializable;
+
+/**
+ * Recomputes the value of a cache entry, used by {@link InMemoryCacheImpl} to refresh entries in the background when
+ * {@code refreshAfterWrite} is configured. Reads keep returning the old value until the new one is available.
+ *
+ * @since 9.1
+ */
+public interface CacheReloader {
+
+    /**
+     * Computes the new value of the key.
+     *
+     * @param key the key
+     * @param oldValue the current value, or {@code null} if the key is not in the cache
+     * @return the new value, or {@code null} to keep the current value
+     */
+    Serializable reload(String key, Serializable oldValue);
+
+}
@@ -0,0 +1,91 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.cache;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Default {@link CacheWeigher} estimating the size in bytes of a value from its strings, byte arrays, collections and
+ * maps, without serializing it. Other objects are given a fixed weight.
+ * <p>
+ * Use {@link SerializedSizeCacheWeigher} for an exact but costly weight.
+ *
+ * @since 9.1
+ */
+public class EstimatedSizeCacheWeigher implements CacheWeigher {
+
+    /** Weight of an object whose size is not estimated. */
+    protected static final int OBJECT_WEIGHT = 64;
+
+    /** Overhead of a reference, a collection entry or a boxed value. */
+    protected static final int REFERENCE_WEIGHT = 16;
+
+    /** Nesting level below which values are not explored anymore. */
+    protected static final int MAX_DEPTH = 8;
+
+    @Override
+    public int weigh(String key, Serializable value) {
+        long weight = 2L * key.length() + estimate(value, 0);
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    protected long estimate(Object value, int depth) {
+        if (value == null) {
+            return REFERENCE_WEIGHT;
+        }
+        if (value instanceof String) {
+            return REFERENCE_WEIGHT + 2L * ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return REFERENCE_WEIGHT + ((byte[]) value).length;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return REFERENCE_WEIGHT;
+        }
+        if (depth >= MAX_DEPTH) {
+            return OBJECT_WEIGHT;
+        }
+        long weight = REFERENCE_WEIGHT;
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                weight += estimate(item, depth + 1);
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                weight += estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive()) {
+                weight += 8L * length;
+            } else {
+                for (int i = 0; i < length; i++) {
+                    weight += estimate(Array.get(value, i), depth + 1);
+                }
+            }
+        } else {
+            weight = OBJECT_WEIGHT;
+        }
+        return weight;
+    }
+
+}
@@ -19,22 +19,70 @@
  */
 package org.nuxeo.ecm.core.cache;
 
+import java.io.Closeable;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.runtime.metrics.MetricsService;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * Default in memory implementation for cache management based on guava
+ * <p>
+ * Supported options:
+ * <ul>
+ * <li>{@code concurrencyLevel}: the guava concurrency level</li>
+ * <li>{@code maxSize}: maximum number of entries</li>
+ * <li>{@code maxWeight}: maximum total weight of the entries, as computed by the weigher, exclusive with
+ * {@code maxSize}</li>
+ * <li>{@code weigher}: the {@link CacheWeigher} class, defaults to {@link EstimatedSizeCacheWeigher}</li>
+ * <li>{@code refreshAfterWrite}: delay in seconds after which an entry is reloaded in the background on access</li>
+ * <li>{@code reloader}: the {@link CacheReloader} class computing refreshed values, required by
+ * {@code refreshAfterWrite}</li>
+ * <li>{@code reloaderThreads}: number of threads running the reloads, defaults to 1</li>
+ * </ul>
  *
  * @since 6.0
  */
-public class InMemoryCacheImpl extends AbstractCache {
+public class InMemoryCacheImpl extends AbstractCache implements Closeable {
+
+    /** @since 9.1 */
+    public static final String MAX_WEIGHT_OPTION = "maxWeight";
+
+    /** @since 9.1 */
+    public static final String WEIGHER_OPTION = "weigher";
+
+    /** @since 9.1 */
+    public static final String REFRESH_AFTER_WRITE_OPTION = "refreshAfterWrite";
+
+    /** @since 9.1 */
+    public static final String RELOADER_OPTION = "reloader";
+
+    /** @since 9.1 */
+    public static final String RELOADER_THREADS_OPTION = "reloaderThreads";
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected ExecutorService reloadExecutor;
 
     public InMemoryCacheImpl(CacheDescriptor desc) {
         super(desc);
@@ -43,16 +91,114 @@ public class InMemoryCacheImpl extends AbstractCache {
         if (desc.options.containsKey("concurrencyLevel")) {
             builder = builder.concurrencyLevel(Integer.valueOf(desc.options.get("concurrencyLevel")).intValue());
         }
-        if (desc.options.containsKey("maxSize")) {
+        if (desc.options.containsKey(MAX_WEIGHT_OPTION)) {
+            CacheWeigher weigher = newInstance(CacheWeigher.class, desc.options.get(WEIGHER_OPTION),
+                    EstimatedSizeCacheWeigher.class);
+            builder = builder.maximumWeight(Long.parseLong(desc.options.get(MAX_WEIGHT_OPTION).trim()))
+                             .weigher((k, v) -> weigher.weigh((String) k, (Serializable) v));
+        } else if (desc.options.containsKey("maxSize")) {
             builder = builder.maximumSize(Integer.valueOf(desc.options.get("maxSize")).intValue());
         }
-        cache = builder.build();
+        builder = builder.recordStats();
+        if (desc.options.containsKey(REFRESH_AFTER_WRITE_OPTION)) {
+            CacheReloader reloader = newInstance(CacheReloader.class, desc.options.get(RELOADER_OPTION), null);
+            builder = builder.refreshAfterWrite(Long.parseLong(desc.options.get(REFRESH_AFTER_WRITE_OPTION).trim()),
+                    TimeUnit.SECONDS);
+            String threads = desc.options.get(RELOADER_THREADS_OPTION);
+            reloadExecutor = Executors.newFixedThreadPool(threads == null ? 1 : Integer.parseInt(threads.trim()),
+                    new NamedThreadFactory("Nuxeo-Cache-Reloader-" + name));
+            cache = builder.build(CacheLoader.asyncReloading(new ReloaderCacheLoader(reloader), reloadExecutor));
+        } else {
+            cache = builder.build();
+        }
+        registerMetrics();
     }
 
     protected static final Log log = LogFactory.getLog(InMemoryCacheImpl.class);
 
     protected final Cache<String, Serializable> cache;
 
+    protected <T> T newInstance(Class<T> type, String className, Class<? extends T> defaultClass) {
+        try {
+            if (className == null) {
+                if (defaultClass == null) {
+                    throw new NuxeoException("Missing " + type.getSimpleName() + " class for cache " + name);
+                }
+                return defaultClass.newInstance();
+            }
+            return type.cast(Thread.currentThread().getContextClassLoader().loadClass(className.trim()).newInstance());
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new NuxeoException("Invalid " + type.getSimpleName() + " for cache " + name + ": " + className, e);
+        }
+    }
+
+    /**
+     * Loads values through the {@link CacheReloader}. Guava requires a loader to refresh entries but as values are
+     * only read with {@code getIfPresent}, {@link #load} is only called for the refresh of an evicted entry.
+     */
+    protected static class ReloaderCacheLoader extends CacheLoader<String, Serializable> {
+
+        protected final CacheReloader reloader;
+
+        protected ReloaderCacheLoader(CacheReloader reloader) {
+            this.reloader = reloader;
+        }
+
+        @Override
+        public Serializable load(String key) {
+            return reloader.reload(key, null);
+        }
+
+        @Override
+        public ListenableFuture<Serializable> reload(String key, Serializable oldValue) {
+            Serializable value = reloader.reload(key, oldValue);
+            return Futures.immediateFuture(value == null ? oldValue : value);
+        }
+
+    }
+
+    protected static class NamedThreadFactory implements ThreadFactory {
+
+        protected final String prefix;
+
+        protected final AtomicInteger count = new AtomicInteger();
+
+        protected NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+    protected String metricName(String metric) {
+        return MetricRegistry.name("nuxeo", "cache", name, metric);
+    }
+
+    protected void registerMetrics() {
+        unregisterMetrics();
+        registry.register(metricName("hit-ratio"), (Gauge<Double>) () -> Double.valueOf(cache.stats().hitRate()));
+        registry.register(metricName("size"), (Gauge<Long>) () -> Long.valueOf(cache.size()));
+        registry.register(metricName("eviction"), (Gauge<Long>) () -> Long.valueOf(cache.stats().evictionCount()));
+        registry.register(metricName("load-time"), (Gauge<Double>) () -> {
+            // average load time in milliseconds
+            CacheStats stats = cache.stats();
+            return Double.valueOf(stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1));
+        });
+        registry.register(metricName("load-failure"),
+                (Gauge<Long>) () -> Long.valueOf(cache.stats().loadExceptionCount()));
+    }
+
+    protected void unregisterMetrics() {
+        String prefix = metricName("") + ".";
+        registry.removeMatching((n, metric) -> n.startsWith(prefix));
+    }
+
     /**
      * Get the instance cache
      *
@@ -72,6 +218,11 @@ public class InMemoryCacheImpl extends AbstractCache {
         }
     }
 
+    @Override
+    public Map<String, Serializable> getAll(Collection<String> keys) {
+        return cache.getAllPresent(keys);
+    }
+
     @Override
     public Set<String> keySet() {
         return cache.asMap().keySet();
@@ -105,4 +256,21 @@ public class InMemoryCacheImpl extends AbstractCache {
         return cache.asMap().containsKey(key);
     }
 
+    /**
+     * Returns the statistics of the cache: hit ratio, load time, evictions.
+     *
+     * @since 9.1
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void close() {
+        unregisterMetrics();
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+        }
+    }
+
 }
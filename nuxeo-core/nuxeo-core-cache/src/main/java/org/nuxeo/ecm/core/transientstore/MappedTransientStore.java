@@ -0,0 +1,574 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.transientstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.impl.DocumentModelCodec;
+import org.nuxeo.ecm.core.api.impl.DocumentModelCodec.SchemaMismatchException;
+import org.nuxeo.ecm.core.transientstore.api.TransientStore;
+import org.nuxeo.ecm.core.transientstore.api.TransientStoreConfig;
+
+/**
+ * Non cluster aware {@link TransientStore} keeping its index in memory and spilling large entries to memory-mapped
+ * segment files.
+ * <p>
+ * When an entry is released, its parameters are serialized and moved to a {@link TransientStoreSegment} if they are
+ * larger than the {@code spillThreshold} option, so that idle entries do not hold the heap. The storage size, made of
+ * the blobs and of the spilled parameters, is maintained incrementally: garbage collection only expires entries by TTL
+ * and never walks the file system. Released entries are evicted in least recently used order whenever the storage size
+ * goes above {@code targetMaxSizeMB}, or when room is needed to stay below {@code absoluteMaxSizeMB}. A segment whose
+ * released records exceed {@code compactionThreshold} percent of its content is compacted: its live records are moved
+ * to the current segment and its file is deleted.
+ * <p>
+ * The store owns the {@code mapped} subdirectory of the transient store directory, which is emptied on startup as the
+ * index is not persisted.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@code spillThreshold}: serialized size in bytes above which the parameters of a released entry are spilled,
+ * defaults to 64KB</li>
+ * <li>{@code segmentSize}: size in bytes of a segment file, defaults to 16MB</li>
+ * <li>{@code compactionThreshold}: percentage of released bytes above which a segment is compacted, defaults to
+ * 50</li>
+ * <li>{@code compactCodec}: if {@code true}, spilled parameters are encoded with the {@link DocumentModelCodec}
+ * instead of Java serialization, defaults to {@code false}</li>
+ * </ul>
+ *
+ * @since 9.1
+ */
+public class MappedTransientStore extends AbstractTransientStore {
+
+    private static final Log log = LogFactory.getLog(MappedTransientStore.class);
+
+    public static final String SPILL_THRESHOLD_OPTION = "spillThreshold";
+
+    public static final String SEGMENT_SIZE_OPTION = "segmentSize";
+
+    public static final String COMPACTION_THRESHOLD_OPTION = "compactionThreshold";
+
+    public static final String COMPACT_CODEC_OPTION = "compactCodec";
+
+    // subdirectory owned by the store, holding the blobs and the segments
+    protected static final String STORE_DIR = "mapped";
+
+    // cannot collide with the Base64 name of an entry directory
+    protected static final String SEGMENTS_DIR = ".segments";
+
+    protected static final long MB = 1024 * 1024;
+
+    // access ordered, the eldest entry is the least recently used one
+    protected final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    protected final List<TransientStoreSegment> segments = new ArrayList<>();
+
+    protected final AtomicLong storageSize = new AtomicLong();
+
+    protected final AtomicLong spilledSize = new AtomicLong();
+
+    protected final AtomicLong spillCount = new AtomicLong();
+
+    protected final AtomicLong evictionCount = new AtomicLong();
+
+    protected final AtomicLong compactionCount = new AtomicLong();
+
+    protected TransientStoreSegment currentSegment;
+
+    protected int segmentCounter;
+
+    protected File segmentsDir;
+
+    protected int spillThreshold;
+
+    protected int segmentSize;
+
+    protected int compactionThreshold;
+
+    protected boolean compactCodec;
+
+    protected static class Entry {
+
+        protected Map<String, Serializable> params;
+
+        protected TransientStoreSegment segment;
+
+        protected int position;
+
+        protected int length;
+
+        protected List<Map<String, String>> blobInfos;
+
+        protected long size;
+
+        protected boolean completed;
+
+        protected boolean released;
+
+        protected long lastAccess;
+
+    }
+
+    @Override
+    public void init(TransientStoreConfig config) {
+        log.debug("Initializing MappedTransientStore: " + config.getName());
+        super.init(config);
+        spillThreshold = getIntOption(config, SPILL_THRESHOLD_OPTION, 64 * 1024);
+        segmentSize = getIntOption(config, SEGMENT_SIZE_OPTION, 16 * 1024 * 1024);
+        compactionThreshold = getIntOption(config, COMPACTION_THRESHOLD_OPTION, 50);
+        compactCodec = Boolean.parseBoolean(config.getOptions().get(COMPACT_CODEC_OPTION));
+        cacheDir = new File(cacheDir, STORE_DIR);
+        // the index is not persisted, the content left by a previous run cannot be reached anymore
+        try {
+            if (cacheDir.exists()) {
+                FileUtils.cleanDirectory(cacheDir);
+            } else {
+                cacheDir.mkdirs();
+            }
+        } catch (IOException e) {
+            log.error("Unable to clean transient store directory " + cacheDir, e);
+        }
+        segmentsDir = new File(cacheDir, SEGMENTS_DIR);
+        segmentsDir.mkdirs();
+    }
+
+    protected static int getIntOption(TransientStoreConfig config, String option, int defaultValue) {
+        String value = config.getOptions().get(option);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        log.debug("Shutting down MappedTransientStore: " + config.getName());
+        entries.clear();
+        for (TransientStoreSegment segment : segments) {
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                log.error("Unable to delete transient store segment " + segment.getFile(), e);
+            }
+        }
+        segments.clear();
+        currentSegment = null;
+    }
+
+    /**
+     * Returns the entry with the given {@code key}, marking it as the most recently used one.
+     */
+    protected Entry getEntry(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.lastAccess = System.currentTimeMillis();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the entry with the given {@code key} to be modified, creating it if needed. A modified entry is in use
+     * again and cannot be evicted until it is released.
+     */
+    protected Entry getEntryForUpdate(String key) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            entry = new Entry();
+            entry.lastAccess = System.currentTimeMillis();
+            entries.put(key, entry);
+        }
+        entry.released = false;
+        return entry;
+    }
+
+    @Override
+    public synchronized boolean exists(String key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public synchronized Set<String> keySet() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    @Override
+    public synchronized void putParameter(String key, String parameter, Serializable value) {
+        getWritableParams(getEntryForUpdate(key)).put(parameter, value);
+    }
+
+    @Override
+    public synchronized Serializable getParameter(String key, String parameter) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        return getReadableParams(entry).get(parameter);
+    }
+
+    @Override
+    public synchronized void putParameters(String key, Map<String, Serializable> parameters) {
+        getWritableParams(getEntryForUpdate(key)).putAll(parameters);
+    }
+
+    @Override
+    public synchronized Map<String, Serializable> getParameters(String key) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        return new HashMap<>(getReadableParams(entry));
+    }
+
+    /**
+     * Returns the parameters of the entry, reading them from their segment if they were spilled.
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<String, Serializable> getReadableParams(Entry entry) {
+        if (entry.segment != null) {
+            byte[] data = entry.segment.read(entry.position, entry.length);
+            try {
+                return (Map<String, Serializable>) DocumentModelCodec.decode(data);
+            } catch (SchemaMismatchException e) {
+                // spilled before a schema reload
+                log.debug("Ignoring transient store parameters: " + e.getMessage());
+                return new HashMap<>();
+            } catch (IOException e) {
+                throw new NuxeoException(e);
+            }
+        }
+        return entry.params == null ? new HashMap<>() : entry.params;
+    }
+
+    /**
+     * Returns the in-memory parameters of the entry, moving them back from their segment if they were spilled.
+     */
+    protected Map<String, Serializable> getWritableParams(Entry entry) {
+        if (entry.segment != null) {
+            entry.params = getReadableParams(entry);
+            freeSegmentSpace(entry);
+        } else if (entry.params == null) {
+            entry.params = new HashMap<>();
+        }
+        return entry.params;
+    }
+
+    @Override
+    public synchronized List<Blob> getBlobs(String key) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.blobInfos == null) {
+            return new ArrayList<>();
+        }
+        return loadBlobs(entry.blobInfos);
+    }
+
+    @Override
+    public synchronized long getSize(String key) {
+        Entry entry = getEntry(key);
+        return entry == null ? -1 : entry.size;
+    }
+
+    @Override
+    public synchronized boolean isCompleted(String key) {
+        Entry entry = getEntry(key);
+        return entry != null && entry.completed;
+    }
+
+    @Override
+    public synchronized void setCompleted(String key, boolean completed) {
+        getEntryForUpdate(key).completed = completed;
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            discard(key, entry);
+        }
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        entry.released = true;
+        spill(entry);
+        if (config.getTargetMaxSizeMB() >= 0) {
+            evict(config.getTargetMaxSizeMB() * MB);
+        }
+    }
+
+    @Override
+    public void putBlobs(String key, List<Blob> blobs) {
+        if (config.getAbsoluteMaxSizeMB() >= 0) {
+            // make room for the new blobs before checking the quota
+            synchronized (this) {
+                evict(config.getAbsoluteMaxSizeMB() * MB - getSizeOfBlobs(blobs));
+            }
+        }
+        super.putBlobs(key, blobs);
+    }
+
+    @Override
+    protected synchronized void persistBlobs(String key, long sizeOfBlobs, List<Map<String, String>> blobInfos) {
+        Entry entry = getEntryForUpdate(key);
+        if (entry.blobInfos != null) {
+            deleteReplacedBlobs(entry.blobInfos, blobInfos);
+        }
+        incrementStorageSize(sizeOfBlobs - entry.size);
+        entry.size = sizeOfBlobs;
+        entry.blobInfos = blobInfos;
+    }
+
+    protected void deleteReplacedBlobs(List<Map<String, String>> oldInfos, List<Map<String, String>> newInfos) {
+        Set<String> kept = new HashSet<>();
+        if (newInfos != null) {
+            newInfos.forEach(info -> kept.add(info.get("file")));
+        }
+        for (Map<String, String> info : oldInfos) {
+            if (!kept.contains(info.get("file"))) {
+                FileUtils.deleteQuietly(new File(cacheDir, info.get("file")));
+            }
+        }
+    }
+
+    /**
+     * Moves the parameters of the entry to a segment if their serialized form is large enough.
+     */
+    protected void spill(Entry entry) {
+        if (entry.params == null || entry.params.isEmpty()) {
+            return;
+        }
+        byte[] data;
+        if (compactCodec) {
+            try {
+                data = DocumentModelCodec.encode(new HashMap<>(entry.params));
+            } catch (IOException e) {
+                log.error("Unable to encode transient store entry, keeping it in memory", e);
+                return;
+            }
+        } else {
+            data = SerializationUtils.serialize(new HashMap<>(entry.params));
+        }
+        if (data.length < spillThreshold) {
+            return;
+        }
+        if (!appendToSegment(entry, data)) {
+            return;
+        }
+        entry.params = null;
+        spilledSize.addAndGet(data.length);
+        incrementStorageSize(data.length);
+        spillCount.incrementAndGet();
+    }
+
+    /**
+     * Appends the data of the entry to the current segment, rolling it if needed.
+     *
+     * @return {@code false} if no segment could be created, the entry being left unchanged
+     */
+    protected boolean appendToSegment(Entry entry, byte[] data) {
+        int position = currentSegment == null ? -1 : currentSegment.append(data);
+        if (position < 0) {
+            try {
+                rollSegment(data.length);
+            } catch (IOException e) {
+                log.error("Unable to create transient store segment in " + segmentsDir + ", keeping entry in memory", e);
+                return false;
+            }
+            position = currentSegment.append(data);
+        }
+        entry.segment = currentSegment;
+        entry.position = position;
+        entry.length = data.length;
+        return true;
+    }
+
+    protected void rollSegment(int minCapacity) throws IOException {
+        TransientStoreSegment previous = currentSegment;
+        File file = new File(segmentsDir, String.format("%08d.segment", Integer.valueOf(++segmentCounter)));
+        currentSegment = new TransientStoreSegment(file, Math.max(segmentSize, minCapacity));
+        segments.add(currentSegment);
+        if (previous != null && previous.getLiveBytes() <= 0) {
+            deleteSegment(previous);
+        }
+    }
+
+    protected void freeSegmentSpace(Entry entry) {
+        TransientStoreSegment segment = entry.segment;
+        if (segment == null) {
+            return;
+        }
+        entry.segment = null;
+        spilledSize.addAndGet(-entry.length);
+        decrementStorageSize(entry.length);
+        if (segment == currentSegment) {
+            segment.release(entry.length);
+        } else if (segment.release(entry.length)) {
+            deleteSegment(segment);
+        } else if (100L * (segment.getWrittenBytes() - segment.getLiveBytes()) > (long) compactionThreshold
+                * segment.getWrittenBytes()) {
+            compact(segment);
+        }
+    }
+
+    /**
+     * Moves the live records of a segment to the current segment, then deletes it.
+     */
+    protected void compact(TransientStoreSegment segment) {
+        for (Entry entry : entries.values()) {
+            if (entry.segment != segment) {
+                continue;
+            }
+            int length = entry.length;
+            byte[] data = segment.read(entry.position, length);
+            if (!appendToSegment(entry, data)) {
+                // the segment is kept with its remaining records
+                return;
+            }
+            segment.release(length);
+        }
+        deleteSegment(segment);
+        compactionCount.incrementAndGet();
+    }
+
+    protected void deleteSegment(TransientStoreSegment segment) {
+        segments.remove(segment);
+        try {
+            segment.delete();
+        } catch (IOException e) {
+            log.error("Unable to delete transient store segment " + segment.getFile(), e);
+        }
+    }
+
+    /**
+     * Releases the storage held by an entry already removed from the index.
+     */
+    protected void discard(String key, Entry entry) {
+        freeSegmentSpace(entry);
+        if (entry.size > 0) {
+            decrementStorageSize(entry.size);
+        }
+        FileUtils.deleteQuietly(new File(cacheDir, getCachingDirName(key)));
+    }
+
+    /**
+     * Evicts released entries, least recently used first, until the storage size is not above {@code target}.
+     */
+    protected void evict(long target) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (storageSize.get() > target && it.hasNext()) {
+            Map.Entry<String, Entry> next = it.next();
+            if (next.getValue().released) {
+                it.remove();
+                discard(next.getKey(), next.getValue());
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void doGC() {
+        log.debug(String.format("Performing GC for TransientStore %s", config.getName()));
+        long now = System.currentTimeMillis();
+        long inUseTTL = TimeUnit.MINUTES.toMillis(config.getFirstLevelTTL());
+        long releasedTTL = TimeUnit.MINUTES.toMillis(config.getSecondLevelTTL());
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> next = it.next();
+            Entry entry = next.getValue();
+            if (now - entry.lastAccess > (entry.released ? releasedTTL : inUseTTL)) {
+                it.remove();
+                discard(next.getKey(), entry);
+            }
+        }
+        if (config.getTargetMaxSizeMB() >= 0) {
+            evict(config.getTargetMaxSizeMB() * MB);
+        }
+    }
+
+    @Override
+    protected synchronized void removeAllEntries() {
+        log.debug("Removing all entries from MappedTransientStore " + config.getName());
+        entries.forEach(this::discard);
+        entries.clear();
+    }
+
+    @Override
+    public long getStorageSize() {
+        return storageSize.get();
+    }
+
+    @Override
+    protected void setStorageSize(long newSize) {
+        storageSize.set(newSize);
+    }
+
+    @Override
+    protected long incrementStorageSize(long size) {
+        return storageSize.addAndGet(size);
+    }
+
+    @Override
+    protected long decrementStorageSize(long size) {
+        return storageSize.addAndGet(-size);
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of bytes of parameters currently spilled to segments.
+     */
+    public long getSpilledSize() {
+        return spilledSize.get();
+    }
+
+    public long getSpillCount() {
+        return spillCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getCompactionCount() {
+        return compactionCount.get();
+    }
+
+}
@@ -25,10 +25,15 @@ import java.util.Map;
 import org.nuxeo.ecm.core.transientstore.api.TransientStore;
 import org.nuxeo.ecm.core.transientstore.api.TransientStoreConfig;
 import org.nuxeo.ecm.core.transientstore.api.TransientStoreService;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.model.ComponentContext;
 import org.nuxeo.runtime.model.ComponentInstance;
 import org.nuxeo.runtime.model.DefaultComponent;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
 /**
  * Component exposing the {@link TransientStoreService} and managing the unerlying extension point
  *
@@ -45,6 +50,8 @@ public class TransientStorageComponent extends DefaultComponent implements Trans
 
     public static final String DEFAULT_STORE_NAME = "default";
 
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
     @Override
     public TransientStore getStore(String name) {
         TransientStore store = stores.get(name);
@@ -64,6 +71,7 @@ public class TransientStorageComponent extends DefaultComponent implements Trans
                 TransientStoreConfig defaultConfig = new TransientStoreConfig(DEFAULT_STORE_NAME);
                 defaultStore = defaultConfig.getStore();
                 stores.put(defaultConfig.getName(), defaultStore);
+                registerMetrics(DEFAULT_STORE_NAME, defaultStore);
             }
             return defaultStore;
         }
@@ -87,6 +95,7 @@ public class TransientStorageComponent extends DefaultComponent implements Trans
         if (EP_STORE.equals(extensionPoint)) {
             TransientStoreConfig config = (TransientStoreConfig) contribution;
             TransientStore store = stores.get(config.getName());
+            unregisterMetrics(config.getName());
             store.shutdown();
         }
     }
@@ -101,11 +110,49 @@ public class TransientStorageComponent extends DefaultComponent implements Trans
     protected TransientStore registerStore(TransientStoreConfig config) {
         TransientStore store = config.getStore();
         stores.put(config.getName(), store);
+        registerMetrics(config.getName(), store);
         return store;
     }
 
+    protected String metricName(String storeName, String metric) {
+        return MetricRegistry.name("nuxeo", "transientstore", storeName, metric);
+    }
+
+    /**
+     * Registers the gauges of a store: its storage size in bytes and, for a {@link MappedTransientStore}, its number
+     * of entries, spilled bytes, spills and evictions.
+     *
+     * @since 9.1
+     */
+    protected void registerMetrics(String storeName, TransientStore store) {
+        unregisterMetrics(storeName);
+        if (store instanceof AbstractTransientStore) {
+            AbstractTransientStore ats = (AbstractTransientStore) store;
+            registry.register(metricName(storeName, "size"), (Gauge<Long>) () -> Long.valueOf(ats.getStorageSize()));
+        } else {
+            registry.register(metricName(storeName, "size"),
+                    (Gauge<Long>) () -> Long.valueOf(store.getStorageSizeMB() * 1024L * 1024L));
+        }
+        if (store instanceof MappedTransientStore) {
+            MappedTransientStore mts = (MappedTransientStore) store;
+            registry.register(metricName(storeName, "entries"),
+                    (Gauge<Integer>) () -> Integer.valueOf(mts.getEntryCount()));
+            registry.register(metricName(storeName, "spilled-size"),
+                    (Gauge<Long>) () -> Long.valueOf(mts.getSpilledSize()));
+            registry.register(metricName(storeName, "spill"), (Gauge<Long>) () -> Long.valueOf(mts.getSpillCount()));
+            registry.register(metricName(storeName, "eviction"),
+                    (Gauge<Long>) () -> Long.valueOf(mts.getEvictionCount()));
+        }
+    }
+
+    protected void unregisterMetrics(String storeName) {
+        String prefix = metricName(storeName, "") + ".";
+        registry.removeMatching((name, metric) -> name.startsWith(prefix));
+    }
+
     @Override
     public void deactivate(ComponentContext context) {
+        stores.keySet().forEach(this::unregisterMetrics);
         stores.values().forEach(TransientStore::shutdown);
         super.deactivate(context);
     }
@@ -0,0 +1,124 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.transientstore;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fixed size, memory-mapped file used by {@link MappedTransientStore} to hold spilled entries.
+ * <p>
+ * Records are only appended, the space of a released record is reclaimed when the segment is deleted, once its live
+ * records have been released or moved to another segment. Callers must serialize accesses.
+ *
+ * @since 9.1
+ */
+public class TransientStoreSegment implements Closeable {
+
+    protected final File file;
+
+    protected final int capacity;
+
+    protected final FileChannel channel;
+
+    protected final MappedByteBuffer buffer;
+
+    protected int position;
+
+    protected long liveBytes;
+
+    public TransientStoreSegment(File file, int capacity) throws IOException {
+        this.file = file;
+        this.capacity = capacity;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @return the position of the record, or -1 if the segment does not have enough room left
+     */
+    public int append(byte[] data) {
+        if (position + data.length > capacity) {
+            return -1;
+        }
+        int pos = position;
+        ByteBuffer target = buffer.duplicate();
+        target.position(pos);
+        target.put(data);
+        position += data.length;
+        liveBytes += data.length;
+        return pos;
+    }
+
+    public byte[] read(int pos, int length) {
+        byte[] data = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(pos);
+        source.get(data);
+        return data;
+    }
+
+    /**
+     * Marks a record as no longer used.
+     *
+     * @return {@code true} if the segment does not hold any live record anymore
+     */
+    public boolean release(int length) {
+        liveBytes -= length;
+        return liveBytes <= 0;
+    }
+
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Returns the number of bytes appended to the segment, live or released.
+     */
+    public int getWrittenBytes() {
+        return position;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Closes the segment and deletes its file.
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -19,8 +19,12 @@
 
 package org.nuxeo.ecm.core.transientstore.api;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.nuxeo.common.xmap.XMap;
 import org.nuxeo.common.xmap.annotation.XNode;
+import org.nuxeo.common.xmap.annotation.XNodeMap;
 import org.nuxeo.common.xmap.annotation.XObject;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.transientstore.SimpleTransientStore;
@@ -57,6 +61,14 @@ public class TransientStoreConfig {
     @XNode("@class")
     protected Class<? extends TransientStore> implClass = SimpleTransientStore.class;
 
+    /**
+     * Implementation specific options.
+     *
+     * @since 9.1
+     */
+    @XNodeMap(value = "option", key = "@name", type = HashMap.class, componentType = String.class)
+    protected Map<String, String> options = new HashMap<>();
+
     protected TransientStore store;
 
     public TransientStoreConfig() {
@@ -102,6 +114,13 @@ public class TransientStoreConfig {
         this.secondLevelTTL = secondLevelTTL;
     }
 
+    /**
+     * @since 9.1
+     */
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
     public TransientStore getStore() {
         if (store == null) {
             try {
@@ -23,6 +23,10 @@ package org.nuxeo.ecm.core.cache;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -73,6 +77,18 @@ public class CacheComplianceFixture {
         Assert.assertEquals("val2", val2);
     }
 
+    @Test
+    public void getAllPutAll() {
+        Map<String, Serializable> values = new HashMap<>();
+        values.put("key2", "val2");
+        values.put("key3", "val3");
+        defaultCache.putAll(values);
+        Map<String, Serializable> found = defaultCache.getAll(Arrays.asList(CacheFeature.KEY, "key3", "key-not-exist"));
+        Assert.assertEquals(2, found.size());
+        Assert.assertEquals(CacheFeature.VAL, found.get(CacheFeature.KEY));
+        Assert.assertEquals("val3", found.get("key3"));
+    }
+
     @Test
     public void putNullKey() throws IOException {
         try {
@@ -21,6 +21,9 @@
 package org.nuxeo.ecm.core.cache;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -29,6 +32,7 @@ import junit.framework.Assert;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
 
@@ -59,6 +63,74 @@ public class TestInMemoryCacheService {
         Assert.assertNull(maxSizeCache.get("key"));
     }
 
+    public static class LengthWeigher implements CacheWeigher {
+
+        @Override
+        public int weigh(String key, Serializable value) {
+            return ((String) value).length();
+        }
+
+    }
+
+    @Test
+    public void maxWeightExceeded() {
+        Cache maxWeightCache = Framework.getService(CacheService.class).getCache("maxweight-test-cache");
+        maxWeightCache.put("key1", "12345");
+        maxWeightCache.put("key2", "1234");
+        Assert.assertNotNull(maxWeightCache.get("key1"));
+        Assert.assertNotNull(maxWeightCache.get("key2"));
+        // total weight goes over 10, the least recently used entry is evicted
+        maxWeightCache.put("key3", "12");
+        Assert.assertNotNull(maxWeightCache.get("key3"));
+        Assert.assertNull(maxWeightCache.get("key1"));
+
+        InMemoryCacheImpl impl = CacheFeature.unwrapImpl(InMemoryCacheImpl.class, maxWeightCache);
+        Assert.assertTrue(impl.getStats().hitCount() > 0);
+    }
+
+    @Test
+    public void estimatedWeight() {
+        CacheWeigher weigher = new EstimatedSizeCacheWeigher();
+        // not serializable content is weighed as well
+        ArrayList<Object> list = new ArrayList<>(Arrays.asList("abc", new Object()));
+        Assert.assertTrue(weigher.weigh("key", list) > 0);
+        Assert.assertTrue(weigher.weigh("key", "1234567890") > weigher.weigh("key", "1"));
+        Assert.assertTrue(weigher.weigh("key", new byte[1000]) >= 1000);
+    }
+
+    public static class SuffixReloader implements CacheReloader {
+
+        @Override
+        public Serializable reload(String key, Serializable oldValue) {
+            if (key.startsWith("keep")) {
+                return null;
+            }
+            return oldValue + "-reloaded";
+        }
+
+    }
+
+    @Test
+    public void refreshAfterWrite() throws InterruptedException {
+        Cache refreshCache = Framework.getService(CacheService.class).getCache("refresh-test-cache");
+        refreshCache.put("key", "val");
+        refreshCache.put("keep", "val");
+        Assert.assertEquals("val", refreshCache.get("key"));
+
+        Thread.sleep(1100);
+        // the stale value is still returned while it is reloaded in the background
+        Assert.assertEquals("val", refreshCache.get("key"));
+        Assert.assertEquals("val", refreshCache.get("keep"));
+        Serializable value = refreshCache.get("key");
+        for (int i = 0; i < 50 && "val".equals(value); i++) {
+            Thread.sleep(100);
+            value = refreshCache.get("key");
+        }
+        Assert.assertEquals("val-reloaded", value);
+        // a null reload keeps the current value
+        Assert.assertEquals("val", refreshCache.get("keep"));
+    }
+
     @Test
     public void maxSizeExceeded() throws IOException {
         // Default test config set to 3 the maxSize, and the cache already
@@ -0,0 +1,150 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.transientstore.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.impl.blob.StringBlob;
+import org.nuxeo.ecm.core.transientstore.MappedTransientStore;
+import org.nuxeo.ecm.core.transientstore.api.TransientStoreService;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * @since 9.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features(MappedTransientStoreFeature.class)
+@Deploy("org.nuxeo.ecm.core.event")
+public class TestMappedTransientStore {
+
+    protected MappedTransientStore getStore() {
+        return getStore("spillStore");
+    }
+
+    protected MappedTransientStore getStore(String name) {
+        return (MappedTransientStore) Framework.getService(TransientStoreService.class).getStore(name);
+    }
+
+    @Test
+    public void testSpillOnRelease() {
+        MappedTransientStore ts = getStore();
+        long spills = ts.getSpillCount();
+        ts.putParameter("1", "A", "value");
+        assertEquals(0, ts.getSpilledSize());
+
+        ts.release("1");
+        assertEquals(spills + 1, ts.getSpillCount());
+        long spilled = ts.getSpilledSize();
+        assertTrue(spilled > 0);
+        assertEquals(spilled, ts.getStorageSize());
+        assertEquals("value", ts.getParameter("1", "A"));
+        assertEquals(1, ts.getParameters("1").size());
+
+        // updating the entry moves it back to memory
+        ts.putParameter("1", "B", "other");
+        assertEquals(0, ts.getSpilledSize());
+        assertEquals(0, ts.getStorageSize());
+        assertEquals("value", ts.getParameter("1", "A"));
+        assertEquals("other", ts.getParameter("1", "B"));
+    }
+
+    @Test
+    public void testSpillWithCompactCodec() {
+        MappedTransientStore ts = getStore("compactSpillStore");
+        ts.putParameter("1", "A", "value");
+        ts.putParameter("1", "B", Long.valueOf(42));
+        ts.release("1");
+        assertTrue(ts.getSpilledSize() > 0);
+        assertEquals("value", ts.getParameter("1", "A"));
+        assertEquals(Long.valueOf(42), ts.getParameter("1", "B"));
+        ts.remove("1");
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        MappedTransientStore ts = getStore();
+        long evictions = ts.getEvictionCount();
+        String content = StringUtils.repeat("a", 400 * 1024);
+        ts.putBlobs("A", Collections.singletonList(new StringBlob(content)));
+        ts.putBlobs("B", Collections.singletonList(new StringBlob(content)));
+        ts.release("A");
+        ts.release("B");
+        assertEquals(2, ts.getEntryCount());
+
+        // A becomes more recently used than B
+        assertEquals(400 * 1024, ts.getSize("A"));
+
+        // going above the 1MB target evicts B
+        ts.putBlobs("C", Collections.singletonList(new StringBlob(content)));
+        assertEquals(3, ts.getEntryCount());
+        ts.release("C");
+        assertEquals(evictions + 1, ts.getEvictionCount());
+        assertTrue(ts.exists("A"));
+        assertFalse(ts.exists("B"));
+        assertTrue(ts.exists("C"));
+        assertEquals(2 * 400 * 1024, ts.getStorageSize());
+    }
+
+    @Test
+    public void testCompactMostlyReleasedSegment() {
+        MappedTransientStore ts = getStore();
+        // a record larger than a segment gets a full segment of its own, the next ones start a new segment
+        ts.putParameter("big", "A", StringUtils.repeat("b", 5000));
+        ts.release("big");
+        ts.putParameter("K1", "A", StringUtils.repeat("1", 1800));
+        ts.release("K1");
+        ts.putParameter("K2", "A", StringUtils.repeat("2", 1000));
+        ts.release("K2");
+        // does not fit in the segment of K1 and K2, which is not current anymore
+        ts.putParameter("K3", "A", StringUtils.repeat("3", 3000));
+        ts.release("K3");
+        long compactions = ts.getCompactionCount();
+        long spilled = ts.getSpilledSize();
+
+        // most of the segment is released, K2 is moved
+        ts.remove("K1");
+        assertEquals(compactions + 1, ts.getCompactionCount());
+        assertTrue(ts.getSpilledSize() < spilled);
+        assertEquals(StringUtils.repeat("2", 1000), ts.getParameter("K2", "A"));
+        assertEquals(StringUtils.repeat("3", 3000), ts.getParameter("K3", "A"));
+        ts.remove("K2");
+        ts.remove("K3");
+        ts.remove("big");
+    }
+
+    @Test
+    public void testOwnDirectory() {
+        MappedTransientStore ts = getStore();
+        File dir = ts.getCachingDirectory("key");
+        assertEquals("mapped", dir.getParentFile().getName());
+        assertEquals("spillStore", dir.getParentFile().getParentFile().getName());
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.api;
+
+/**
+ * Progress of a bulk conversion, see {@link ConversionService#scheduleBulkConversion}.
+ *
+ * @since 9.1
+ */
+public class BulkConversionStatus {
+
+    public final String id;
+
+    /** Number of jobs submitted so far. */
+    public final long submitted;
+
+    /** Number of jobs converted successfully. */
+    public final long completed;
+
+    /** Number of jobs whose conversion failed or did not return a result. */
+    public final long failed;
+
+    /** Whether all the jobs have been submitted. */
+    public final boolean submissionDone;
+
+    /** Start time of the bulk conversion, in milliseconds. */
+    public final long startTime;
+
+    /** Time of this status, in milliseconds. */
+    public final long time;
+
+    public BulkConversionStatus(String id, long submitted, long completed, long failed, boolean submissionDone,
+            long startTime, long time) {
+        this.id = id;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.submissionDone = submissionDone;
+        this.startTime = startTime;
+        this.time = time;
+    }
+
+    public boolean isDone() {
+        return submissionDone && completed + failed >= submitted;
+    }
+
+    /**
+     * Returns the number of jobs processed per second since the start.
+     */
+    public double getThroughput() {
+        long elapsed = time - startTime;
+        return elapsed <= 0 ? 0 : (completed + failed) * 1000.0 / elapsed;
+    }
+
+    /**
+     * Returns the estimated time in milliseconds until all the jobs submitted so far are processed, or -1 if it cannot
+     * be estimated yet.
+     */
+    public long getEta() {
+        long remaining = submitted - completed - failed;
+        if (remaining <= 0) {
+            return 0;
+        }
+        double throughput = getThroughput();
+        return throughput == 0 ? -1 : (long) (remaining * 1000 / throughput);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d/%d completed, %d failed, %.1f/s, eta %dms", id, completed, submitted, failed,
+                getThroughput(), getEta());
+    }
+
+}
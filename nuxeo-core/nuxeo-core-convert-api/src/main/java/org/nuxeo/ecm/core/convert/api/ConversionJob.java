@@ -0,0 +1,70 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.api;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+
+/**
+ * A conversion of a bulk conversion, see {@link ConversionService#scheduleBulkConversion}.
+ * <p>
+ * The job id identifies the result of the conversion, it must be unique among the jobs being converted.
+ *
+ * @since 9.1
+ */
+public class ConversionJob {
+
+    public final String id;
+
+    public final String converterName;
+
+    public final String destinationMimeType;
+
+    public final BlobHolder blobHolder;
+
+    public final Map<String, Serializable> parameters;
+
+    protected ConversionJob(String id, String converterName, String destinationMimeType, BlobHolder blobHolder,
+            Map<String, Serializable> parameters) {
+        this.id = id;
+        this.converterName = converterName;
+        this.destinationMimeType = destinationMimeType;
+        this.blobHolder = blobHolder;
+        this.parameters = parameters;
+    }
+
+    /**
+     * A job converting the given {@link BlobHolder} with a converter.
+     */
+    public static ConversionJob withConverter(String id, String converterName, BlobHolder blobHolder,
+            Map<String, Serializable> parameters) {
+        return new ConversionJob(id, converterName, null, blobHolder, parameters);
+    }
+
+    /**
+     * A job converting the given {@link BlobHolder} to a destination mime type.
+     */
+    public static ConversionJob toMimeType(String id, String destinationMimeType, BlobHolder blobHolder,
+            Map<String, Serializable> parameters) {
+        return new ConversionJob(id, null, destinationMimeType, blobHolder, parameters);
+    }
+
+}
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
@@ -131,4 +132,25 @@ public interface ConversionService {
      * @since 7.4
      */
     BlobHolder getConversionResult(String id, boolean cleanTransientStoreEntry);
+
+    /**
+     * Schedules the conversion of a stream of jobs, typically for backfilling renditions.
+     * <p>
+     * Jobs are grouped by converter into batches run by the WorkManager. The stream is consumed in the calling thread,
+     * which blocks while too many batches are waiting to be run. The result of each job is available through
+     * {@link #getConversionResult(String, boolean)} with the job id.
+     * <p>
+     * Returns a bulk conversion id to be used by {@link #getBulkConversionStatus(String)}.
+     *
+     * @since 9.1
+     */
+    String scheduleBulkConversion(Stream<ConversionJob> jobs);
+
+    /**
+     * Returns the progress of a bulk conversion given its {@code id}, or {@code null} if it is unknown.
+     *
+     * @since 9.1
+     */
+    BulkConversionStatus getBulkConversionStatus(String id);
+
 }
@@ -0,0 +1,220 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.plugins.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.edit.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
+import org.nuxeo.ecm.core.convert.extension.ConverterDescriptor;
+import org.nuxeo.ecm.core.convert.plugins.text.extractors.PDF2TextConverter;
+import org.nuxeo.ecm.core.convert.plugins.text.extractors.PPTX2TextConverter;
+import org.nuxeo.ecm.core.convert.plugins.text.extractors.StreamingTextConverter;
+import org.nuxeo.ecm.core.convert.plugins.text.extractors.XLX2TextConverter;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Checks the streaming text extractors on generated documents, and their truncation.
+ *
+ * @since 9.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+public class TestStreamingTextConverters {
+
+    protected static final int ROWS = 50_000;
+
+    protected static final int COLUMNS = 10;
+
+    protected File xlsx;
+
+    @Before
+    public void createSpreadsheet() throws IOException {
+        xlsx = Framework.createTempFile("nxtext-", ".xlsx");
+        // keeps only 100 rows in memory while writing
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try (OutputStream out = new FileOutputStream(xlsx)) {
+            Sheet sheet = workbook.createSheet();
+            for (int i = 0; i < ROWS; i++) {
+                Row row = sheet.createRow(i);
+                for (int j = 0; j < COLUMNS; j++) {
+                    row.createCell(j).setCellValue("r" + i + "c" + j + " ");
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    @After
+    public void deleteSpreadsheet() {
+        xlsx.delete();
+    }
+
+    protected Blob extract(StreamingTextConverter converter, File file, String mimeType, String maxTextSize)
+            throws IOException {
+        ConverterDescriptor descriptor = new ConverterDescriptor();
+        if (maxTextSize != null) {
+            descriptor.getParameters().put(StreamingTextConverter.MAX_TEXT_SIZE, maxTextSize);
+        }
+        converter.init(descriptor);
+        Blob blob = Blobs.createBlob(file, mimeType);
+        BlobHolder result = converter.convert(new SimpleBlobHolder(blob), null);
+        return result.getBlob();
+    }
+
+    protected Blob extract(String maxTextSize) throws IOException {
+        return extract(new XLX2TextConverter(), xlsx,
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", maxTextSize);
+    }
+
+    @Test
+    public void testTruncation() throws Exception {
+        String text = extract("1000").getString();
+        assertEquals(1000, text.length());
+        assertTrue(text, text.startsWith("r0c0r0c1"));
+    }
+
+    @Test
+    public void testLargeSpreadsheet() throws Exception {
+        Blob text = extract(null);
+        // the text is not held in memory
+        assertTrue(text.getFile() != null);
+        String content = text.getString();
+        assertEquals(ROWS, content.split("\n").length);
+        assertTrue(content.endsWith("r" + (ROWS - 1) + "c" + (COLUMNS - 1) + "\n"));
+    }
+
+    /**
+     * Gives access to the sheet handler to parse a sheet written by hand.
+     */
+    protected static class SheetParser extends XLX2TextConverter {
+
+        public String parse(String sheet) throws Exception {
+            StringWriter writer = new StringWriter();
+            XMLReader reader = newXMLReader();
+            reader.setContentHandler(new SheetHandler(null, writer));
+            reader.parse(new InputSource(new StringReader(sheet)));
+            return writer.toString();
+        }
+
+    }
+
+    @Test
+    public void testSpreadsheetCellTypes() throws Exception {
+        String sheet = "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>" //
+                + "<row r=\"1\">" //
+                + "<c r=\"A1\" t=\"inlineStr\"><is><t>text</t></is></c>" //
+                + "<c r=\"B1\"><v>12</v></c>" //
+                + "<c r=\"C1\" t=\"d\"><v>2017-02-28T10:30:00</v></c>" //
+                + "<c r=\"D1\"><f>B1*2</f><v>24</v></c>" //
+                + "</row></sheetData></worksheet>";
+        assertEquals("text12.02017-02-28T10:30:00\n", new SheetParser().parse(sheet));
+    }
+
+    @Test
+    public void testPresentationSlidesOrder() throws Exception {
+        File pptx = Framework.createTempFile("nxtext-", ".pptx");
+        try {
+            XMLSlideShow slideShow = new XMLSlideShow();
+            for (int i = 1; i <= 12; i++) {
+                slideShow.createSlide().createTextBox().addNewTextParagraph().addNewTextRun().setText("slide" + i);
+            }
+            try (OutputStream out = new FileOutputStream(pptx)) {
+                slideShow.write(out);
+            }
+            String text = extract(new PPTX2TextConverter(), pptx,
+                    "application/vnd.openxmlformats-officedocument.presentationml.presentation", null).getString();
+            // slides are ordered by number, not by name
+            int previous = -1;
+            for (int i = 1; i <= 12; i++) {
+                int index = text.indexOf("slide" + i + "\n");
+                assertTrue(text, index > previous);
+                previous = index;
+            }
+        } finally {
+            pptx.delete();
+        }
+    }
+
+    @Test
+    public void testPDFPages() throws Exception {
+        File pdf = Framework.createTempFile("nxtext-", ".pdf");
+        try {
+            PDDocument document = new PDDocument();
+            try {
+                for (int i = 1; i <= 3; i++) {
+                    PDPage page = new PDPage();
+                    document.addPage(page);
+                    PDPageContentStream content = new PDPageContentStream(document, page);
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.moveTextPositionByAmount(100, 700);
+                    content.drawString("page" + i);
+                    content.endText();
+                    content.close();
+                }
+                document.save(pdf.getPath());
+            } finally {
+                document.close();
+            }
+            String text = extract(new PDF2TextConverter(), pdf, "application/pdf", null).getString();
+            assertTrue(text, text.indexOf("page1") >= 0);
+            assertTrue(text, text.indexOf("page2") > text.indexOf("page1"));
+            assertTrue(text, text.indexOf("page3") > text.indexOf("page2"));
+
+            // stops before the second page
+            int max = text.indexOf("page2");
+            String truncated = extract(new PDF2TextConverter(), pdf, "application/pdf",
+                    String.valueOf(max)).getString();
+            assertEquals(text.substring(0, max), truncated);
+        } finally {
+            pdf.delete();
+        }
+    }
+
+}
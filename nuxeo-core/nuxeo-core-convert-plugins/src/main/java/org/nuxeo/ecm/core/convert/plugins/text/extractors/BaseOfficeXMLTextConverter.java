@@ -39,7 +39,9 @@ import org.xml.sax.XMLReader;
  * Base class that contains SAX based text extractor fallback
  *
  * @author <a href="mailto:tdelprat@nuxeo.com">Tiry</a>
+ * @deprecated since 9.1, the Office XML extractors stream their content, use {@link StreamingTextConverter}
  */
+@Deprecated
 public abstract class BaseOfficeXMLTextConverter implements Converter {
 
     public static final String MAX_SIZE = "MAX_SIZE";
@@ -0,0 +1,97 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.plugins.text.extractors;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer accepting a maximum number of characters.
+ * <p>
+ * The characters fitting under the limit are written, then a {@link LimitReachedException} is thrown so that the
+ * extraction feeding the writer can stop.
+ *
+ * @since 9.1
+ */
+public class BoundedTextWriter extends Writer {
+
+    /**
+     * Thrown when the maximum number of characters has been written.
+     */
+    public static class LimitReachedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public LimitReachedException(long maxChars) {
+            super("Maximum extracted text size reached: " + maxChars);
+        }
+
+    }
+
+    protected final Writer out;
+
+    protected final long maxChars;
+
+    protected long written;
+
+    protected boolean truncated;
+
+    /**
+     * @param maxChars the maximum number of characters, 0 or less for no limit
+     */
+    public BoundedTextWriter(Writer out, long maxChars) {
+        this.out = out;
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (maxChars > 0 && written + len > maxChars) {
+            int room = (int) (maxChars - written);
+            out.write(cbuf, off, room);
+            written += room;
+            truncated = true;
+            throw new LimitReachedException(maxChars);
+        }
+        out.write(cbuf, off, len);
+        written += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Returns {@code true} if some text was dropped because of the limit.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+}
@@ -19,67 +19,37 @@
  */
 package org.nuxeo.ecm.core.convert.plugins.text.extractors;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.Serializable;
-import java.util.Map;
+import java.io.Writer;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.poi.POITextExtractor;
 import org.apache.poi.extractor.ExtractorFactory;
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.xmlbeans.XmlException;
 
 import org.nuxeo.ecm.core.api.Blob;
-import org.nuxeo.ecm.core.api.Blobs;
-import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
-import org.nuxeo.ecm.core.convert.api.ConversionException;
-import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
-import org.nuxeo.ecm.core.convert.extension.Converter;
-import org.nuxeo.ecm.core.convert.extension.ConverterDescriptor;
-import org.nuxeo.runtime.api.Framework;
 
-public class MSOffice2TextConverter implements Converter {
+public class MSOffice2TextConverter extends StreamingTextConverter {
 
     @Override
-    public BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters) throws ConversionException {
-
-        File f = null;
-        OutputStream fas = null;
-
-        try {
-            POITextExtractor extractor = ExtractorFactory.createExtractor(blobHolder.getBlob().getStream());
+    protected void extractText(Blob blob, Writer writer) throws IOException {
+        // use the event based extractors when POI has one for the format, restoring the preference of the thread
+        // which may be pooled
+        boolean prefersEventExtractors = ExtractorFactory.getThreadPrefersEventExtractors();
+        ExtractorFactory.setThreadPrefersEventExtractors(true);
+        try (InputStream in = blob.getStream()) {
+            POITextExtractor extractor = ExtractorFactory.createExtractor(in);
             // TODO: find a way to distinguish headings from paragraphs using
             // WordExtractor#getParagraphText()?
 
             // Get extracted text with Unix end of line characters
-            String extractedText = extractor.getText().replace("\r\n", "\n");
-
-            byte[] bytes = extractedText.getBytes("UTF-8");
-            f = Framework.createTempFile("po-msoffice2text", ".txt");
-            fas = new FileOutputStream(f);
-            fas.write(bytes);
-
-            try (InputStream is = new FileInputStream(f)) {
-                Blob blob = Blobs.createBlob(is, "text/plain", "UTF-8");
-                return new SimpleCachableBlobHolder(blob);
-            }
-        } catch (IOException | OpenXML4JException | XmlException e) {
-            throw new ConversionException("Error during MSOffice2Text conversion", e);
+            writer.write(extractor.getText().replace("\r\n", "\n"));
+        } catch (OpenXML4JException | XmlException e) {
+            throw new IOException(e);
         } finally {
-            IOUtils.closeQuietly(fas);
-            if (f != null) {
-                f.delete();
-            }
+            ExtractorFactory.setThreadPrefersEventExtractors(prefersEventExtractors);
         }
     }
 
-    @Override
-    public void init(ConverterDescriptor descriptor) {
-    }
-
 }
@@ -20,11 +20,9 @@
 package org.nuxeo.ecm.core.convert.plugins.text.extractors;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.Serializable;
+import java.io.InputStream;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.util.HashSet;
 import java.util.List;
@@ -34,6 +32,7 @@ import java.util.Set;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.io.RandomAccessFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
 import org.apache.pdfbox.util.PDFOperator;
@@ -42,15 +41,9 @@ import org.apache.pdfbox.util.PDFTextStripper;
 import org.apache.pdfbox.util.operator.OperatorProcessor;
 
 import org.nuxeo.ecm.core.api.Blob;
-import org.nuxeo.ecm.core.api.Blobs;
-import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
-import org.nuxeo.ecm.core.convert.api.ConversionException;
-import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
-import org.nuxeo.ecm.core.convert.extension.Converter;
-import org.nuxeo.ecm.core.convert.extension.ConverterDescriptor;
 import org.nuxeo.runtime.api.Framework;
 
-public class PDF2TextConverter implements Converter {
+public class PDF2TextConverter extends StreamingTextConverter {
 
     public static class PatchedPDFTextStripper extends PDFTextStripper {
 
@@ -115,13 +108,14 @@ public class PDF2TextConverter implements Converter {
     private static final Log log = LogFactory.getLog(PDF2TextConverter.class);
 
     @Override
-    public BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters) throws ConversionException {
-
+    protected void extractText(Blob blob, Writer writer) throws IOException {
+        // keep the parsed objects in a scratch file rather than in memory
+        File scratch = Framework.createTempFile("pdfbox", ".tmp");
+        RandomAccessFile scratchFile = null;
         PDDocument document = null;
-        File f = null;
-        OutputStream fas = null;
-        try {
-            document = PDDocument.load(blobHolder.getBlob().getStream());
+        try (InputStream in = blob.getStream()) {
+            scratchFile = new RandomAccessFile(scratch, "rw");
+            document = PDDocument.load(in, scratchFile);
             // NXP-1556: if document is protected an IOException will be raised
             // Instead of catching the exception based on its message string
             // lets avoid sending messages that will generate this error
@@ -137,21 +131,9 @@ public class PDF2TextConverter implements Converter {
                 // right-to-left languages.
                 textStripper.setSortByPosition(true);
 
-                String text = textStripper.getText(document);
-                // replace non breaking space by regular spaces (why?)
-                // text = text.replace("\u00a0", " ");
-                f = Framework.createTempFile("pdfboplugin", ".txt");
-                fas = new FileOutputStream(f);
-                fas.write(text.getBytes("UTF-8"));
-                try (FileInputStream is = new FileInputStream(f)) {
-                    Blob blob = Blobs.createBlob(is, "text/plain", "UTF-8");
-                    return new SimpleCachableBlobHolder(blob);
-                }
-            } else {
-                return new SimpleCachableBlobHolder(Blobs.createBlob(""));
+                // the text is written page by page
+                textStripper.writeText(document, writer);
             }
-        } catch (IOException e) {
-            throw new ConversionException("Error during text extraction with PDFBox", e);
         } finally {
             if (document != null) {
                 try {
@@ -160,21 +142,15 @@ public class PDF2TextConverter implements Converter {
                     log.error("Error while closing PDFBox document", e);
                 }
             }
-            if (fas != null) {
+            if (scratchFile != null) {
                 try {
-                    fas.close();
+                    scratchFile.close();
                 } catch (IOException e) {
-                    log.error(e);
+                    log.error("Error while closing PDFBox scratch file", e);
                 }
             }
-            if (f != null) {
-                f.delete();
-            }
+            scratch.delete();
         }
     }
 
-    @Override
-    public void init(ConverterDescriptor descriptor) {
-    }
-
 }
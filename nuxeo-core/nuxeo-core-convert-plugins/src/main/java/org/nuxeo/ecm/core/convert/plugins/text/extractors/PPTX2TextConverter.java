@@ -18,67 +18,77 @@
  *     Antoine Taillefer
  *
  */
-
 package org.nuxeo.ecm.core.convert.plugins.text.extractors;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.Set;
-import java.util.TreeSet;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.nuxeo.ecm.core.convert.plugins.text.extractors.presentation.PresentationSlide;
+import org.nuxeo.ecm.core.api.Blob;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
 /**
  * Pptx to text converter: parses the Open XML presentation document to read its content.
+ * <p>
+ * Slides are read in order directly from the zip file, only the text of the current slide is kept in memory.
  */
-public class PPTX2TextConverter extends XmlZip2TextConverter {
-
-    protected static final Log log = LogFactory.getLog(PPTX2TextConverter.class);
-
-    private static final String PRESENTATION_SLIDE_ZIP_ENTRY_NAME_PREFIX = "ppt/slides/slide";
-
-    protected void readXmlZipContent(ZipInputStream zis, XMLReader reader, StringBuilder sb) throws IOException,
-            SAXException {
+public class PPTX2TextConverter extends StreamingTextConverter {
 
-        Set<PresentationSlide> slides = new TreeSet<PresentationSlide>();
+    private static final Pattern PRESENTATION_SLIDE_ZIP_ENTRY_NAME = Pattern.compile("ppt/slides/slide(\\d+)\\.xml");
 
-        ZipEntry zipEntry = zis.getNextEntry();
-        while (zipEntry != null) {
-            String zipEntryName = zipEntry.getName();
-            if (zipEntryName.startsWith(PRESENTATION_SLIDE_ZIP_ENTRY_NAME_PREFIX)
-                    && zipEntryName.length() > PRESENTATION_SLIDE_ZIP_ENTRY_NAME_PREFIX.length()) {
-                char slideNumberChar = zipEntryName.charAt(PRESENTATION_SLIDE_ZIP_ENTRY_NAME_PREFIX.length());
-                int slideNumber = -1;
-                try {
-                    slideNumber = Integer.parseInt(String.valueOf(slideNumberChar));
-                } catch (NumberFormatException nfe) {
-                    log.warn("Slide number is not an non integer, won't take this slide into account.");
+    @Override
+    protected void extractText(Blob blob, Writer writer) throws IOException, SAXException {
+        File file = getFile(blob);
+        try (ZipFile zip = new ZipFile(file)) {
+            Map<Integer, ZipEntry> slides = new TreeMap<>();
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+                ZipEntry entry = entries.nextElement();
+                Matcher m = PRESENTATION_SLIDE_ZIP_ENTRY_NAME.matcher(entry.getName());
+                if (m.matches()) {
+                    slides.put(Integer.valueOf(m.group(1)), entry);
                 }
-                if (slideNumber > -1) {
-                    OpenXmlContentHandler contentHandler = new OpenXmlContentHandler();
-                    reader.setContentHandler(contentHandler);
-                    reader.parse(new InputSource(new ByteArrayInputStream(IOUtils.toByteArray(zis))));
-                    slides.add(new PresentationSlide(contentHandler.getContent(), slideNumber));
+            }
+            XMLReader reader = newXMLReader();
+            for (ZipEntry slide : slides.values()) {
+                OpenXmlContentHandler contentHandler = new OpenXmlContentHandler();
+                reader.setContentHandler(contentHandler);
+                try (InputStream in = zip.getInputStream(slide)) {
+                    reader.parse(new InputSource(in));
                 }
+                writer.write(contentHandler.getContent());
+                writer.write("\n");
             }
-            zipEntry = zis.getNextEntry();
-        }
-        if (!slides.isEmpty()) {
-            Iterator<PresentationSlide> slidesIt = slides.iterator();
-            while (slidesIt.hasNext()) {
-                PresentationSlide slide = slidesIt.next();
-                sb.append(slide.getContent());
-                sb.append("\n");
+        } catch (ParserConfigurationException e) {
+            throw new IOException("Error during PPTX2Text conversion", e);
+        } finally {
+            if (!file.equals(blob.getFile())) {
+                Files.deleteIfExists(file.toPath());
             }
         }
     }
+
+    protected XMLReader newXMLReader() throws ParserConfigurationException, SAXException {
+        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+        parserFactory.setValidating(false);
+        XMLReader reader = parserFactory.newSAXParser().getXMLReader();
+        reader.setFeature("http://xml.org/sax/features/validation", false);
+        reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        reader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        return reader;
+    }
+
 }
@@ -0,0 +1,134 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.plugins.text.extractors;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.convert.api.ConversionException;
+import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
+import org.nuxeo.ecm.core.convert.extension.Converter;
+import org.nuxeo.ecm.core.convert.extension.ConverterDescriptor;
+import org.nuxeo.runtime.api.Framework;
+import org.xml.sax.SAXException;
+
+/**
+ * Base class for text extractors writing the text incrementally to a temporary file instead of building it in memory.
+ * <p>
+ * The extracted text is truncated to the number of characters given by the {@value #MAX_TEXT_SIZE} converter
+ * parameter, or by the {@value #MAX_TEXT_SIZE_PROPERTY} framework property, without limit by default.
+ *
+ * @since 9.1
+ */
+public abstract class StreamingTextConverter implements Converter {
+
+    private static final Log log = LogFactory.getLog(StreamingTextConverter.class);
+
+    public static final String MAX_TEXT_SIZE = "maxTextSize";
+
+    public static final String MAX_TEXT_SIZE_PROPERTY = "nuxeo.convert.text.maxSize";
+
+    protected long maxTextSize;
+
+    @Override
+    public void init(ConverterDescriptor descriptor) {
+        String max = descriptor.getParameters().get(MAX_TEXT_SIZE);
+        if (max == null) {
+            max = Framework.getProperty(MAX_TEXT_SIZE_PROPERTY, "0");
+        }
+        maxTextSize = Long.parseLong(max.trim());
+    }
+
+    @Override
+    public BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters) throws ConversionException {
+        Blob result;
+        try {
+            result = Blobs.createBlobWithExtension(".txt");
+        } catch (IOException e) {
+            throw new ConversionException("Cannot create text blob", e);
+        }
+        result.setMimeType("text/plain");
+        result.setEncoding("UTF-8");
+        try (BoundedTextWriter writer = new BoundedTextWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(result.getFile()), StandardCharsets.UTF_8)), maxTextSize)) {
+            try {
+                extractText(blobHolder.getBlob(), writer);
+            } catch (BoundedTextWriter.LimitReachedException e) {
+                logTruncated(blobHolder);
+            } catch (SAXException e) {
+                if (!(e.getException() instanceof BoundedTextWriter.LimitReachedException)) {
+                    throw e;
+                }
+                logTruncated(blobHolder);
+            }
+        } catch (IOException | SAXException e) {
+            throw new ConversionException("Error during " + getClass().getSimpleName() + " conversion", e);
+        }
+        return new SimpleCachableBlobHolder(result);
+    }
+
+    protected void logTruncated(BlobHolder blobHolder) {
+        if (log.isDebugEnabled()) {
+            log.debug("Extracted text truncated to " + maxTextSize + " characters for: "
+                    + blobHolder.getBlob().getFilename());
+        }
+    }
+
+    /**
+     * Returns a file holding the content of the blob, creating a temporary one if the blob is not backed by a file.
+     * <p>
+     * The caller must delete the returned file if it is not the blob file.
+     */
+    protected static File getFile(Blob blob) throws IOException {
+        File file = blob.getFile();
+        if (file != null) {
+            return file;
+        }
+        file = Framework.createTempFile("nxtext", ".bin");
+        try {
+            blob.transferTo(file);
+        } catch (IOException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Writes the text of the blob to the writer.
+     * <p>
+     * A {@link BoundedTextWriter.LimitReachedException}, possibly wrapped in a {@link SAXException}, ends the
+     * extraction without error.
+     */
+    protected abstract void extractText(Blob blob, Writer writer) throws IOException, SAXException;
+
+}
@@ -19,95 +19,180 @@
  */
 package org.nuxeo.ecm.core.convert.plugins.text.extractors;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Serializable;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.util.Iterator;
-import java.util.Map;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
 import org.nuxeo.ecm.core.api.Blob;
-import org.nuxeo.ecm.core.api.Blobs;
-import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
-import org.nuxeo.ecm.core.convert.api.ConversionException;
-import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
-import org.nuxeo.ecm.core.convert.extension.Converter;
-
-public class XLX2TextConverter extends BaseOfficeXMLTextConverter implements Converter {
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
-    private static final Log log = LogFactory.getLog(XLX2TextConverter.class);
+/**
+ * Xlsx to text converter: streams the sheets XML, only the shared strings table is kept in memory.
+ * <p>
+ * Text, numeric and date cells are extracted, formula cells are ignored.
+ */
+public class XLX2TextConverter extends StreamingTextConverter {
 
     private static final String CELL_SEP = "";
 
     private static final String ROW_SEP = "\n";
 
     @Override
-    public BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters) throws ConversionException {
-
-        InputStream stream = null;
-        StringBuffer sb = new StringBuffer();
-
+    protected void extractText(Blob blob, Writer writer) throws IOException, SAXException {
+        File file = getFile(blob);
         try {
-            Blob blob = blobHolder.getBlob();
-
-            if (blob.getLength() > maxSize4POI) {
-                return runFallBackConverter(blobHolder, "xl/");
-            }
-
-            stream = blob.getStream();
-
-            OPCPackage p = OPCPackage.open(stream);
-            XSSFWorkbook workbook = new XSSFWorkbook(p);
-            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-                XSSFSheet sheet = workbook.getSheetAt(i);
-                Iterator<Row> rows = sheet.rowIterator();
-                while (rows.hasNext()) {
-                    XSSFRow row = (XSSFRow) rows.next();
-                    Iterator<Cell> cells = row.cellIterator();
-                    while (cells.hasNext()) {
-                        XSSFCell cell = (XSSFCell) cells.next();
-                        appendTextFromCell(cell, sb);
+            OPCPackage pkg = OPCPackage.open(file.getPath(), PackageAccess.READ);
+            try {
+                ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+                XMLReader reader = newXMLReader();
+                reader.setContentHandler(new SheetHandler(strings, writer));
+                Iterator<InputStream> sheets = new XSSFReader(pkg).getSheetsData();
+                while (sheets.hasNext()) {
+                    try (InputStream sheet = sheets.next()) {
+                        reader.parse(new InputSource(sheet));
                     }
-                    sb.append(ROW_SEP);
                 }
+            } finally {
+                // read-only package, close without saving
+                pkg.revert();
             }
-            return new SimpleCachableBlobHolder(Blobs.createBlob(sb.toString()));
-        } catch (IOException | OpenXML4JException e) {
-            throw new ConversionException("Error during XLX2Text conversion", e);
+        } catch (OpenXML4JException | ParserConfigurationException e) {
+            throw new IOException("Error during XLX2Text conversion", e);
         } finally {
-            if (stream != null) {
-                try {
-                    stream.close();
-                } catch (IOException e) {
-                    log.error("Error while closing Blob stream", e);
-                }
+            if (!file.equals(blob.getFile())) {
+                Files.deleteIfExists(file.toPath());
             }
         }
     }
 
-    protected void appendTextFromCell(XSSFCell cell, StringBuffer sb) {
-        String cellValue = null;
-        switch (cell.getCellType()) {
-        case XSSFCell.CELL_TYPE_NUMERIC:
-            cellValue = Double.toString(cell.getNumericCellValue()).trim();
-            break;
-        case XSSFCell.CELL_TYPE_STRING:
-            cellValue = cell.getStringCellValue().trim();
-            break;
+    protected XMLReader newXMLReader() throws ParserConfigurationException, SAXException {
+        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+        parserFactory.setNamespaceAware(true);
+        parserFactory.setValidating(false);
+        XMLReader reader = parserFactory.newSAXParser().getXMLReader();
+        reader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        return reader;
+    }
+
+    /**
+     * Writes the text of the cells of a sheet as they are parsed.
+     *
+     * @since 9.1
+     */
+    protected static class SheetHandler extends DefaultHandler {
+
+        protected final ReadOnlySharedStringsTable strings;
+
+        protected final Writer writer;
+
+        protected final StringBuilder value = new StringBuilder();
+
+        protected String type;
+
+        protected boolean formula;
+
+        protected boolean inValue;
+
+        public SheetHandler(ReadOnlySharedStringsTable strings, Writer writer) {
+            this.strings = strings;
+            this.writer = writer;
         }
 
-        if (cellValue != null && cellValue.length() > 0) {
-            sb.append(cellValue).append(CELL_SEP);
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            switch (localName) {
+            case "c":
+                type = atts.getValue("t");
+                formula = false;
+                value.setLength(0);
+                break;
+            case "f":
+                formula = true;
+                break;
+            case "v":
+                inValue = true;
+                break;
+            case "t":
+                // text of an inline string, possibly split in rich text runs
+                inValue = "inlineStr".equals(type);
+                break;
+            default:
+                break;
+            }
         }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+            case "v":
+            case "t":
+                inValue = false;
+                break;
+            case "c":
+                writeCell();
+                break;
+            case "row":
+                write(ROW_SEP);
+                break;
+            default:
+                break;
+            }
+        }
+
+        protected void writeCell() throws SAXException {
+            if (formula) {
+                return;
+            }
+            String text;
+            if (value.length() == 0) {
+                return;
+            }
+            if ("s".equals(type)) {
+                text = strings.getEntryAt(Integer.parseInt(value.toString().trim()));
+            } else if ("inlineStr".equals(type) || "d".equals(type)) {
+                // dates are stored as ISO 8601 text
+                text = value.toString();
+            } else if (type == null || "n".equals(type)) {
+                text = Double.toString(Double.parseDouble(value.toString().trim()));
+            } else {
+                return;
+            }
+            text = text.trim();
+            if (!text.isEmpty()) {
+                write(text + CELL_SEP);
+            }
+        }
+
+        protected void write(String text) throws SAXException {
+            try {
+                writer.write(text);
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+        }
+
     }
 
 }
@@ -22,7 +22,10 @@ import java.io.Serializable;
 
 /**
  * Representation of a presentation document slide with its string content and its order.
+ *
+ * @deprecated since 9.1, unused
  */
+@Deprecated
 public class PresentationSlide implements Serializable, Comparable<PresentationSlide> {
 
     private static final long serialVersionUID = 1534438297504069864L;
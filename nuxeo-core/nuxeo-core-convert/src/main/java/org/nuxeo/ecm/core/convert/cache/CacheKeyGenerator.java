@@ -21,11 +21,17 @@ package org.nuxeo.ecm.core.convert.cache;
 
 import java.io.Serializable;
 import java.util.Map;
+import java.util.TreeMap;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 
 /**
  * Simple helper to handle cache key generation.
+ * <p>
+ * Keys are content addressed: they are the SHA-256 of the converter name, of the hash of the source blobs (based on
+ * their digests) and of the parameters sorted by name, so that identical conversions share the same key whatever the
+ * parameter map implementation.
  *
  * @author tiry
  */
@@ -41,12 +47,12 @@ public class CacheKeyGenerator {
         sb.append(":");
         sb.append(blobHolder.getHash());
         if (parameters != null) {
-            for (String key : parameters.keySet()) {
-                sb.append(":").append(key);
-                sb.append(":").append(String.valueOf(parameters.get(key)));
+            for (Map.Entry<String, Serializable> entry : new TreeMap<>(parameters).entrySet()) {
+                sb.append(":").append(entry.getKey());
+                sb.append(":").append(String.valueOf(entry.getValue()));
             }
         }
-        return sb.toString();
+        return DigestUtils.sha256Hex(sb.toString());
     }
 
 }
@@ -0,0 +1,432 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
+import org.nuxeo.ecm.core.blob.BlobManager;
+import org.nuxeo.ecm.core.blob.BlobProvider;
+import org.nuxeo.ecm.core.blob.binary.Binary;
+import org.nuxeo.ecm.core.blob.binary.BinaryManager;
+import org.nuxeo.ecm.core.cache.Cache;
+import org.nuxeo.ecm.core.cache.CacheService;
+import org.nuxeo.ecm.core.convert.api.ConversionService;
+import org.nuxeo.ecm.core.convert.extension.GlobalConfigDescriptor;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Disk cache of the {@link ConversionService} results, keyed by the content addressed keys of
+ * {@link CacheKeyGenerator}.
+ * <p>
+ * Lookups only lock the entry they read, against its concurrent eviction. Identical conversions running concurrently are executed only once, the other callers waiting
+ * for the result to be cached and reading it from the cache. The total size of the persisted results is tracked
+ * incrementally and the least recently used entries are evicted as soon as it goes above the configured disk cache
+ * size, the entry just added being kept until the next GC run if it is larger than the whole cache.
+ * <p>
+ * If a shared cache is configured, results are also stored in the binary manager of a blob provider and indexed in a
+ * cache of the {@link CacheService}, so that the other cluster nodes can reuse them. Shared results may disappear
+ * when the binaries garbage collector runs, which only causes a new conversion.
+ *
+ * @since 9.1
+ */
+public class ConversionCache {
+
+    private static final Log log = LogFactory.getLog(ConversionCache.class);
+
+    protected static final String SHARED_DIGEST = "digest";
+
+    protected static final String SHARED_FILENAME = "filename";
+
+    protected static final String SHARED_MIMETYPE = "mimetype";
+
+    protected static final String SHARED_ENCODING = "encoding";
+
+    protected final GlobalConfigDescriptor config;
+
+    protected final ConcurrentMap<String, ConversionCacheEntry> entries = new ConcurrentHashMap<>();
+
+    protected final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    // access tick -> key, the first entry is the least recently used one
+    protected final ConcurrentSkipListMap<Long, String> lru = new ConcurrentSkipListMap<>();
+
+    protected final AtomicLong clock = new AtomicLong();
+
+    protected final AtomicLong size = new AtomicLong();
+
+    protected final AtomicLong hits = new AtomicLong();
+
+    protected final AtomicLong misses = new AtomicLong();
+
+    protected final AtomicLong sharedHits = new AtomicLong();
+
+    protected final AtomicLong coalesced = new AtomicLong();
+
+    protected final AtomicLong evictions = new AtomicLong();
+
+    public ConversionCache(GlobalConfigDescriptor config) {
+        this.config = config;
+    }
+
+    /**
+     * Returns the cached result for the given key, or runs the conversion and caches its result.
+     * <p>
+     * If the same conversion is already running, waits for it and returns its cached result. If that result could not
+     * be cached, the conversion is run again.
+     */
+    public BlobHolder getOrConvert(String key, Supplier<BlobHolder> conversion) {
+        BlobHolder result = get(key);
+        if (result != null) {
+            return result;
+        }
+        CompletableFuture<Void> flight = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            try {
+                running.join();
+                result = getLocal(key);
+            } catch (CompletionException e) {
+                log.debug("Concurrent conversion failed, converting again", e);
+            }
+            return result != null ? result : conversion.get();
+        }
+        try {
+            // the conversion may have been cached between our lookup and our registration
+            result = getLocal(key);
+            if (result == null) {
+                result = conversion.get();
+                put(key, result);
+            }
+            flight.complete(null);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Returns the cached result for the given key, looking into the shared cache if it is not available locally.
+     */
+    public BlobHolder get(String key) {
+        BlobHolder result = getLocal(key);
+        if (result == null && config.getSharedCache() != null) {
+            result = getShared(key);
+            if (result != null) {
+                sharedHits.incrementAndGet();
+                putLocal(key, result);
+            }
+        }
+        if (result == null) {
+            misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    protected BlobHolder getLocal(String key) {
+        ConversionCacheEntry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        BlobHolder result;
+        // eviction checks the access tick and removes the files under the entry lock, so the entry is either
+        // removed before being read or touched and kept
+        synchronized (entry) {
+            if (entry.isRemoved()) {
+                // evicted concurrently
+                return null;
+            }
+            touch(key, entry);
+            result = entry.restore();
+        }
+        if (result == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return result;
+    }
+
+    public ConversionCacheEntry getEntry(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches the given result, if it is a {@link CachableBlobHolder}.
+     */
+    public void put(String key, BlobHolder result) {
+        if (putLocal(key, result) && config.getSharedCache() != null) {
+            putShared(key, result);
+        }
+    }
+
+    protected boolean putLocal(String key, BlobHolder result) {
+        ConversionCacheEntry entry = new ConversionCacheEntry(result);
+        long tick = clock.incrementAndGet();
+        String path = getEntryPath(key, tick);
+        try {
+            if (!entry.persist(path)) {
+                new File(path).delete();
+                return false;
+            }
+        } catch (IOException e) {
+            log.error("Error while trying to persist cache entry", e);
+            FileUtils.deleteQuietly(new File(path));
+            return false;
+        }
+        entry.setAccessTick(tick);
+        size.addAndGet(entry.getDiskSpaceUsage());
+        // index the entry only once it is visible, so that eviction never sees it as stale
+        ConversionCacheEntry previous = entries.put(key, entry);
+        lru.put(Long.valueOf(tick), key);
+        if (previous != null) {
+            discard(key, previous);
+        }
+        long maxSize = getMaxSize();
+        if (maxSize >= 0) {
+            evict(maxSize, key);
+        }
+        return true;
+    }
+
+    /**
+     * Returns a directory dedicated to an entry, so that removing it never affects another entry.
+     */
+    protected String getEntryPath(String key, long tick) {
+        File dir = new File(config.getCachingDirectory());
+        if (key.length() >= 4) {
+            dir = new File(new File(dir, key.substring(0, 2)), key.substring(2, 4));
+        }
+        dir = new File(dir, key + "." + tick);
+        dir.mkdirs();
+        return dir.getPath();
+    }
+
+    protected long getMaxSize() {
+        return config.getDiskCacheSize() * 1024L;
+    }
+
+    protected void touch(String key, ConversionCacheEntry entry) {
+        long tick = clock.incrementAndGet();
+        synchronized (entry) {
+            if (!lru.remove(Long.valueOf(entry.getAccessTick()), key)) {
+                // evicted or replaced concurrently
+                return;
+            }
+            entry.setAccessTick(tick);
+            lru.put(Long.valueOf(tick), key);
+        }
+    }
+
+    protected void discard(String key, ConversionCacheEntry entry) {
+        synchronized (entry) {
+            lru.remove(Long.valueOf(entry.getAccessTick()), key);
+        }
+        size.addAndGet(-entry.getDiskSpaceUsage());
+        entry.remove();
+    }
+
+    public void remove(String key) {
+        ConversionCacheEntry entry = entries.remove(key);
+        if (entry != null) {
+            discard(key, entry);
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache size is not above {@code maxSize} bytes.
+     *
+     * @return the number of evicted entries
+     */
+    public int evict(long maxSize) {
+        return evict(maxSize, null);
+    }
+
+    protected int evict(long maxSize, String keep) {
+        int evicted = 0;
+        while (size.get() > maxSize) {
+            Map.Entry<Long, String> eldest = lru.firstEntry();
+            if (eldest == null || eldest.getValue().equals(keep)) {
+                break;
+            }
+            String key = eldest.getValue();
+            ConversionCacheEntry entry = entries.get(key);
+            boolean removed = false;
+            if (entry != null) {
+                synchronized (entry) {
+                    // an entry read meanwhile has a new access tick and is kept
+                    if (entry.getAccessTick() == eldest.getKey().longValue() && entries.remove(key, entry)) {
+                        discard(key, entry);
+                        removed = true;
+                    }
+                }
+            }
+            if (!removed) {
+                // stale index entry, or entry touched or replaced concurrently
+                lru.remove(eldest.getKey(), key);
+                continue;
+            }
+            evictions.incrementAndGet();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    public void clear() {
+        for (String key : new ArrayList<>(entries.keySet())) {
+            remove(key);
+        }
+    }
+
+    protected BinaryManager getSharedBinaryManager() {
+        BlobProvider provider = Framework.getService(BlobManager.class)
+                                         .getBlobProvider(config.getSharedCacheBlobProvider());
+        return provider == null ? null : provider.getBinaryManager();
+    }
+
+    protected Cache getSharedIndex() {
+        return Framework.getService(CacheService.class).getCache(config.getSharedCache());
+    }
+
+    @SuppressWarnings("unchecked")
+    protected BlobHolder getShared(String key) {
+        try {
+            Cache index = getSharedIndex();
+            BinaryManager binaryManager = getSharedBinaryManager();
+            if (index == null || binaryManager == null) {
+                return null;
+            }
+            List<Map<String, String>> infos = (List<Map<String, String>>) index.get(key);
+            if (infos == null) {
+                return null;
+            }
+            List<Blob> blobs = new ArrayList<>(infos.size());
+            for (Map<String, String> info : infos) {
+                Binary binary = binaryManager.getBinary(info.get(SHARED_DIGEST));
+                if (binary == null) {
+                    return null;
+                }
+                File file = binary.getFile();
+                Blob blob;
+                if (file != null) {
+                    if (!file.exists()) {
+                        return null;
+                    }
+                    blob = new FileBlob(file);
+                } else {
+                    blob = Blobs.createBlob(binary.getStream());
+                }
+                blob.setFilename(info.get(SHARED_FILENAME));
+                blob.setMimeType(info.get(SHARED_MIMETYPE));
+                blob.setEncoding(info.get(SHARED_ENCODING));
+                blobs.add(blob);
+            }
+            return new SimpleCachableBlobHolder(blobs);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read shared conversion result " + key, e);
+            return null;
+        }
+    }
+
+    protected void putShared(String key, BlobHolder result) {
+        try {
+            Cache index = getSharedIndex();
+            BinaryManager binaryManager = getSharedBinaryManager();
+            if (index == null || binaryManager == null) {
+                log.warn("Shared conversion cache " + config.getSharedCache() + " or blob provider "
+                        + config.getSharedCacheBlobProvider() + " not found");
+                return;
+            }
+            ArrayList<HashMap<String, String>> infos = new ArrayList<>();
+            for (Blob blob : result.getBlobs()) {
+                HashMap<String, String> info = new HashMap<>();
+                info.put(SHARED_DIGEST, binaryManager.getBinary(blob).getDigest());
+                info.put(SHARED_FILENAME, blob.getFilename());
+                info.put(SHARED_MIMETYPE, blob.getMimeType());
+                info.put(SHARED_ENCODING, blob.getEncoding());
+                infos.add(info);
+            }
+            index.put(key, infos);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to share conversion result " + key, e);
+        }
+    }
+
+    public Set<String> getKeys() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    public int getNbEntries() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the disk space used by the cache in bytes.
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getSharedHits() {
+        return sharedHits.get();
+    }
+
+    /**
+     * Returns the number of conversions that waited for an identical running conversion instead of running it.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+}
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Date;
 
+import org.apache.commons.io.FileUtils;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.convert.api.ConversionService;
 
@@ -43,7 +44,13 @@ public class ConversionCacheEntry {
 
     protected String persistPath;
 
-    protected long sizeInKB = 0;
+    protected String persistBasePath;
+
+    protected long sizeInBytes = 0;
+
+    protected volatile long accessTick;
+
+    protected volatile boolean removed;
 
     public ConversionCacheEntry(BlobHolder bh) {
         this.bh = bh;
@@ -57,9 +64,11 @@ public class ConversionCacheEntry {
     public boolean persist(String basePath) throws IOException {
         if (bh instanceof CachableBlobHolder) {
             CachableBlobHolder cbh = (CachableBlobHolder) bh;
+            persistBasePath = basePath;
             persistPath = cbh.persist(basePath);
             if (persistPath != null) {
-                sizeInKB = new File(persistPath).length() / 1024;
+                // multi-blob holders are persisted as a directory
+                sizeInBytes = FileUtils.sizeOf(new File(persistPath));
                 persisted = true;
             }
         }
@@ -68,14 +77,19 @@ public class ConversionCacheEntry {
     }
 
     public void remove() {
+        removed = true;
         if (persisted && persistPath != null) {
-            new File(persistPath).delete();
+            FileUtils.deleteQuietly(new File(persistPath));
+        }
+        if (persistBasePath != null) {
+            // the base directory is only deleted if empty
+            new File(persistBasePath).delete();
         }
     }
 
     public BlobHolder restore() {
         updateAccessTime();
-        if (persisted && persistPath != null) {
+        if (!removed && persisted && persistPath != null && new File(persistPath).exists()) {
             try {
                 CachableBlobHolder holder = new SimpleCachableBlobHolder();
                 holder.load(persistPath);
@@ -89,7 +103,39 @@ public class ConversionCacheEntry {
     }
 
     public long getDiskSpaceUsageInKB() {
-        return sizeInKB;
+        return sizeInBytes / 1024;
+    }
+
+    /**
+     * @since 9.1
+     */
+    public long getDiskSpaceUsage() {
+        return sizeInBytes;
+    }
+
+    /**
+     * Returns the logical time of the last access, used by {@link ConversionCache} to order entries.
+     *
+     * @since 9.1
+     */
+    public long getAccessTick() {
+        return accessTick;
+    }
+
+    /**
+     * @since 9.1
+     */
+    public void setAccessTick(long accessTick) {
+        this.accessTick = accessTick;
+    }
+
+    /**
+     * Returns {@code true} once the persisted files of the entry have been removed.
+     *
+     * @since 9.1
+     */
+    public boolean isRemoved() {
+        return removed;
     }
 
     public Date getLastAccessedTime() {
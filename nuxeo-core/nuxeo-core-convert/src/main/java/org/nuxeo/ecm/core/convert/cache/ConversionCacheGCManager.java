@@ -21,21 +21,15 @@
  */
 package org.nuxeo.ecm.core.convert.cache;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.convert.service.ConversionServiceImpl;
 
 /**
  * Manages GC processing to clean up disk cache.
+ * <p>
+ * The {@link ConversionCache} already evicts entries when it grows above its size, the GC removes the entries larger
+ * than the whole cache that are kept until then. The cache size is maintained incrementally so no entry is scanned.
  *
  * @author tiry
  */
@@ -47,9 +41,9 @@ public class ConversionCacheGCManager {
 
     private static final Log log = LogFactory.getLog(ConversionCacheGCManager.class);
 
-    private static int gcRuns = 0;
+    private static volatile int gcRuns = 0;
 
-    private static int gcCalls = 0;
+    private static volatile int gcCalls = 0;
 
     // Utility class.
     private ConversionCacheGCManager() {
@@ -68,16 +62,7 @@ public class ConversionCacheGCManager {
     }
 
     public static long getCacheSizeInKB() {
-        long totalSize = 0;
-        Set<String> cacheKeys = ConversionCacheHolder.getCacheKeys();
-
-        for (String key : cacheKeys) {
-            ConversionCacheEntry cacheEntry = ConversionCacheHolder.getCacheEntry(key);
-            if (cacheEntry != null) {
-                totalSize += cacheEntry.getDiskSpaceUsageInKB();
-            }
-        }
-        return totalSize;
+        return ConversionServiceImpl.getConversionCache().getSize() / 1024;
     }
 
     public static boolean gcIfNeeded() {
@@ -105,35 +90,12 @@ public class ConversionCacheGCManager {
         return true;
     }
 
+    /**
+     * Evicts the least recently used entries until more than {@code deltaInKB} have been freed.
+     */
     public static void doGC(long deltaInKB) {
-
-        Set<String> cacheKeys = ConversionCacheHolder.getCacheKeys();
-
-        Map<Date, String> sortingMap = new HashMap<Date, String>();
-
-        for (String key : cacheKeys) {
-            ConversionCacheEntry cacheEntry = ConversionCacheHolder.getCacheEntry(key);
-            Objects.requireNonNull(cacheEntry, key);
-            sortingMap.put(cacheEntry.getLastAccessedTime(), key);
-        }
-
-        List<Date> accessTimeList = new ArrayList<Date>();
-        accessTimeList.addAll(sortingMap.keySet());
-        Collections.sort(accessTimeList);
-
-        long deletedVolume = 0;
-        for (Date accessDate : accessTimeList) {
-            ConversionCacheEntry cacheEntry = ConversionCacheHolder.getCacheEntry(sortingMap.get(accessDate));
-
-            long deletePotential = cacheEntry.getDiskSpaceUsageInKB();
-
-            deletedVolume += deletePotential;
-            ConversionCacheHolder.removeFromCache(sortingMap.get(accessDate));
-
-            if (deletedVolume > deltaInKB) {
-                break;
-            }
-        }
+        ConversionCache cache = ConversionServiceImpl.getConversionCache();
+        cache.evict(cache.getSize() - deltaInKB * 1024 - 1);
         gcRuns += 1;
     }
 
@@ -25,12 +25,23 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
+import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
+import org.nuxeo.ecm.core.api.local.ClientLoginModule;
+import org.nuxeo.ecm.core.api.local.LoginStack;
 import org.nuxeo.ecm.core.convert.api.ConversionException;
+import org.nuxeo.ecm.core.convert.cache.CacheKeyGenerator;
 import org.nuxeo.ecm.core.convert.service.ConversionServiceImpl;
 import org.nuxeo.ecm.core.convert.service.MimeTypeTranslationHelper;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.transaction.TransactionHelper;
 
 /**
  * Specific {@link Converter} implementation that acts as a converters chain.
@@ -42,17 +53,34 @@ import org.nuxeo.runtime.api.Framework;
  * </ul>
  * <p>
  * This depends on the properties of the descriptor.
+ * <p>
+ * The whole chain is resolved before running the first step. When the conversion cache is enabled, the intermediate
+ * results are cached by converter, input digest and parameters, so that chains sharing their first steps reuse them.
+ * <p>
+ * When the {@value #PARALLEL_BLOBS_PARAMETER} parameter is true, a step receiving several blobs runs each of them
+ * through the remaining steps independently and in parallel, on the executor of the {@link ConversionServiceImpl}, the
+ * results being gathered in the order of the blobs.
+ * This must only be enabled for chains whose remaining steps convert each blob on its own.
  *
  * @author tiry
  */
 public class ChainedConverter implements Converter {
 
+    /**
+     * @since 9.1
+     */
+    public static final String PARALLEL_BLOBS_PARAMETER = "parallelBlobs";
+
+    protected static final ThreadLocal<Boolean> IN_BRANCH = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
     protected boolean subConvertersBased = false;
 
     protected List<String> steps = new ArrayList<String>();
 
     protected List<String> subConverters = new ArrayList<String>();
 
+    protected boolean parallelBlobs;
+
     public ChainedConverter() {
         subConvertersBased = false;
         subConverters = null;
@@ -77,17 +105,14 @@ public class ChainedConverter implements Converter {
     protected BlobHolder convertBasedSubConverters(BlobHolder blobHolder, Map<String, Serializable> parameters)
             throws ConversionException {
         String srcMT = blobHolder.getBlob().getMimeType();
-        BlobHolder result = blobHolder;
         for (String converterName : subConverters) {
             ConverterDescriptor desc = ConversionServiceImpl.getConverterDescriptor(converterName);
             if (!desc.getSourceMimeTypes().contains(srcMT)) {
                 throw new ConversionException("Conversion Chain is not well defined");
             }
-            Converter converter = ConversionServiceImpl.getConverter(converterName);
-            result = converter.convert(result, parameters);
             srcMT = desc.getDestinationMimeType();
         }
-        return result;
+        return convertSteps(subConverters, 0, blobHolder, parameters);
     }
 
     /**
@@ -96,22 +121,153 @@ public class ChainedConverter implements Converter {
     protected BlobHolder convertBasedOnMimeTypes(BlobHolder blobHolder, Map<String, Serializable> parameters)
             throws ConversionException {
         String srcMT = blobHolder.getBlob().getMimeType();
-        BlobHolder result = blobHolder;
+        List<String> converterNames = new ArrayList<>(steps.size());
         for (String dstMT : steps) {
             String converterName = Framework.getService(MimeTypeTranslationHelper.class).getConverterName(srcMT, dstMT);
             if (converterName == null) {
                 throw new ConversionException(
                         "Chained conversion error : unable to find converter between " + srcMT + " and " + dstMT);
             }
-            Converter converter = ConversionServiceImpl.getConverter(converterName);
-            result = converter.convert(result, parameters);
+            converterNames.add(converterName);
             srcMT = dstMT;
         }
+        return convertSteps(converterNames, 0, blobHolder, parameters);
+    }
+
+    /**
+     * Runs the given converters from the given step.
+     *
+     * @since 9.1
+     */
+    protected BlobHolder convertSteps(List<String> converterNames, int from, BlobHolder blobHolder,
+            Map<String, Serializable> parameters) throws ConversionException {
+        BlobHolder result = blobHolder;
+        for (int i = from; i < converterNames.size(); i++) {
+            if (parallelBlobs && !IN_BRANCH.get() && result.getBlobs() != null && result.getBlobs().size() > 1) {
+                return fanOut(converterNames, i, result.getBlobs(), parameters);
+            }
+            boolean last = i == converterNames.size() - 1;
+            result = convertStep(converterNames.get(i), result, parameters, !last);
+        }
         return result;
     }
 
+    /**
+     * Runs each blob through the remaining steps in parallel, the caller running the last one. The branches run with
+     * the login of the caller, and in their own transaction if the caller has one. When a branch fails, the branches
+     * still running are cancelled.
+     *
+     * @since 9.1
+     */
+    protected BlobHolder fanOut(List<String> converterNames, int from, List<Blob> blobs,
+            Map<String, Serializable> parameters) throws ConversionException {
+        ExecutorService executor = ConversionServiceImpl.getChainExecutor();
+        LoginStack.Entry login = ClientLoginModule.getCurrentLogin();
+        boolean transaction = TransactionHelper.isTransactionActive();
+        List<Future<BlobHolder>> branches = new ArrayList<>(blobs.size());
+        try {
+            for (Blob blob : blobs.subList(0, blobs.size() - 1)) {
+                Callable<BlobHolder> branch = () -> convertBranch(converterNames, from, blob, parameters, login,
+                        transaction);
+                if (executor == null) {
+                    // service stopping, no parallelism
+                    FutureTask<BlobHolder> task = new FutureTask<>(branch);
+                    task.run();
+                    branches.add(task);
+                } else {
+                    branches.add(executor.submit(branch));
+                }
+            }
+            BlobHolder lastResult = convertBranch(converterNames, from, blobs.get(blobs.size() - 1), parameters);
+            List<Blob> results = new ArrayList<>();
+            for (Future<BlobHolder> branch : branches) {
+                addBlobs(results, getBranchResult(branch));
+            }
+            addBlobs(results, lastResult);
+            return new SimpleBlobHolder(results);
+        } finally {
+            // no-op for the completed branches, stops the others after a failure
+            for (Future<BlobHolder> branch : branches) {
+                branch.cancel(true);
+            }
+        }
+    }
+
+    protected BlobHolder getBranchResult(Future<BlobHolder> branch) throws ConversionException {
+        try {
+            return branch.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ConversionException("Chained conversion branch failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConversionException("Interrupted while waiting for a chained conversion branch", e);
+        }
+    }
+
+    /**
+     * Runs a branch on an executor thread, in the login and transaction context of the caller.
+     *
+     * @since 9.1
+     */
+    protected BlobHolder convertBranch(List<String> converterNames, int from, Blob blob,
+            Map<String, Serializable> parameters, LoginStack.Entry login, boolean transaction) {
+        LoginStack loginStack = ClientLoginModule.getThreadLocalLogin();
+        if (login != null) {
+            loginStack.push(login.getPrincipal(), login.getCredential(), login.getSubject());
+        }
+        try {
+            if (transaction) {
+                return TransactionHelper.runInTransaction(
+                        () -> convertBranch(converterNames, from, blob, parameters));
+            }
+            return convertBranch(converterNames, from, blob, parameters);
+        } finally {
+            if (login != null) {
+                loginStack.pop();
+            }
+        }
+    }
+
+    protected BlobHolder convertBranch(List<String> converterNames, int from, Blob blob,
+            Map<String, Serializable> parameters) {
+        boolean inBranch = IN_BRANCH.get();
+        IN_BRANCH.set(Boolean.TRUE);
+        try {
+            return convertSteps(converterNames, from, new SimpleBlobHolder(blob), parameters);
+        } finally {
+            IN_BRANCH.set(inBranch);
+        }
+    }
+
+    protected static void addBlobs(List<Blob> results, BlobHolder result) {
+        if (result != null && result.getBlobs() != null) {
+            results.addAll(result.getBlobs());
+        }
+    }
+
+    /**
+     * Runs one step of the chain, through the conversion cache for intermediate results if it is enabled.
+     *
+     * @since 9.1
+     */
+    protected BlobHolder convertStep(String converterName, BlobHolder blobHolder, Map<String, Serializable> parameters,
+            boolean intermediate) throws ConversionException {
+        Converter converter = ConversionServiceImpl.getConverter(converterName);
+        if (!intermediate || !ConversionServiceImpl.isCacheEnabled()) {
+            return converter.convert(blobHolder, parameters);
+        }
+        String cacheKey = CacheKeyGenerator.computeKey(converterName, blobHolder, parameters);
+        return ConversionServiceImpl.getConversionCache().getOrConvert(cacheKey,
+                () -> converter.convert(blobHolder, parameters));
+    }
+
     @Override
     public void init(ConverterDescriptor descriptor) {
+        parallelBlobs = Boolean.parseBoolean(descriptor.getParameters().get(PARALLEL_BLOBS_PARAMETER));
         if (!subConvertersBased) {
             steps.addAll(descriptor.getSteps());
             steps.add(descriptor.getDestinationMimeType());
@@ -145,4 +301,13 @@ public class ChainedConverter implements Converter {
     public boolean isSubConvertersBased() {
         return subConvertersBased;
     }
+
+    /**
+     * Returns true if the blobs of a multi-blob step input are run through the remaining steps in parallel.
+     *
+     * @since 9.1
+     */
+    public boolean isParallelBlobs() {
+        return parallelBlobs;
+    }
 }
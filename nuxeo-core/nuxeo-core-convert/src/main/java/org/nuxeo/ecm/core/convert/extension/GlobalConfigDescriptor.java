@@ -46,6 +46,15 @@ public class GlobalConfigDescriptor implements Serializable {
 
     public static final String DEFAULT_CACHING_DIRECTORY = "convertcache";
 
+    /** @since 9.1 */
+    public static final String DEFAULT_SHARED_CACHE_BLOB_PROVIDER = "default";
+
+    /** @since 9.1 */
+    public static final int DEFAULT_BULK_BATCH_SIZE = 20;
+
+    /** @since 9.1 */
+    public static final int DEFAULT_BULK_MAX_SCHEDULED = 100;
+
     @XNode("enableCache")
     protected Boolean enableCache;
 
@@ -100,6 +109,58 @@ public class GlobalConfigDescriptor implements Serializable {
         return diskCacheSize == null ? DEFAULT_DISK_CACHE_IN_KB : diskCacheSize.intValue();
     }
 
+    /**
+     * Name of the cache, from the CacheService, indexing the conversion results shared between cluster nodes.
+     *
+     * @since 9.1
+     */
+    @XNode("sharedCache")
+    protected String sharedCache;
+
+    /** @since 9.1 */
+    public String getSharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * Blob provider whose binary manager stores the conversion results shared between cluster nodes.
+     *
+     * @since 9.1
+     */
+    @XNode("sharedCacheBlobProvider")
+    protected String sharedCacheBlobProvider;
+
+    /** @since 9.1 */
+    public String getSharedCacheBlobProvider() {
+        return sharedCacheBlobProvider == null ? DEFAULT_SHARED_CACHE_BLOB_PROVIDER : sharedCacheBlobProvider;
+    }
+
+    /**
+     * Number of jobs of the same converter converted by a work of a bulk conversion.
+     *
+     * @since 9.1
+     */
+    @XNode("bulkBatchSize")
+    protected Integer bulkBatchSize;
+
+    /** @since 9.1 */
+    public int getBulkBatchSize() {
+        return bulkBatchSize == null ? DEFAULT_BULK_BATCH_SIZE : bulkBatchSize.intValue();
+    }
+
+    /**
+     * Number of scheduled works of the bulk conversion queue above which the submission of new jobs blocks.
+     *
+     * @since 9.1
+     */
+    @XNode("bulkMaxScheduled")
+    protected Integer bulkMaxScheduled;
+
+    /** @since 9.1 */
+    public int getBulkMaxScheduled() {
+        return bulkMaxScheduled == null ? DEFAULT_BULK_MAX_SCHEDULED : bulkMaxScheduled.intValue();
+    }
+
     public void update(GlobalConfigDescriptor other) {
         if (other.enableCache != null) {
             enableCache = other.enableCache;
@@ -113,6 +174,18 @@ public class GlobalConfigDescriptor implements Serializable {
         if (other.cachingDirectory != null) {
             cachingDirectory = other.cachingDirectory;
         }
+        if (other.sharedCache != null) {
+            sharedCache = other.sharedCache;
+        }
+        if (other.sharedCacheBlobProvider != null) {
+            sharedCacheBlobProvider = other.sharedCacheBlobProvider;
+        }
+        if (other.bulkBatchSize != null) {
+            bulkBatchSize = other.bulkBatchSize;
+        }
+        if (other.bulkMaxScheduled != null) {
+            bulkMaxScheduled = other.bulkMaxScheduled;
+        }
     }
 
 }
@@ -0,0 +1,204 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.convert.api.BulkConversionStatus;
+import org.nuxeo.ecm.core.convert.api.ConversionJob;
+import org.nuxeo.ecm.core.convert.api.ConversionService;
+import org.nuxeo.ecm.core.transientstore.work.TransientStoreWork;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Work converting a batch of jobs of a bulk conversion, all using the same converter.
+ * <p>
+ * The progress of the bulk conversion is kept in the transient store, each batch writing its own counters so that
+ * batches run on different nodes do not conflict.
+ *
+ * @since 9.1
+ */
+public class BulkConversionWork extends TransientStoreWork {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Log log = LogFactory.getLog(BulkConversionWork.class);
+
+    public static final String CATEGORY = "bulkConversion";
+
+    protected static final String STATUS_SUFFIX = "_bulk";
+
+    protected static final String SUBMITTED = "submitted";
+
+    protected static final String SUBMISSION_DONE = "submissionDone";
+
+    protected static final String START_TIME = "startTime";
+
+    protected static final String BATCH_PREFIX = "batch:";
+
+    protected final String bulkId;
+
+    protected final String converterName;
+
+    protected final String destinationMimeType;
+
+    protected final List<String> jobIds = new ArrayList<>();
+
+    protected final List<Map<String, Serializable>> jobParameters = new ArrayList<>();
+
+    public BulkConversionWork(String bulkId, String converterName, String destinationMimeType) {
+        super();
+        this.bulkId = bulkId;
+        this.converterName = converterName;
+        this.destinationMimeType = destinationMimeType;
+    }
+
+    /**
+     * Adds a job to this batch, storing its input in the transient store.
+     */
+    public void addJob(ConversionJob job) {
+        jobIds.add(job.id);
+        jobParameters.add(job.parameters == null ? new HashMap<>() : job.parameters);
+        putBlobHolder(getInputKey(job.id), job.blobHolder);
+    }
+
+    public int size() {
+        return jobIds.size();
+    }
+
+    protected String getInputKey(String jobId) {
+        return bulkId + "_" + jobId + "_input";
+    }
+
+    @Override
+    public void work() {
+        setStatus("Converting");
+        ConversionService conversionService = Framework.getService(ConversionService.class);
+        long completed = 0;
+        try {
+            for (int i = 0; i < jobIds.size(); i++) {
+                setProgress(new Progress(i, jobIds.size()));
+                String jobId = jobIds.get(i);
+                String inputKey = getInputKey(jobId);
+                try {
+                    BlobHolder input = getBlobHolder(inputKey);
+                    BlobHolder result = null;
+                    if (input != null) {
+                        Map<String, Serializable> parameters = jobParameters.get(i);
+                        result = converterName != null ? conversionService.convert(converterName, input, parameters)
+                                : conversionService.convertToMimeType(destinationMimeType, input, parameters);
+                    }
+                    if (result != null) {
+                        putBlobHolder(computeEntryKey(jobId), result);
+                        completed++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Bulk conversion " + bulkId + " failed for job " + jobId + ": " + e.getMessage());
+                    log.debug(e, e);
+                } finally {
+                    removeBlobHolder(inputKey);
+                }
+            }
+        } finally {
+            // jobs without result or not run are failed, so that the bulk status can reach done
+            long failed = jobIds.size() - completed;
+            // overwritten if the work is run again
+            getStore().putParameter(getStatusKey(bulkId), BATCH_PREFIX + getId(), completed + "/" + failed);
+        }
+        setStatus(null);
+    }
+
+    @Override
+    public void cleanUp(boolean ok, Exception e) {
+        super.cleanUp(ok, e);
+        if (!ok) {
+            jobIds.forEach(jobId -> removeBlobHolder(getInputKey(jobId)));
+        }
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        if (converterName != null) {
+            return String.format("Bulk conversion using '%s' converter", converterName);
+        } else {
+            return String.format("Bulk conversion using '%s' target mime type", destinationMimeType);
+        }
+    }
+
+    protected static String getStatusKey(String bulkId) {
+        return bulkId + STATUS_SUFFIX;
+    }
+
+    /**
+     * Records the start of a bulk conversion.
+     */
+    public static void startBulk(String bulkId) {
+        Map<String, Serializable> parameters = new HashMap<>();
+        parameters.put(START_TIME, Long.valueOf(System.currentTimeMillis()));
+        parameters.put(SUBMITTED, Long.valueOf(0));
+        getStore().putParameters(getStatusKey(bulkId), parameters);
+    }
+
+    /**
+     * Records the number of jobs submitted so far, and whether the submission is over.
+     */
+    public static void setSubmitted(String bulkId, long submitted, boolean done) {
+        getStore().putParameter(getStatusKey(bulkId), SUBMITTED, Long.valueOf(submitted));
+        if (done) {
+            getStore().putParameter(getStatusKey(bulkId), SUBMISSION_DONE, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Aggregates the counters of the batches of a bulk conversion.
+     */
+    public static BulkConversionStatus getBulkStatus(String bulkId) {
+        Map<String, Serializable> parameters = getStore().getParameters(getStatusKey(bulkId));
+        if (parameters == null || !parameters.containsKey(START_TIME)) {
+            return null;
+        }
+        long completed = 0;
+        long failed = 0;
+        for (Map.Entry<String, Serializable> es : parameters.entrySet()) {
+            if (es.getKey().startsWith(BATCH_PREFIX)) {
+                String[] counts = es.getValue().toString().split("/");
+                completed += Long.parseLong(counts[0]);
+                failed += Long.parseLong(counts[1]);
+            }
+        }
+        long submitted = ((Long) parameters.get(SUBMITTED)).longValue();
+        boolean done = Boolean.TRUE.equals(parameters.get(SUBMISSION_DONE));
+        long startTime = ((Long) parameters.get(START_TIME)).longValue();
+        return new BulkConversionStatus(bulkId, submitted, completed, failed, done, startTime,
+                System.currentTimeMillis());
+    }
+
+}
@@ -26,11 +26,17 @@ import java.io.Serializable;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import javax.ws.rs.core.MediaType;
 
@@ -43,14 +49,16 @@ import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
 import org.nuxeo.ecm.core.api.impl.blob.StringBlob;
+import org.nuxeo.ecm.core.convert.api.BulkConversionStatus;
 import org.nuxeo.ecm.core.convert.api.ConversionException;
+import org.nuxeo.ecm.core.convert.api.ConversionJob;
 import org.nuxeo.ecm.core.convert.api.ConversionService;
 import org.nuxeo.ecm.core.convert.api.ConversionStatus;
 import org.nuxeo.ecm.core.convert.api.ConverterCheckResult;
 import org.nuxeo.ecm.core.convert.api.ConverterNotAvailable;
 import org.nuxeo.ecm.core.convert.api.ConverterNotRegistered;
 import org.nuxeo.ecm.core.convert.cache.CacheKeyGenerator;
-import org.nuxeo.ecm.core.convert.cache.ConversionCacheHolder;
+import org.nuxeo.ecm.core.convert.cache.ConversionCache;
 import org.nuxeo.ecm.core.convert.cache.GCTask;
 import org.nuxeo.ecm.core.convert.extension.ChainedConverter;
 import org.nuxeo.ecm.core.convert.extension.Converter;
@@ -81,6 +89,8 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
 
     protected static final Log log = LogFactory.getLog(ConversionServiceImpl.class);
 
+    protected static final long BULK_BACKPRESSURE_WAIT_MS = 100;
+
     public static final String CONVERTER_EP = "converter";
 
     public static final String CONFIG_EP = "configuration";
@@ -91,10 +101,14 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
 
     protected final GlobalConfigDescriptor config = new GlobalConfigDescriptor();
 
+    protected final ConversionCache conversionCache = new ConversionCache(config);
+
     protected static ConversionServiceImpl self;
 
     protected Thread gcThread;
 
+    protected ExecutorService chainExecutor;
+
     protected GCTask gcTask;
 
     ReloadListener reloadListener;
@@ -118,6 +132,13 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
         translationHelper.clear();
         self = this;
         config.clearCachingDirectory();
+        AtomicInteger chainThreadCount = new AtomicInteger();
+        // shared by all chains, branches do not fan out again so that they never wait for each other
+        chainExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "Nuxeo-Convert-Chain-" + chainThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         Framework.addListener(new RuntimeServiceListener() {
 
             @Override
@@ -137,9 +158,11 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
     @Override
     public void deactivate(ComponentContext context) {
         if (config.isCacheEnabled()) {
-            ConversionCacheHolder.deleteCache();
+            conversionCache.clear();
         }
         self = null;
+        chainExecutor.shutdownNow();
+        chainExecutor = null;
         converterDescriptors.clear();
         translationHelper.clear();
     }
@@ -216,6 +239,23 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
         return self.config.getCachingDirectory();
     }
 
+    /**
+     * Returns the executor running the parallel branches of the {@link ChainedConverter}s, or {@code null} if the
+     * service is not active.
+     *
+     * @since 9.1
+     */
+    public static ExecutorService getChainExecutor() {
+        return self == null ? null : self.chainExecutor;
+    }
+
+    /**
+     * @since 9.1
+     */
+    public static ConversionCache getConversionCache() {
+        return self.conversionCache;
+    }
+
     /* Service API */
 
     @Override
@@ -333,17 +373,14 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
             throw new ConversionException("Converter " + converterName + " can not be found");
         }
 
-        String cacheKey = CacheKeyGenerator.computeKey(converterName, blobHolder, parameters);
-
-        BlobHolder result = ConversionCacheHolder.getFromCache(cacheKey);
-
-        if (result == null) {
-            Converter converter = desc.getConverterInstance();
+        Converter converter = desc.getConverterInstance();
+        BlobHolder result;
+        if (config.isCacheEnabled()) {
+            String cacheKey = CacheKeyGenerator.computeKey(converterName, blobHolder, parameters);
+            Map<String, Serializable> params = parameters;
+            result = conversionCache.getOrConvert(cacheKey, () -> converter.convert(blobHolder, params));
+        } else {
             result = converter.convert(blobHolder, parameters);
-
-            if (config.isCacheEnabled()) {
-                ConversionCacheHolder.addToCache(cacheKey, result);
-            }
         }
 
         if (result != null) {
@@ -518,6 +555,59 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
         return bh;
     }
 
+    @Override
+    public String scheduleBulkConversion(Stream<ConversionJob> jobs) {
+        WorkManager workManager = Framework.getService(WorkManager.class);
+        String queueId = workManager.getCategoryQueueId(BulkConversionWork.CATEGORY);
+        String bulkId = UUID.randomUUID().toString();
+        BulkConversionWork.startBulk(bulkId);
+        // one pending batch per converter
+        Map<String, BulkConversionWork> batches = new HashMap<>();
+        long submitted = 0;
+        for (Iterator<ConversionJob> it = jobs.iterator(); it.hasNext();) {
+            ConversionJob job = it.next();
+            String group = job.converterName != null ? job.converterName : "mimetype:" + job.destinationMimeType;
+            BulkConversionWork batch = batches.computeIfAbsent(group,
+                    k -> new BulkConversionWork(bulkId, job.converterName, job.destinationMimeType));
+            batch.addJob(job);
+            if (batch.size() >= config.getBulkBatchSize()) {
+                batches.remove(group);
+                submitted += batch.size();
+                scheduleBulkBatch(workManager, queueId, batch, submitted);
+            }
+        }
+        for (BulkConversionWork batch : batches.values()) {
+            submitted += batch.size();
+            scheduleBulkBatch(workManager, queueId, batch, submitted);
+        }
+        BulkConversionWork.setSubmitted(bulkId, submitted, true);
+        return bulkId;
+    }
+
+    protected void scheduleBulkBatch(WorkManager workManager, String queueId, BulkConversionWork batch,
+            long submitted) {
+        // back-pressure: don't flood the queue, the stream may hold millions of jobs
+        while (workManager.getMetrics(queueId).getScheduled().longValue() >= config.getBulkMaxScheduled()) {
+            try {
+                Thread.sleep(BULK_BACKPRESSURE_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConversionException("Interrupted while scheduling bulk conversion " + batch.bulkId, e);
+            }
+        }
+        // count the jobs before they can complete
+        BulkConversionWork.setSubmitted(batch.bulkId, submitted, false);
+        workManager.schedule(batch);
+        if (log.isDebugEnabled()) {
+            log.debug(BulkConversionWork.getBulkStatus(batch.bulkId));
+        }
+    }
+
+    @Override
+    public BulkConversionStatus getBulkConversionStatus(String id) {
+        return BulkConversionWork.getBulkStatus(id);
+    }
+
     @Override
     public <T> T getAdapter(Class<T> adapter) {
         if (adapter.isAssignableFrom(MimeTypeTranslationHelper.class)) {
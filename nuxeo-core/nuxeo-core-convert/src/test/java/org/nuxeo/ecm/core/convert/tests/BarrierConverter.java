@@ -0,0 +1,70 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.tests;
+
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.api.local.ClientLoginModule;
+import org.nuxeo.ecm.core.api.local.LoginStack;
+import org.nuxeo.ecm.core.convert.api.ConversionException;
+import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
+import org.nuxeo.ecm.core.convert.extension.Converter;
+import org.nuxeo.ecm.core.convert.extension.ConverterDescriptor;
+
+/**
+ * Identity converter waiting for a given number of conversions to run at the same time, recording the login of each.
+ *
+ * @since 9.1
+ */
+public class BarrierConverter implements Converter {
+
+    public static volatile CountDownLatch barrier = new CountDownLatch(0);
+
+    public static final List<String> logins = new CopyOnWriteArrayList<>();
+
+    @Override
+    public BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters) throws ConversionException {
+        LoginStack.Entry login = ClientLoginModule.getCurrentLogin();
+        Principal principal = login == null ? null : login.getPrincipal();
+        logins.add(principal == null ? "none" : principal.getName());
+        barrier.countDown();
+        try {
+            if (!barrier.await(10, TimeUnit.SECONDS)) {
+                throw new ConversionException("Conversions not run in parallel");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConversionException(e);
+        }
+        return new SimpleCachableBlobHolder(blobHolder.getBlob());
+    }
+
+    @Override
+    public void init(ConverterDescriptor descriptor) {
+        // NOP
+    }
+
+}
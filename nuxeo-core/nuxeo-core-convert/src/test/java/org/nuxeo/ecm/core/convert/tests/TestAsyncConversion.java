@@ -21,10 +21,13 @@ package org.nuxeo.ecm.core.convert.tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -33,6 +36,8 @@ import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.Blobs;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
+import org.nuxeo.ecm.core.convert.api.BulkConversionStatus;
+import org.nuxeo.ecm.core.convert.api.ConversionJob;
 import org.nuxeo.ecm.core.convert.api.ConversionService;
 import org.nuxeo.ecm.core.event.EventService;
 import org.nuxeo.runtime.test.runner.Deploy;
@@ -99,4 +104,32 @@ public class TestAsyncConversion {
         assertEquals(blob.getMimeType(), resultBlob.getMimeType());
     }
 
+    @Test
+    public void shouldDoBulkConversion() throws IOException {
+        String bulkId = conversionService.scheduleBulkConversion(IntStream.range(0, 50).mapToObj(i -> {
+            Blob blob = Blobs.createBlob("content " + i, "text/plain", null, "file" + i + ".txt");
+            BlobHolder bh = new SimpleBlobHolder(blob);
+            return i % 2 == 0 ? ConversionJob.withConverter("job" + i, "identity", bh, null)
+                    : ConversionJob.toMimeType("job" + i, "test/cache", bh, null);
+        }));
+        assertNotNull(bulkId);
+
+        eventService.waitForAsyncCompletion();
+
+        BulkConversionStatus status = conversionService.getBulkConversionStatus(bulkId);
+        assertNotNull(status);
+        assertTrue(status.isDone());
+        assertEquals(50, status.submitted);
+        assertEquals(50, status.completed);
+        assertEquals(0, status.failed);
+        assertEquals(0, status.getEta());
+
+        for (int i = 0; i < 50; i++) {
+            BlobHolder result = conversionService.getConversionResult("job" + i, true);
+            assertNotNull(result);
+            assertEquals("content " + i, result.getBlob().getString());
+        }
+        assertNull(conversionService.getBulkConversionStatus("unknown"));
+    }
+
 }
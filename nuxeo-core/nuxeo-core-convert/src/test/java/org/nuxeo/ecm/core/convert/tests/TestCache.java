@@ -25,6 +25,14 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -34,8 +42,10 @@ import org.nuxeo.ecm.core.api.Blobs;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
 import org.nuxeo.ecm.core.convert.api.ConversionService;
+import org.nuxeo.ecm.core.convert.cache.ConversionCache;
 import org.nuxeo.ecm.core.convert.cache.ConversionCacheGCManager;
 import org.nuxeo.ecm.core.convert.cache.ConversionCacheHolder;
+import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
 import org.nuxeo.ecm.core.convert.extension.Converter;
 import org.nuxeo.ecm.core.convert.service.ConversionServiceImpl;
 import org.nuxeo.runtime.api.Framework;
@@ -94,4 +104,47 @@ public class TestCache {
         assertEquals(0, cacheSize1 - cacheSize3);
     }
 
+    @Test
+    public void testConcurrentConversionsAreCoalesced() throws Exception {
+        ConversionCache cache = ConversionServiceImpl.getConversionCache();
+        File file = FileUtils.getResourceFileFromContext("test-data/hello.doc");
+        Blob blob = Blobs.createBlob(file, "application/msword", null, "hello.doc");
+        AtomicInteger conversions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        int nbThreads = 4;
+        long coalesced = cache.getCoalesced();
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        try {
+            List<Future<BlobHolder>> results = new ArrayList<>();
+            for (int i = 0; i < nbThreads; i++) {
+                results.add(executor.submit(() -> cache.getOrConvert("coalesced-key", () -> {
+                    conversions.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new SimpleCachableBlobHolder(blob);
+                })));
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // let the other threads reach the cache
+            while (cache.getCoalesced() - coalesced < nbThreads - 1) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<BlobHolder> result : results) {
+                assertNotNull(result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, conversions.get());
+        assertNotNull(cache.getEntry("coalesced-key"));
+        cache.remove("coalesced-key");
+    }
+
 }
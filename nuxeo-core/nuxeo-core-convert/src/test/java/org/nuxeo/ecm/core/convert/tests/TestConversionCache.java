@@ -0,0 +1,178 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.blob.binary.BinaryManager;
+import org.nuxeo.ecm.core.blob.binary.LocalBinaryManager;
+import org.nuxeo.ecm.core.cache.Cache;
+import org.nuxeo.ecm.core.cache.CacheDescriptor;
+import org.nuxeo.ecm.core.cache.InMemoryCacheImpl;
+import org.nuxeo.ecm.core.convert.cache.ConversionCache;
+import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
+import org.nuxeo.ecm.core.convert.extension.GlobalConfigDescriptor;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * @since 9.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features(ConvertFeature.class)
+public class TestConversionCache {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    protected static class TestConfig extends GlobalConfigDescriptor {
+
+        private static final long serialVersionUID = 1L;
+
+        protected TestConfig(File directory, int diskCacheSizeKB, String sharedCache) {
+            cachingDirectory = directory.getPath();
+            setDiskCacheSize(diskCacheSizeKB);
+            this.sharedCache = sharedCache;
+        }
+
+    }
+
+    /**
+     * Cache whose shared index and binary manager are given instead of looked up in the services.
+     */
+    protected static class SharedConversionCache extends ConversionCache {
+
+        protected final Cache index;
+
+        protected final BinaryManager binaryManager;
+
+        protected SharedConversionCache(GlobalConfigDescriptor config, Cache index, BinaryManager binaryManager) {
+            super(config);
+            this.index = index;
+            this.binaryManager = binaryManager;
+        }
+
+        @Override
+        protected Cache getSharedIndex() {
+            return index;
+        }
+
+        @Override
+        protected BinaryManager getSharedBinaryManager() {
+            return binaryManager;
+        }
+
+    }
+
+    protected static BlobHolder newResult(String content) {
+        return new SimpleCachableBlobHolder(Blobs.createBlob(content));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedAboveDiskSize() throws Exception {
+        // room for two 3KB results
+        ConversionCache cache = new ConversionCache(new TestConfig(folder.newFolder(), 8, null));
+        String content = StringUtils.repeat("a", 3 * 1024);
+        cache.put("key1", newResult(content + "1"));
+        cache.put("key2", newResult(content + "2"));
+        assertEquals(2, cache.getNbEntries());
+        assertEquals(0, cache.getEvictions());
+
+        cache.put("key3", newResult(content + "3"));
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.getEntry("key1"));
+        assertTrue(cache.getSize() <= 8 * 1024);
+
+        // key2 becomes more recently used than key3
+        assertNotNull(cache.get("key2"));
+        cache.put("key4", newResult(content + "4"));
+        assertEquals(2, cache.getEvictions());
+        assertNotNull(cache.getEntry("key2"));
+        assertNull(cache.getEntry("key3"));
+        assertNotNull(cache.getEntry("key4"));
+        assertEquals(content + "2", cache.get("key2").getBlob().getString());
+    }
+
+    @Test
+    public void testSharedResultReusedByAnotherNode() throws Exception {
+        CacheDescriptor desc = new CacheDescriptor();
+        desc.name = "test-shared-conversions";
+        Cache index = new InMemoryCacheImpl(desc);
+        LocalBinaryManager binaryManager = new LocalBinaryManager();
+        binaryManager.initialize("test-shared-conversions",
+                Collections.singletonMap(BinaryManager.PROP_PATH, folder.newFolder().getPath()));
+        try {
+            ConversionCache node1 = new SharedConversionCache(
+                    new TestConfig(folder.newFolder(), 1024, desc.name), index, binaryManager);
+            ConversionCache node2 = new SharedConversionCache(
+                    new TestConfig(folder.newFolder(), 1024, desc.name), index, binaryManager);
+
+            node1.put("key", newResult("shared content"));
+            assertNotNull(index.get("key"));
+
+            BlobHolder result = node2.get("key");
+            assertNotNull(result);
+            assertEquals("shared content", result.getBlob().getString());
+            assertEquals(1, node2.getSharedHits());
+            // the shared result is cached locally
+            assertNotNull(node2.getEntry("key"));
+
+            // an index entry whose binary is gone is a miss
+            HashMap<String, String> info = new HashMap<>();
+            info.put("digest", "0123456789abcdef0123456789abcdef");
+            ArrayList<HashMap<String, String>> infos = new ArrayList<>(Collections.singletonList(info));
+            index.put("missing", infos);
+            assertNull(node2.get("missing"));
+            assertEquals(1, node2.getSharedHits());
+        } finally {
+            binaryManager.close();
+            ((InMemoryCacheImpl) index).close();
+        }
+    }
+
+    @Test
+    public void testReadEntryIsNotEvicted() throws IOException {
+        ConversionCache cache = new ConversionCache(new TestConfig(folder.newFolder(), 1024, null));
+        cache.put("key1", newResult("1"));
+        cache.put("key2", newResult("2"));
+        assertNotNull(cache.get("key1"));
+        // key1 was read after key2, key2 is the least recently used entry
+        assertEquals(1, cache.evict(cache.getSize() - 1));
+        assertNotNull(cache.getEntry("key1"));
+        assertNull(cache.getEntry("key2"));
+        assertEquals("1", cache.get("key1").getBlob().getString());
+    }
+
+}
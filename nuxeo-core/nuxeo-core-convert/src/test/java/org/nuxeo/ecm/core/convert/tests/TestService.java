@@ -28,9 +28,12 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.Serializable;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 import javax.inject.Inject;
 
@@ -40,8 +43,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.SimplePrincipal;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
+import org.nuxeo.ecm.core.api.local.ClientLoginModule;
+import org.nuxeo.ecm.core.api.local.LoginStack;
 import org.nuxeo.ecm.core.convert.api.ConversionService;
 import org.nuxeo.ecm.core.convert.api.ConverterCheckResult;
 import org.nuxeo.ecm.core.convert.api.ConverterNotAvailable;
@@ -316,4 +322,50 @@ public class TestService {
         assertEquals("dummy.pdf", resultBlob.getFilename());
     }
 
+    @Test
+    @LocalDeploy("org.nuxeo.ecm.core.convert:OSGI-INF/converters-test-contrib6.xml")
+    public void testParallelBlobsChain() throws Exception {
+        List<Blob> blobs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            blobs.add(Blobs.createBlob("content " + i, "text/plain"));
+        }
+
+        // the identity converter only keeps the main blob
+        BlobHolder result = cs.convert("sequentialChain", new SimpleBlobHolder(blobs), new HashMap<>());
+        assertEquals(1, result.getBlobs().size());
+        assertEquals("content 0", result.getBlob().getString());
+
+        // each blob goes through the chain on its own, in order
+        ChainedConverter chain = (ChainedConverter) ConversionServiceImpl.getConverter("parallelChain");
+        assertTrue(chain.isParallelBlobs());
+        result = cs.convert("parallelChain", new SimpleBlobHolder(blobs), new HashMap<>());
+        assertEquals(5, result.getBlobs().size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("content " + i, result.getBlobs().get(i).getString());
+        }
+    }
+
+    @Test
+    @LocalDeploy("org.nuxeo.ecm.core.convert:OSGI-INF/converters-test-contrib6.xml")
+    public void testParallelBlobsChainRunsBranchesConcurrently() throws Exception {
+        List<Blob> blobs = new ArrayList<>();
+        blobs.add(Blobs.createBlob("parallel 0", "text/plain"));
+        blobs.add(Blobs.createBlob("parallel 1", "text/plain"));
+        // the caller and the branch wait for each other, which fails if they run one after the other
+        BarrierConverter.barrier = new CountDownLatch(2);
+        BarrierConverter.logins.clear();
+        LoginStack loginStack = ClientLoginModule.getThreadLocalLogin();
+        loginStack.push(new SimplePrincipal("chainUser"), null, null);
+        try {
+            BlobHolder result = cs.convert("parallelBarrierChain", new SimpleBlobHolder(blobs), new HashMap<>());
+            assertEquals(2, result.getBlobs().size());
+            assertEquals("parallel 0", result.getBlobs().get(0).getString());
+            assertEquals("parallel 1", result.getBlobs().get(1).getString());
+        } finally {
+            loginStack.pop();
+        }
+        // the branch runs with the login of the caller
+        assertEquals(Arrays.asList("chainUser", "chainUser"), BarrierConverter.logins);
+    }
+
 }
@@ -38,6 +38,7 @@ import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -84,11 +85,21 @@ public class AsyncEventExecutor {
     }
 
     public void run(final List<EventListenerDescriptor> listeners, EventBundle bundle) {
+        schedule(listeners, bundle);
+    }
+
+    /**
+     * Schedules the listener works like {@link #run}, returning their ids so that callers can wait for them.
+     *
+     * @since 9.1
+     */
+    public List<String> schedule(final List<EventListenerDescriptor> listeners, EventBundle bundle) {
+        List<String> workIds = new ArrayList<>();
         // EventBundle that have gone through bus have been serialized
         // we need to reconnect them before filtering
         // this means we need a valid transaction !
         if (!(bundle instanceof ReconnectedEventBundleImpl)) {
-            scheduleListeners(listeners, bundle);
+            scheduleListeners(listeners, bundle, workIds);
         } else {
             final EventBundle tmpBundle = bundle;
 
@@ -106,12 +117,14 @@ public class AsyncEventExecutor {
                 }
 
                 sessions.values().forEach(CoreSession::close);
-                scheduleListeners(listeners, connectedBundle);
+                scheduleListeners(listeners, connectedBundle, workIds);
             });
         }
+        return workIds;
     }
 
-    private void scheduleListeners(final List<EventListenerDescriptor> listeners, EventBundle bundle) {
+    private void scheduleListeners(final List<EventListenerDescriptor> listeners, EventBundle bundle,
+            List<String> workIds) {
         for (EventListenerDescriptor listener : listeners) {
             EventBundle filtered = listener.filterBundle(bundle);
             if (filtered.isEmpty()) {
@@ -120,7 +133,9 @@ public class AsyncEventExecutor {
             // This may be called in a transaction if event.isCommitEvent() is true or at transaction commit
             // in other cases. If the transaction has been marked rollback-only, then scheduling must discard
             // so we schedule "after commit"
-            getWorkManager().schedule(new ListenerWork(listener, filtered), true);
+            ListenerWork work = new ListenerWork(listener, filtered);
+            getWorkManager().schedule(work, true);
+            workIds.add(work.getId());
         }
     }
 
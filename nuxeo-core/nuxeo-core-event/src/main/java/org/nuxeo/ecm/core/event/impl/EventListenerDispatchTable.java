@@ -0,0 +1,124 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventBundle;
+
+/**
+ * Immutable lookup table of the enabled listeners of a given kind, indexed by the event names they accept.
+ * <p>
+ * Tables are rebuilt by {@link EventListenerList} whenever listeners are registered, removed, enabled or disabled, so
+ * that firing an event is a single map lookup instead of a scan of all the listeners.
+ *
+ * @since 9.1
+ */
+public class EventListenerDispatchTable {
+
+    public static final EventListenerDispatchTable EMPTY = new EventListenerDispatchTable(
+            Collections.<EventListenerDescriptor> emptyList());
+
+    /** All the listeners, in priority order. */
+    protected final List<EventListenerDescriptor> listeners;
+
+    /** Listeners accepting all events, used for event names no listener explicitly declared. */
+    protected final List<EventListenerDescriptor> catchAllListeners;
+
+    protected final Map<String, List<EventListenerDescriptor>> listenersByEvent;
+
+    /**
+     * @param listeners the enabled listeners, sorted by priority
+     */
+    public EventListenerDispatchTable(List<EventListenerDescriptor> listeners) {
+        this.listeners = Collections.unmodifiableList(new ArrayList<>(listeners));
+        Set<String> eventNames = new HashSet<>();
+        List<EventListenerDescriptor> catchAll = new ArrayList<>();
+        for (EventListenerDescriptor desc : listeners) {
+            Set<String> events = desc.getEvents();
+            if (events == null) {
+                catchAll.add(desc);
+            } else {
+                eventNames.addAll(events);
+            }
+        }
+        catchAllListeners = Collections.unmodifiableList(catchAll);
+        Map<String, List<EventListenerDescriptor>> map = new HashMap<>();
+        for (String eventName : eventNames) {
+            List<EventListenerDescriptor> accepting = new ArrayList<>();
+            for (EventListenerDescriptor desc : listeners) {
+                if (desc.acceptEvent(eventName)) {
+                    accepting.add(desc);
+                }
+            }
+            map.put(eventName, Collections.unmodifiableList(accepting));
+        }
+        listenersByEvent = map;
+    }
+
+    /**
+     * Returns all the listeners of this table, in priority order.
+     */
+    public List<EventListenerDescriptor> getListeners() {
+        return listeners;
+    }
+
+    /**
+     * Returns the listeners accepting the given event name, in priority order.
+     */
+    public List<EventListenerDescriptor> getListeners(String eventName) {
+        List<EventListenerDescriptor> accepting = listenersByEvent.get(eventName);
+        return accepting == null ? catchAllListeners : accepting;
+    }
+
+    /**
+     * Returns the listeners accepting at least one event of the bundle, in priority order.
+     */
+    public List<EventListenerDescriptor> getListeners(EventBundle bundle) {
+        if (listeners.isEmpty() || catchAllListeners.size() == listeners.size()) {
+            return listeners;
+        }
+        Set<EventListenerDescriptor> accepting = new HashSet<>();
+        for (Event event : bundle) {
+            accepting.addAll(getListeners(event.getName()));
+            if (accepting.size() == listeners.size()) {
+                return listeners;
+            }
+        }
+        List<EventListenerDescriptor> result = new ArrayList<>(accepting.size());
+        for (EventListenerDescriptor desc : listeners) {
+            if (accepting.contains(desc)) {
+                result.add(desc);
+            }
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+}
@@ -23,43 +23,44 @@ package org.nuxeo.ecm.core.event.impl;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.nuxeo.ecm.core.event.EventListener;
 import org.nuxeo.ecm.core.event.PostCommitEventListener;
 
 /**
  * Utility class used to manage event listeners descriptors.
+ * <p>
+ * The descriptor lists are copied on write: a registration builds new sorted lists, swaps them in, then publishes
+ * new dispatch tables, so that events fired concurrently always see consistent lists and tables.
  *
  * @author Thierry Delprat
  */
 public class EventListenerList {
 
-    protected final List<EventListenerDescriptor> inlineListenersDescriptors = new ArrayList<EventListenerDescriptor>();
+    protected volatile List<EventListenerDescriptor> inlineListenersDescriptors = Collections.emptyList();
 
-    protected final List<EventListenerDescriptor> syncPostCommitListenersDescriptors = new ArrayList<EventListenerDescriptor>();
+    protected volatile List<EventListenerDescriptor> syncPostCommitListenersDescriptors = Collections.emptyList();
 
-    protected final List<EventListenerDescriptor> asyncPostCommitListenersDescriptors = new ArrayList<EventListenerDescriptor>();
+    protected volatile List<EventListenerDescriptor> asyncPostCommitListenersDescriptors = Collections.emptyList();
 
-    protected volatile List<EventListenerDescriptor> enabledInlineListenersDescriptors = null;
+    protected volatile EventListenerDispatchTable inlineDispatchTable = null;
 
-    protected volatile List<EventListenerDescriptor> enabledSyncPostCommitListenersDescriptors = null;
+    protected volatile EventListenerDispatchTable syncPostCommitDispatchTable = null;
 
-    protected volatile List<EventListenerDescriptor> enabledAsyncPostCommitListenersDescriptors = null;
+    protected volatile EventListenerDispatchTable asyncPostCommitDispatchTable = null;
 
-    protected final Map<String, EventListenerDescriptor> descriptors = new HashMap<String, EventListenerDescriptor>();
+    protected final Map<String, EventListenerDescriptor> descriptors = new ConcurrentHashMap<String, EventListenerDescriptor>();
 
     protected synchronized void flushCache() {
-        enabledAsyncPostCommitListenersDescriptors = null;
-        enabledInlineListenersDescriptors = null;
-        enabledSyncPostCommitListenersDescriptors = null;
+        asyncPostCommitDispatchTable = null;
+        inlineDispatchTable = null;
+        syncPostCommitDispatchTable = null;
     }
 
-    public void add(EventListenerDescriptor descriptor) {
-
-        flushCache();
+    public synchronized void add(EventListenerDescriptor descriptor) {
         // merge if necessary
         if (descriptors.containsKey(descriptor.getName())) {
             descriptor = mergeDescriptor(descriptor);
@@ -70,42 +71,64 @@ public class EventListenerList {
 
         if (descriptor.isPostCommit) {
             if (descriptor.getIsAsync()) {
-                asyncPostCommitListenersDescriptors.add(descriptor);
-                Collections.sort(asyncPostCommitListenersDescriptors, new EventListenerDescriptorComparator());
+                asyncPostCommitListenersDescriptors = with(asyncPostCommitListenersDescriptors, descriptor);
             } else {
-                syncPostCommitListenersDescriptors.add(descriptor);
-                Collections.sort(syncPostCommitListenersDescriptors, new EventListenerDescriptorComparator());
+                syncPostCommitListenersDescriptors = with(syncPostCommitListenersDescriptors, descriptor);
             }
 
         } else {
-            inlineListenersDescriptors.add(descriptor);
-            Collections.sort(inlineListenersDescriptors, new EventListenerDescriptorComparator());
+            inlineListenersDescriptors = with(inlineListenersDescriptors, descriptor);
         }
 
         descriptors.put(descriptor.getName(), descriptor);
+        recomputeEnabledListeners();
     }
 
     protected EventListenerDescriptor mergeDescriptor(EventListenerDescriptor descriptor) {
         EventListenerDescriptor existingDesc = getDescriptor(descriptor.getName());
-        removeDescriptor(existingDesc);
+        // the tables are published once the merged descriptor is added back
+        remove(existingDesc);
         existingDesc.merge(descriptor);
         return existingDesc;
     }
 
-    public void removeDescriptor(EventListenerDescriptor descriptor) {
-        flushCache();
-        if (descriptors.containsKey(descriptor.getName())) {
-            if (descriptor.isPostCommit) {
-                if (descriptor.getIsAsync()) {
-                    asyncPostCommitListenersDescriptors.remove(descriptor);
-                } else {
-                    syncPostCommitListenersDescriptors.remove(descriptor);
-                }
+    public synchronized void removeDescriptor(EventListenerDescriptor descriptor) {
+        if (remove(descriptor)) {
+            recomputeEnabledListeners();
+        }
+    }
+
+    protected boolean remove(EventListenerDescriptor descriptor) {
+        if (!descriptors.containsKey(descriptor.getName())) {
+            return false;
+        }
+        if (descriptor.isPostCommit) {
+            if (descriptor.getIsAsync()) {
+                asyncPostCommitListenersDescriptors = without(asyncPostCommitListenersDescriptors, descriptor);
             } else {
-                inlineListenersDescriptors.remove(descriptor);
+                syncPostCommitListenersDescriptors = without(syncPostCommitListenersDescriptors, descriptor);
             }
-            descriptors.remove(descriptor.getName());
+        } else {
+            inlineListenersDescriptors = without(inlineListenersDescriptors, descriptor);
         }
+        descriptors.remove(descriptor.getName());
+        return true;
+    }
+
+    protected static List<EventListenerDescriptor> with(List<EventListenerDescriptor> list,
+            EventListenerDescriptor descriptor) {
+        List<EventListenerDescriptor> copy = new ArrayList<EventListenerDescriptor>(list.size() + 1);
+        copy.addAll(list);
+        copy.add(descriptor);
+        Collections.sort(copy, new EventListenerDescriptorComparator());
+        return Collections.unmodifiableList(copy);
+    }
+
+    protected static List<EventListenerDescriptor> without(List<EventListenerDescriptor> list,
+            EventListenerDescriptor descriptor) {
+        List<EventListenerDescriptor> copy = new ArrayList<EventListenerDescriptor>(list);
+        copy.remove(descriptor);
+        return Collections.unmodifiableList(copy);
     }
 
     public EventListenerDescriptor getDescriptor(String listenerName) {
@@ -148,46 +171,79 @@ public class EventListenerList {
         return asyncPostCommitListenersDescriptors;
     }
 
+    /**
+     * Builds new dispatch tables from the current descriptor lists and publishes them.
+     */
     public synchronized void recomputeEnabledListeners() {
-        enabledAsyncPostCommitListenersDescriptors = new ArrayList<EventListenerDescriptor>();
-        for (EventListenerDescriptor desc : asyncPostCommitListenersDescriptors) {
-            if (desc.isEnabled) {
-                enabledAsyncPostCommitListenersDescriptors.add(desc);
-            }
-        }
-        enabledSyncPostCommitListenersDescriptors = new ArrayList<EventListenerDescriptor>();
-        for (EventListenerDescriptor desc : syncPostCommitListenersDescriptors) {
-            if (desc.isEnabled) {
-                enabledSyncPostCommitListenersDescriptors.add(desc);
-            }
-        }
-        enabledInlineListenersDescriptors = new ArrayList<EventListenerDescriptor>();
-        for (EventListenerDescriptor desc : inlineListenersDescriptors) {
+        EventListenerDispatchTable async = new EventListenerDispatchTable(
+                getEnabled(asyncPostCommitListenersDescriptors));
+        EventListenerDispatchTable sync = new EventListenerDispatchTable(getEnabled(syncPostCommitListenersDescriptors));
+        EventListenerDispatchTable inline = new EventListenerDispatchTable(getEnabled(inlineListenersDescriptors));
+        asyncPostCommitDispatchTable = async;
+        syncPostCommitDispatchTable = sync;
+        inlineDispatchTable = inline;
+    }
+
+    protected static List<EventListenerDescriptor> getEnabled(List<EventListenerDescriptor> descriptors) {
+        List<EventListenerDescriptor> enabled = new ArrayList<EventListenerDescriptor>();
+        for (EventListenerDescriptor desc : descriptors) {
             if (desc.isEnabled) {
-                enabledInlineListenersDescriptors.add(desc);
+                enabled.add(desc);
             }
         }
+        return enabled;
     }
 
-    public List<EventListenerDescriptor> getEnabledInlineListenersDescriptors() {
-        if (enabledInlineListenersDescriptors == null) {
+    /**
+     * Gets the dispatch table of the enabled inline listeners. The table is immutable and is replaced when listeners
+     * change, so it can be used without copy or locking.
+     *
+     * @since 9.1
+     */
+    public EventListenerDispatchTable getInlineDispatchTable() {
+        EventListenerDispatchTable table;
+        while ((table = inlineDispatchTable) == null) {
             recomputeEnabledListeners();
         }
-        return new ArrayList<EventListenerDescriptor>(enabledInlineListenersDescriptors);
+        return table;
     }
 
-    public List<EventListenerDescriptor> getEnabledSyncPostCommitListenersDescriptors() {
-        if (enabledSyncPostCommitListenersDescriptors == null) {
+    /**
+     * Gets the dispatch table of the enabled synchronous post-commit listeners.
+     *
+     * @since 9.1
+     */
+    public EventListenerDispatchTable getSyncPostCommitDispatchTable() {
+        EventListenerDispatchTable table;
+        while ((table = syncPostCommitDispatchTable) == null) {
             recomputeEnabledListeners();
         }
-        return new ArrayList<EventListenerDescriptor>(enabledSyncPostCommitListenersDescriptors);
+        return table;
     }
 
-    public List<EventListenerDescriptor> getEnabledAsyncPostCommitListenersDescriptors() {
-        if (enabledAsyncPostCommitListenersDescriptors == null) {
+    /**
+     * Gets the dispatch table of the enabled asynchronous post-commit listeners.
+     *
+     * @since 9.1
+     */
+    public EventListenerDispatchTable getAsyncPostCommitDispatchTable() {
+        EventListenerDispatchTable table;
+        while ((table = asyncPostCommitDispatchTable) == null) {
             recomputeEnabledListeners();
         }
-        return new ArrayList<EventListenerDescriptor>(enabledAsyncPostCommitListenersDescriptors);
+        return table;
+    }
+
+    public List<EventListenerDescriptor> getEnabledInlineListenersDescriptors() {
+        return new ArrayList<EventListenerDescriptor>(getInlineDispatchTable().getListeners());
+    }
+
+    public List<EventListenerDescriptor> getEnabledSyncPostCommitListenersDescriptors() {
+        return new ArrayList<EventListenerDescriptor>(getSyncPostCommitDispatchTable().getListeners());
+    }
+
+    public List<EventListenerDescriptor> getEnabledAsyncPostCommitListenersDescriptors() {
+        return new ArrayList<EventListenerDescriptor>(getAsyncPostCommitDispatchTable().getListeners());
     }
 
     public List<String> getListenerNames() {
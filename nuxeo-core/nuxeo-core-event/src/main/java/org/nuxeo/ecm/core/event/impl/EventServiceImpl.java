@@ -27,7 +27,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.naming.NamingException;
@@ -57,8 +59,13 @@ import org.nuxeo.ecm.core.event.pipe.dispatch.EventBundleDispatcher;
 import org.nuxeo.ecm.core.event.pipe.dispatch.EventDispatcherDescriptor;
 import org.nuxeo.ecm.core.event.pipe.dispatch.EventDispatcherRegistry;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
 /**
  * Implementation of the event service.
  */
@@ -111,6 +118,11 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
 
     protected EventBundleDispatcher pipeDispatcher;
 
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    /** Inline listener execution timers, by listener name. */
+    protected final Map<String, Timer> inlineListenerTimers = new ConcurrentHashMap<>();
+
     public EventServiceImpl() {
         listenerDescriptors = new EventListenerList();
         postCommitExec = new PostCommitEventExecutor();
@@ -231,16 +243,16 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
     public void fireEvent(Event event) {
 
         String ename = event.getName();
-        EventStats stats = Framework.getService(EventStats.class);
-        for (EventListenerDescriptor desc : listenerDescriptors.getEnabledInlineListenersDescriptors()) {
-            if (!desc.acceptEvent(ename)) {
-                continue;
-            }
+        List<EventListenerDescriptor> listeners = listenerDescriptors.getInlineDispatchTable().getListeners(ename);
+        EventStats stats = listeners.isEmpty() ? null : Framework.getService(EventStats.class);
+        for (EventListenerDescriptor desc : listeners) {
             try {
-                long t0 = System.currentTimeMillis();
+                long t0 = System.nanoTime();
                 SequenceTracer.start("Fire sync event " + event.getName());
                 desc.asEventListener().handleEvent(event);
-                long elapsed = System.currentTimeMillis() - t0;
+                long elapsedNanos = System.nanoTime() - t0;
+                getInlineListenerTimer(desc).update(elapsedNanos, TimeUnit.NANOSECONDS);
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
                 SequenceTracer.stop("done in " + elapsed + " ms");
                 if (stats != null) {
                     stats.logSyncExec(desc, elapsed);
@@ -302,6 +314,16 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
         }
     }
 
+    /**
+     * Gets the timer recording the execution time of an inline listener.
+     *
+     * @since 9.1
+     */
+    protected Timer getInlineListenerTimer(EventListenerDescriptor desc) {
+        return inlineListenerTimers.computeIfAbsent(desc.getName(),
+                name -> registry.timer(MetricRegistry.name("nuxeo", "events", "listeners", name, "inline")));
+    }
+
     @Override
     public void fireEventBundle(EventBundle event) {
         boolean comesFromJMS = false;
@@ -312,14 +334,16 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
             }
         }
 
-        List<EventListenerDescriptor> postCommitSync = listenerDescriptors.getEnabledSyncPostCommitListenersDescriptors();
-        List<EventListenerDescriptor> postCommitAsync = listenerDescriptors.getEnabledAsyncPostCommitListenersDescriptors();
+        List<EventListenerDescriptor> postCommitSync = listenerDescriptors.getSyncPostCommitDispatchTable()
+                                                                          .getListeners(event);
+        List<EventListenerDescriptor> postCommitAsync = listenerDescriptors.getAsyncPostCommitDispatchTable()
+                                                                           .getListeners(event);
 
         if (bulkModeEnabled) {
             // run all listeners synchronously in one transaction
             List<EventListenerDescriptor> listeners = new ArrayList<>();
             if (!blockSyncPostCommitProcessing) {
-                listeners = postCommitSync;
+                listeners.addAll(postCommitSync);
             }
             if (!blockAsyncProcessing) {
                 listeners.addAll(postCommitAsync);
@@ -364,10 +388,10 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
 
     @Override
     public void fireEventBundleSync(EventBundle event) {
-        for (EventListenerDescriptor desc : listenerDescriptors.getEnabledSyncPostCommitListenersDescriptors()) {
+        for (EventListenerDescriptor desc : listenerDescriptors.getSyncPostCommitDispatchTable().getListeners()) {
             desc.asPostCommitListener().handleEvent(event);
         }
-        for (EventListenerDescriptor desc : listenerDescriptors.getEnabledAsyncPostCommitListenersDescriptors()) {
+        for (EventListenerDescriptor desc : listenerDescriptors.getAsyncPostCommitDispatchTable().getListeners()) {
             desc.asPostCommitListener().handleEvent(event);
         }
     }
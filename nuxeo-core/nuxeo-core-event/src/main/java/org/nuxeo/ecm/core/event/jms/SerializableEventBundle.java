@@ -68,12 +68,20 @@ public class SerializableEventBundle implements Serializable {
     protected String coreInstanceName;
 
     public SerializableEventBundle(EventBundle events) {
+        this(events, false);
+    }
+
+    /**
+     * @param includeLocal whether local events are kept, for a bundle that does not leave this node
+     * @since 9.1
+     */
+    public SerializableEventBundle(EventBundle events, boolean includeLocal) {
         eventBundleName = events.getName();
         sourceVMID = events.getSourceVMID();
         serialisableEvents = new ArrayList<Map<String, Serializable>>();
 
         for (Event event : events) {
-            if (event.isLocal()) {
+            if (event.isLocal() && !includeLocal) {
                 // local event should not be exported to JMS
                 continue;
             }
@@ -122,6 +130,9 @@ public class SerializableEventBundle implements Serializable {
             }
 
             serializableEvent.put("args", (Serializable) listArgs);
+            if (event.isLocal()) {
+                serializableEvent.put("isLocal", Boolean.TRUE);
+            }
             serialisableEvents.add(serializableEvent);
         }
     }
@@ -226,7 +237,8 @@ public class SerializableEventBundle implements Serializable {
             }
 
             ctx.setProperties(ctxProperties);
-            Event e = new EventImpl(eventName, ctx, Event.FLAG_NONE, time);
+            int flags = Boolean.TRUE.equals(evt.get("isLocal")) ? Event.FLAG_LOCAL : Event.FLAG_NONE;
+            Event e = new EventImpl(eventName, ctx, flags, time);
             bundle.push(e);
         }
         return bundle;
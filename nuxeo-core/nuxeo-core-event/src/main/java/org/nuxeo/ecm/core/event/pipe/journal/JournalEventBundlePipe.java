@@ -0,0 +1,322 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.pipe.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.common.Environment;
+import org.nuxeo.common.annotation.Experimental;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.EventContext;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.ecm.core.event.jms.SerializableEventBundle;
+import org.nuxeo.ecm.core.event.pipe.AbstractEventBundlePipe;
+
+/**
+ * Persistent pipe backed by a local append-only log.
+ * <p>
+ * Each bundle is stored whole in one partition, chosen from the id of its first source document so that events of a
+ * given document usually land in the same partition, each partition being stored as a {@link JournalPartition} of
+ * memory-mapped segments. Local events are kept, the journal does not leave this node. One thread per partition feeds
+ * the asynchronous listeners and commits its offset once the listener works of the batch are completed, so that
+ * events whose listeners did not run are replayed after a crash.
+ * <p>
+ * Supported parameters:
+ * <ul>
+ * <li>{@code directory}: storage directory, defaults to {@code <data>/eventjournal/<pipe name>}</li>
+ * <li>{@code partitions}: number of partitions, defaults to 4</li>
+ * <li>{@code segmentSize}: size in bytes of a segment file, defaults to 64MB</li>
+ * <li>{@code retainedSegments}: number of consumed segments kept for replay, defaults to 4</li>
+ * <li>{@code syncBatchSize}: number of appends between two fsync, defaults to 100</li>
+ * <li>{@code syncIntervalMs}: maximum delay before appended events are forced to disk, defaults to 200</li>
+ * <li>{@code batchSize}: maximum number of bundles handed over to listeners at once, defaults to 10</li>
+ * <li>{@code maxLag}: number of unconsumed bytes in a partition above which producers are slowed down, defaults to
+ * 16MB</li>
+ * <li>{@code backPressureTimeoutMs}: maximum time a producer waits for consumers to catch up, defaults to 1000</li>
+ * <li>{@code replay}: if {@code true}, all retained events are consumed again on startup</li>
+ * </ul>
+ *
+ * @since 9.1
+ */
+@Experimental
+public class JournalEventBundlePipe extends AbstractEventBundlePipe<Map<Integer, byte[]>> {
+
+    private static final Log log = LogFactory.getLog(JournalEventBundlePipe.class);
+
+    public static final String DIRECTORY_PARAM = "directory";
+
+    public static final String PARTITIONS_PARAM = "partitions";
+
+    public static final String SEGMENT_SIZE_PARAM = "segmentSize";
+
+    public static final String RETAINED_SEGMENTS_PARAM = "retainedSegments";
+
+    public static final String SYNC_BATCH_SIZE_PARAM = "syncBatchSize";
+
+    public static final String SYNC_INTERVAL_PARAM = "syncIntervalMs";
+
+    public static final String BATCH_SIZE_PARAM = "batchSize";
+
+    public static final String MAX_LAG_PARAM = "maxLag";
+
+    public static final String BACK_PRESSURE_TIMEOUT_PARAM = "backPressureTimeoutMs";
+
+    public static final String REPLAY_PARAM = "replay";
+
+    protected static final String CONSUMER_NAME = "listeners";
+
+    protected static final long POLL_INTERVAL_MS = 200;
+
+    protected static final long SHUTDOWN_TIMEOUT_MS = 30000;
+
+    protected JournalPartition[] partitions;
+
+    protected JournalEventBundlePipeConsumer consumer;
+
+    protected ExecutorService consumerExecutor;
+
+    protected ScheduledExecutorService syncExecutor;
+
+    protected int retainedSegments;
+
+    protected int batchSize;
+
+    protected long maxLag;
+
+    protected long backPressureTimeout;
+
+    protected volatile boolean stop;
+
+    @Override
+    public void initPipe(String name, Map<String, String> params) {
+        super.initPipe(name, params);
+        stop = false;
+        int nbPartitions = Math.max(1, getIntParameter(PARTITIONS_PARAM, 4));
+        int segmentSize = getIntParameter(SEGMENT_SIZE_PARAM, 64 * 1024 * 1024);
+        int syncBatchSize = Math.max(1, getIntParameter(SYNC_BATCH_SIZE_PARAM, 100));
+        int syncInterval = getIntParameter(SYNC_INTERVAL_PARAM, 200);
+        retainedSegments = getIntParameter(RETAINED_SEGMENTS_PARAM, 4);
+        batchSize = Math.max(1, getIntParameter(BATCH_SIZE_PARAM, 10));
+        maxLag = getIntParameter(MAX_LAG_PARAM, 16 * 1024 * 1024);
+        backPressureTimeout = getIntParameter(BACK_PRESSURE_TIMEOUT_PARAM, 1000);
+
+        String directory = params.get(DIRECTORY_PARAM);
+        File root = directory == null ? new File(new File(Environment.getDefault().getData(), "eventjournal"), name)
+                : new File(directory);
+        partitions = new JournalPartition[nbPartitions];
+        try {
+            for (int i = 0; i < nbPartitions; i++) {
+                partitions[i] = new JournalPartition(new File(root, "partition-" + i), segmentSize, syncBatchSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open event journal in " + root, e);
+        }
+        if (Boolean.parseBoolean(params.get(REPLAY_PARAM))) {
+            replay();
+        }
+
+        consumer = new JournalEventBundlePipeConsumer();
+        consumer.initConsumer(name, params);
+
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Nuxeo-EventJournal-Sync-" + name));
+        syncExecutor.scheduleWithFixedDelay(this::sync, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        consumerExecutor = Executors.newFixedThreadPool(nbPartitions,
+                r -> new Thread(r, "Nuxeo-EventJournal-Consumer-" + name));
+        for (JournalPartition partition : partitions) {
+            consumerExecutor.execute(() -> consume(partition));
+        }
+        consumerExecutor.shutdown();
+    }
+
+    protected int getIntParameter(String key, int defaultValue) {
+        String value = params.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.error("Invalid value for parameter " + key + " of pipe " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Moves the consumer back to the oldest retained event of each partition, typically to re-index.
+     */
+    public void replay() {
+        for (JournalPartition partition : partitions) {
+            partition.reset(CONSUMER_NAME);
+        }
+    }
+
+    /**
+     * Returns the number of bytes not yet consumed, all partitions included.
+     */
+    public long getLag() {
+        long lag = 0;
+        for (JournalPartition partition : partitions) {
+            lag += partition.getLag(CONSUMER_NAME);
+        }
+        return lag;
+    }
+
+    protected void sync() {
+        for (JournalPartition partition : partitions) {
+            try {
+                partition.sync();
+            } catch (RuntimeException e) {
+                log.error("Unable to sync event journal " + partition.getDirectory(), e);
+            }
+        }
+    }
+
+    protected int getPartition(EventBundle events) {
+        String key = null;
+        for (Event event : events) {
+            EventContext ctx = event.getContext();
+            if (ctx instanceof DocumentEventContext) {
+                DocumentModel source = ((DocumentEventContext) ctx).getSourceDocument();
+                if (source != null) {
+                    key = source.getId();
+                    break;
+                }
+            }
+            if (key == null) {
+                key = ctx.getRepositoryName();
+            }
+        }
+        return key == null ? 0 : Math.floorMod(key.hashCode(), partitions.length);
+    }
+
+    @Override
+    protected Map<Integer, byte[]> marshall(EventBundle events) {
+        // the bundle of a transaction is not split, listeners get it as a whole
+        byte[] message = SerializationUtils.serialize(new SerializableEventBundle(events, true));
+        return Collections.singletonMap(Integer.valueOf(getPartition(events)), message);
+    }
+
+    @Override
+    protected void send(Map<Integer, byte[]> messages) {
+        for (Map.Entry<Integer, byte[]> entry : messages.entrySet()) {
+            JournalPartition partition = partitions[entry.getKey().intValue()];
+            awaitConsumers(partition);
+            partition.append(entry.getValue());
+        }
+    }
+
+    /**
+     * Slows down producers when consumers lag too much. Events are never dropped: once the timeout expires the event
+     * is appended anyway.
+     */
+    protected void awaitConsumers(JournalPartition partition) {
+        try {
+            if (!partition.awaitLagBelow(CONSUMER_NAME, maxLag, backPressureTimeout)) {
+                log.warn("Event journal consumers of pipe " + name + " lag behind by "
+                        + partition.getLag(CONSUMER_NAME) + " bytes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected void consume(JournalPartition partition) {
+        try {
+            while (!stop) {
+                long offset = partition.getCommittedOffset(CONSUMER_NAME);
+                List<JournalRecord> records = partition.read(offset, batchSize);
+                if (records.isEmpty()) {
+                    partition.awaitAppend(offset, POLL_INTERVAL_MS);
+                    continue;
+                }
+                List<byte[]> messages = new ArrayList<>(records.size());
+                for (JournalRecord record : records) {
+                    messages.add(record.getData());
+                }
+                List<String> workIds = consumer.scheduleMessages(messages);
+                // commit only once the listeners have run, otherwise the events are replayed on restart
+                while (!consumer.awaitWorks(workIds, POLL_INTERVAL_MS)) {
+                    if (stop) {
+                        return;
+                    }
+                }
+                long next = records.get(records.size() - 1).getNextOffset();
+                if (partition.commit(CONSUMER_NAME, offset, next)) {
+                    partition.purge(next, retainedSegments);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Event journal consumer of pipe " + name + " failed on " + partition.getDirectory(), e);
+        }
+    }
+
+    @Override
+    public boolean waitForCompletion(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (JournalPartition partition : partitions) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (!partition.awaitLagBelow(CONSUMER_NAME, 0, Math.max(remaining, 0))) {
+                return false;
+            }
+        }
+        return consumer.waitForCompletion(Math.max(deadline - System.currentTimeMillis(), 0));
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        waitForCompletion(5000L);
+        stop = true;
+        syncExecutor.shutdownNow();
+        // partitions must not be unmapped under a running consumer
+        if (!consumerExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            consumerExecutor.shutdownNow();
+            if (!consumerExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.error("Event journal consumers of pipe " + name + " did not terminate, journal left open");
+                consumer.shutdown();
+                return;
+            }
+        }
+        consumer.shutdown();
+        for (JournalPartition partition : partitions) {
+            try {
+                partition.close();
+            } catch (IOException e) {
+                log.error("Unable to close event journal " + partition.getDirectory(), e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.pipe.journal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.nuxeo.common.annotation.Experimental;
+import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.EventServiceAdmin;
+import org.nuxeo.ecm.core.event.impl.EventListenerDescriptor;
+import org.nuxeo.ecm.core.event.jms.ReconnectedJMSEventBundle;
+import org.nuxeo.ecm.core.event.jms.SerializableEventBundle;
+import org.nuxeo.ecm.core.event.pipe.AbstractListenerPipeConsumer;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Consumer reading serialized {@link EventBundle}s from a {@link JournalPartition}: bundles are reconnected to a
+ * session before running the asynchronous listeners. The pipe commits its offset only once the listener works it
+ * scheduled are completed, see {@link #scheduleMessages} and {@link #awaitWorks}.
+ *
+ * @since 9.1
+ */
+@Experimental
+public class JournalEventBundlePipeConsumer extends AbstractListenerPipeConsumer<byte[]> {
+
+    protected static final long WORK_POLL_INTERVAL_MS = 20;
+
+    @Override
+    protected List<EventBundle> unmarshallEventBundle(List<byte[]> messages) {
+        List<EventBundle> bundles = new ArrayList<>(messages.size());
+        for (byte[] message : messages) {
+            SerializableEventBundle bundle = (SerializableEventBundle) SerializationUtils.deserialize(message);
+            bundles.add(new ReconnectedJMSEventBundle(bundle));
+        }
+        return bundles;
+    }
+
+    /**
+     * Schedules the asynchronous listeners on the given messages.
+     *
+     * @return the ids of the scheduled listener works
+     */
+    public List<String> scheduleMessages(List<byte[]> messages) {
+        EventServiceAdmin eventService = Framework.getService(EventServiceAdmin.class);
+        List<EventListenerDescriptor> postCommitAsync = eventService.getListenerList()
+                                                                    .getEnabledAsyncPostCommitListenersDescriptors();
+        List<String> workIds = new ArrayList<>();
+        for (EventBundle bundle : unmarshallEventBundle(messages)) {
+            workIds.addAll(asyncExec.schedule(postCommitAsync, bundle));
+        }
+        return workIds;
+    }
+
+    /**
+     * Waits for the given listener works to be completed, whatever their outcome. Completed works are removed from
+     * the list.
+     *
+     * @return {@code true} if all the works are completed, {@code false} if the timeout expired
+     */
+    public boolean awaitWorks(List<String> workIds, long timeoutMillis) throws InterruptedException {
+        WorkManager workManager = asyncExec.getWorkManager();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (;;) {
+            workIds.removeIf(workId -> workManager.find(workId, null) == null);
+            if (workIds.isEmpty()) {
+                return true;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.min(remaining, WORK_POLL_INTERVAL_MS));
+        }
+    }
+
+}
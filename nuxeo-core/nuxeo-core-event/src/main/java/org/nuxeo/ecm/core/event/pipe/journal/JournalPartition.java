@@ -0,0 +1,311 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.pipe.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Append-only log stored as a directory of memory-mapped {@link JournalSegment}s.
+ * <p>
+ * Offsets are absolute byte positions in the partition, a segment being named after the offset of its first record.
+ * Each consumer has its own committed offset, persisted next to the segments, so that consumption resumes where it
+ * stopped after a restart. Records are forced to disk every {@code syncBatchSize} appends or when {@link #sync()} is
+ * called.
+ *
+ * @since 9.1
+ */
+public class JournalPartition implements Closeable {
+
+    private static final Log log = LogFactory.getLog(JournalPartition.class);
+
+    protected static final String SEGMENT_SUFFIX = ".segment";
+
+    protected static final String OFFSET_SUFFIX = ".offset";
+
+    protected final File dir;
+
+    protected final int segmentSize;
+
+    protected final int syncBatchSize;
+
+    protected final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+
+    protected final Map<String, Long> committedOffsets = new ConcurrentHashMap<>();
+
+    protected int unsynced;
+
+    public JournalPartition(File dir, int segmentSize, int syncBatchSize) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.syncBatchSize = syncBatchSize;
+        dir.mkdirs();
+        open();
+    }
+
+    protected void open() throws IOException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        List<Long> bases = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                bases.add(Long.valueOf(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        bases.sort(null);
+        for (Long base : bases) {
+            segments.add(new JournalSegment(segmentFile(base.longValue()), base.longValue(), segmentSize));
+        }
+        if (segments.isEmpty()) {
+            segments.add(new JournalSegment(segmentFile(0), 0, segmentSize));
+        }
+        File[] offsetFiles = dir.listFiles((d, name) -> name.endsWith(OFFSET_SUFFIX));
+        if (offsetFiles != null) {
+            for (File file : offsetFiles) {
+                String name = file.getName();
+                String consumer = name.substring(0, name.length() - OFFSET_SUFFIX.length());
+                String value = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+                try {
+                    committedOffsets.put(consumer, Long.valueOf(value));
+                } catch (NumberFormatException e) {
+                    log.error("Invalid offset for consumer " + consumer + " in " + file + ", restarting from start");
+                }
+            }
+        }
+    }
+
+    protected File segmentFile(long baseOffset) {
+        return new File(dir, String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+    }
+
+    protected JournalSegment getHead() {
+        return segments.get(segments.size() - 1);
+    }
+
+    /**
+     * Appends a record at the end of the partition, rolling to a new segment when the current one is full.
+     *
+     * @return the offset of the record
+     */
+    public synchronized long append(byte[] data) {
+        JournalSegment head = getHead();
+        long offset = head.append(data);
+        if (offset < 0) {
+            head.force();
+            unsynced = 0;
+            long base = head.getEndOffset();
+            int size = Math.max(segmentSize, JournalSegment.recordSize(data));
+            try {
+                head = new JournalSegment(segmentFile(base), base, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segments.add(head);
+            offset = head.append(data);
+        }
+        if (++unsynced >= syncBatchSize) {
+            head.force();
+            unsynced = 0;
+        }
+        notifyAll();
+        return offset;
+    }
+
+    /**
+     * Forces pending appends to disk.
+     */
+    public synchronized void sync() {
+        if (unsynced > 0) {
+            getHead().force();
+            unsynced = 0;
+        }
+    }
+
+    /**
+     * Reads at most {@code max} records starting at the given offset.
+     */
+    public List<JournalRecord> read(long offset, int max) {
+        List<JournalRecord> records = new ArrayList<>();
+        JournalSegment segment = findSegment(offset);
+        while (segment != null && records.size() < max) {
+            JournalRecord record = segment.read(offset);
+            if (record == null) {
+                JournalSegment next = findSegment(segment.getEndOffset());
+                if (next == segment || next.getBaseOffset() != segment.getEndOffset()) {
+                    break;
+                }
+                segment = next;
+                continue;
+            }
+            records.add(record);
+            offset = record.getNextOffset();
+        }
+        return records;
+    }
+
+    protected JournalSegment findSegment(long offset) {
+        JournalSegment found = null;
+        for (JournalSegment segment : segments) {
+            if (segment.getBaseOffset() > offset) {
+                break;
+            }
+            found = segment;
+        }
+        return found;
+    }
+
+    /**
+     * Waits until a record is available at the given offset.
+     *
+     * @return {@code true} if data is available
+     */
+    public synchronized boolean awaitAppend(long offset, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (getEndOffset() <= offset && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return getEndOffset() > offset;
+    }
+
+    public long getStartOffset() {
+        return segments.get(0).getBaseOffset();
+    }
+
+    public long getEndOffset() {
+        return getHead().getEndOffset();
+    }
+
+    /**
+     * Returns the offset from which the consumer must resume, the start of the partition if it never committed.
+     */
+    public long getCommittedOffset(String consumer) {
+        Long offset = committedOffsets.get(consumer);
+        return offset == null ? getStartOffset() : Math.max(offset.longValue(), getStartOffset());
+    }
+
+    /**
+     * Returns the number of bytes not yet consumed by the given consumer.
+     */
+    public long getLag(String consumer) {
+        return getEndOffset() - getCommittedOffset(consumer);
+    }
+
+    /**
+     * Commits the consumer offset if it is still equal to the expected one, so that a concurrent {@link #reset} is not
+     * lost.
+     */
+    public synchronized boolean commit(String consumer, long expected, long offset) {
+        if (getCommittedOffset(consumer) != expected) {
+            return false;
+        }
+        storeOffset(consumer, offset);
+        return true;
+    }
+
+    /**
+     * Moves the consumer offset back to the start of the partition so that all retained records are replayed.
+     */
+    public synchronized void reset(String consumer) {
+        storeOffset(consumer, getStartOffset());
+    }
+
+    protected void storeOffset(String consumer, long offset) {
+        committedOffsets.put(consumer, Long.valueOf(offset));
+        Path target = new File(dir, consumer + OFFSET_SUFFIX).toPath();
+        Path tmp = new File(dir, consumer + OFFSET_SUFFIX + ".tmp").toPath();
+        try {
+            Files.write(tmp, Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Waits until the lag of the consumer goes below the given threshold.
+     *
+     * @return {@code true} if the lag is below the threshold
+     */
+    public synchronized boolean awaitLagBelow(String consumer, long maxLag, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (getLag(consumer) > maxLag && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return getLag(consumer) <= maxLag;
+    }
+
+    /**
+     * Deletes the oldest segments that are entirely before the given offset, keeping at least {@code retained}
+     * segments.
+     *
+     * @return the number of deleted segments
+     */
+    public synchronized int purge(long offset, int retained) {
+        int deleted = 0;
+        while (segments.size() > Math.max(retained, 1)) {
+            JournalSegment oldest = segments.get(0);
+            if (oldest.getEndOffset() > offset) {
+                break;
+            }
+            segments.remove(0);
+            try {
+                oldest.close();
+                Files.deleteIfExists(oldest.getFile().toPath());
+            } catch (IOException e) {
+                log.error("Unable to delete journal segment " + oldest.getFile(), e);
+            }
+            deleted++;
+        }
+        return deleted;
+    }
+
+    public File getDirectory() {
+        return dir;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        for (JournalSegment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.pipe.journal;
+
+/**
+ * A record read from a {@link JournalPartition}.
+ *
+ * @since 9.1
+ */
+public class JournalRecord {
+
+    protected final long offset;
+
+    protected final long nextOffset;
+
+    protected final byte[] data;
+
+    public JournalRecord(long offset, long nextOffset, byte[] data) {
+        this.offset = offset;
+        this.nextOffset = nextOffset;
+        this.data = data;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the offset to use to read the record following this one.
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+}
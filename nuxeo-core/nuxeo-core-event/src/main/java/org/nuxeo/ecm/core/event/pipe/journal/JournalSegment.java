@@ -0,0 +1,162 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.pipe.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A fixed size, memory-mapped file holding a contiguous range of a {@link JournalPartition}.
+ * <p>
+ * Each record is stored as {@code [length][crc32][payload]}. The length is written last so that a record is only
+ * visible once it has been fully written, which allows to recover the write position by scanning the segment when it
+ * is reopened after a crash.
+ *
+ * @since 9.1
+ */
+public class JournalSegment implements Closeable {
+
+    protected static final int HEADER_SIZE = 8;
+
+    protected final File file;
+
+    protected final long baseOffset;
+
+    protected final int capacity;
+
+    protected final FileChannel channel;
+
+    protected final MappedByteBuffer buffer;
+
+    /** Write position inside the segment, published to readers. */
+    protected volatile int position;
+
+    public JournalSegment(File file, long baseOffset, int capacity) throws IOException {
+        this.file = file;
+        this.baseOffset = baseOffset;
+        // an existing segment keeps the size it was created with
+        this.capacity = file.exists() && file.length() > 0 ? (int) file.length() : capacity;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+        position = recover();
+    }
+
+    /**
+     * Scans the segment to find the end of the last complete record.
+     */
+    protected int recover() {
+        int pos = 0;
+        while (pos + HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + HEADER_SIZE + length > capacity) {
+                break;
+            }
+            if (checksum(pos + HEADER_SIZE, length) != buffer.getInt(pos + 4)) {
+                // torn write
+                break;
+            }
+            pos += HEADER_SIZE + length;
+        }
+        return pos;
+    }
+
+    protected int checksum(int pos, int length) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(pos);
+        payload.limit(pos + length);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    public static int recordSize(byte[] data) {
+        return HEADER_SIZE + data.length;
+    }
+
+    /**
+     * Appends a record. Callers must serialize writes.
+     *
+     * @return the offset of the record, or -1 if the segment does not have enough room left
+     */
+    public long append(byte[] data) {
+        int pos = position;
+        if (pos + recordSize(data) > capacity) {
+            return -1;
+        }
+        ByteBuffer target = buffer.duplicate();
+        target.position(pos + HEADER_SIZE);
+        target.put(data);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        buffer.putInt(pos + 4, (int) crc.getValue());
+        buffer.putInt(pos, data.length);
+        position = pos + recordSize(data);
+        return baseOffset + pos;
+    }
+
+    /**
+     * Reads the record stored at the given absolute offset.
+     *
+     * @return the record, or {@code null} if no complete record is available at this offset
+     */
+    public JournalRecord read(long offset) {
+        int pos = (int) (offset - baseOffset);
+        if (pos < 0 || pos >= position) {
+            return null;
+        }
+        int length = buffer.getInt(pos);
+        byte[] data = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(pos + HEADER_SIZE);
+        source.get(data);
+        return new JournalRecord(offset, offset + HEADER_SIZE + length, data);
+    }
+
+    /**
+     * Flushes the mapped pages to the storage device.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    public long getBaseOffset() {
+        return baseOffset;
+    }
+
+    public long getEndOffset() {
+        return baseOffset + position;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
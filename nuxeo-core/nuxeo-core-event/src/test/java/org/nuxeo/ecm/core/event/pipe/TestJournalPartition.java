@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.pipe;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nuxeo.ecm.core.event.pipe.journal.JournalPartition;
+import org.nuxeo.ecm.core.event.pipe.journal.JournalRecord;
+
+public class TestJournalPartition {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    protected static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testAppendAndRead() throws Exception {
+        File dir = folder.newFolder();
+        try (JournalPartition partition = new JournalPartition(dir, 1024, 10)) {
+            long first = partition.append(bytes("foo"));
+            partition.append(bytes("bar"));
+            assertEquals(0, first);
+            List<JournalRecord> records = partition.read(first, 10);
+            assertEquals(2, records.size());
+            assertArrayEquals(bytes("foo"), records.get(0).getData());
+            assertArrayEquals(bytes("bar"), records.get(1).getData());
+            assertEquals(partition.getEndOffset(), records.get(1).getNextOffset());
+            assertTrue(partition.read(partition.getEndOffset(), 10).isEmpty());
+        }
+    }
+
+    @Test
+    public void testSegmentRollAndRecovery() throws Exception {
+        File dir = folder.newFolder();
+        long committed;
+        try (JournalPartition partition = new JournalPartition(dir, 64, 1)) {
+            for (int i = 0; i < 20; i++) {
+                partition.append(bytes("event-" + i));
+            }
+            assertEquals(20, partition.read(0, 100).size());
+            List<JournalRecord> records = partition.read(0, 5);
+            committed = records.get(4).getNextOffset();
+            assertTrue(partition.commit("test", 0, committed));
+            // a commit from a stale offset, as after a concurrent reset, is rejected
+            assertFalse(partition.commit("test", 0, committed));
+        }
+        // reopen: segments and consumer offsets are recovered
+        try (JournalPartition partition = new JournalPartition(dir, 64, 1)) {
+            assertEquals(committed, partition.getCommittedOffset("test"));
+            List<JournalRecord> records = partition.read(committed, 100);
+            assertEquals(15, records.size());
+            assertArrayEquals(bytes("event-5"), records.get(0).getData());
+            assertEquals(partition.getEndOffset() - committed, partition.getLag("test"));
+            partition.reset("test");
+            assertEquals(0, partition.getCommittedOffset("test"));
+        }
+    }
+
+    @Test
+    public void testPurge() throws Exception {
+        File dir = folder.newFolder();
+        try (JournalPartition partition = new JournalPartition(dir, 64, 1)) {
+            for (int i = 0; i < 20; i++) {
+                partition.append(bytes("event-" + i));
+            }
+            long end = partition.getEndOffset();
+            assertTrue(partition.purge(end, 1) > 0);
+            assertTrue(partition.getStartOffset() > 0);
+            assertEquals(partition.getStartOffset(), partition.getCommittedOffset("test"));
+            partition.append(bytes("last"));
+            List<JournalRecord> records = partition.read(end, 10);
+            assertEquals(1, records.size());
+            assertArrayEquals(bytes("last"), records.get(0).getData());
+        }
+    }
+
+}
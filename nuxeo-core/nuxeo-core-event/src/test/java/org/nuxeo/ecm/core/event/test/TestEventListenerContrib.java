@@ -29,6 +29,7 @@ import org.junit.Test;
 import org.nuxeo.ecm.core.event.EventService;
 import org.nuxeo.ecm.core.event.PostCommitEventListener;
 import org.nuxeo.ecm.core.event.impl.EventListenerDescriptor;
+import org.nuxeo.ecm.core.event.impl.EventListenerDispatchTable;
 import org.nuxeo.ecm.core.event.impl.EventServiceImpl;
 import org.nuxeo.ecm.core.event.script.ScriptingPostCommitEventListener;
 import org.nuxeo.runtime.api.Framework;
@@ -107,6 +108,33 @@ public class TestEventListenerContrib extends NXRuntimeTestCase {
         assertEquals(20, desc.getPriority());
     }
 
+    @Test
+    public void testDispatchTable() throws Exception {
+        EventServiceImpl serviceImpl = (EventServiceImpl) Framework.getService(EventService.class);
+        URL url = EventListenerTest.class.getClassLoader().getResource("test-listeners.xml");
+        deployTestContrib("org.nuxeo.ecm.core.event", url);
+
+        EventListenerDispatchTable table = serviceImpl.getEventListenerList().getInlineDispatchTable();
+        EventListenerDescriptor desc = null;
+        for (EventListenerDescriptor d : table.getListeners()) {
+            if (d.getEvents() != null && d.getEvents().contains("test1")) {
+                desc = d;
+            }
+        }
+        assertNotNull(desc);
+        assertTrue(table.getListeners("test").contains(desc));
+        assertTrue(table.getListeners("test1").contains(desc));
+        assertFalse(table.getListeners("unknownEvent").contains(desc));
+
+        // disabling a listener rebuilds the table
+        serviceImpl.setListenerEnabledFlag(desc.getName(), false);
+        EventListenerDispatchTable newTable = serviceImpl.getEventListenerList().getInlineDispatchTable();
+        assertFalse(newTable == table);
+        assertFalse(newTable.getListeners("test").contains(desc));
+        serviceImpl.setListenerEnabledFlag(desc.getName(), true);
+        assertTrue(serviceImpl.getEventListenerList().getInlineDispatchTable().getListeners("test").contains(desc));
+    }
+
     @Test
     public void testInvalidListeners() throws Exception {
         EventService service = Framework.getService(EventService.class);
@@ -74,7 +74,10 @@ public abstract class AbstractJsonWriter<EntityType> implements Writer<EntityTyp
             throws IOException {
         JsonGenerator jg = getGenerator(out, true);
         write(entity, jg);
-        jg.flush();
+        if (!(out instanceof OutputStreamWithJsonWriter)) {
+            // nested writes share the generator of the enclosing writer, which flushes it once done
+            jg.flush();
+        }
     }
 
     /**
@@ -58,16 +58,20 @@ public class OutputStreamWithJsonWriter extends OutputStream {
 
     @Override
     public void write(int b) throws IOException {
+        // the generator is only flushed by the outermost writer, keep the output ordered
+        jsonGenerator.flush();
         out.write(b);
     }
 
     @Override
     public void write(byte[] b) throws IOException {
+        jsonGenerator.flush();
         out.write(b);
     }
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
+        jsonGenerator.flush();
         out.write(b, off, len);
     }
 
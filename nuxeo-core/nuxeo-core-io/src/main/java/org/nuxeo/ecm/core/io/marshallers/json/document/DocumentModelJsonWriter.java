@@ -28,7 +28,10 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import javax.inject.Inject;
 
@@ -37,6 +40,7 @@ import org.joda.time.DateTime;
 import org.joda.time.format.ISODateTimeFormat;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.Lock;
+import org.nuxeo.ecm.core.api.model.DocumentPart;
 import org.nuxeo.ecm.core.api.model.Property;
 import org.nuxeo.ecm.core.io.marshallers.json.ExtensibleEntityJsonWriter;
 import org.nuxeo.ecm.core.io.marshallers.json.OutputStreamWithJsonWriter;
@@ -45,7 +49,7 @@ import org.nuxeo.ecm.core.io.registry.Writer;
 import org.nuxeo.ecm.core.io.registry.context.MaxDepthReachedException;
 import org.nuxeo.ecm.core.io.registry.reflect.Setup;
 import org.nuxeo.ecm.core.schema.SchemaManager;
-import org.nuxeo.ecm.core.schema.types.Field;
+import org.nuxeo.ecm.core.schema.types.FieldSlots;
 import org.nuxeo.ecm.core.schema.types.Schema;
 import org.nuxeo.ecm.core.schema.utils.DateParser;
 import org.nuxeo.runtime.api.Framework;
@@ -128,6 +132,8 @@ public class DocumentModelJsonWriter extends ExtensibleEntityJsonWriter<Document
         return ctx.getFetched(ENTITY_TYPE).contains(name) || fetchHeavy();
     }
 
+    private static final Map<FieldSlots, String[]> PREFIXED_NAMES = Collections.synchronizedMap(new WeakHashMap<>());
+
     @Inject
     private SchemaManager schemaManager;
 
@@ -170,15 +176,20 @@ public class DocumentModelJsonWriter extends ExtensibleEntityJsonWriter<Document
             Set<String> schemas = ctx.getProperties();
             if (schemas.size() > 0) {
                 jg.writeObjectFieldStart("properties");
-                if (schemas.contains(WILDCARD_VALUE)) {
-                    // full document
-                    for (String schema : doc.getSchemas()) {
-                        writeSchemaProperties(jg, doc, schema);
-                    }
-                } else {
-                    for (String schema : schemas) {
-                        if (doc.hasSchema(schema)) {
-                            writeSchemaProperties(jg, doc, schema);
+                // provides the current document to the property marshaller
+                try (Closeable docResource = ctx.wrap().with(ENTITY_TYPE, doc).open()) {
+                    Writer<Property> propertyWriter = registry.getWriter(ctx, Property.class, APPLICATION_JSON_TYPE);
+                    OutputStream out = new OutputStreamWithJsonWriter(jg);
+                    if (schemas.contains(WILDCARD_VALUE)) {
+                        // full document
+                        for (String schema : doc.getSchemas()) {
+                            writeSchemaProperties(jg, doc, schema, propertyWriter, out);
+                        }
+                    } else {
+                        for (String schema : schemas) {
+                            if (doc.hasSchema(schema)) {
+                                writeSchemaProperties(jg, doc, schema, propertyWriter, out);
+                            }
                         }
                     }
                 }
@@ -195,24 +206,39 @@ public class DocumentModelJsonWriter extends ExtensibleEntityJsonWriter<Document
         jg.writeEndArray();
     }
 
-    private void writeSchemaProperties(JsonGenerator jg, DocumentModel doc, String schemaName) throws IOException {
-        Writer<Property> propertyWriter = registry.getWriter(ctx, Property.class, APPLICATION_JSON_TYPE);
-        // provides the current document to the property marshaller
-        try (Closeable resource = ctx.wrap().with(ENTITY_TYPE, doc).open()) {
-            Schema schema = schemaManager.getSchema(schemaName);
+    private void writeSchemaProperties(JsonGenerator jg, DocumentModel doc, String schemaName,
+            Writer<Property> propertyWriter, OutputStream out) throws IOException {
+        Schema schema = schemaManager.getSchema(schemaName);
+        FieldSlots slots = schema.getFieldSlots();
+        String[] prefixedNames = getPrefixedNames(schema, slots);
+        DocumentPart part = doc.getPart(schemaName);
+        for (int i = 0; i < slots.size(); i++) {
+            jg.writeFieldName(prefixedNames[i]);
+            Property property = part == null ? doc.getProperty(prefixedNames[i])
+                    : part.get(slots.getField(i).getName().getLocalName());
+            propertyWriter.write(property, Property.class, Property.class, APPLICATION_JSON_TYPE, out);
+        }
+    }
+
+    /**
+     * Gets the names of the fields of the schema prefixed with the schema prefix, or with the schema name if it has
+     * no prefix, computed once per schema definition.
+     */
+    private String[] getPrefixedNames(Schema schema, FieldSlots slots) {
+        // keyed by slots, which are recreated with the schema
+        String[] prefixedNames = PREFIXED_NAMES.get(slots);
+        if (prefixedNames == null) {
             String prefix = schema.getNamespace().prefix;
             if (prefix == null || prefix.length() == 0) {
-                prefix = schemaName;
+                prefix = schema.getName();
             }
-            prefix = prefix + ":";
-            for (Field field : schema.getFields()) {
-                String prefixedName = prefix + field.getName().getLocalName();
-                jg.writeFieldName(prefixedName);
-                Property property = doc.getProperty(prefixedName);
-                OutputStream out = new OutputStreamWithJsonWriter(jg);
-                propertyWriter.write(property, Property.class, Property.class, APPLICATION_JSON_TYPE, out);
+            prefixedNames = new String[slots.size()];
+            for (int i = 0; i < prefixedNames.length; i++) {
+                prefixedNames[i] = prefix + ":" + slots.getField(i).getName().getLocalName();
             }
+            PREFIXED_NAMES.put(slots, prefixedNames);
         }
+        return prefixedNames;
     }
 
 }
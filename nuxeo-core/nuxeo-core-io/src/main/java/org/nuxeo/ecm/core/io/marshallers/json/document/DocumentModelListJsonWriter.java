@@ -19,18 +19,30 @@
 
 package org.nuxeo.ecm.core.io.marshallers.json.document;
 
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
 import static org.nuxeo.ecm.automation.core.util.PaginableDocumentModelList.CODEC_PARAMETER_NAME;
+import static org.nuxeo.ecm.core.io.marshallers.json.enrichers.AbstractJsonEnricher.ENTITY_ENRICHER_NAME;
+import static org.nuxeo.ecm.core.io.marshallers.json.enrichers.BatchJsonEnricher.PREFETCHED_PARAMETER_PREFIX;
 import static org.nuxeo.ecm.core.io.registry.reflect.Instantiations.SINGLETON;
 import static org.nuxeo.ecm.core.io.registry.reflect.Priorities.REFERENCE;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.commons.lang3.reflect.TypeUtils;
 import org.codehaus.jackson.JsonGenerator;
 import org.nuxeo.ecm.automation.core.util.PaginableDocumentModelList;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.io.marshallers.json.DefaultListJsonWriter;
+import org.nuxeo.ecm.core.io.marshallers.json.enrichers.BatchJsonEnricher;
+import org.nuxeo.ecm.core.io.marshallers.json.enrichers.Enriched;
+import org.nuxeo.ecm.core.io.registry.Writer;
+import org.nuxeo.ecm.core.io.registry.context.MaxDepthReachedException;
+import org.nuxeo.ecm.core.io.registry.context.WrappedContext;
 import org.nuxeo.ecm.core.io.registry.reflect.Setup;
 
 /**
@@ -43,21 +55,62 @@ public class DocumentModelListJsonWriter extends DefaultListJsonWriter<DocumentM
 
     public static final String ENTITY_DOCUMENT_LIST = "documents";
 
+    private static final Type ENRICHED_TYPE = TypeUtils.parameterize(Enriched.class, DocumentModel.class);
+
     public DocumentModelListJsonWriter() {
         super(ENTITY_DOCUMENT_LIST, DocumentModel.class);
     }
 
     @Override
     public void write(List<DocumentModel> docs, JsonGenerator jg) throws IOException {
-        if (docs instanceof PaginableDocumentModelList) {
-            PaginableDocumentModelList paginable = (PaginableDocumentModelList) docs;
-            String codecName = paginable.getDocumentLinkBuilder();
-            try (Closeable resource = ctx.wrap().with(CODEC_PARAMETER_NAME, codecName).open()) {
+        try (Closeable prefetched = prefetchEnrichers(docs).open()) {
+            if (docs instanceof PaginableDocumentModelList) {
+                PaginableDocumentModelList paginable = (PaginableDocumentModelList) docs;
+                String codecName = paginable.getDocumentLinkBuilder();
+                try (Closeable resource = ctx.wrap().with(CODEC_PARAMETER_NAME, codecName).open()) {
+                    super.write(docs, jg);
+                }
+            } else {
                 super.write(docs, jg);
             }
-        } else {
-            super.write(docs, jg);
         }
     }
 
+    /**
+     * Lets the activated document enrichers implementing {@link BatchJsonEnricher} compute their data for all the
+     * documents at once.
+     *
+     * @return A context holding the prefetched data, to open while the documents are written.
+     * @since 9.1
+     */
+    protected WrappedContext prefetchEnrichers(List<DocumentModel> docs) throws IOException {
+        WrappedContext prefetchedCtx = ctx.wrap();
+        Set<String> enrichers = ctx.getEnrichers(DocumentModelJsonWriter.ENTITY_TYPE);
+        if (docs.size() < 2 || enrichers.isEmpty()) {
+            return prefetchedCtx;
+        }
+        try {
+            // same check as the document writer, which doesn't call enrichers beyond the max depth
+            ctx.wrap().controlDepth();
+        } catch (MaxDepthReachedException e) {
+            return prefetchedCtx;
+        }
+        for (String enricherName : enrichers) {
+            try (Closeable resource = ctx.wrap().with(ENTITY_ENRICHER_NAME, enricherName).open()) {
+                @SuppressWarnings("rawtypes")
+                Collection<Writer<Enriched>> writers = registry.getAllWriters(ctx, Enriched.class, ENRICHED_TYPE,
+                        APPLICATION_JSON_TYPE);
+                for (@SuppressWarnings("rawtypes")
+                Writer<Enriched> writer : writers) {
+                    if (writer instanceof BatchJsonEnricher) {
+                        @SuppressWarnings("unchecked")
+                        BatchJsonEnricher<DocumentModel> enricher = (BatchJsonEnricher<DocumentModel>) writer;
+                        prefetchedCtx.with(PREFETCHED_PARAMETER_PREFIX + enricherName, enricher.prefetch(docs));
+                    }
+                }
+            }
+        }
+        return prefetchedCtx;
+    }
+
 }
@@ -85,7 +85,6 @@ public class DocumentPropertyJsonWriter extends AbstractJsonWriter<Property> {
     @Override
     public void write(Property prop, JsonGenerator jg) throws IOException {
         writeProperty(jg, prop);
-        jg.flush();
     }
 
     protected void writeProperty(JsonGenerator jg, Property prop) throws IOException {
@@ -54,6 +54,17 @@ public abstract class AbstractJsonEnricher<EntityType> extends AbstractJsonWrite
         write(jg, enrichable.getEntity());
     }
 
+    /**
+     * Gets the data computed by {@link BatchJsonEnricher#prefetch(java.util.List)} for the list being written.
+     *
+     * @return The prefetched data, or null if the entities are not written as part of a list or if this enricher is not
+     *         a {@link BatchJsonEnricher}.
+     * @since 9.1
+     */
+    protected <T> T getPrefetched() {
+        return ctx.getParameter(BatchJsonEnricher.PREFETCHED_PARAMETER_PREFIX + name);
+    }
+
     /**
      * When implementing this method, the provided {@link JsonGenerator} expect you write a field name and a field value
      * (or many).
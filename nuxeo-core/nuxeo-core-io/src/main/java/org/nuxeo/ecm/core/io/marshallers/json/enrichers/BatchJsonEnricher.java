@@ -0,0 +1,55 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.io.marshallers.json.enrichers;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.nuxeo.ecm.core.io.marshallers.json.document.DocumentModelListJsonWriter;
+
+/**
+ * Implemented by {@link AbstractJsonEnricher}s able to compute their data for a whole list of entities at once instead
+ * of once per entity.
+ * <p>
+ * Before writing the entries of a list, list writers such as {@link DocumentModelListJsonWriter} call
+ * {@link #prefetch(List)} on the activated enrichers implementing this interface. The returned value is then available
+ * through {@link AbstractJsonEnricher#getPrefetched()} while the entries are written. Enrichers must fall back to
+ * their per-entity computation for entities missing from the prefetched data, as they may also be called outside of a
+ * list.
+ *
+ * @param <EntityType> The Java type whose the generated JSON will be enriched.
+ * @since 9.1
+ */
+public interface BatchJsonEnricher<EntityType> {
+
+    /**
+     * Prefix of the rendering context parameter holding the prefetched data of an enricher, followed by the enricher
+     * name.
+     */
+    String PREFETCHED_PARAMETER_PREFIX = "_EntityEnricherPrefetched_";
+
+    /**
+     * Computes the enricher data for the given entities.
+     *
+     * @param entities The entities about to be written.
+     * @return The data used by the enricher when writing the entities.
+     */
+    Object prefetch(List<EntityType> entities) throws IOException;
+
+}
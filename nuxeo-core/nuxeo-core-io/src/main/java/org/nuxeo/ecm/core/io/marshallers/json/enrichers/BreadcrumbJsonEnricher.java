@@ -23,10 +23,19 @@ import static org.nuxeo.ecm.core.io.registry.reflect.Instantiations.SINGLETON;
 import static org.nuxeo.ecm.core.io.registry.reflect.Priorities.REFERENCE;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.codehaus.jackson.JsonGenerator;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentNotFoundException;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.PathRef;
 import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
 import org.nuxeo.ecm.core.io.marshallers.json.document.DocumentModelListJsonWriter;
 import org.nuxeo.ecm.core.io.registry.context.RenderingContext.SessionWrapper;
@@ -59,23 +68,85 @@ import org.nuxeo.ecm.core.io.registry.reflect.Setup;
  * @since 7.2
  */
 @Setup(mode = SINGLETON, priority = REFERENCE)
-public class BreadcrumbJsonEnricher extends AbstractJsonEnricher<DocumentModel> {
+public class BreadcrumbJsonEnricher extends AbstractJsonEnricher<DocumentModel>
+        implements BatchJsonEnricher<DocumentModel> {
 
     public static final String NAME = "breadcrumb";
 
+    protected static final String ROOT_PATH = "/";
+
     public BreadcrumbJsonEnricher() {
         super(NAME);
     }
 
     @Override
     public void write(JsonGenerator jg, DocumentModel document) throws IOException {
-        List<DocumentModel> parentDocuments = null;
-        try (SessionWrapper wrapper = ctx.getSession(document)) {
-            parentDocuments = wrapper.getSession().getParentDocuments(document.getRef());
+        Map<String, List<DocumentModel>> prefetched = getPrefetched();
+        List<DocumentModel> parentDocuments = prefetched == null ? null : prefetched.get(document.getId());
+        if (parentDocuments == null) {
+            try (SessionWrapper wrapper = ctx.getSession(document)) {
+                parentDocuments = wrapper.getSession().getParentDocuments(document.getRef());
+            }
         }
         DocumentModelListImpl documentList = new DocumentModelListImpl(parentDocuments);
         jg.writeFieldName(NAME);
         writeEntity(documentList, jg);
     }
 
+    /**
+     * Fetches the ancestors shared by the documents only once, using their paths.
+     *
+     * @return The breadcrumbs by document id.
+     * @since 9.1
+     */
+    @Override
+    public Object prefetch(List<DocumentModel> documents) throws IOException {
+        Map<String, List<DocumentModel>> breadcrumbs = new HashMap<>();
+        Map<String, List<DocumentModel>> documentsBySession = new HashMap<>();
+        for (DocumentModel doc : documents) {
+            String sessionKey = doc.getSessionId() != null ? doc.getSessionId() : doc.getRepositoryName();
+            if (doc.getId() != null && doc.getPathAsString() != null && sessionKey != null) {
+                documentsBySession.computeIfAbsent(sessionKey, k -> new ArrayList<>()).add(doc);
+            }
+        }
+        for (List<DocumentModel> docs : documentsBySession.values()) {
+            Set<String> paths = new LinkedHashSet<>();
+            for (DocumentModel doc : docs) {
+                for (String path = doc.getPathAsString(); !ROOT_PATH.equals(path); path = getParentPath(path)) {
+                    paths.add(path);
+                }
+            }
+            DocumentRef[] refs = paths.stream().map(PathRef::new).toArray(DocumentRef[]::new);
+            Map<String, DocumentModel> ancestorsByPath = new HashMap<>();
+            try (SessionWrapper wrapper = ctx.getSession(docs.get(0))) {
+                // documents that cannot be read are not returned
+                for (DocumentModel ancestor : wrapper.getSession().getDocuments(refs)) {
+                    ancestorsByPath.put(ancestor.getPathAsString(), ancestor);
+                }
+            } catch (DocumentNotFoundException e) {
+                // moved or deleted meanwhile, compute breadcrumbs per document
+                continue;
+            }
+            for (DocumentModel doc : docs) {
+                // like CoreSession#getParentDocuments, stops at the first ancestor that cannot be read
+                List<DocumentModel> parentDocuments = new ArrayList<>();
+                for (String path = doc.getPathAsString(); !ROOT_PATH.equals(path); path = getParentPath(path)) {
+                    DocumentModel ancestor = ancestorsByPath.get(path);
+                    if (ancestor == null) {
+                        break;
+                    }
+                    parentDocuments.add(ancestor);
+                }
+                Collections.reverse(parentDocuments);
+                breadcrumbs.put(doc.getId(), parentDocuments);
+            }
+        }
+        return breadcrumbs;
+    }
+
+    protected static String getParentPath(String path) {
+        int i = path.lastIndexOf('/');
+        return i <= 0 ? ROOT_PATH : path.substring(0, i);
+    }
+
 }
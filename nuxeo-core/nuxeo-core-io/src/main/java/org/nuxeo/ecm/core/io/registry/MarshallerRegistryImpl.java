@@ -20,9 +20,14 @@
 package org.nuxeo.ecm.core.io.registry;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -32,6 +37,7 @@ import javax.ws.rs.core.MediaType;
 import org.apache.commons.lang3.reflect.TypeUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.io.registry.context.RenderingContext;
 import org.nuxeo.ecm.core.io.registry.reflect.MarshallerInspector;
 import org.nuxeo.runtime.model.ComponentContext;
@@ -44,6 +50,11 @@ import org.nuxeo.runtime.model.DefaultComponent;
  * This implementation is based on {@link MarshallerInspector} class which is able to create marshaller instance and
  * inject properties. This class also manage marshaller's priorities.
  * </p>
+ * <p>
+ * The marshallers whose managed class and generic type match a lookup are cached per marshalled class, generic type
+ * and media type, the cache being dropped on each registration. The {@link Marshaller#accept(Class, Type, MediaType)}
+ * method is still called on each lookup since its result may depend on the {@link RenderingContext}.
+ * </p>
  *
  * @since 7.2
  */
@@ -76,6 +87,25 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
      */
     private static final Map<Class<?>, MarshallerInspector> marshallersByType = new ConcurrentHashMap<Class<?>, MarshallerInspector>();
 
+    /**
+     * {@link Writer}'s {@link MarshallerInspector} matching a lookup, in the order they must be tried.
+     *
+     * @since 9.1
+     */
+    private static volatile Map<CandidatesKey, List<MarshallerInspector>> writerCandidates = new ConcurrentHashMap<>();
+
+    /**
+     * {@link Reader}'s {@link MarshallerInspector} matching a lookup, in the order they must be tried.
+     *
+     * @since 9.1
+     */
+    private static volatile Map<CandidatesKey, List<MarshallerInspector>> readerCandidates = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the application is started, after which the registered singletons are prepared on registration.
+     */
+    private static volatile boolean started;
+
     @Override
     public void activate(ComponentContext context) {
         super.activate(context);
@@ -84,10 +114,34 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
 
     @Override
     public void deactivate(ComponentContext context) {
+        started = false;
         clear();
         super.deactivate(context);
     }
 
+    /**
+     * Injects the services in the singleton marshallers once all services are available, so that the first requests do
+     * not pay for it.
+     *
+     * @since 9.1
+     */
+    @Override
+    public void applicationStarted(ComponentContext context) {
+        started = true;
+        for (MarshallerInspector inspector : marshallersByType.values()) {
+            prepare(inspector);
+        }
+    }
+
+    protected void prepare(MarshallerInspector inspector) {
+        try {
+            inspector.prepare();
+        } catch (NuxeoException e) {
+            // the instance will be prepared on first use, failing then if the service is still missing
+            log.debug("Unable to prepare the marshaller " + inspector.getMarshallerClass().getName(), e);
+        }
+    }
+
     @Override
     public void registerContribution(Object contribution, String extensionPoint, ComponentInstance contributor) {
         if (extensionPoint.equals("marshallers")) {
@@ -129,6 +183,9 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
         } else {
             marshallersByType.put(marshaller, inspector);
         }
+        if (started) {
+            prepare(inspector);
+        }
         if (inspector.isWriter()) {
             writers.add(inspector);
             for (MediaType mediaType : inspector.getSupports()) {
@@ -151,6 +208,7 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
                 inspectors.add(inspector);
             }
         }
+        invalidateCandidates();
     }
 
     @Override
@@ -184,28 +242,34 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
                 }
             }
         }
+        invalidateCandidates();
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> Writer<T> getWriter(RenderingContext ctx, Class<T> marshalledClazz, Type genericType, MediaType mediatype) {
-        Set<MarshallerInspector> candidates = writersByMediaType.get(mediatype);
-        return (Writer<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, writers, false);
+        List<MarshallerInspector> candidates = getCandidates(writerCandidates, marshalledClazz, genericType, mediatype,
+                writersByMediaType, writers);
+        return (Writer<T>) searchCandidate(ctx, marshalledClazz, genericType, mediatype, candidates, false);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> Writer<T> getUniqueWriter(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = writersByMediaType.get(mediatype);
-        return (Writer<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, writers, true);
+        List<MarshallerInspector> candidates = getCandidates(writerCandidates, marshalledClazz, genericType, mediatype,
+                writersByMediaType, writers);
+        return (Writer<T>) searchCandidate(ctx, marshalledClazz, genericType, mediatype, candidates, true);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> Collection<Writer<T>> getAllWriters(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = writersByMediaType.get(mediatype);
-        Collection<Marshaller<T>> founds = getAllMarshallers(ctx, marshalledClazz, genericType, mediatype, candidates,
-                writers);
+        List<MarshallerInspector> candidates = getCandidates(writerCandidates, marshalledClazz, genericType, mediatype,
+                writersByMediaType, writers);
+        Collection<Marshaller<T>> founds = searchAllCandidates(ctx, marshalledClazz, genericType, mediatype,
+                candidates).values();
         return (Collection<Writer<T>>) (Collection<?>) founds;
     }
 
@@ -215,25 +279,30 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> Reader<T> getReader(RenderingContext ctx, Class<T> marshalledClazz, Type genericType, MediaType mediatype) {
-        Set<MarshallerInspector> candidates = readersByMediaType.get(mediatype);
-        return (Reader<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, readers, false);
+        List<MarshallerInspector> candidates = getCandidates(readerCandidates, marshalledClazz, genericType, mediatype,
+                readersByMediaType, readers);
+        return (Reader<T>) searchCandidate(ctx, marshalledClazz, genericType, mediatype, candidates, false);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> Reader<T> getUniqueReader(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = readersByMediaType.get(mediatype);
-        return (Reader<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, readers, true);
+        List<MarshallerInspector> candidates = getCandidates(readerCandidates, marshalledClazz, genericType, mediatype,
+                readersByMediaType, readers);
+        return (Reader<T>) searchCandidate(ctx, marshalledClazz, genericType, mediatype, candidates, true);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> Collection<Reader<T>> getAllReaders(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = readersByMediaType.get(mediatype);
-        Collection<Marshaller<T>> founds = getAllMarshallers(ctx, marshalledClazz, genericType, mediatype, candidates,
-                readers);
+        List<MarshallerInspector> candidates = getCandidates(readerCandidates, marshalledClazz, genericType, mediatype,
+                readersByMediaType, readers);
+        Collection<Marshaller<T>> founds = searchAllCandidates(ctx, marshalledClazz, genericType, mediatype,
+                candidates).values();
         return (Collection<Reader<T>>) (Collection<?>) founds;
     }
 
@@ -242,69 +311,106 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
         return getReader(ctx, marshalledClazz, marshalledClazz, mediatype);
     }
 
+    /**
+     * Gets the marshallers whose managed class and generic type match the lookup: the ones explicitly supporting the
+     * media type first, then all the others, each group ordered by priority.
+     *
+     * @since 9.1
+     */
+    private List<MarshallerInspector> getCandidates(Map<CandidatesKey, List<MarshallerInspector>> cache,
+            Class<?> marshalledClazz, Type genericType, MediaType mediatype,
+            Map<MediaType, Set<MarshallerInspector>> byMediaType, Set<MarshallerInspector> all) {
+        CandidatesKey key = new CandidatesKey(marshalledClazz, genericType, mediatype);
+        List<MarshallerInspector> candidates = cache.get(key);
+        if (candidates == null) {
+            Set<MarshallerInspector> result = new LinkedHashSet<>();
+            Set<MarshallerInspector> customs = byMediaType.get(mediatype);
+            if (customs != null) {
+                addMatching(result, marshalledClazz, genericType, customs);
+            }
+            addMatching(result, marshalledClazz, genericType, all);
+            candidates = Collections.unmodifiableList(new ArrayList<>(result));
+            // the cache may have been replaced meanwhile by a registration, in which case this is dropped
+            cache.put(key, candidates);
+        }
+        return candidates;
+    }
+
+    private void addMatching(Set<MarshallerInspector> result, Class<?> marshalledClazz, Type genericType,
+            Set<MarshallerInspector> inspectors) {
+        for (MarshallerInspector inspector : inspectors) {
+            // checks the managed class is compatible
+            if (inspector.getMarshalledType().isAssignableFrom(marshalledClazz)) {
+                // checks the generic type is compatible
+                if (genericType == null || marshalledClazz.equals(inspector.getGenericType())
+                        || TypeUtils.isAssignable(genericType, inspector.getGenericType())) {
+                    result.add(inspector);
+                }
+            }
+        }
+    }
+
+    private void invalidateCandidates() {
+        writerCandidates = new ConcurrentHashMap<>();
+        readerCandidates = new ConcurrentHashMap<>();
+    }
+
     public <T> Marshaller<T> getMarshaller(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype, Set<MarshallerInspector> customs, Set<MarshallerInspector> wildcards,
             boolean forceInstantiation) {
+        Set<MarshallerInspector> candidates = new LinkedHashSet<>();
         if (customs != null) {
-            Marshaller<T> found = searchCandidate(ctx, marshalledClazz, genericType, mediatype, customs,
-                    forceInstantiation);
-            if (found != null) {
-                return found;
-            }
+            addMatching(candidates, marshalledClazz, genericType, customs);
         }
-        return searchCandidate(ctx, marshalledClazz, genericType, mediatype, wildcards, forceInstantiation);
+        addMatching(candidates, marshalledClazz, genericType, wildcards);
+        return searchCandidate(ctx, marshalledClazz, genericType, mediatype, candidates, forceInstantiation);
     }
 
     public <T> Collection<Marshaller<T>> getAllMarshallers(RenderingContext ctx, Class<T> marshalledClazz,
             Type genericType, MediaType mediatype, Set<MarshallerInspector> customs, Set<MarshallerInspector> wildcards) {
-        Map<MarshallerInspector, Marshaller<T>> result = new HashMap<MarshallerInspector, Marshaller<T>>();
+        Set<MarshallerInspector> candidates = new LinkedHashSet<>();
         if (customs != null) {
-            result.putAll(searchAllCandidates(ctx, marshalledClazz, genericType, mediatype, customs));
+            addMatching(candidates, marshalledClazz, genericType, customs);
         }
-        result.putAll(searchAllCandidates(ctx, marshalledClazz, genericType, mediatype, wildcards));
-        return result.values();
+        addMatching(candidates, marshalledClazz, genericType, wildcards);
+        return searchAllCandidates(ctx, marshalledClazz, genericType, mediatype, candidates).values();
     }
 
+    /**
+     * Returns the first candidate accepting the request, the candidates being already checked against the managed
+     * class and generic type.
+     */
     @SuppressWarnings("unchecked")
     private <T> Marshaller<T> searchCandidate(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
-            MediaType mediatype, Set<MarshallerInspector> candidates, boolean forceInstantiation) {
+            MediaType mediatype, Collection<MarshallerInspector> candidates, boolean forceInstantiation) {
         for (MarshallerInspector inspector : candidates) {
-            // checks the managed class is compatible
-            if (inspector.getMarshalledType().isAssignableFrom(marshalledClazz)) {
-                // checks the generic type is compatible
-                if (genericType == null || marshalledClazz.equals(inspector.getGenericType())
-                        || TypeUtils.isAssignable(genericType, inspector.getGenericType())) {
-                    Marshaller<T> marshaller = null;
-                    if (forceInstantiation) {
-                        marshaller = (Marshaller<T>) inspector.getNewInstance(ctx, false);
-                    } else {
-                        marshaller = inspector.getInstance(ctx);
-                    }
-                    // checks the marshaller accepts the request
-                    if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
-                        return marshaller;
-                    }
-                }
+            Marshaller<T> marshaller = null;
+            if (forceInstantiation) {
+                marshaller = (Marshaller<T>) inspector.getNewInstance(ctx, false);
+            } else {
+                marshaller = inspector.getInstance(ctx);
+            }
+            // checks the marshaller accepts the request
+            if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
+                return marshaller;
             }
         }
         return null;
     }
 
+    /**
+     * Returns all the candidates accepting the request, the candidates being already checked against the managed
+     * class and generic type.
+     */
     private <T> Map<MarshallerInspector, Marshaller<T>> searchAllCandidates(RenderingContext ctx,
-            Class<T> marshalledClazz, Type genericType, MediaType mediatype, Set<MarshallerInspector> candidates) {
+            Class<T> marshalledClazz, Type genericType, MediaType mediatype,
+            Collection<MarshallerInspector> candidates) {
         Map<MarshallerInspector, Marshaller<T>> result = new HashMap<MarshallerInspector, Marshaller<T>>();
         for (MarshallerInspector inspector : candidates) {
-            // checks the managed class is compatible
-            if (inspector.getMarshalledType().isAssignableFrom(marshalledClazz)) {
-                // checks the generic type is compatible
-                if (genericType == null || marshalledClazz.equals(inspector.getGenericType())
-                        || TypeUtils.isAssignable(genericType, inspector.getGenericType())) {
-                    // checks the marshaller accepts the request
-                    Marshaller<T> marshaller = inspector.getInstance(ctx);
-                    if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
-                        result.put(inspector, marshaller);
-                    }
-                }
+            // checks the marshaller accepts the request
+            Marshaller<T> marshaller = inspector.getInstance(ctx);
+            if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
+                result.put(inspector, marshaller);
             }
         }
         return result;
@@ -337,6 +443,48 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
         writers.clear();
         readersByMediaType.clear();
         readers.clear();
+        invalidateCandidates();
+    }
+
+    /**
+     * Key of the candidates cache.
+     *
+     * @since 9.1
+     */
+    private static final class CandidatesKey {
+
+        private final Class<?> marshalledClazz;
+
+        private final Type genericType;
+
+        private final MediaType mediatype;
+
+        private final int hash;
+
+        CandidatesKey(Class<?> marshalledClazz, Type genericType, MediaType mediatype) {
+            this.marshalledClazz = marshalledClazz;
+            this.genericType = genericType;
+            this.mediatype = mediatype;
+            hash = Objects.hash(marshalledClazz, genericType, mediatype);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CandidatesKey)) {
+                return false;
+            }
+            CandidatesKey other = (CandidatesKey) obj;
+            return marshalledClazz.equals(other.marshalledClazz) && Objects.equals(genericType, other.genericType)
+                    && Objects.equals(mediatype, other.mediatype);
+        }
     }
 
 }
@@ -97,7 +97,7 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
      */
     private volatile boolean servicesInjected;
 
-    private ThreadLocal<Object> threadInstance;
+    private final ThreadLocal<Object> threadInstance = new ThreadLocal<Object>();
 
     private Class<?> marshalledType;
 
@@ -260,6 +260,33 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
         loadInjections(clazz.getSuperclass());
     }
 
+    /**
+     * Prepares the instances that can be created ahead of the first use depending on the instantiation mode: injects
+     * the services in the singleton, or checks they are available for the other modes.
+     *
+     * @throws NuxeoException if a required service is not available
+     * @since 9.1
+     */
+    public void prepare() {
+        if (instantiation == Instantiations.SINGLETON) {
+            if (!servicesInjected) {
+                synchronized (this) {
+                    if (!servicesInjected) {
+                        injectServices(singleton);
+                        servicesInjected = true;
+                    }
+                }
+            }
+        } else {
+            for (Field serviceField : serviceFields) {
+                if (Framework.getService(serviceField.getType()) == null) {
+                    throw new NuxeoException("unable to inject a service " + serviceField.getType().getName()
+                            + " in the marshaller clazz " + clazz.getName());
+                }
+            }
+        }
+    }
+
     /**
      * Create an instance of this marshaller. Depending on the instantiation mode, get the current singleton instance,
      * get a thread local one or create a new one.
@@ -314,12 +341,7 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
      */
     private Object getSingletonInstance(RenderingContext ctx) {
         if (!servicesInjected) {
-            synchronized (this) {
-                if (!servicesInjected) {
-                    injectServices(singleton);
-                    servicesInjected = true;
-                }
-            }
+            prepare();
         }
         for (Field contextField : contextFields) {
             ThreadSafeRenderingContext value;
@@ -341,9 +363,6 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
      * @since 7.2
      */
     private Object getThreadInstance(RenderingContext ctx) {
-        if (threadInstance == null) {
-            threadInstance = new ThreadLocal<Object>();
-        }
         Object instance = threadInstance.get();
         if (instance == null) {
             instance = getNewInstance(ctx, false);
@@ -422,6 +441,13 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
         }
     }
 
+    /**
+     * @since 9.1
+     */
+    public Class<?> getMarshallerClass() {
+        return clazz;
+    }
+
     public Instantiations getInstantiations() {
         return instantiation;
     }
@@ -0,0 +1,46 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.redis.contribs;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.nuxeo.ecm.core.api.impl.DocumentModelCodec;
+
+/**
+ * {@link RedisCacheCodec} using the compact {@link DocumentModelCodec} encoding for document models, enabled by setting
+ * the {@value RedisCache#CODEC_OPTION} option of a cache or of a Redis transient store to this class.
+ * <p>
+ * Values written by the default {@link SerializableRedisCacheCodec} are still readable.
+ *
+ * @since 9.1
+ */
+public class CompactRedisCacheCodec implements RedisCacheCodec {
+
+    @Override
+    public byte[] encode(Serializable value) throws IOException {
+        return DocumentModelCodec.encode(value);
+    }
+
+    @Override
+    public Serializable decode(byte[] bytes) throws IOException {
+        return DocumentModelCodec.decode(bytes);
+    }
+
+}
@@ -19,19 +19,20 @@
 
 package org.nuxeo.ecm.core.redis.contribs;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.impl.DocumentModelCodec.SchemaMismatchException;
 import org.nuxeo.ecm.core.cache.AbstractCache;
 import org.nuxeo.ecm.core.cache.CacheDescriptor;
 import org.nuxeo.ecm.core.redis.RedisAdmin;
@@ -52,14 +53,36 @@ public class RedisCache extends AbstractCache {
 
     protected static final Log log = LogFactory.getLog(RedisCache.class);
 
+    /**
+     * Option to configure the {@link RedisCacheCodec} class used to encode values.
+     *
+     * @since 9.1
+     */
+    public static final String CODEC_OPTION = "codec";
+
     protected final RedisExecutor executor;
 
     protected final String namespace;
 
+    protected final RedisCacheCodec codec;
+
     public RedisCache(CacheDescriptor desc) {
         super(desc);
         executor = Framework.getService(RedisExecutor.class);
         namespace = Framework.getService(RedisAdmin.class).namespace("cache", name);
+        codec = newCodec(desc.options.get(CODEC_OPTION));
+    }
+
+    protected static RedisCacheCodec newCodec(String className) {
+        if (className == null) {
+            return new SerializableRedisCacheCodec();
+        }
+        try {
+            Class<?> klass = Thread.currentThread().getContextClassLoader().loadClass(className.trim());
+            return (RedisCacheCodec) klass.newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new NuxeoException("Invalid cache codec: " + className, e);
+        }
     }
 
     protected String formatKey(String key) {
@@ -67,17 +90,7 @@ public class RedisCache extends AbstractCache {
     }
 
     protected Serializable deserializeValue(byte[] workBytes) throws IOException {
-        if (workBytes == null) {
-            return null;
-        }
-
-        InputStream bain = new ByteArrayInputStream(workBytes);
-        ObjectInputStream in = new ObjectInputStream(bain);
-        try {
-            return (Serializable) in.readObject();
-        } catch (ClassNotFoundException e) {
-            throw new NuxeoException(e);
-        }
+        return codec.decode(workBytes);
     }
 
     protected static byte[] bytes(String string) {
@@ -96,6 +109,9 @@ public class RedisCache extends AbstractCache {
             public Serializable call(Jedis jedis) {
                 try {
                     return deserializeValue(jedis.get(bytes(formatKey(key))));
+                } catch (SchemaMismatchException e) {
+                    log.debug("Ignoring cached value of " + key + ": " + e.getMessage());
+                    return null;
                 } catch (IOException e) {
                     log.error(e);
                     return null;
@@ -105,6 +121,33 @@ public class RedisCache extends AbstractCache {
 
     }
 
+    @Override
+    public Map<String, Serializable> getAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        List<String> keyList = new ArrayList<>(keys);
+        byte[][] bkeys = new byte[keyList.size()][];
+        for (int i = 0; i < bkeys.length; i++) {
+            bkeys[i] = bytes(formatKey(keyList.get(i)));
+        }
+        List<byte[]> values = executor.execute(jedis -> jedis.mget(bkeys));
+        Map<String, Serializable> result = new HashMap<>();
+        for (int i = 0; i < bkeys.length; i++) {
+            try {
+                Serializable value = deserializeValue(values.get(i));
+                if (value != null) {
+                    result.put(keyList.get(i), value);
+                }
+            } catch (SchemaMismatchException e) {
+                log.debug("Ignoring cached value of " + keyList.get(i) + ": " + e.getMessage());
+            } catch (IOException e) {
+                log.error(e);
+            }
+        }
+        return result;
+    }
+
     @Override
     public Set<String> keySet() {
         return executor.execute(new RedisCallable<Set<String>>() {
@@ -120,12 +163,7 @@ public class RedisCache extends AbstractCache {
     }
 
     protected byte[] serializeValue(Serializable value) throws IOException {
-        ByteArrayOutputStream baout = new ByteArrayOutputStream();
-        ObjectOutputStream out = new ObjectOutputStream(baout);
-        out.writeObject(value);
-        out.flush();
-        out.close();
-        return baout.toByteArray();
+        return codec.encode(value);
     }
 
     @Override
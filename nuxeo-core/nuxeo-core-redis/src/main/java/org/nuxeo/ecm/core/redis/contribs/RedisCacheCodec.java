@@ -0,0 +1,41 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.redis.contribs;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Converts the values stored by a {@link RedisCache} to and from bytes.
+ * <p>
+ * The codec is configured through the {@code codec} option of the cache descriptor and must have a public no-arg
+ * constructor.
+ *
+ * @since 9.1
+ */
+public interface RedisCacheCodec {
+
+    byte[] encode(Serializable value) throws IOException;
+
+    /**
+     * Decodes a value, returns {@code null} if the bytes are {@code null}.
+     */
+    Serializable decode(byte[] bytes) throws IOException;
+
+}
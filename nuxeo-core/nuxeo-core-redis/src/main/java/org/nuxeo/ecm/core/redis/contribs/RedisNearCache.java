@@ -0,0 +1,369 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.redis.contribs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.cache.CacheDescriptor;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Two-tier cache: a bounded local near cache in front of a {@link RedisCache}.
+ * <p>
+ * Every write or invalidation is published on a Redis channel so that the other nodes drop their local copy of the
+ * key. The subscription is restored with a backoff when the Redis connection is lost, and the near cache is cleared
+ * when the subscription is lost or restored as messages may have been missed meanwhile. Values are shared between the
+ * callers of a node: they must not be modified after being put or read.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@code nearCacheMaxSize}: maximum number of entries in the near cache, defaults to 1000</li>
+ * <li>{@code nearCacheTtl}: time to live of near cache entries in seconds, defaults to the cache TTL</li>
+ * <li>{@code codec}: the {@link RedisCacheCodec} class used to encode values in Redis</li>
+ * </ul>
+ *
+ * @since 9.1
+ */
+public class RedisNearCache extends RedisCache implements Closeable {
+
+    private static final Log log = LogFactory.getLog(RedisNearCache.class);
+
+    public static final String NEAR_CACHE_MAX_SIZE_OPTION = "nearCacheMaxSize";
+
+    public static final String NEAR_CACHE_TTL_OPTION = "nearCacheTtl";
+
+    // PubSub channel: nuxeo:cache:<cacheName>:inval
+    protected static final String INVALIDATION_CHANNEL = "inval";
+
+    protected static final String SEPARATOR = ":";
+
+    protected static final String INVALIDATE_KEY = "K";
+
+    protected static final String INVALIDATE_ALL = "A";
+
+    // Max delay to wait for a channel subscription
+    protected static final long TIMEOUT_SUBSCRIBE_SECOND = 10;
+
+    // Delays between two subscription attempts
+    protected static final long MIN_RESUBSCRIBE_DELAY_MS = 100;
+
+    protected static final long MAX_RESUBSCRIBE_DELAY_MS = 30000;
+
+    protected final String nodeId = UUID.randomUUID().toString();
+
+    protected final Cache<String, Serializable> nearCache;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected final Counter nearHits;
+
+    protected final Counter redisHits;
+
+    protected final Counter misses;
+
+    protected final Counter invalidationsReceived;
+
+    // incremented on each change of the near cache not made by a read, so that a read loading a value from Redis
+    // does not put it in the near cache if it may have been invalidated meanwhile
+    protected final AtomicLong generation = new AtomicLong();
+
+    protected volatile JedisPubSub subscriber;
+
+    protected Thread subscriberThread;
+
+    protected volatile boolean closed;
+
+    protected volatile long resubscribeDelay = MIN_RESUBSCRIBE_DELAY_MS;
+
+    public RedisNearCache(CacheDescriptor desc) {
+        super(desc);
+        int maxSize = getIntOption(desc, NEAR_CACHE_MAX_SIZE_OPTION, 1000);
+        int nearTtl = getIntOption(desc, NEAR_CACHE_TTL_OPTION, ttl * 60);
+        nearCache = CacheBuilder.newBuilder()
+                                .maximumSize(maxSize)
+                                .expireAfterWrite(nearTtl, TimeUnit.SECONDS)
+                                .build();
+        nearHits = registry.counter(metricName("near", "hit"));
+        redisHits = registry.counter(metricName("redis", "hit"));
+        misses = registry.counter(metricName("miss"));
+        invalidationsReceived = registry.counter(metricName("near", "invalidation"));
+        createSubscriberThread();
+    }
+
+    protected static int getIntOption(CacheDescriptor desc, String option, int defaultValue) {
+        String value = desc.options.get(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new NuxeoException("Invalid value for option " + option + " of cache " + desc.name + ": " + value,
+                    e);
+        }
+    }
+
+    protected String metricName(String... names) {
+        return MetricRegistry.name(MetricRegistry.name("nuxeo", "cache", name), names);
+    }
+
+    protected String getChannelName() {
+        return namespace + INVALIDATION_CHANNEL;
+    }
+
+    protected void createSubscriberThread() {
+        CountDownLatch subscribeLatch = new CountDownLatch(1);
+        subscriberThread = new Thread(() -> subscribeLoop(subscribeLatch),
+                "RedisNearCacheSubscriber:" + name + ":" + nodeId);
+        subscriberThread.setDaemon(true);
+        subscriberThread.setUncaughtExceptionHandler((t, e) -> log.error("Uncaught error on thread " + t.getName(), e));
+        subscriberThread.start();
+        try {
+            if (!subscribeLatch.await(TIMEOUT_SUBSCRIBE_SECOND, TimeUnit.SECONDS)) {
+                log.error("Redis channel subscription timeout after " + TIMEOUT_SUBSCRIBE_SECOND
+                        + "s, continuing but cache " + name + " may serve stale values");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoException(e);
+        }
+    }
+
+    /**
+     * Subscribes to the invalidation channel until the cache is closed, subscribing again with an increasing delay
+     * when the subscription is lost.
+     */
+    protected void subscribeLoop(CountDownLatch subscribeLatch) {
+        while (!closed) {
+            subscriber = new JedisPubSub() {
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    // invalidations may have been missed while not subscribed
+                    clearNearCache();
+                    resubscribeDelay = MIN_RESUBSCRIBE_DELAY_MS;
+                    subscribeLatch.countDown();
+                }
+
+                @Override
+                public void onMessage(String channel, String message) {
+                    receiveInvalidation(message);
+                }
+            };
+            try {
+                executor.execute(jedis -> {
+                    jedis.subscribe(subscriber, getChannelName());
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                if (!closed) {
+                    log.warn("Lost subscription to channel " + getChannelName() + ", retrying in "
+                            + resubscribeDelay + "ms", e);
+                }
+            }
+            if (closed) {
+                break;
+            }
+            // the subscription is lost, the near cache cannot be trusted anymore
+            clearNearCache();
+            try {
+                Thread.sleep(resubscribeDelay);
+            } catch (InterruptedException e) {
+                if (closed) {
+                    break;
+                }
+                Thread.currentThread().interrupt();
+                log.error("Subscriber thread interrupted, cache " + name + " is not invalidated anymore");
+                clearNearCache();
+                break;
+            }
+            resubscribeDelay = Math.min(resubscribeDelay * 2, MAX_RESUBSCRIBE_DELAY_MS);
+        }
+    }
+
+    protected void clearNearCache() {
+        generation.incrementAndGet();
+        nearCache.invalidateAll();
+    }
+
+    protected void receiveInvalidation(String message) {
+        // message format: <nodeId>:<type>[:<key>]
+        String[] parts = message.split(SEPARATOR, 3);
+        if (parts.length < 2) {
+            log.error("Invalid near cache invalidation message: " + message);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            // already applied locally
+            return;
+        }
+        invalidationsReceived.inc();
+        generation.incrementAndGet();
+        if (INVALIDATE_ALL.equals(parts[1])) {
+            nearCache.invalidateAll();
+        } else if (parts.length == 3) {
+            nearCache.invalidate(parts[2]);
+        }
+    }
+
+    protected String invalidationMessage(String key) {
+        return nodeId + SEPARATOR + INVALIDATE_KEY + SEPARATOR + key;
+    }
+
+    protected void publishInvalidation(String message) {
+        executor.execute(jedis -> jedis.publish(getChannelName(), message));
+    }
+
+    @Override
+    public Serializable get(String key) {
+        Serializable value = nearCache.getIfPresent(key);
+        if (value != null) {
+            nearHits.inc();
+            return value;
+        }
+        long gen = generation.get();
+        value = super.get(key);
+        if (value == null) {
+            misses.inc();
+        } else {
+            redisHits.inc();
+            putIfNotInvalidated(gen, key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, Serializable> getAll(Collection<String> keys) {
+        Map<String, Serializable> result = new HashMap<>(nearCache.getAllPresent(keys));
+        nearHits.inc(result.size());
+        List<String> missing = keys.stream().filter(key -> !result.containsKey(key)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            long gen = generation.get();
+            Map<String, Serializable> found = super.getAll(missing);
+            redisHits.inc(found.size());
+            misses.inc(missing.size() - found.size());
+            found.forEach((key, value) -> putIfNotInvalidated(gen, key, value));
+            result.putAll(found);
+        }
+        return result;
+    }
+
+    /**
+     * Puts a value loaded from Redis in the near cache, unless the near cache changed since the load started.
+     */
+    protected void putIfNotInvalidated(long loadGeneration, String key, Serializable value) {
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        nearCache.put(key, value);
+        // a change after the check may not have seen the put
+        if (generation.get() != loadGeneration) {
+            nearCache.invalidate(key);
+        }
+    }
+
+    @Override
+    public void put(String key, Serializable value) {
+        byte[] bytes;
+        try {
+            bytes = serializeValue(value);
+        } catch (IOException e) {
+            throw new NuxeoException(e);
+        }
+        // write, set the expiration and notify the other nodes in a single round-trip
+        executor.execute(jedis -> {
+            byte[] bkey = bytes(formatKey(key));
+            Pipeline pipeline = jedis.pipelined();
+            // Redis set in second ttl but descriptor set as mn
+            pipeline.setex(bkey, ttl * 60, bytes);
+            pipeline.publish(getChannelName(), invalidationMessage(key));
+            pipeline.sync();
+            return null;
+        });
+        generation.incrementAndGet();
+        nearCache.put(key, value);
+    }
+
+    @Override
+    public void invalidate(String key) {
+        generation.incrementAndGet();
+        nearCache.invalidate(key);
+        executor.execute(jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.del(formatKey(key));
+            pipeline.publish(getChannelName(), invalidationMessage(key));
+            pipeline.sync();
+            return null;
+        });
+    }
+
+    @Override
+    public void invalidateAll() {
+        clearNearCache();
+        super.invalidateAll();
+        publishInvalidation(nodeId + SEPARATOR + INVALIDATE_ALL);
+    }
+
+    @Override
+    public boolean hasEntry(String key) {
+        return nearCache.asMap().containsKey(key) || super.hasEntry(key);
+    }
+
+    public long getNearCacheSize() {
+        return nearCache.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        JedisPubSub current = subscriber;
+        if (current != null && current.isSubscribed()) {
+            current.unsubscribe();
+        }
+        subscriberThread.interrupt();
+        nearCache.invalidateAll();
+        registry.remove(metricName("near", "hit"));
+        registry.remove(metricName("redis", "hit"));
+        registry.remove(metricName("miss"));
+        registry.remove(metricName("near", "invalidation"));
+    }
+
+}
@@ -20,12 +20,7 @@
 
 package org.nuxeo.ecm.core.redis.contribs;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -43,6 +38,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.impl.DocumentModelCodec.SchemaMismatchException;
 import org.nuxeo.ecm.core.redis.RedisAdmin;
 import org.nuxeo.ecm.core.redis.RedisCallable;
 import org.nuxeo.ecm.core.redis.RedisExecutor;
@@ -109,6 +105,8 @@ public class RedisTransientStore extends AbstractTransientStore {
 
     protected int secondLevelTTL;
 
+    protected RedisCacheCodec codec;
+
     protected Log log = LogFactory.getLog(RedisTransientStore.class);
 
     public RedisTransientStore() {
@@ -128,6 +126,8 @@ public class RedisTransientStore extends AbstractTransientStore {
         // Use seconds for Redis EXPIRE command
         firstLevelTTL = config.getFirstLevelTTL() * 60;
         secondLevelTTL = config.getSecondLevelTTL() * 60;
+
+        codec = RedisCache.newCodec(config.getOptions().get(RedisCache.CODEC_OPTION));
     }
 
     @Override
@@ -568,12 +568,7 @@ public class RedisTransientStore extends AbstractTransientStore {
 
     protected byte[] serialize(Serializable value) {
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ObjectOutputStream out = new ObjectOutputStream(baos);
-            out.writeObject(value);
-            out.flush();
-            out.close();
-            return baos.toByteArray();
+            return codec.encode(value);
         } catch (IOException e) {
             throw new NuxeoException(e);
         }
@@ -581,10 +576,12 @@ public class RedisTransientStore extends AbstractTransientStore {
 
     protected Serializable deserialize(byte[] bytes) {
         try {
-            InputStream bain = new ByteArrayInputStream(bytes);
-            ObjectInputStream in = new ObjectInputStream(bain);
-            return (Serializable) in.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+            return codec.decode(bytes);
+        } catch (SchemaMismatchException e) {
+            // written before a schema change, same as a missing value
+            log.debug("Ignoring transient store value: " + e.getMessage());
+            return null;
+        } catch (IOException e) {
             throw new NuxeoException(e);
         }
     }
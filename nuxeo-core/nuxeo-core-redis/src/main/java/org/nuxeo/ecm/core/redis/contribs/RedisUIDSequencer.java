@@ -19,6 +19,9 @@
  */
 package org.nuxeo.ecm.core.redis.contribs;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.NuxeoException;
@@ -50,6 +53,7 @@ public class RedisUIDSequencer extends AbstractUIDSequencer {
 
     @Override
     public void dispose() {
+        disposeBlocks();
     }
 
     @Override
@@ -59,12 +63,32 @@ public class RedisUIDSequencer extends AbstractUIDSequencer {
 
     @Override
     public long getNextLong(String key) {
+        if (isBlockAllocation()) {
+            return getNextFromBlock(key);
+        }
+        return incrementBy(key, 1);
+    }
+
+    @Override
+    public List<Long> getNextBlock(String key, int blockSize) {
+        List<Long> ret = new ArrayList<>(blockSize);
+        if (blockSize == 0) {
+            return ret;
+        }
+        long last = incrementBy(key, blockSize);
+        for (long id = last - blockSize + 1; id <= last; id++) {
+            ret.add(id);
+        }
+        return ret;
+    }
+
+    protected long incrementBy(String key, int increment) {
         RedisExecutor executor = Framework.getService(RedisExecutor.class);
         try {
             return executor.execute(new RedisCallable<Long>() {
                 @Override
                 public Long call(Jedis jedis) {
-                    return jedis.incr(namespace + key);
+                    return jedis.incrBy(namespace + key, increment);
                 }
             });
         } catch (JedisException e) {
@@ -0,0 +1,58 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.redis.contribs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.nuxeo.ecm.core.api.NuxeoException;
+
+/**
+ * Default {@link RedisCacheCodec} relying on Java serialization.
+ *
+ * @since 9.1
+ */
+public class SerializableRedisCacheCodec implements RedisCacheCodec {
+
+    @Override
+    public byte[] encode(Serializable value) throws IOException {
+        ByteArrayOutputStream baout = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baout)) {
+            out.writeObject(value);
+        }
+        return baout.toByteArray();
+    }
+
+    @Override
+    public Serializable decode(byte[] bytes) throws IOException {
+        if (bytes == null) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Serializable) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new NuxeoException(e);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.redis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.cache.CacheDescriptor;
+import org.nuxeo.ecm.core.redis.contribs.RedisNearCache;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * @since 9.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features(RedisFeature.class)
+public class TestRedisNearCache {
+
+    protected static final String CACHE_NAME = "near-test-cache";
+
+    protected static final long DELAY_MS = 10000;
+
+    protected final List<RedisNearCache> caches = new ArrayList<>();
+
+    @Before
+    public void assumeTrueRedisServer() {
+        Assume.assumeTrue("Require a true Redis server with pubsub support",
+                "server".equals(Framework.getProperty("nuxeo.test.redis.mode")));
+    }
+
+    @After
+    public void closeCaches() {
+        caches.forEach(RedisNearCache::close);
+    }
+
+    /**
+     * Creates a cache as another node would, sharing the Redis entries and invalidation channel.
+     */
+    protected RedisNearCache newNode() {
+        CacheDescriptor desc = new CacheDescriptor();
+        desc.name = CACHE_NAME;
+        desc.options.put(RedisNearCache.NEAR_CACHE_MAX_SIZE_OPTION, "100");
+        RedisNearCache cache = new RedisNearCache(desc);
+        caches.add(cache);
+        return cache;
+    }
+
+    protected void waitFor(String message, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DELAY_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError(message + " after " + DELAY_MS + " ms");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testLocalHit() {
+        Counter nearHits = SharedMetricRegistries.getOrCreate(MetricsService.class.getName()).counter(
+                MetricRegistry.name("nuxeo", "cache", CACHE_NAME, "near", "hit"));
+        RedisNearCache cache = newNode();
+        cache.put("key", "val");
+        assertEquals(1, cache.getNearCacheSize());
+
+        long hits = nearHits.getCount();
+        assertEquals("val", cache.get("key"));
+        assertEquals("val", cache.get("key"));
+        assertEquals(hits + 2, nearHits.getCount());
+    }
+
+    @Test
+    public void testCrossInstanceInvalidation() throws Exception {
+        RedisNearCache node1 = newNode();
+        RedisNearCache node2 = newNode();
+        node1.put("key", "val1");
+        // read through from Redis, then kept in the near cache of node2
+        assertEquals("val1", node2.get("key"));
+        assertEquals(1, node2.getNearCacheSize());
+
+        node1.put("key", "val2");
+        waitFor("No invalidation received", () -> node2.getNearCacheSize() == 0);
+        assertEquals("val2", node2.get("key"));
+
+        node2.invalidate("key");
+        waitFor("No invalidation received", () -> node1.getNearCacheSize() == 0);
+        assertNull(node1.get("key"));
+    }
+
+    @Test
+    public void testInvalidateAll() throws Exception {
+        RedisNearCache node1 = newNode();
+        RedisNearCache node2 = newNode();
+        node1.put("key1", "val1");
+        node1.put("key2", "val2");
+        assertEquals("val1", node2.get("key1"));
+        assertEquals("val2", node2.get("key2"));
+        assertEquals(2, node2.getNearCacheSize());
+
+        node1.invalidateAll();
+        assertEquals(0, node1.getNearCacheSize());
+        waitFor("No invalidation received", () -> node2.getNearCacheSize() == 0);
+        assertNull(node2.get("key1"));
+        assertNull(node2.get("key2"));
+    }
+
+}
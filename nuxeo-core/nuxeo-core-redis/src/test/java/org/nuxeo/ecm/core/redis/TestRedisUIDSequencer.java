@@ -23,6 +23,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import javax.inject.Inject;
 
 import org.junit.Test;
@@ -56,4 +60,31 @@ public class TestRedisUIDSequencer {
         assertEquals(2, sequencer.getNext("B"));
     }
 
+    @Test
+    public void testRedisUIDSequencerBlock() throws Exception {
+        RedisUIDSequencer sequencer = (RedisUIDSequencer) service.getSequencer("redisSequencer");
+        sequencer.init();
+
+        assertEquals(1, sequencer.getNext("C"));
+        assertEquals(Arrays.asList(2L, 3L, 4L), sequencer.getNextBlock("C", 3));
+        assertEquals(0, sequencer.getNextBlock("C", 0).size());
+        assertEquals(5, sequencer.getNext("C"));
+
+        sequencer.setBlockSize(10);
+        try {
+            Set<Long> ids = new HashSet<>();
+            long last = 5;
+            for (int i = 0; i < 35; i++) {
+                long id = sequencer.getNextLong("C");
+                assertTrue(id > last);
+                assertTrue(ids.add(Long.valueOf(id)));
+                last = id;
+            }
+        } finally {
+            sequencer.setBlockSize(1);
+        }
+        // at most the current and the prefetched blocks have been reserved
+        assertTrue(sequencer.getNext("C") <= 5 + 4 * 10 + 1);
+    }
+
 }
@@ -0,0 +1,241 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.schema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.common.Environment;
+import org.nuxeo.ecm.core.schema.types.Schema;
+import org.nuxeo.ecm.core.schema.types.resolver.ObjectResolver;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Disk cache of the schemas compiled from the contributed XSDs, avoiding to parse them at each startup.
+ * <p>
+ * The compiled schemas are serialized to a file of the data directory whose name is a hash of the contributed XSDs,
+ * of the XSDs they include or import, of the schema descriptors and of the object resolver contributions, so any
+ * change to them is detected.
+ * <p>
+ * The cache is enabled by the {@value #ENABLED_PROPERTY} framework property.
+ *
+ * @since 9.1
+ */
+public class SchemaCache {
+
+    private static final Log log = LogFactory.getLog(SchemaCache.class);
+
+    public static final String ENABLED_PROPERTY = "nuxeo.schema.cache.enabled";
+
+    public static final String CACHE_DIR_NAME = "schemas-cache";
+
+    /** Changed when the serialized form of the schemas changes. */
+    protected static final String FORMAT_VERSION = "1";
+
+    protected static final String SUFFIX = ".ser";
+
+    protected static final Pattern SCHEMA_LOCATION = Pattern.compile("schemaLocation\\s*=\\s*[\"']([^\"']+)[\"']");
+
+    protected final File dir;
+
+    public SchemaCache(File dir) {
+        this.dir = dir;
+    }
+
+    public static boolean isEnabled() {
+        return Framework.getRuntime() != null && Framework.isBooleanPropertyTrue(ENABLED_PROPERTY);
+    }
+
+    public static SchemaCache getDefault() {
+        return new SchemaCache(new File(Environment.getDefault().getData(), CACHE_DIR_NAME));
+    }
+
+    /**
+     * Computes the cache key of the given schema descriptors, whose XSD must have been copied to their
+     * {@link SchemaBindingDescriptor#file}, and of the object resolver classes used by their constraints.
+     */
+    public String computeKey(Collection<SchemaBindingDescriptor> sds,
+            Map<String, Class<? extends ObjectResolver>> resolvers) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        update(digest, FORMAT_VERSION);
+        for (SchemaBindingDescriptor sd : sds) {
+            update(digest, sd.name);
+            update(digest, sd.prefix);
+            update(digest, sd.src);
+            update(digest, sd.xsdRootElement);
+            update(digest, String.valueOf(sd.isVersionWritable));
+            if (sd.file == null) {
+                update(digest, null);
+            } else {
+                byte[] content = Files.readAllBytes(sd.file.toPath());
+                digest.update(content);
+                updateReferencedSchemas(digest, sd, content, new HashSet<>());
+            }
+        }
+        for (Entry<String, Class<? extends ObjectResolver>> es : new TreeMap<>(resolvers).entrySet()) {
+            update(digest, es.getKey());
+            update(digest, es.getValue().getName());
+        }
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Adds the XSDs included or imported by an XSD, resolved as {@link XSDLoader} does: from the schemas directory
+     * if they were contributed, otherwise from the bundle of the schema.
+     */
+    protected void updateReferencedSchemas(MessageDigest digest, SchemaBindingDescriptor sd, byte[] content,
+            Set<String> done) throws IOException {
+        Matcher m = SCHEMA_LOCATION.matcher(new String(content, StandardCharsets.UTF_8));
+        while (m.find()) {
+            String location = m.group(1);
+            if (!done.add(location)) {
+                continue;
+            }
+            update(digest, location);
+            byte[] referenced = readReferencedSchema(sd, location);
+            if (referenced == null) {
+                update(digest, null);
+            } else {
+                digest.update(referenced);
+                updateReferencedSchemas(digest, sd, referenced, done);
+            }
+        }
+    }
+
+    protected byte[] readReferencedSchema(SchemaBindingDescriptor sd, String location) throws IOException {
+        File file = new File(sd.file.getParentFile(), location);
+        if (file.isFile()) {
+            return Files.readAllBytes(file.toPath());
+        }
+        if (sd.context == null || sd.src == null) {
+            return null;
+        }
+        String path = sd.src.substring(0, sd.src.lastIndexOf('/') + 1) + location;
+        URL url = sd.context.getLocalResource(path);
+        if (url == null) {
+            url = sd.context.getResource(path);
+        }
+        if (url == null) {
+            return null;
+        }
+        try (InputStream in = url.openStream()) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    protected static void update(MessageDigest digest, String string) {
+        // separator so that consecutive values cannot be confused
+        digest.update((byte) 0);
+        if (string != null) {
+            digest.update(string.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    protected File getFile(String key) {
+        return new File(dir, key + SUFFIX);
+    }
+
+    /**
+     * Loads the schemas stored under the given key, in their registration order.
+     *
+     * @return the schemas, or {@code null} if they are not cached or cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    public List<Schema> load(String key) {
+        File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (List<Schema>) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            log.warn("Cannot read schema cache " + file + ", schemas will be parsed: " + e);
+            log.debug(e, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the schemas under the given key, removing the previously cached schemas.
+     */
+    public void store(String key, List<Schema> schemas) {
+        dir.mkdirs();
+        File file = getFile(key);
+        File tmp = new File(dir, key + ".tmp");
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeObject(new ArrayList<>(schemas));
+            }
+            // readers never see a partially written file
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // for instance a resolver that is not serializable
+            log.warn("Cannot write schema cache " + file + ": " + e);
+            log.debug(e, e);
+            tmp.delete();
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (f.getName().endsWith(SUFFIX) && !f.equals(file)) {
+                    f.delete();
+                }
+            }
+        }
+    }
+
+}
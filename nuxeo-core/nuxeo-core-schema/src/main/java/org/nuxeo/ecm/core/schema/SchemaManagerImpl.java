@@ -51,6 +51,9 @@ import org.nuxeo.ecm.core.schema.types.QName;
 import org.nuxeo.ecm.core.schema.types.Schema;
 import org.nuxeo.ecm.core.schema.types.Type;
 import org.nuxeo.ecm.core.schema.types.TypeException;
+import org.nuxeo.ecm.core.schema.types.resolver.ObjectResolver;
+import org.nuxeo.ecm.core.schema.types.resolver.ObjectResolverService;
+import org.nuxeo.runtime.api.Framework;
 import org.xml.sax.SAXException;
 
 /**
@@ -124,6 +127,13 @@ public class SchemaManagerImpl implements SchemaManager {
 
     protected List<Runnable> recomputeCallbacks;
 
+    /**
+     * Whether the schemas were read from the {@link SchemaCache} during the last recomputation.
+     *
+     * @since 9.1
+     */
+    protected boolean schemasFromCache;
+
     public SchemaManagerImpl() {
         recomputeCallbacks = new ArrayList<>();
         schemaDir = new File(Environment.getDefault().getTemp(), SCHEMAS_DIR_NAME);
@@ -275,12 +285,31 @@ public class SchemaManagerImpl implements SchemaManager {
      * Recomputes effective registries for schemas, facets and document types.
      */
     protected void recompute() {
-        recomputeConfiguration();
-        recomputeSchemas();
-        recomputeFacets(); // depend on schemas
-        recomputeDocumentTypes(); // depend on schemas and facets
-        recomputeProxies(); // depend on schemas
+        Map<String, Long> timings = new LinkedHashMap<>();
+        long t0 = System.nanoTime();
+        timed("configuration", this::recomputeConfiguration, timings);
+        timed("schemas", this::recomputeSchemas, timings);
+        timed("facets", this::recomputeFacets, timings); // depend on schemas
+        timed("documentTypes", this::recomputeDocumentTypes, timings); // depend on schemas and facets
+        timed("proxies", this::recomputeProxies, timings); // depend on schemas
         fields.clear(); // re-filled lazily
+        long elapsed = (System.nanoTime() - t0) / 1_000_000;
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Computed %d schemas%s, %d facets and %d document types in %dms %s",
+                    schemas.size(), schemasFromCache ? " from cache" : "", facets.size(), documentTypes.size(), elapsed,
+                    timings));
+        }
+    }
+
+    /**
+     * Runs a recomputation phase, recording its duration in milliseconds.
+     *
+     * @since 9.1
+     */
+    protected void timed(String phase, Runnable runnable, Map<String, Long> timings) {
+        long t0 = System.nanoTime();
+        runnable.run();
+        timings.put(phase, Long.valueOf((System.nanoTime() - t0) / 1_000_000));
     }
 
     /*
@@ -329,18 +358,52 @@ public class SchemaManagerImpl implements SchemaManager {
                 errors.addSuppressed(error);
             }
         }
-        for (SchemaBindingDescriptor sd : resolvedSchemas.values()) {
+        SchemaCache cache = SchemaCache.isEnabled() ? SchemaCache.getDefault() : null;
+        String cacheKey = null;
+        if (cache != null && errors.getSuppressed().length == 0) {
             try {
-                loadSchema(sd);
-            } catch (IOException | SAXException | TypeException error) {
-                errors.addSuppressed(error);
+                cacheKey = cache.computeKey(resolvedSchemas.values(), getResolverClasses());
+            } catch (IOException e) {
+                log.warn("Cannot compute schema cache key, schemas will be parsed", e);
             }
         }
-        if (errors.getSuppressed().length > 0) {
-            throw errors;
+        List<Schema> cached = cacheKey == null ? null : cache.load(cacheKey);
+        schemasFromCache = cached != null;
+        if (schemasFromCache) {
+            cached.forEach(this::registerSchema);
+        } else {
+            for (SchemaBindingDescriptor sd : resolvedSchemas.values()) {
+                try {
+                    loadSchema(sd);
+                } catch (IOException | SAXException | TypeException error) {
+                    errors.addSuppressed(error);
+                }
+            }
+            if (errors.getSuppressed().length > 0) {
+                throw errors;
+            }
+            if (cacheKey != null) {
+                List<Schema> loaded = new ArrayList<>();
+                for (String name : resolvedSchemas.keySet()) {
+                    Schema schema = schemas.get(name);
+                    if (schema != null) {
+                        loaded.add(schema);
+                    }
+                }
+                cache.store(cacheKey, loaded);
+            }
+        }
+        // precompute the field slots used by document parts
+        for (Schema schema : schemas.values()) {
+            schema.getFieldSlots();
         }
     }
 
+    protected Map<String, Class<? extends ObjectResolver>> getResolverClasses() {
+        ObjectResolverService service = Framework.getService(ObjectResolverService.class);
+        return service == null ? Collections.emptyMap() : service.getResolverClasses();
+    }
+
     protected void copySchema(SchemaBindingDescriptor sd) throws IOException {
         if (sd.src == null || sd.src.length() == 0) {
             // log.error("INLINE Schemas ARE NOT YET IMPLEMENTED!");
@@ -106,4 +106,13 @@ public interface ComplexType extends Type {
      */
     int getFieldsCount();
 
+    /**
+     * Gets the numbering of the fields of this complex type into slots.
+     *
+     * @since 9.1
+     */
+    default FieldSlots getFieldSlots() {
+        return new FieldSlots(this);
+    }
+
 }
@@ -44,6 +44,9 @@ public class ComplexTypeImpl extends AbstractType implements ComplexType {
 
     protected final Namespace ns;
 
+    /** Computed on first use, reset when a field is added. */
+    protected transient volatile FieldSlots fieldSlots;
+
     public ComplexTypeImpl(ComplexType superType, String schema, String name, Namespace ns) {
         super(superType, schema, name);
         // for composite types, they already include schemas from supertypes
@@ -65,6 +68,7 @@ public class ComplexTypeImpl extends AbstractType implements ComplexType {
         fields.put(name, field);
         fieldsByName.put(name.getLocalName(), field);
         fieldsByName.put(name.getPrefixedName(), field);
+        fieldSlots = null;
     }
 
     // called by XSDLoader
@@ -101,6 +105,15 @@ public class ComplexTypeImpl extends AbstractType implements ComplexType {
         return fields.size();
     }
 
+    @Override
+    public FieldSlots getFieldSlots() {
+        FieldSlots slots = fieldSlots;
+        if (slots == null) {
+            fieldSlots = slots = new FieldSlots(this);
+        }
+        return slots;
+    }
+
     @Override
     public boolean hasField(String name) {
         return fieldsByName.containsKey(name);
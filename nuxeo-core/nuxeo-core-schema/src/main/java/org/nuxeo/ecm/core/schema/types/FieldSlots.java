@@ -0,0 +1,88 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.schema.types;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable numbering of the fields of a complex type, allowing to keep field values in a flat array.
+ * <p>
+ * Slots are numbered from 0 to {@link #size()} - 1 in the iteration order of {@link ComplexType#getFields()}.
+ *
+ * @since 9.1
+ */
+public class FieldSlots {
+
+    protected final Field[] fields;
+
+    /** The map of name or prefixed name to slot. */
+    protected final Map<String, Integer> slotsByName;
+
+    protected final int fingerprint;
+
+    public FieldSlots(ComplexType type) {
+        fields = type.getFields().toArray(new Field[0]);
+        slotsByName = new HashMap<>(fields.length * 4);
+        int hash = 1;
+        for (int i = 0; i < fields.length; i++) {
+            QName name = fields[i].getName();
+            Integer slot = Integer.valueOf(i);
+            slotsByName.put(name.getLocalName(), slot);
+            slotsByName.put(name.getPrefixedName(), slot);
+            hash = 31 * hash + name.getPrefixedName().hashCode();
+            hash = 31 * hash + Objects.hashCode(fields[i].getType().getName());
+        }
+        fingerprint = hash;
+    }
+
+    /**
+     * Gets a hash of the names and type names of the fields in slot order, allowing to check that slots computed on
+     * another node designate the same fields.
+     */
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Gets the number of slots, which is the number of fields of the type.
+     */
+    public int size() {
+        return fields.length;
+    }
+
+    /**
+     * Gets the field stored in the given slot.
+     */
+    public Field getField(int slot) {
+        return fields[slot];
+    }
+
+    /**
+     * Gets the slot of a field given its name or prefixed name.
+     *
+     * @return the slot, or -1 if the type has no such field
+     */
+    public int getSlot(String name) {
+        Integer slot = slotsByName.get(name);
+        return slot == null ? -1 : slot.intValue();
+    }
+
+}
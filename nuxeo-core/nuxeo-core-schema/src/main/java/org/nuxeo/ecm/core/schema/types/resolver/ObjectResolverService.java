@@ -36,4 +36,11 @@ public interface ObjectResolverService {
      */
     ObjectResolver getResolver(String type, Map<String, String> parameters);
 
+    /**
+     * Gets the resolver classes contributed for each xsd type.
+     *
+     * @since 9.1
+     */
+    Map<String, Class<? extends ObjectResolver>> getResolverClasses();
+
 }
@@ -19,6 +19,7 @@
 
 package org.nuxeo.ecm.core.schema.types.resolver;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -61,6 +62,11 @@ public class ObjectResolverServiceImpl extends DefaultComponent implements Objec
         }
     }
 
+    @Override
+    public Map<String, Class<? extends ObjectResolver>> getResolverClasses() {
+        return Collections.unmodifiableMap(resolvers);
+    }
+
     @Override
     public ObjectResolver getResolver(String type, Map<String, String> parameters) {
         Class<? extends ObjectResolver> resolverClass = resolvers.get(type);
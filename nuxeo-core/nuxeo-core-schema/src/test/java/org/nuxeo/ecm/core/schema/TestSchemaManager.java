@@ -21,12 +21,17 @@
 
 package org.nuxeo.ecm.core.schema;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -35,13 +40,16 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.nuxeo.ecm.core.schema.types.ComplexType;
 import org.nuxeo.ecm.core.schema.types.CompositeType;
+import org.nuxeo.ecm.core.schema.types.Field;
 import org.nuxeo.ecm.core.schema.types.Schema;
 import org.nuxeo.ecm.core.schema.types.Type;
+import org.nuxeo.ecm.core.schema.types.resolver.ObjectResolver;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.test.NXRuntimeTestCase;
 
@@ -312,6 +320,63 @@ public class TestSchemaManager extends NXRuntimeTestCase {
         assertEquals(Arrays.asList("schema3", "newschema"), schemaNames(schemaManager.getProxySchemas(null)));
     }
 
+    @Test
+    public void testSchemaCache() throws Exception {
+        SchemaCache cache = SchemaCache.getDefault();
+        FileUtils.deleteQuietly(cache.dir);
+        Framework.getProperties().setProperty(SchemaCache.ENABLED_PROPERTY, "true");
+        try {
+            deployContrib("org.nuxeo.ecm.core.schema.tests", "OSGI-INF/CoreTestExtensions.xml");
+            Schema schema = schemaManager.getSchema("schema1");
+            assertFalse(schemaManager.schemasFromCache);
+
+            // force a recomputation, schemas are unchanged
+            schemaManager.registerFacet(new FacetDescriptor("someFacet", null));
+            Schema cached = schemaManager.getSchema("schema1");
+            assertTrue(schemaManager.schemasFromCache);
+            assertNotSame(schema, cached);
+            assertEquals(schema.getFieldsCount(), cached.getFieldsCount());
+            for (Field field : schema.getFields()) {
+                Field cachedField = cached.getField(field.getName());
+                assertNotNull(field.getName().getPrefixedName(), cachedField);
+                assertEquals(field.getType().getName(), cachedField.getType().getName());
+            }
+            assertEquals(schema.getFieldSlots().getFingerprint(), cached.getFieldSlots().getFingerprint());
+            assertSame(cached, schemaManager.getSchemaFromURI(cached.getNamespace().uri));
+            assertEquals("myDoc", schemaManager.getDocumentType("myDoc").getName());
+        } finally {
+            Framework.getProperties().remove(SchemaCache.ENABLED_PROPERTY);
+            FileUtils.deleteQuietly(cache.dir);
+        }
+    }
+
+    @Test
+    public void testSchemaCacheKey() throws Exception {
+        File dir = Framework.createTempDirectory("schemas").toFile();
+        try {
+            File xsd = new File(dir, "main.xsd");
+            FileUtils.writeStringToFile(xsd, "<xs:include schemaLocation=\"lib.xsd\"/>", UTF_8);
+            File lib = new File(dir, "lib.xsd");
+            FileUtils.writeStringToFile(lib, "<xs:simpleType name=\"a\"/>", UTF_8);
+            SchemaBindingDescriptor sd = new SchemaBindingDescriptor("main", "m");
+            sd.file = xsd;
+            List<SchemaBindingDescriptor> sds = Collections.singletonList(sd);
+            SchemaCache cache = SchemaCache.getDefault();
+            String key = cache.computeKey(sds, Collections.emptyMap());
+            assertEquals(key, cache.computeKey(sds, Collections.emptyMap()));
+
+            // the included XSD is part of the key, even if not contributed
+            FileUtils.writeStringToFile(lib, "<xs:simpleType name=\"b\"/>", UTF_8);
+            String libKey = cache.computeKey(sds, Collections.emptyMap());
+            assertNotEquals(key, libKey);
+
+            // as well as the resolvers
+            assertNotEquals(libKey, cache.computeKey(sds, Collections.singletonMap("resolver", ObjectResolver.class)));
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
     @Test
     public void testDeployWithIncludeAndImport() throws Exception {
         deployContrib("org.nuxeo.ecm.core.schema.tests", "OSGI-INF/testSchemaWithImportInclude.xml");
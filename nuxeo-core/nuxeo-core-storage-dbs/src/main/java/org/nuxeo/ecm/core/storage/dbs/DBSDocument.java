@@ -833,10 +833,15 @@ public class DBSDocument extends BaseDocument<State> {
         return field.getDeclaringType().getName();
     }
 
+    @Override
+    protected boolean isLazyDocumentParts() {
+        return session.isLazyDocumentParts();
+    }
+
     @Override
     public void readDocumentPart(DocumentPart dp) throws PropertyException {
         DBSDocumentState docState = getStateOrTarget(dp.getType());
-        readComplexProperty(docState.getState(), (ComplexProperty) dp);
+        readDocumentPart(docState.getState(), dp);
     }
 
     @Override
@@ -126,6 +126,7 @@ import org.nuxeo.ecm.core.schema.types.Type;
 import org.nuxeo.ecm.core.schema.types.primitives.BooleanType;
 import org.nuxeo.ecm.core.schema.types.primitives.DateType;
 import org.nuxeo.ecm.core.schema.types.primitives.StringType;
+import org.nuxeo.ecm.core.storage.BaseDocument;
 import org.nuxeo.ecm.core.storage.ExpressionEvaluator;
 import org.nuxeo.ecm.core.storage.FulltextConfiguration;
 import org.nuxeo.ecm.core.storage.QueryOptimizer;
@@ -154,6 +155,8 @@ public class DBSSession implements Session {
 
     protected final boolean fulltextSearchDisabled;
 
+    protected final boolean lazyDocumentParts;
+
     protected boolean closed;
 
     protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
@@ -171,12 +174,20 @@ public class DBSSession implements Session {
         transaction = new DBSTransactionState(repository, this);
         FulltextConfiguration fulltextConfiguration = repository.getFulltextConfiguration();
         fulltextSearchDisabled = fulltextConfiguration == null || fulltextConfiguration.fulltextSearchDisabled;
+        lazyDocumentParts = Framework.isBooleanPropertyTrue(BaseDocument.LAZY_DOCUMENT_PART_PROPERTY);
 
         saveTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repository.getName(), "saves"));
         queryTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repository.getName(), "queries"));
         LOG_MIN_DURATION_NS = Long.parseLong(Framework.getProperty(LOG_MIN_DURATION_KEY, "-1")) * 1000000;
     }
 
+    /**
+     * @since 9.1
+     */
+    public boolean isLazyDocumentParts() {
+        return lazyDocumentParts;
+    }
+
     @Override
     public String getRepositoryName() {
         return repository.getName();
@@ -164,12 +164,17 @@ public class SQLDocumentLive extends BaseDocument<Node>implements SQLDocument {
         session.remove(getNode());
     }
 
+    @Override
+    protected boolean isLazyDocumentParts() {
+        return session.isLazyDocumentParts();
+    }
+
     /**
      * Reads into the {@link DocumentPart} the values from this {@link SQLDocument}.
      */
     @Override
     public void readDocumentPart(DocumentPart dp) throws PropertyException {
-        readComplexProperty(getNode(), (ComplexProperty) dp);
+        readDocumentPart(getNode(), dp);
     }
 
     @Override
@@ -62,6 +62,7 @@ import org.nuxeo.ecm.core.query.QueryFilter;
 import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.core.schema.DocumentType;
 import org.nuxeo.ecm.core.schema.SchemaManager;
+import org.nuxeo.ecm.core.storage.BaseDocument;
 import org.nuxeo.ecm.core.storage.sql.ACLRow;
 import org.nuxeo.ecm.core.storage.sql.Model;
 import org.nuxeo.ecm.core.storage.sql.Node;
@@ -103,6 +104,8 @@ public class SQLSession implements Session {
 
     private final boolean copyFindFreeNameDisabled;
 
+    private final boolean lazyDocumentParts;
+
     public SQLSession(org.nuxeo.ecm.core.storage.sql.Session session, Repository repository) {
         this.session = session;
         this.repository = repository;
@@ -110,6 +113,7 @@ public class SQLSession implements Session {
         root = newDocument(rootNode);
         negativeAclAllowed = Framework.isBooleanPropertyTrue(ALLOW_NEGATIVE_ACL_PROPERTY);
         copyFindFreeNameDisabled = Framework.isBooleanPropertyTrue(COPY_FINDFREENAME_DISABLED_PROP);
+        lazyDocumentParts = Framework.isBooleanPropertyTrue(BaseDocument.LAZY_DOCUMENT_PART_PROPERTY);
     }
 
     /*
@@ -652,6 +656,13 @@ public class SQLSession implements Session {
         return negativeAclAllowed;
     }
 
+    /**
+     * @since 9.1
+     */
+    public boolean isLazyDocumentParts() {
+        return lazyDocumentParts;
+    }
+
     @Override
     public void setACP(Document doc, ACP acp, boolean overwrite) {
         if (!overwrite && acp == null) {
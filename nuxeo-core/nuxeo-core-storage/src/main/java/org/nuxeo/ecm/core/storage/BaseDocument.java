@@ -44,9 +44,11 @@ import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.Lock;
 import org.nuxeo.ecm.core.api.PropertyException;
+import org.nuxeo.ecm.core.api.model.DocumentPart;
 import org.nuxeo.ecm.core.api.model.Property;
 import org.nuxeo.ecm.core.api.model.PropertyNotFoundException;
 import org.nuxeo.ecm.core.api.model.impl.ComplexProperty;
+import org.nuxeo.ecm.core.api.model.impl.DocumentPartImpl;
 import org.nuxeo.ecm.core.api.model.impl.primitives.BlobProperty;
 import org.nuxeo.ecm.core.blob.BlobManager;
 import org.nuxeo.ecm.core.blob.BlobManager.BlobInfo;
@@ -56,6 +58,7 @@ import org.nuxeo.ecm.core.schema.TypeConstants;
 import org.nuxeo.ecm.core.schema.types.ComplexType;
 import org.nuxeo.ecm.core.schema.types.CompositeType;
 import org.nuxeo.ecm.core.schema.types.Field;
+import org.nuxeo.ecm.core.schema.types.FieldSlots;
 import org.nuxeo.ecm.core.schema.types.ListType;
 import org.nuxeo.ecm.core.schema.types.Schema;
 import org.nuxeo.ecm.core.schema.types.SimpleTypeImpl;
@@ -134,6 +137,13 @@ public abstract class BaseDocument<T extends StateAccessor> implements Document
     protected static final Runnable NO_DIRTY = () -> {
     };
 
+    /**
+     * Framework property enabling the lazy creation of the properties of the document parts read from storage.
+     *
+     * @since 9.1
+     */
+    public static final String LAZY_DOCUMENT_PART_PROPERTY = "nuxeo.core.documentpart.lazy";
+
     /**
      * Gets the list of proxy schemas, if this is a proxy.
      *
@@ -647,39 +657,95 @@ public abstract class BaseDocument<T extends StateAccessor> implements Document
             return;
         }
         for (Property property : complexProperty) {
-            String name = property.getField().getName().getPrefixedName();
-            name = internalName(name);
-            Type type = property.getType();
+            readProperty(state, complexProperty, property);
+        }
+    }
+
+    protected void readProperty(T state, ComplexProperty complexProperty, Property property)
+            throws PropertyException {
+        String name = property.getField().getName().getPrefixedName();
+        name = internalName(name);
+        Type type = property.getType();
+        if (type.isSimpleType()) {
+            // simple property
+            Object value = state.getSingle(name);
+            property.init((Serializable) value);
+        } else if (type.isComplexType()) {
+            // complex property
+            T childState = getChild(state, name, type);
+            readComplexProperty(childState, (ComplexProperty) property);
+            ((ComplexProperty) property).removePhantomFlag();
+        } else {
+            ListType listType = (ListType) type;
+            if (listType.getFieldType().isSimpleType()) {
+                // array
+                Object[] array = state.getArray(name);
+                array = typedArray(listType.getFieldType(), array);
+                property.init(array);
+            } else {
+                // complex list
+                Field listField = listType.getField();
+                List<T> childStates = getChildAsList(state, name);
+                // TODO property.init(null) if null children in DBS
+                List<Object> list = new ArrayList<>(childStates.size());
+                for (T childState : childStates) {
+                    ComplexProperty p = (ComplexProperty) complexProperty.getRoot().createProperty(property,
+                            listField, 0);
+                    readComplexProperty(childState, p);
+                    list.add(p.getValue());
+                }
+                property.init((Serializable) list);
+            }
+        }
+    }
+
+    /**
+     * Checks if the document parts are read lazily, as configured by {@value #LAZY_DOCUMENT_PART_PROPERTY} when the
+     * session was opened.
+     *
+     * @since 9.1
+     */
+    protected boolean isLazyDocumentParts() {
+        return false;
+    }
+
+    /**
+     * Reads a document part from the state.
+     * <p>
+     * If {@value #LAZY_DOCUMENT_PART_PROPERTY} is {@code true}, the values of the simple and array fields are only
+     * stored in the part, their properties being created when first accessed. Complex fields are always read
+     * eagerly.
+     *
+     * @since 9.1
+     */
+    protected void readDocumentPart(T state, DocumentPart dp) throws PropertyException {
+        if (state == null || !(dp instanceof DocumentPartImpl) || !isLazyDocumentParts()) {
+            readComplexProperty(state, (ComplexProperty) dp);
+            return;
+        }
+        DocumentPartImpl part = (DocumentPartImpl) dp;
+        FieldSlots slots = part.getSchema().getFieldSlots();
+        Serializable[] values = new Serializable[slots.size()];
+        List<Field> complexFields = null;
+        for (int i = 0; i < values.length; i++) {
+            Field field = slots.getField(i);
+            Type type = field.getType();
+            String name = internalName(field.getName().getPrefixedName());
             if (type.isSimpleType()) {
-                // simple property
-                Object value = state.getSingle(name);
-                property.init((Serializable) value);
-            } else if (type.isComplexType()) {
-                // complex property
-                T childState = getChild(state, name, type);
-                readComplexProperty(childState, (ComplexProperty) property);
-                ((ComplexProperty) property).removePhantomFlag();
+                values[i] = (Serializable) state.getSingle(name);
+            } else if (type.isListType() && ((ListType) type).getFieldType().isSimpleType()) {
+                values[i] = typedArray(((ListType) type).getFieldType(), state.getArray(name));
             } else {
-                ListType listType = (ListType) type;
-                if (listType.getFieldType().isSimpleType()) {
-                    // array
-                    Object[] array = state.getArray(name);
-                    array = typedArray(listType.getFieldType(), array);
-                    property.init(array);
-                } else {
-                    // complex list
-                    Field listField = listType.getField();
-                    List<T> childStates = getChildAsList(state, name);
-                    // TODO property.init(null) if null children in DBS
-                    List<Object> list = new ArrayList<>(childStates.size());
-                    for (T childState : childStates) {
-                        ComplexProperty p = (ComplexProperty) complexProperty.getRoot().createProperty(property,
-                                listField, 0);
-                        readComplexProperty(childState, p);
-                        list.add(p.getValue());
-                    }
-                    property.init((Serializable) list);
+                if (complexFields == null) {
+                    complexFields = new ArrayList<>();
                 }
+                complexFields.add(field);
+            }
+        }
+        part.initValues(values);
+        if (complexFields != null) {
+            for (Field field : complexFields) {
+                readProperty(state, part, part.getChild(field));
             }
         }
     }
@@ -43,6 +43,7 @@ import java.util.Map;
 
 import javax.inject.Inject;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -75,6 +76,7 @@ import org.nuxeo.ecm.core.schema.types.ComplexTypeImpl;
 import org.nuxeo.ecm.core.schema.types.Field;
 import org.nuxeo.ecm.core.schema.types.ListType;
 import org.nuxeo.ecm.core.schema.types.Type;
+import org.nuxeo.ecm.core.storage.BaseDocument;
 import org.nuxeo.ecm.core.storage.State;
 import org.nuxeo.ecm.core.storage.State.StateDiff;
 import org.nuxeo.ecm.core.storage.dbs.DBSRepository;
@@ -138,11 +140,27 @@ public class TestSQLRepositoryProperties {
                 "\n" + Environment.getDefault().getTemp().getPath() + " ");
         adapter.setProperties(props);
 
+        if (lazyDocumentParts()) {
+            Framework.getProperties().setProperty(BaseDocument.LAZY_DOCUMENT_PART_PROPERTY, "true");
+            // the property is read when the session is opened
+            reopenSession();
+        }
+
         doc = session.createDocumentModel("TestDocument");
         doc.setPathInfo("/", "doc");
         doc = session.createDocument(doc);
     }
 
+    @After
+    public void tearDown() {
+        Framework.getProperties().remove(BaseDocument.LAZY_DOCUMENT_PART_PROPERTY);
+    }
+
+    // overridden to test with lazily read document parts
+    protected boolean lazyDocumentParts() {
+        return false;
+    }
+
     protected boolean isDBSMarkLogic() {
         return coreFeature.getStorageConfiguration().isDBSMarkLogic();
     }
@@ -0,0 +1,130 @@
+/*
+ * (C) Copyright 2011 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.core.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.impl.DocumentModelCodec;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * @since 9.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+public class TestDocumentModelCodec {
+
+    @Inject
+    protected CoreSession session;
+
+    protected DocumentModel createDetachedDocument(String name) {
+        DocumentModel doc = session.createDocumentModel("/", name, "File");
+        doc.setPropertyValue("dc:title", "Title of " + name);
+        doc.setPropertyValue("dc:description", "Description");
+        doc.setPropertyValue("dc:subjects", new String[] { "art", "sciences" });
+        doc.setPropertyValue("dc:expired", Calendar.getInstance());
+        doc = session.createDocument(doc);
+        doc.setLock();
+        doc = session.getDocument(doc.getRef());
+        doc.detach(true);
+        return doc;
+    }
+
+    @Test
+    public void testDocumentRoundTrip() throws Exception {
+        DocumentModel doc = createDetachedDocument("doc");
+        doc.putContextData("key", "value");
+
+        DocumentModel copy = (DocumentModel) DocumentModelCodec.decode(DocumentModelCodec.encode(doc));
+        assertEquals(doc.getId(), copy.getId());
+        assertEquals(doc.getRef(), copy.getRef());
+        assertEquals(doc.getParentRef(), copy.getParentRef());
+        assertEquals(doc.getPathAsString(), copy.getPathAsString());
+        assertEquals(doc.getRepositoryName(), copy.getRepositoryName());
+        assertEquals(doc.getFacets(), copy.getFacets());
+        assertArrayEquals(doc.getSchemas(), copy.getSchemas());
+        assertEquals(doc.getCurrentLifeCycleState(), copy.getCurrentLifeCycleState());
+        assertEquals(doc.isCheckedOut(), copy.isCheckedOut());
+        assertEquals(doc.getVersionLabel(), copy.getVersionLabel());
+        assertEquals(doc.getLockInfo().getOwner(), copy.getLockInfo().getOwner());
+        assertEquals("value", copy.getContextData("key"));
+        assertNull(copy.getSessionId());
+
+        assertEquals("Title of doc", copy.getPropertyValue("dc:title"));
+        assertArrayEquals(new String[] { "art", "sciences" }, (Object[]) copy.getPropertyValue("dc:subjects"));
+        assertEquals(((Calendar) doc.getPropertyValue("dc:expired")).getTimeInMillis(),
+                ((Calendar) copy.getPropertyValue("dc:expired")).getTimeInMillis());
+        assertNull(copy.getPropertyValue("dc:rights"));
+        assertFalse(copy.isDirty());
+
+        copy.setPropertyValue("dc:title", "new");
+        assertTrue(copy.isDirty());
+    }
+
+    @Test
+    public void testCollectionsAndFallback() throws Exception {
+        List<DocumentModel> docs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            docs.add(createDetachedDocument("doc" + i));
+        }
+        HashMap<String, Serializable> value = new HashMap<>();
+        value.put("docs", (Serializable) docs);
+        value.put("count", Long.valueOf(docs.size()));
+        // not natively encoded, uses Java serialization
+        value.put("ref", new PathRef("/doc0"));
+
+        byte[] bytes = DocumentModelCodec.encode(value);
+        byte[] javaBytes = SerializationUtils.serialize(value);
+        assertTrue(bytes.length < javaBytes.length);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Serializable> copy = (Map<String, Serializable>) DocumentModelCodec.decode(bytes);
+        assertEquals(Long.valueOf(50), copy.get("count"));
+        assertEquals(new PathRef("/doc0"), copy.get("ref"));
+        @SuppressWarnings("unchecked")
+        List<DocumentModel> copies = (List<DocumentModel>) copy.get("docs");
+        assertEquals(50, copies.size());
+        assertEquals("Title of doc49", copies.get(49).getTitle());
+
+        // values produced by Java serialization are still readable
+        assertEquals(value.get("count"), ((Map<?, ?>) DocumentModelCodec.decode(javaBytes)).get("count"));
+    }
+
+}
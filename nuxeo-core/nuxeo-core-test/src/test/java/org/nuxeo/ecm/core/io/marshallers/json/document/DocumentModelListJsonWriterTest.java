@@ -19,6 +19,8 @@
 
 package org.nuxeo.ecm.core.io.marshallers.json.document;
 
+import static org.junit.Assert.assertEquals;
+
 import java.util.Arrays;
 import java.util.List;
 
@@ -30,6 +32,10 @@ import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.io.marshallers.json.AbstractJsonWriterTest;
 import org.nuxeo.ecm.core.io.marshallers.json.JsonAssert;
+import org.nuxeo.ecm.core.io.marshallers.json.enrichers.BasePermissionsJsonEnricher;
+import org.nuxeo.ecm.core.io.marshallers.json.enrichers.BreadcrumbJsonEnricher;
+import org.nuxeo.ecm.core.io.registry.context.RenderingContext;
+import org.nuxeo.ecm.core.io.registry.context.RenderingContext.CtxBuilder;
 import org.nuxeo.runtime.test.runner.LocalDeploy;
 
 @LocalDeploy("org.nuxeo.ecm.core.io:OSGI-INF/doc-type-contrib.xml")
@@ -65,4 +71,45 @@ public class DocumentModelListJsonWriterTest extends
         json.childrenContains("title", "myDoc1", "myDoc2", "myDoc3");
     }
 
+    @Test
+    public void testBatchEnrichers() throws Exception {
+        DocumentModel folder = session.createDocumentModel("/", "level1", "RefDoc");
+        folder = session.createDocument(folder);
+        DocumentModel document1 = session.createDocumentModel("/level1", "level2", "RefDoc");
+        document1 = session.createDocument(document1);
+        DocumentModel document2 = session.createDocumentModel("/level1/level2", "level3", "RefDoc");
+        document2 = session.createDocument(document2);
+        List<DocumentModel> elements = Arrays.asList(folder, document1, document2);
+        RenderingContext ctx = CtxBuilder.enrichDoc(BreadcrumbJsonEnricher.NAME, BasePermissionsJsonEnricher.NAME)
+                                         .get();
+        JsonAssert json = jsonAssert(elements, ctx);
+        json = json.has("entries").length(elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            JsonAssert doc = json.has(i).has("contextParameters");
+            doc.has("permissions").contains("Read", "Write", "Everything", "AddChildren", "ReadChildren",
+                    "RemoveChildren", "ReadWrite");
+            JsonAssert breadcrumb = doc.has("breadcrumb").has("entries").length(i + 1);
+            for (int j = 0; j <= i; j++) {
+                breadcrumb.has(j).has("title").isEquals("level" + (j + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedListingWithDifferentContexts() throws Exception {
+        List<DocumentModel> elements = getElements();
+        RenderingContext plain = CtxBuilder.get();
+        RenderingContext enriched = CtxBuilder.enrichDoc(BreadcrumbJsonEnricher.NAME).get();
+        String first = asJson(elements, plain);
+        for (int i = 0; i < 3; i++) {
+            // the writers found for a lookup are accepted again for each context
+            assertEquals(first, asJson(elements, plain));
+            JsonAssert json = jsonAssert(elements, enriched).has("entries");
+            for (int j = 0; j < elements.size(); j++) {
+                json.has(j).has("contextParameters").has("breadcrumb");
+            }
+        }
+        jsonAssert(elements, plain).has("entries").has(0).hasNot("contextParameters");
+    }
+
 }
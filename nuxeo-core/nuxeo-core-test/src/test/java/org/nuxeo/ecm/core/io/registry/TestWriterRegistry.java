@@ -169,6 +169,19 @@ public class TestWriterRegistry {
         assertEquals(DefaultNumberWriter.class, writer.getClass());
     }
 
+    @Test
+    public void deregisterAfterLookup() throws Exception {
+        registry.register(DefaultNumberWriter.class);
+        registry.register(HigherPriorityWriter.class);
+        Writer<?> writer = registry.getWriter(ctx, Integer.class, null, APPLICATION_JSON_TYPE);
+        assertEquals(HigherPriorityWriter.class, writer.getClass());
+        registry.deregister(HigherPriorityWriter.class);
+        writer = registry.getWriter(ctx, Integer.class, null, APPLICATION_JSON_TYPE);
+        assertEquals(DefaultNumberWriter.class, writer.getClass());
+        registry.deregister(DefaultNumberWriter.class);
+        assertNull(registry.getWriter(ctx, Integer.class, null, APPLICATION_JSON_TYPE));
+    }
+
     @SuppressWarnings("unused")
     private Map<String, List<Integer>> listIntegerMapProperty = null;
 
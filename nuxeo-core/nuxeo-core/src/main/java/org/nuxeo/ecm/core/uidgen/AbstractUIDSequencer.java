@@ -18,13 +18,69 @@
  */
 package org.nuxeo.ecm.core.uidgen;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.nuxeo.ecm.core.api.NuxeoException;
+
 /**
+ * Base class of the sequencers.
+ * <p>
+ * When the block size is greater than 1, the sequencer is in block allocation mode: the UIDs of a key are reserved by
+ * blocks with a single call to {@link #getNextBlock(String, int)}, then handed out locally by
+ * {@link #getNextFromBlock(String)} without locking. The next block is reserved asynchronously when a quarter of the
+ * current block remains. In this mode:
+ * <ul>
+ * <li>the UIDs are unique but they may have gaps, as the UIDs of a block not handed out when the server stops are
+ * lost,</li>
+ * <li>the UIDs are not ordered between servers, nor between threads of a server, as each server hands out its own
+ * blocks.</li>
+ * </ul>
+ * An implementation supporting this mode calls {@link #getNextFromBlock(String)} from its {@code getNext} methods when
+ * {@link #isBlockAllocation()} is true, and implements {@link #getNextBlock(String, int)} without them.
+ *
  * @since 7.4
  */
 public abstract class AbstractUIDSequencer implements UIDSequencer {
 
+    protected static class IdBlock {
+
+        protected static final IdBlock EMPTY = new IdBlock(new long[0]);
+
+        protected final long[] ids;
+
+        protected final AtomicInteger next = new AtomicInteger();
+
+        protected IdBlock(long[] ids) {
+            this.ids = ids;
+        }
+
+    }
+
+    protected static class KeyBlocks {
+
+        protected volatile IdBlock current = IdBlock.EMPTY;
+
+        // guarded by this
+        protected CompletableFuture<List<Long>> prefetched;
+
+    }
+
     protected String name;
 
+    protected int blockSize = 1;
+
+    protected final ConcurrentMap<String, KeyBlocks> blocks = new ConcurrentHashMap<>();
+
+    protected volatile ThreadPoolExecutor prefetchExecutor;
+
     @Override
     public abstract void init();
 
@@ -33,6 +89,9 @@ public abstract class AbstractUIDSequencer implements UIDSequencer {
 
     @Override
     public long getNextLong(String key) {
+        if (isBlockAllocation()) {
+            return getNextFromBlock(key);
+        }
         throw new UnsupportedOperationException("Not implemented");
     }
 
@@ -49,6 +108,133 @@ public abstract class AbstractUIDSequencer implements UIDSequencer {
         this.name = name;
     }
 
+    /**
+     * Gets the number of UIDs reserved by a call to the sequencer storage, 1 if the block allocation is disabled.
+     *
+     * @since 9.1
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Sets the number of UIDs reserved by a call to the sequencer storage, greater than 1 to enable the block
+     * allocation.
+     *
+     * @since 9.1
+     */
+    public void setBlockSize(int blockSize) {
+        this.blockSize = Math.max(1, blockSize);
+        blocks.clear();
+    }
+
+    /**
+     * @since 9.1
+     */
+    public boolean isBlockAllocation() {
+        return blockSize > 1;
+    }
+
+    /**
+     * Hands out the next UID of the current block of the key, reserving a new block when it is exhausted.
+     *
+     * @since 9.1
+     */
+    protected long getNextFromBlock(String key) {
+        KeyBlocks keyBlocks = blocks.computeIfAbsent(key, k -> new KeyBlocks());
+        for (;;) {
+            IdBlock block = keyBlocks.current;
+            int i = block.next.getAndIncrement();
+            if (i < block.ids.length) {
+                if (i == block.ids.length - Math.max(1, block.ids.length / 4)) {
+                    prefetchBlock(key, keyBlocks);
+                }
+                return block.ids[i];
+            }
+            synchronized (keyBlocks) {
+                if (keyBlocks.current == block) {
+                    keyBlocks.current = new IdBlock(takeBlock(key, keyBlocks));
+                }
+            }
+        }
+    }
+
+    protected void prefetchBlock(String key, KeyBlocks keyBlocks) {
+        synchronized (keyBlocks) {
+            if (keyBlocks.prefetched == null) {
+                int size = blockSize;
+                keyBlocks.prefetched = CompletableFuture.supplyAsync(() -> getNextBlock(key, size),
+                        getPrefetchExecutor());
+            }
+        }
+    }
+
+    // called under the lock of the key blocks
+    protected long[] takeBlock(String key, KeyBlocks keyBlocks) {
+        List<Long> ids = null;
+        CompletableFuture<List<Long>> prefetched = keyBlocks.prefetched;
+        keyBlocks.prefetched = null;
+        if (prefetched != null) {
+            try {
+                ids = prefetched.join();
+            } catch (CompletionException e) {
+                // reserve it again synchronously, raising the failure to the caller if any
+            }
+        }
+        if (ids == null) {
+            ids = getNextBlock(key, blockSize);
+        }
+        if (ids.isEmpty()) {
+            throw new NuxeoException("Sequencer " + name + " returned an empty block for key: " + key);
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    protected ThreadPoolExecutor getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            synchronized (this) {
+                if (prefetchExecutor == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(), r -> {
+                                Thread thread = new Thread(r, "Nuxeo-UIDSequencer-" + name);
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    executor.allowCoreThreadTimeOut(true);
+                    prefetchExecutor = executor;
+                }
+            }
+        }
+        return prefetchExecutor;
+    }
+
+    /**
+     * Stops the prefetch thread and forgets the blocks of all the keys, the UIDs not handed out yet are lost. Called by
+     * the implementations from their {@link #dispose()} method.
+     *
+     * @since 9.1
+     */
+    protected void disposeBlocks() {
+        ThreadPoolExecutor executor;
+        synchronized (this) {
+            executor = prefetchExecutor;
+            prefetchExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (KeyBlocks keyBlocks : blocks.values()) {
+            synchronized (keyBlocks) {
+                if (keyBlocks.prefetched != null) {
+                    // a prefetch removed from the queue would never complete
+                    keyBlocks.prefetched.completeExceptionally(new NuxeoException("Sequencer " + name + " disposed"));
+                    keyBlocks.prefetched = null;
+                }
+            }
+        }
+        blocks.clear();
+    }
+
     @Override
     public void initSequence(String key, int id) {
         while ((getNext(key)) < id) {
@@ -142,6 +142,9 @@ public class UIDGeneratorComponent extends DefaultComponent implements UIDGenera
                 if (seq != null) {
                     seq.setName(name);
                 }
+                if (seq instanceof AbstractUIDSequencer) {
+                    ((AbstractUIDSequencer) seq).setBlockSize(seqDescriptor.getBlockSize());
+                }
                 sequencers.put(name, seq);
                 sequencerContribs.put(name, seqDescriptor);
             } catch (Exception e) {
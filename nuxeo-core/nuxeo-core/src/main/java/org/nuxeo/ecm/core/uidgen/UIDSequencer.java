@@ -18,6 +18,9 @@
  */
 package org.nuxeo.ecm.core.uidgen;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * UID Sequencer interface defines a method to retrieve next ids based on a given key.
  */
@@ -71,6 +74,22 @@ public interface UIDSequencer {
      */
     long getNextLong(String key);
 
+    /**
+     * Returns the given number of incremented UIDs for the given key, as {@link #getNextLong(String)} would if called
+     * repeatedly, but allowing implementations to reserve them with fewer calls to their storage.
+     * <p>
+     * The UIDs are returned in increasing order but may not be contiguous.
+     *
+     * @since 9.1
+     */
+    default List<Long> getNextBlock(String key, int blockSize) {
+        List<Long> ret = new ArrayList<>(blockSize);
+        for (int i = 0; i < blockSize; i++) {
+            ret.add(getNextLong(key));
+        }
+        return ret;
+    }
+
     /**
      * Cleanup callback
      *
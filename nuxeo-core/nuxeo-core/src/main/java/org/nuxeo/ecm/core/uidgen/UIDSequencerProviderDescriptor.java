@@ -37,6 +37,12 @@ public class UIDSequencerProviderDescriptor {
     @XNode("@class")
     protected Class<? extends UIDSequencer> sequencerClass;
 
+    /**
+     * @since 9.1
+     */
+    @XNode("@blockSize")
+    protected int blockSize = 1;
+
     public UIDSequencer getSequencer() throws Exception {
 
         if (sequencerClass != null) {
@@ -57,4 +63,13 @@ public class UIDSequencerProviderDescriptor {
         return isdefault;
     }
 
+    /**
+     * Gets the number of UIDs reserved by a call to the sequencer storage, see {@link AbstractUIDSequencer}.
+     *
+     * @since 9.1
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
 }
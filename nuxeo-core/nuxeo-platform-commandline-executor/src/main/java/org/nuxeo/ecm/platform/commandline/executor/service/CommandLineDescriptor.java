@@ -80,6 +80,18 @@ public class CommandLineDescriptor implements Serializable {
     @XNode("installationDirective")
     protected String installationDirective;
 
+    /*
+     * @since 9.1
+     */
+    @XNode("executor")
+    protected String executor;
+
+    /*
+     * @since 9.1
+     */
+    @XNode("pool")
+    protected CommandPoolDescriptor pool;
+
     protected String installErrorMessage;
 
     public String getInstallErrorMessage() {
@@ -146,7 +158,17 @@ public class CommandLineDescriptor implements Serializable {
     }
 
     public String getExecutor() {
-        return CommandLineExecutorComponent.DEFAULT_EXECUTOR;
+        if (executor == null) {
+            return CommandLineExecutorComponent.DEFAULT_EXECUTOR;
+        }
+        return executor;
+    }
+
+    /*
+     * @since 9.1
+     */
+    public CommandPoolDescriptor getPool() {
+        return pool;
     }
 
     @Override
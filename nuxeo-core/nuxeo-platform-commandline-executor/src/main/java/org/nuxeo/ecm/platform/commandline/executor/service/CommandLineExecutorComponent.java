@@ -37,6 +37,7 @@ import org.nuxeo.ecm.platform.commandline.executor.api.ExecResult;
 import org.nuxeo.ecm.platform.commandline.executor.service.cmdtesters.CommandTestResult;
 import org.nuxeo.ecm.platform.commandline.executor.service.cmdtesters.CommandTester;
 import org.nuxeo.ecm.platform.commandline.executor.service.executors.Executor;
+import org.nuxeo.ecm.platform.commandline.executor.service.executors.PooledExecutor;
 import org.nuxeo.ecm.platform.commandline.executor.service.executors.ShellExecutor;
 import org.nuxeo.runtime.model.ComponentContext;
 import org.nuxeo.runtime.model.ComponentInstance;
@@ -59,6 +60,11 @@ public class CommandLineExecutorComponent extends DefaultComponent implements Co
 
     public static final String DEFAULT_EXECUTOR = "ShellExecutor";
 
+    /**
+     * @since 9.1
+     */
+    public static final String POOLED_EXECUTOR = "PooledExecutor";
+
     protected static Map<String, CommandLineDescriptor> commandDescriptors = new HashMap<>();
 
     protected static EnvironmentDescriptor env = new EnvironmentDescriptor();
@@ -78,10 +84,12 @@ public class CommandLineExecutorComponent extends DefaultComponent implements Co
         testers = new HashMap<>();
         executors = new HashMap<>();
         executors.put(DEFAULT_EXECUTOR, new ShellExecutor());
+        executors.put(POOLED_EXECUTOR, new PooledExecutor());
     }
 
     @Override
     public void deactivate(ComponentContext context) {
+        ((PooledExecutor) executors.get(POOLED_EXECUTOR)).close();
         commandDescriptors = null;
         env = null;
         testers = null;
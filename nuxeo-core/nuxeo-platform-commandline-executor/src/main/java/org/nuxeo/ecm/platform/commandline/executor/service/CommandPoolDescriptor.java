@@ -0,0 +1,101 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.commandline.executor.service;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+import org.nuxeo.common.xmap.annotation.XNode;
+import org.nuxeo.common.xmap.annotation.XObject;
+import org.nuxeo.ecm.platform.commandline.executor.service.executors.PooledExecutor;
+
+/**
+ * XMap descriptor for the worker pool of a command run by the {@link PooledExecutor}.
+ *
+ * @since 9.1
+ */
+@XObject("pool")
+public class CommandPoolDescriptor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Maximum number of concurrent executions, which is also the maximum number of worker processes. */
+    @XNode("@size")
+    protected int size = 2;
+
+    /** Maximum execution time of a call in seconds, the worker is killed when it is exceeded. */
+    @XNode("@timeout")
+    protected long timeout = 60;
+
+    /** Maximum time in seconds to wait for a free worker. */
+    @XNode("@queueTimeout")
+    protected long queueTimeout = 60;
+
+    /** Number of calls after which a worker is recycled, 0 to never recycle. */
+    @XNode("@maxRequests")
+    protected int maxRequests = 1000;
+
+    @XNode("workerCommand")
+    protected String workerCommand;
+
+    @XNode("successMarker")
+    protected String successMarker = "PASS";
+
+    @XNode("failureMarker")
+    protected String failureMarker = "FAIL";
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public long getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * Returns the command line starting a worker in batch mode, or {@code null} to run the calls in a long-lived
+     * shell.
+     */
+    public String getWorkerCommand() {
+        return workerCommand;
+    }
+
+    public String getSuccessMarker() {
+        return successMarker;
+    }
+
+    public String getFailureMarker() {
+        return failureMarker;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.commandline.executor.service.executors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.platform.commandline.executor.api.CmdParameters;
+import org.nuxeo.ecm.platform.commandline.executor.api.ExecResult;
+import org.nuxeo.ecm.platform.commandline.executor.service.CommandLineDescriptor;
+import org.nuxeo.ecm.platform.commandline.executor.service.CommandPoolDescriptor;
+import org.nuxeo.ecm.platform.commandline.executor.service.EnvironmentDescriptor;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+/**
+ * {@link Executor} sending the calls of a command to a pool of long-lived worker processes, so that the process
+ * creation and the tool startup are paid once per worker instead of once per call.
+ * <p>
+ * Commands without a pool configuration are run by the {@link ShellExecutor}. Workers are started lazily and run in
+ * one of two modes:
+ * <ul>
+ * <li>batch mode, when the pool defines a {@code workerCommand}: the worker is the tool itself reading its commands on
+ * its standard input (for instance {@code gm batch -feedback on -}). Each call sends the expanded parameters, without
+ * the command, on one line and the response ends with the success or failure marker line.</li>
+ * <li>shell mode otherwise: the worker is a POSIX shell running each call, which saves the process creation from the
+ * JVM. This mode is not available on Windows.</li>
+ * </ul>
+ * The number of concurrent calls of a command is bounded by the pool size, calls waiting longer than the queue timeout
+ * for a worker or running longer than the timeout fail and a timed out worker is killed. Queue wait and execution
+ * times are reported per command under {@code nuxeo.commandline.<name>}.
+ *
+ * @since 9.1
+ */
+public class PooledExecutor extends ShellExecutor implements Closeable {
+
+    private static final Log log = LogFactory.getLog(PooledExecutor.class);
+
+    protected static final String SHELL = "/bin/sh";
+
+    protected final Map<String, WorkerPool> pools = new ConcurrentHashMap<>();
+
+    protected final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Nuxeo-commandline-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    @Override
+    public ExecResult exec(CommandLineDescriptor cmdDesc, CmdParameters params, EnvironmentDescriptor env) {
+        CommandPoolDescriptor poolDesc = cmdDesc.getPool();
+        if (poolDesc == null || (poolDesc.getWorkerCommand() == null && SystemUtils.IS_OS_WINDOWS)) {
+            return super.exec(cmdDesc, params, env);
+        }
+        String commandLine = cmdDesc.getCommand() + " " + String.join(" ", cmdDesc.getParametersString());
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("Running pooled command: " + commandLine);
+            }
+            return getPool(cmdDesc, env).exec(commandLine, getCommandWords(cmdDesc, params));
+        } catch (IOException e) {
+            return new ExecResult(commandLine, e);
+        }
+    }
+
+    protected WorkerPool getPool(CommandLineDescriptor cmdDesc, EnvironmentDescriptor env) {
+        WorkerPool pool = pools.get(cmdDesc.getName());
+        if (pool != null && pool.cmdDesc == cmdDesc) {
+            return pool;
+        }
+        return pools.compute(cmdDesc.getName(), (name, current) -> {
+            if (current != null && current.cmdDesc == cmdDesc) {
+                return current;
+            }
+            // first call, or the command has been contributed again since the pool was created
+            if (current != null) {
+                current.close();
+            }
+            return new WorkerPool(cmdDesc, env);
+        });
+    }
+
+    /**
+     * Stops the workers of all the commands.
+     */
+    @Override
+    public void close() {
+        pools.values().forEach(WorkerPool::close);
+        pools.clear();
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Quotes a word for a POSIX shell, pipes excepted.
+     */
+    protected static String shellQuote(String word) {
+        if ("|".equals(word)) {
+            return word;
+        }
+        return "'" + word.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * Quotes a word containing blanks or quotes for a batch mode tool.
+     */
+    protected static String batchQuote(String word) {
+        if (!word.isEmpty() && word.chars().noneMatch(c -> Character.isWhitespace(c) || c == '"' || c == '\\')) {
+            return word;
+        }
+        return '"' + word.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    protected class WorkerPool {
+
+        protected final CommandLineDescriptor cmdDesc;
+
+        protected final CommandPoolDescriptor desc;
+
+        protected final EnvironmentDescriptor env;
+
+        protected final Semaphore permits;
+
+        // LIFO so that the most recently used workers stay warm
+        protected final BlockingDeque<PooledProcess> idle = new LinkedBlockingDeque<>();
+
+        protected final String marker = "__NUXEO_END_" + UUID.randomUUID() + "__";
+
+        protected final Timer queueWait;
+
+        protected final Timer execution;
+
+        protected final Counter timeouts;
+
+        protected volatile boolean closed;
+
+        protected WorkerPool(CommandLineDescriptor cmdDesc, EnvironmentDescriptor env) {
+            this.cmdDesc = cmdDesc;
+            this.env = env;
+            desc = cmdDesc.getPool();
+            permits = new Semaphore(desc.getSize(), true);
+            String name = cmdDesc.getName();
+            queueWait = registry.timer(MetricRegistry.name("nuxeo", "commandline", name, "queue-wait"));
+            execution = registry.timer(MetricRegistry.name("nuxeo", "commandline", name, "execution"));
+            timeouts = registry.counter(MetricRegistry.name("nuxeo", "commandline", name, "timeout"));
+        }
+
+        protected ExecResult exec(String commandLine, List<String> words) throws IOException {
+            long t0 = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(desc.getQueueTimeout(), TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a worker", e);
+            }
+            long t1 = System.nanoTime();
+            queueWait.update(t1 - t0, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                timeouts.inc();
+                throw new IOException("No worker available after " + desc.getQueueTimeout() + "s");
+            }
+            try {
+                PooledProcess worker = borrow();
+                List<String> output = new ArrayList<>();
+                boolean reusable = false;
+                try {
+                    int returnCode = worker.execute(request(words), this::parse, output, desc.getTimeout(),
+                            watchdog);
+                    reusable = true;
+                    long t2 = System.nanoTime();
+                    execution.update(t2 - t1, TimeUnit.NANOSECONDS);
+                    return new ExecResult(commandLine, output, TimeUnit.NANOSECONDS.toMillis(t2 - t1), returnCode);
+                } catch (IOException e) {
+                    if (worker.isTimedOut()) {
+                        timeouts.inc();
+                    }
+                    throw e;
+                } finally {
+                    if (reusable && !closed
+                            && (desc.getMaxRequests() <= 0 || worker.getRequests() < desc.getMaxRequests())) {
+                        idle.offerFirst(worker);
+                    } else {
+                        worker.close();
+                    }
+                }
+            } finally {
+                permits.release();
+            }
+        }
+
+        protected PooledProcess borrow() throws IOException {
+            PooledProcess worker;
+            while ((worker = idle.pollFirst()) != null) {
+                if (worker.isAlive()) {
+                    return worker;
+                }
+                worker.close();
+            }
+            return new PooledProcess(getWorkerCommand(), env);
+        }
+
+        protected List<String> getWorkerCommand() {
+            if (desc.getWorkerCommand() == null) {
+                return Arrays.asList(SHELL);
+            }
+            List<String> command = new ArrayList<>();
+            for (String word : desc.getWorkerCommand().trim().split("\\s+")) {
+                command.add(command.isEmpty() && SystemUtils.IS_OS_WINDOWS ? getCommandAbsolutePath(word) : word);
+            }
+            return command;
+        }
+
+        protected String request(List<String> words) {
+            if (desc.getWorkerCommand() != null) {
+                // the worker is the command itself
+                return words.stream().skip(1).map(PooledExecutor::batchQuote).collect(Collectors.joining(" "));
+            }
+            // isolate the call from the worker input, then print the marker on its own line with the return code
+            String command = words.stream().map(PooledExecutor::shellQuote).collect(Collectors.joining(" "));
+            return "{ " + command + "; } </dev/null 2>&1; printf '\\n%s %d\\n' " + marker + " $?";
+        }
+
+        protected int parse(String line, List<String> output) {
+            if (desc.getWorkerCommand() != null) {
+                if (line.equals(desc.getSuccessMarker())) {
+                    return 0;
+                }
+                return line.equals(desc.getFailureMarker()) ? 1 : -1;
+            }
+            if (!line.startsWith(marker)) {
+                return -1;
+            }
+            // drop the line break printed before the marker
+            int last = output.size() - 1;
+            if (last >= 0 && output.get(last).isEmpty()) {
+                output.remove(last);
+            }
+            return Integer.parseInt(line.substring(marker.length()).trim());
+        }
+
+        protected void close() {
+            closed = true;
+            PooledProcess worker;
+            while ((worker = idle.pollFirst()) != null) {
+                worker.close();
+            }
+        }
+
+    }
+
+}
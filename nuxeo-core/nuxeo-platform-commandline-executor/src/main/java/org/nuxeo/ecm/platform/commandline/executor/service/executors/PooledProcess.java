@@ -0,0 +1,157 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.commandline.executor.service.executors;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.nuxeo.ecm.platform.commandline.executor.service.EnvironmentDescriptor;
+
+/**
+ * A long-lived worker process of the {@link PooledExecutor}, receiving one request per line on its standard input and
+ * answering on its standard output, standard error being merged into it.
+ * <p>
+ * A worker handles one request at a time.
+ *
+ * @since 9.1
+ */
+public class PooledProcess implements Closeable {
+
+    /**
+     * Detects the end of a response.
+     */
+    @FunctionalInterface
+    public interface ResponseEnd {
+
+        /**
+         * Returns the return code of the request if the line ends the response, or -1 if the line is part of the
+         * output. The output read so far can be adjusted.
+         */
+        int parse(String line, List<String> output);
+
+    }
+
+    protected final Process process;
+
+    protected final BufferedWriter input;
+
+    protected final BufferedReader output;
+
+    protected int requests;
+
+    protected volatile boolean timedOut;
+
+    public PooledProcess(List<String> command, EnvironmentDescriptor env) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(new File(env.getWorkingDirectory()));
+        processBuilder.environment().putAll(env.getParameters());
+        processBuilder.redirectErrorStream(true);
+        process = processBuilder.start();
+        input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+        output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+    }
+
+    /**
+     * Sends a request and reads its output until the end of the response.
+     * <p>
+     * The process is killed if the response is not complete after the timeout, it must not be reused after an
+     * exception.
+     *
+     * @return the return code of the request
+     */
+    public int execute(String request, ResponseEnd end, List<String> lines, long timeout,
+            ScheduledExecutorService watchdog) throws IOException {
+        requests++;
+        ScheduledFuture<?> kill = watchdog.schedule(() -> {
+            timedOut = true;
+            process.destroyForcibly();
+        }, timeout, TimeUnit.SECONDS);
+        try {
+            input.write(request);
+            input.newLine();
+            input.flush();
+            String line;
+            while ((line = output.readLine()) != null) {
+                int returnCode = end.parse(line, lines);
+                if (returnCode >= 0) {
+                    return returnCode;
+                }
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            if (timedOut) {
+                throw new IOException("Command timed out after " + timeout + "s", e);
+            }
+            throw e;
+        } finally {
+            kill.cancel(false);
+        }
+        if (timedOut) {
+            throw new IOException("Command timed out after " + timeout + "s");
+        }
+        throw new IOException("Worker process exited with code " + exitCode());
+    }
+
+    protected String exitCode() {
+        try {
+            return String.valueOf(process.exitValue());
+        } catch (IllegalThreadStateException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Returns {@code true} if the worker has been killed because a request exceeded its timeout.
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Returns the number of requests sent to this worker.
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * Closes the streams of the worker and terminates it.
+     */
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(input);
+        IOUtils.closeQuietly(output);
+        process.destroy();
+    }
+
+}
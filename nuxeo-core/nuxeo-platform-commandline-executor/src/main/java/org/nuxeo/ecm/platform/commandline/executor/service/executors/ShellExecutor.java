@@ -86,8 +86,12 @@ public class ShellExecutor implements Executor {
         }
     }
 
-    protected ExecResult exec1(CommandLineDescriptor cmdDesc, CmdParameters params, EnvironmentDescriptor env)
-            throws IOException {
+    /**
+     * Returns the command followed by its expanded parameters, pipes being kept as {@code "|"} words.
+     *
+     * @since 9.1
+     */
+    protected List<String> getCommandWords(CommandLineDescriptor cmdDesc, CmdParameters params) {
         // split the configured parameters while keeping quoted parts intact
         List<String> list = new ArrayList<>();
         list.add(cmdDesc.getCommand());
@@ -104,6 +108,12 @@ public class ShellExecutor implements Executor {
             List<String> words = replaceParams(word, params);
             list.addAll(words);
         }
+        return list;
+    }
+
+    protected ExecResult exec1(CommandLineDescriptor cmdDesc, CmdParameters params, EnvironmentDescriptor env)
+            throws IOException {
+        List<String> list = getCommandWords(cmdDesc, params);
 
         List<Process> processes = new LinkedList<>();
         List<Thread> pipes = new LinkedList<>();
@@ -0,0 +1,102 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.commandline.executor.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import java.util.Collections;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.platform.commandline.executor.api.CmdParameters;
+import org.nuxeo.ecm.platform.commandline.executor.api.CommandLineExecutorService;
+import org.nuxeo.ecm.platform.commandline.executor.api.ExecResult;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+import org.nuxeo.runtime.test.NXRuntimeTestCase;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * @since 9.1
+ */
+public class TestPooledExecutor extends NXRuntimeTestCase {
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        assumeFalse("Shell workers are not available on Windows", SystemUtils.IS_OS_WINDOWS);
+        super.setUp();
+        deployBundle("org.nuxeo.ecm.platform.commandline.executor");
+        deployContrib("org.nuxeo.ecm.platform.commandline.executor", "OSGI-INF/commandline-pooled-test-contrib.xml");
+    }
+
+    protected long getCount(String command, String metric) {
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        return registry.timer(MetricRegistry.name("nuxeo", "commandline", command, metric)).getCount();
+    }
+
+    @Test
+    public void testPooledCommand() throws Exception {
+        CommandLineExecutorService cles = Framework.getService(CommandLineExecutorService.class);
+        long executions = getCount("pooledEcho", "execution");
+
+        CmdParameters params = cles.getDefaultCmdParameters();
+        params.addNamedParameter("text", "it's a 'quoted' | text");
+        ExecResult result = cles.execCommand("pooledEcho", params);
+        assertTrue(result.isSuccessful());
+        assertEquals(Collections.singletonList("it's a 'quoted' | text"), result.getOutput());
+
+        // the worker is reused, then recycled after two calls
+        for (int i = 0; i < 3; i++) {
+            params.addNamedParameter("text", "call " + i);
+            result = cles.execCommand("pooledEcho", params);
+            assertTrue(result.isSuccessful());
+            assertEquals(Collections.singletonList("call " + i), result.getOutput());
+        }
+        assertEquals(executions + 4, getCount("pooledEcho", "execution"));
+        assertEquals(executions + 4, getCount("pooledEcho", "queue-wait"));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        CommandLineExecutorService cles = Framework.getService(CommandLineExecutorService.class);
+        long executions = getCount("pooledSleep", "execution");
+
+        CmdParameters params = cles.getDefaultCmdParameters();
+        params.addNamedParameter("duration", "10");
+        ExecResult result = cles.execCommand("pooledSleep", params);
+        assertFalse(result.isSuccessful());
+        assertNotNull(result.getError());
+        assertEquals(executions, getCount("pooledSleep", "execution"));
+
+        // a new worker replaces the killed one
+        params.addNamedParameter("duration", "0");
+        result = cles.execCommand("pooledSleep", params);
+        assertTrue(result.isSuccessful());
+        assertEquals(executions + 1, getCount("pooledSleep", "execution"));
+    }
+
+}
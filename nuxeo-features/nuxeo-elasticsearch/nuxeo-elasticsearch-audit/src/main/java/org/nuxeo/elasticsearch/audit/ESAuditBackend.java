@@ -26,8 +26,10 @@ import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -82,9 +84,15 @@ import org.nuxeo.elasticsearch.ElasticSearchConstants;
 import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
 import org.nuxeo.elasticsearch.audit.io.AuditEntryJSONReader;
 import org.nuxeo.elasticsearch.audit.io.AuditEntryJSONWriter;
+import org.nuxeo.elasticsearch.core.BulkRequestPipeline;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.model.DefaultComponent;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
 /**
  * Implementation of the {@link AuditBackend} interface using Elasticsearch persistence
  *
@@ -102,6 +110,30 @@ public class ESAuditBackend extends AbstractAuditBackend implements AuditBackend
 
     public static final int MIGRATION_DEFAULT_BACTH_SIZE = 1000;
 
+    /**
+     * Maximum number of entries indexed by a bulk request.
+     *
+     * @since 9.1
+     */
+    public static final String BULK_SIZE_PROP = "audit.elasticsearch.bulkSize";
+
+    /**
+     * Maximum number of bulk requests sent concurrently when indexing entries, further requests wait for one of them
+     * to complete.
+     *
+     * @since 9.1
+     */
+    public static final String BULK_MAX_IN_FLIGHT_PROP = "audit.elasticsearch.bulkMaxInFlight";
+
+    protected static final String DEFAULT_BULK_SIZE = "500";
+
+    protected static final String DEFAULT_BULK_MAX_IN_FLIGHT = "2";
+
+    protected static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    protected final Timer bulkTimer = SharedMetricRegistries.getOrCreate(MetricsService.class.getName()).timer(
+            MetricRegistry.name("nuxeo", "audit", "elasticsearch", "bulk"));
+
     public ESAuditBackend(NXAuditEventsService component, AuditBackendDescriptor config) {
         super(component, config);
     }
@@ -412,41 +444,61 @@ public class ESAuditBackend extends AbstractAuditBackend implements AuditBackend
             return;
         }
 
-        BulkRequestBuilder bulkRequest = esClient.prepareBulk();
-        JsonFactory factory = new JsonFactory();
-
         UIDGeneratorService uidGeneratorService = Framework.getService(UIDGeneratorService.class);
         UIDSequencer seq = uidGeneratorService.getSequencer();
 
+        String indexName = getESIndexName();
+        int bulkSize = Math.max(1, Integer.parseInt(Framework.getProperty(BULK_SIZE_PROP, DEFAULT_BULK_SIZE)));
+        int maxInFlight = Math.max(1,
+                Integer.parseInt(Framework.getProperty(BULK_MAX_IN_FLIGHT_PROP, DEFAULT_BULK_MAX_IN_FLIGHT)));
+        // blocks the caller when the requests in flight are not completed, so that the bulker queues the entries
+        BulkRequestPipeline pipeline = new BulkRequestPipeline(maxInFlight, bulkTimer, this::logBulkFailures);
         try {
-
+            BulkRequestBuilder bulkRequest = esClient.prepareBulk();
+            Iterator<Long> ids = Collections.emptyIterator();
+            int remaining = entries.size();
             for (LogEntry entry : entries) {
-                entry.setId(seq.getNext(SEQ_NAME));
+                if (!ids.hasNext()) {
+                    // a single call to the sequencer per bulk request
+                    ids = seq.getNextBlock(SEQ_NAME, Math.min(bulkSize, remaining)).iterator();
+                }
+                remaining--;
+                entry.setId(ids.next());
                 if (log.isDebugEnabled()) {
                     log.debug(String.format("Indexing log enry Id: %s, with logDate : %s, for docUUID: %s ",
                             entry.getId(), entry.getLogDate(), entry.getDocUUID()));
                 }
                 OutputStream out = new BytesStreamOutput();
-                JsonGenerator jsonGen = factory.createJsonGenerator(out);
+                JsonGenerator jsonGen = JSON_FACTORY.createJsonGenerator(out);
                 XContentBuilder builder = jsonBuilder(out);
                 AuditEntryJSONWriter.asJSON(jsonGen, entry);
-                bulkRequest.add(esClient.prepareIndex(getESIndexName(), ElasticSearchConstants.ENTRY_TYPE,
+                bulkRequest.add(esClient.prepareIndex(indexName, ElasticSearchConstants.ENTRY_TYPE,
                         String.valueOf(entry.getId())).setSource(builder));
-            }
-
-            BulkResponse bulkResponse = bulkRequest.execute().actionGet();
-            if (bulkResponse.hasFailures()) {
-                for (BulkItemResponse response : bulkResponse.getItems()) {
-                    if (response.isFailed()) {
-                        log.error("Unable to index audit entry " + response.getItemId() + " :"
-                                + response.getFailureMessage());
-                    }
+                if (bulkRequest.numberOfActions() >= bulkSize) {
+                    pipeline.send(bulkRequest);
+                    bulkRequest = esClient.prepareBulk();
                 }
             }
+            if (bulkRequest.numberOfActions() > 0) {
+                pipeline.send(bulkRequest);
+            }
         } catch (IOException e) {
             throw new NuxeoException("Error while indexing Audit entries", e);
+        } finally {
+            pipeline.awaitCompletion();
         }
+        pipeline.checkFailure();
+    }
 
+    protected void logBulkFailures(BulkResponse bulkResponse) {
+        if (bulkResponse.hasFailures()) {
+            for (BulkItemResponse response : bulkResponse.getItems()) {
+                if (response.isFailed()) {
+                    log.error("Unable to index audit entry " + response.getItemId() + " :"
+                            + response.getFailureMessage());
+                }
+            }
+        }
     }
 
     @Override
@@ -43,13 +43,20 @@ public class AuditEntryJSONWriter {
 
     protected static final Log log = LogFactory.getLog(AuditEntryJSONWriter.class);
 
-    public static void asJSON(JsonGenerator jg, LogEntry logEntry) throws IOException {
+    // thread safe once configured, building it for each entry costs more than writing the entry
+    protected static final ObjectMapper OBJECT_MAPPER = newObjectMapper();
+
+    protected static ObjectMapper newObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
         SimpleModule module = new SimpleModule("esAuditJson", org.codehaus.jackson.Version.unknownVersion());
         module.addSerializer(Map.class, new MapEntrySerializer());
         module.addSerializer(AbstractBlob.class, new BinaryBlobEntrySerializer());
         objectMapper.registerModule(module);
-        jg.setCodec(objectMapper);
+        return objectMapper;
+    }
+
+    public static void asJSON(JsonGenerator jg, LogEntry logEntry) throws IOException {
+        jg.setCodec(OBJECT_MAPPER);
 
         jg.writeStartObject();
         jg.writeStringField("entity-type", "logEntry");
@@ -19,6 +19,7 @@
  */
 package org.nuxeo.elasticsearch;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -191,4 +192,27 @@ public class TestAuditWithElasticSearch {
 
     }
 
+    @Test
+    public void shouldIndexEntriesWithSeveralBulkRequests() throws Exception {
+        NXAuditEventsService audit = (NXAuditEventsService) Framework.getRuntime()
+                                                                     .getComponent(NXAuditEventsService.NAME);
+        AuditBackend backend = audit.getBackend();
+        int count = 1050;
+        List<LogEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(LogEntryGen.doCreateEntry("doc" + i % 100, "bulkEvent", "bulkCategory"));
+        }
+        // 11 bulk requests, the last one being partial, with at most 2 in flight
+        System.setProperty(ESAuditBackend.BULK_SIZE_PROP, "100");
+        try {
+            backend.addLogEntries(entries);
+        } finally {
+            System.clearProperty(ESAuditBackend.BULK_SIZE_PROP);
+        }
+        LogEntryGen.flushAndSync();
+
+        Assert.assertEquals(count, entries.stream().map(LogEntry::getId).distinct().count());
+        Assert.assertEquals(count, backend.getEventsCount("bulkEvent").longValue());
+    }
+
 }
@@ -22,6 +22,11 @@ package org.nuxeo.elasticsearch;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.ES_ENABLED_PROPERTY;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.INDEXING_QUEUE_ID;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_ON_STARTUP_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_RESUME_ON_STARTUP_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_SLICES_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.WRITE_BEHIND_DELAY_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.WRITE_BEHIND_MAX_SIZE_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.WRITE_BEHIND_READ_YOUR_WRITES_PROPERTY;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -32,6 +37,7 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -50,13 +56,16 @@ import org.nuxeo.ecm.core.api.SortInfo;
 import org.nuxeo.ecm.core.repository.RepositoryService;
 import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.ecm.core.work.api.WorkManager.Scheduling;
 import org.nuxeo.elasticsearch.api.ESClientInitializationService;
 import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
 import org.nuxeo.elasticsearch.api.ElasticSearchIndexing;
 import org.nuxeo.elasticsearch.api.ElasticSearchService;
+import org.nuxeo.elasticsearch.api.EsDocumentIterable;
 import org.nuxeo.elasticsearch.api.EsResult;
 import org.nuxeo.elasticsearch.api.EsScrollResult;
 import org.nuxeo.elasticsearch.commands.IndexingCommand;
+import org.nuxeo.elasticsearch.commands.IndexingCommandsBuffer;
 import org.nuxeo.elasticsearch.config.ESClientInitializationDescriptor;
 import org.nuxeo.elasticsearch.config.ElasticSearchDocWriterDescriptor;
 import org.nuxeo.elasticsearch.config.ElasticSearchIndexConfig;
@@ -68,6 +77,7 @@ import org.nuxeo.elasticsearch.core.ElasticSearchServiceImpl;
 import org.nuxeo.elasticsearch.query.NxQueryBuilder;
 import org.nuxeo.elasticsearch.work.IndexingWorker;
 import org.nuxeo.elasticsearch.work.ScrollingIndexingWorker;
+import org.nuxeo.elasticsearch.work.SliceIndexingWorker;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.model.ComponentContext;
 import org.nuxeo.runtime.model.ComponentInstance;
@@ -98,6 +108,8 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
 
     private static final long REINDEX_TIMEOUT = 20;
 
+    private static final String DEFAULT_REINDEX_SLICES = "32";
+
     // Indexing commands that where received before the index initialization
     private final List<IndexingCommand> stackedCommands = Collections.synchronizedList(new ArrayList<>());
 
@@ -121,6 +133,17 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
 
     private final AtomicInteger runIndexingWorkerCount = new AtomicInteger(0);
 
+    // Asynchronous indexing commands waiting to be merged with the ones of the next transactions
+    private final IndexingCommandsBuffer writeBehindBuffer = new IndexingCommandsBuffer();
+
+    private ScheduledExecutorService writeBehindExecutorService;
+
+    private long writeBehindDelay;
+
+    private int writeBehindMaxSize;
+
+    private boolean readYourWrites;
+
     // Nuxeo Component impl ======================================é=============
     @Override
     public void registerContribution(Object contribution, String extensionPoint, ComponentInstance contributor) {
@@ -197,10 +220,24 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
         esi = new ElasticSearchIndexingImpl(esa, jsonESDocumentWriter);
         ess = new ElasticSearchServiceImpl(esa);
         initListenerThreadPool();
+        initWriteBehind();
         processStackedCommands();
+        resumeReindexing();
         reindexOnStartup();
     }
 
+    private void resumeReindexing() {
+        boolean resume = Boolean.parseBoolean(Framework.getProperty(REINDEX_RESUME_ON_STARTUP_PROPERTY, "false"));
+        if (!resume) {
+            return;
+        }
+        for (String repositoryName : esa.getRepositoryNames()) {
+            if (esa.getReindexingIndex(repositoryName) != null) {
+                reindexRepository(repositoryName);
+            }
+        }
+    }
+
     private void reindexOnStartup() {
         boolean reindexOnStartup = Boolean.parseBoolean(Framework.getProperty(REINDEX_ON_STARTUP_PROPERTY, "false"));
         if (!reindexOnStartup) {
@@ -228,6 +265,15 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
 
     @Override
     public void deactivate(ComponentContext context) {
+        if (writeBehindExecutorService != null) {
+            writeBehindExecutorService.shutdownNow();
+            writeBehindExecutorService = null;
+            try {
+                flushWriteBehind();
+            } catch (RuntimeException e) {
+                log.warn("Unable to schedule the buffered indexing commands", e);
+            }
+        }
         if (esa != null) {
             esa.disconnect();
         }
@@ -324,11 +370,13 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
 
     @Override
     public boolean isIndexingInProgress() {
-        return (runIndexingWorkerCount.get() > 0) || (getPendingWorkerCount() > 0) || (getRunningWorkerCount() > 0);
+        return (runIndexingWorkerCount.get() > 0) || (writeBehindBuffer.size() > 0) || (getPendingWorkerCount() > 0)
+                || (getRunningWorkerCount() > 0);
     }
 
     @Override
     public ListenableFuture<Boolean> prepareWaitForIndexing() {
+        flushWriteBehind();
         return waiterExecutorService.submit(new Callable<Boolean>() {
             @Override
             public Boolean call() throws Exception {
@@ -355,6 +403,83 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
                 Executors.newCachedThreadPool(new NamedThreadFactory()));
     }
 
+    protected void initWriteBehind() {
+        writeBehindDelay = Long.parseLong(Framework.getProperty(WRITE_BEHIND_DELAY_PROPERTY, "0"));
+        writeBehindMaxSize = Integer.parseInt(Framework.getProperty(WRITE_BEHIND_MAX_SIZE_PROPERTY, "1000"));
+        readYourWrites = Boolean.parseBoolean(Framework.getProperty(WRITE_BEHIND_READ_YOUR_WRITES_PROPERTY, "false"));
+        if (writeBehindDelay <= 0) {
+            return;
+        }
+        log.info(String.format("Buffering asynchronous indexing commands for %d ms, buffered commands are lost "
+                + "if the node crashes", writeBehindDelay));
+        writeBehindExecutorService = Executors.newSingleThreadScheduledExecutor(
+                r -> new Thread(r, "esWriteBehind"));
+        writeBehindExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                flushWriteBehind();
+            } catch (RuntimeException e) {
+                log.error("Unable to schedule the buffered indexing commands", e);
+            }
+        }, writeBehindDelay, writeBehindDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the indexing of the buffered asynchronous commands.
+     *
+     * @since 9.1
+     */
+    protected void flushWriteBehind() {
+        if (writeBehindBuffer.size() == 0) {
+            return;
+        }
+        runIndexingWorkerCount.incrementAndGet();
+        try {
+            scheduleIndexingAsyncWorker(groupByRepository(writeBehindBuffer.drain()));
+        } finally {
+            runIndexingWorkerCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Indexes synchronously the buffered commands of the documents changed by the session of the query, so that the
+     * query sees them.
+     *
+     * @since 9.1
+     */
+    protected void flushWriteBehind(NxQueryBuilder queryBuilder) {
+        if (!readYourWrites || writeBehindBuffer.size() == 0 || queryBuilder.getSession() == null) {
+            return;
+        }
+        List<IndexingCommand> cmds = writeBehindBuffer.drain(queryBuilder.getSession().getSessionId());
+        if (cmds.isEmpty()) {
+            return;
+        }
+        List<IndexingCommand> asyncCmds = new ArrayList<>();
+        for (IndexingCommand cmd : cmds) {
+            // recursive commands cannot be synchronous
+            cmd.makeSync();
+            if (!cmd.isSync()) {
+                asyncCmds.add(cmd);
+            }
+        }
+        cmds.removeAll(asyncCmds);
+        runIndexingWorkerCount.incrementAndGet();
+        try {
+            runIndexingSyncWorker(groupByRepository(cmds));
+            scheduleIndexingAsyncWorker(groupByRepository(asyncCmds));
+        } finally {
+            runIndexingWorkerCount.decrementAndGet();
+        }
+    }
+
+    protected Map<String, List<IndexingCommand>> groupByRepository(List<IndexingCommand> cmds) {
+        Map<String, List<IndexingCommand>> ret = new HashMap<>();
+        for (IndexingCommand cmd : cmds) {
+            ret.computeIfAbsent(cmd.getRepositoryName(), k -> new ArrayList<>()).add(cmd);
+        }
+        return ret;
+    }
+
     @Override
     public void refresh() {
         esa.refresh();
@@ -455,6 +580,13 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
             }
         }
         runIndexingSyncWorker(syncCommands);
+        if (writeBehindExecutorService != null) {
+            asyncCommands.values().forEach(asyncCmds -> asyncCmds.forEach(writeBehindBuffer::add));
+            if (writeBehindBuffer.size() >= writeBehindMaxSize) {
+                flushWriteBehind();
+            }
+            return;
+        }
         scheduleIndexingAsyncWorker(asyncCommands);
     }
 
@@ -498,19 +630,52 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
         wm.schedule(worker);
     }
 
+    @Override
+    public void reindexRepository(String repositoryName) {
+        String indexName = esa.getReindexingIndex(repositoryName);
+        List<Integer> slices;
+        if (indexName == null) {
+            int count = Integer.parseInt(Framework.getProperty(REINDEX_SLICES_PROPERTY, DEFAULT_REINDEX_SLICES));
+            indexName = esi.startReindexing(repositoryName, count);
+            slices = new ArrayList<>(count);
+            for (int slice = 0; slice < count; slice++) {
+                slices.add(slice);
+            }
+        } else {
+            slices = esi.getPendingSlices(indexName);
+            log.warn(String.format("Resuming re-indexing of repository: %s into index: %s, %d slices pending",
+                    repositoryName, indexName, slices.size()));
+        }
+        WorkManager wm = Framework.getLocalService(WorkManager.class);
+        for (Integer slice : slices) {
+            // the work id is the same on all nodes, with shared work queues a slice already scheduled or running
+            // on another node is not scheduled again
+            wm.schedule(new SliceIndexingWorker(repositoryName, indexName, slice.intValue()),
+                    Scheduling.IF_NOT_RUNNING_OR_SCHEDULED);
+        }
+    }
+
+    @Override
+    public void reindexSlice(CoreSession session, String indexName, int slice) {
+        esi.reindexSlice(session, indexName, slice);
+    }
+
     // ES Search ===============================================================
     @Override
     public DocumentModelList query(NxQueryBuilder queryBuilder) {
+        flushWriteBehind(queryBuilder);
         return ess.query(queryBuilder);
     }
 
     @Override
     public EsResult queryAndAggregate(NxQueryBuilder queryBuilder) {
+        flushWriteBehind(queryBuilder);
         return ess.queryAndAggregate(queryBuilder);
     }
 
     @Override
     public EsScrollResult scroll(NxQueryBuilder queryBuilder, long keepAlive) {
+        flushWriteBehind(queryBuilder);
         return ess.scroll(queryBuilder, keepAlive);
     }
 
@@ -524,6 +689,12 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
         ess.clearScroll(scrollResult);
     }
 
+    @Override
+    public EsDocumentIterable scrollDocuments(NxQueryBuilder queryBuilder, long keepAlive) {
+        flushWriteBehind(queryBuilder);
+        return ess.scrollDocuments(queryBuilder, keepAlive);
+    }
+
     @Deprecated
     @Override
     public DocumentModelList query(CoreSession session, String nxql, int limit, int offset, SortInfo... sortInfos) {
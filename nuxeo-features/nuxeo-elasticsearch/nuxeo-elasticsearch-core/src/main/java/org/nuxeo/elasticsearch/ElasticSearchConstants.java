@@ -110,12 +110,91 @@ final public class ElasticSearchConstants {
 
     public static final String INDEX_BULK_MAX_SIZE_PROPERTY = "elasticsearch.index.bulkMaxSize";
 
+    /**
+     * The maximum number of bulk index requests sent concurrently by an indexing thread.
+     *
+     * @since 9.1
+     */
+    public static final String INDEX_BULK_MAX_IN_FLIGHT_PROPERTY = "elasticsearch.index.bulkMaxInFlight";
+
     public static final String DISABLE_AUTO_INDEXING = "disableAutoIndexing";
 
     public static final String ES_SYNC_INDEXING_FLAG = "ESSyncIndexing";
 
     public static final String REINDEX_USING_CHILDREN_TRAVERSAL_PROPERTY = "elasticsearch.reindex.useChildrenTraversal";
 
+    /**
+     * Number of slices processed concurrently by a repository re-indexing.
+     *
+     * @since 9.1
+     */
+    public static final String REINDEX_SLICES_PROPERTY = "elasticsearch.reindex.slices";
+
+    /**
+     * If true, a repository re-indexing interrupted by a restart is resumed when the node starts. The pending slices
+     * are scheduled once cluster-wide only if the work queues are shared between the nodes (Redis queuing), otherwise
+     * this must be enabled on a single node.
+     *
+     * @since 9.1
+     */
+    public static final String REINDEX_RESUME_ON_STARTUP_PROPERTY = "elasticsearch.reindex.resumeOnStartup";
+
+    /**
+     * Suffix of the alias of the index being built by a repository re-indexing.
+     *
+     * @since 9.1
+     */
+    public static final String REINDEXING_ALIAS_SUFFIX = "-reindexing";
+
+    /**
+     * Elasticsearch type name used to checkpoint the progress of a repository re-indexing.
+     *
+     * @since 9.1
+     */
+    public static final String REINDEX_STATUS_TYPE = "reindexStatus";
+
+    /**
+     * Delay in milliseconds during which the asynchronous indexing commands are buffered and merged across
+     * transactions before being indexed, 0 to disable the buffering.
+     * <p>
+     * The buffer is held in memory and is not durable: it is flushed on a clean shutdown, but the commands buffered
+     * when a node crashes are lost, even with a persistent work queue, and the documents they target stay stale in
+     * the index until they are modified again or re-indexed. Keep the delay short, and only enable it when this
+     * window is acceptable.
+     *
+     * @since 9.1
+     */
+    public static final String WRITE_BEHIND_DELAY_PROPERTY = "elasticsearch.indexing.writeBehind.delay";
+
+    /**
+     * Number of buffered indexing commands above which they are indexed without waiting for the delay.
+     *
+     * @since 9.1
+     */
+    public static final String WRITE_BEHIND_MAX_SIZE_PROPERTY = "elasticsearch.indexing.writeBehind.maxSize";
+
+    /**
+     * If true, a query first indexes the buffered commands of the documents changed by its session.
+     *
+     * @since 9.1
+     */
+    public static final String WRITE_BEHIND_READ_YOUR_WRITES_PROPERTY = "elasticsearch.indexing.writeBehind.readYourWrites";
+
+    /**
+     * Maximum number of search responses kept by the query cache, 0 to disable the cache.
+     *
+     * @since 9.1
+     */
+    public static final String QUERY_CACHE_MAX_SIZE_PROPERTY = "elasticsearch.queryCache.maxSize";
+
+    /**
+     * Interval in milliseconds between two checks of the index refreshes invalidating the query cache, this is the
+     * maximum time during which a cached response can miss the changes made visible by a refresh.
+     *
+     * @since 9.1
+     */
+    public static final String QUERY_CACHE_REFRESH_CHECK_INTERVAL_PROPERTY = "elasticsearch.queryCache.refreshCheckInterval";
+
     /** @since 7.4 */
     public static final String INDEXING_QUEUE_ID = "elasticSearchIndexing";
 
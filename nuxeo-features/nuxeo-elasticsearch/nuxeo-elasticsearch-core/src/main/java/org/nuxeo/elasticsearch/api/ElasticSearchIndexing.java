@@ -22,6 +22,7 @@ package org.nuxeo.elasticsearch.api;
 
 import java.util.List;
 
+import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.elasticsearch.commands.IndexingCommand;
 
 /**
@@ -55,6 +56,27 @@ public interface ElasticSearchIndexing {
      */
     void runReindexingWorker(String repositoryName, String nxql);
 
+    /**
+     * Reindex a whole repository into a new index, which replaces the current one once done. The documents are split
+     * into slices processed concurrently by asynchronous jobs, and a re-indexing interrupted by a restart is resumed
+     * by calling this method again. Unless the work queues are shared between the nodes, this must be called on a
+     * single node.
+     * <p>
+     * The documents modified during the re-indexing are written to both indexes.
+     * </p>
+     *
+     * @since 9.1
+     */
+    void reindexRepository(String repositoryName);
+
+    /**
+     * Process a slice of a repository re-indexing started by {@link #reindexRepository(String)}, from its last
+     * checkpoint. This is done synchronously, committing the transaction regularly.
+     *
+     * @since 9.1
+     */
+    void reindexSlice(CoreSession session, String indexName, int slice);
+
     /**
      * Process the {@link IndexingCommand}.
      * <p>
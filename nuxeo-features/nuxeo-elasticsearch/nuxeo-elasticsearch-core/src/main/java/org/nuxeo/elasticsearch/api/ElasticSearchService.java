@@ -74,6 +74,16 @@ public interface ElasticSearchService {
      */
     void clearScroll(EsScrollResult scrollResult);
 
+    /**
+     * Returns all the documents matching a query, scrolling through them by batches of the query limit so that only
+     * one batch is held in memory. The scroll context is cleared once the last document is reached, the returned
+     * iterable must be closed if the iteration is stopped before.
+     *
+     * @param keepAlive the search context lifetime between two batches, in ms
+     * @since 9.1
+     */
+    EsDocumentIterable scrollDocuments(NxQueryBuilder queryBuilder, long keepAlive);
+
     /**
      * Returns a document list using an NXQL query. Fetch documents from the VCS repository.
      *
@@ -0,0 +1,121 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.elasticsearch.api;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.nuxeo.ecm.core.api.DocumentModel;
+
+/**
+ * Iterable over all the documents matching a scrollable search request, holding only the current batch of documents
+ * in memory.
+ * <p>
+ * The search context is cleared on the Elasticsearch cluster when the last batch is reached, or when the iterable is
+ * closed.
+ *
+ * @see ElasticSearchService#scrollDocuments(org.nuxeo.elasticsearch.query.NxQueryBuilder, long)
+ * @since 9.1
+ */
+public class EsDocumentIterable implements Iterable<DocumentModel>, Iterator<DocumentModel>, AutoCloseable {
+
+    private final ElasticSearchService searchService;
+
+    private EsScrollResult scrollResult;
+
+    private Iterator<DocumentModel> batch;
+
+    private boolean closed;
+
+    private boolean iterated;
+
+    private long hits;
+
+    public EsDocumentIterable(ElasticSearchService searchService, EsScrollResult scrollResult) {
+        if (scrollResult.getDocuments() == null) {
+            throw new IllegalArgumentException("The scroll result has no documents");
+        }
+        this.searchService = searchService;
+        this.scrollResult = scrollResult;
+        batch = scrollResult.getDocuments().iterator();
+        if (isLastBatch()) {
+            close();
+        }
+    }
+
+    /**
+     * Gets the total number of hits of the search request.
+     */
+    public long size() {
+        return scrollResult.getElasticsearchResponse().getHits().getTotalHits();
+    }
+
+    @Override
+    public Iterator<DocumentModel> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("Cannot iterate twice over scrolled documents");
+        }
+        iterated = true;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!batch.hasNext()) {
+            if (closed) {
+                return false;
+            }
+            // the documents of a batch may be less than its hits if some were deleted since indexing
+            try {
+                scrollResult = searchService.scroll(scrollResult);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            batch = scrollResult.getDocuments().iterator();
+            if (isLastBatch()) {
+                close();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public DocumentModel next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.next();
+    }
+
+    private boolean isLastBatch() {
+        int length = scrollResult.getElasticsearchResponse().getHits().getHits().length;
+        hits += length;
+        return length == 0 || hits >= size();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            searchService.clearScroll(scrollResult);
+        }
+    }
+
+}
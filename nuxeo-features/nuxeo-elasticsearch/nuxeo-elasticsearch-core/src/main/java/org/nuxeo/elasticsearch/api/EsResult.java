@@ -20,7 +20,10 @@ package org.nuxeo.elasticsearch.api;
 
 import java.util.List;
 
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
 import org.nuxeo.ecm.core.api.DocumentModelList;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.platform.query.api.Aggregate;
@@ -94,4 +97,41 @@ public class EsResult {
     public SearchResponse getElasticsearchResponse() {
         return response;
     }
+
+    /**
+     * Gets the sort values of the last hit, to get the next page of a query using
+     * {@link org.nuxeo.elasticsearch.query.NxQueryBuilder#searchAfter(Object[])}.
+     *
+     * @return null if there is no hit
+     * @since 9.1
+     */
+    public Object[] getSearchAfter() {
+        if (response == null) {
+            return null;
+        }
+        SearchHit[] hits = response.getHits().getHits();
+        if (hits.length == 0) {
+            return null;
+        }
+        Object[] values = hits[hits.length - 1].getSortValues();
+        Object[] ret = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ret[i] = getSortValue(values[i]);
+        }
+        return ret;
+    }
+
+    protected Object getSortValue(Object value) {
+        if (value instanceof Text) {
+            return value.toString();
+        } else if (value instanceof BytesRef) {
+            return ((BytesRef) value).utf8ToString();
+        } else if (value instanceof Long && ((Long) value == Long.MAX_VALUE || (Long) value == Long.MIN_VALUE)) {
+            // missing value substitute
+            return null;
+        } else if (value instanceof Double && ((Double) value).isInfinite()) {
+            return null;
+        }
+        return value;
+    }
 }
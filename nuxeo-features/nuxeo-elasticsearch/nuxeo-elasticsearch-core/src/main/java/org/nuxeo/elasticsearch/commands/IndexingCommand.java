@@ -291,6 +291,15 @@ public class IndexingCommand implements Serializable {
         return targetDocumentId;
     }
 
+    /**
+     * Gets the id of the session the command is attached to, or {@code null} if it is not attached.
+     *
+     * @since 9.1
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
     public IndexingCommand clone(DocumentModel newDoc) {
         return new IndexingCommand(newDoc, type, sync, recurse);
     }
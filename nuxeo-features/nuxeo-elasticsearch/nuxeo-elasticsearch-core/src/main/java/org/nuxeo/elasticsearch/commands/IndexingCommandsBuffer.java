@@ -0,0 +1,133 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.elasticsearch.commands;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.nuxeo.elasticsearch.commands.IndexingCommand.Type;
+
+/**
+ * Node level buffer of asynchronous indexing commands, merging the commands of a document submitted by different
+ * transactions until they are drained.
+ * <p>
+ * The commands of a document are kept in submission order, and are always drained together so that their order is
+ * preserved. An indexing command renders the document as it is when the command is processed, so an update following
+ * a pending insert or update of the same document is redundant.
+ * <p>
+ * The buffer is in memory only, the commands it holds are lost if the node crashes before they are drained, see
+ * {@link org.nuxeo.elasticsearch.ElasticSearchConstants#WRITE_BEHIND_DELAY_PROPERTY}.
+ *
+ * @since 9.1
+ */
+public class IndexingCommandsBuffer {
+
+    protected static class PendingCommands {
+
+        protected final List<IndexingCommand> commands = new ArrayList<>(2);
+
+        protected final Set<String> sessionIds = new HashSet<>(2);
+
+        protected void add(IndexingCommand command) {
+            if (command.getSessionId() != null) {
+                sessionIds.add(command.getSessionId());
+            }
+            if (command.getType() == Type.DELETE) {
+                // the previous commands would render a document that does not exist anymore
+                commands.clear();
+                commands.add(command);
+                return;
+            }
+            for (IndexingCommand pending : commands) {
+                if (pending.getType() == command.getType() && pending.merge(command)) {
+                    return;
+                }
+            }
+            if (!command.isRecurse() && command.getType() != Type.UPDATE_DIRECT_CHILDREN) {
+                for (IndexingCommand pending : commands) {
+                    if (pending.getType() == Type.INSERT || pending.getType() == Type.UPDATE) {
+                        // the document will be rendered anyway
+                        return;
+                    }
+                }
+            }
+            commands.add(command);
+        }
+
+    }
+
+    // by repository and document id, in order of first submission
+    protected final Map<String, PendingCommands> pending = new LinkedHashMap<>();
+
+    protected int size;
+
+    /**
+     * Adds an asynchronous command, merging it with the pending commands of the same document.
+     */
+    public synchronized void add(IndexingCommand command) {
+        if (command.isSync()) {
+            throw new IllegalArgumentException("Synchronous commands cannot be buffered: " + command);
+        }
+        String key = command.getRepositoryName() + ":" + command.getTargetDocumentId();
+        PendingCommands commands = pending.computeIfAbsent(key, k -> new PendingCommands());
+        size -= commands.commands.size();
+        commands.add(command);
+        size += commands.commands.size();
+    }
+
+    /**
+     * Gets the number of pending commands.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes and returns all the pending commands.
+     */
+    public synchronized List<IndexingCommand> drain() {
+        List<IndexingCommand> commands = new ArrayList<>(size);
+        pending.values().forEach(p -> commands.addAll(p.commands));
+        pending.clear();
+        size = 0;
+        return commands;
+    }
+
+    /**
+     * Removes and returns the pending commands of the documents changed by the given session.
+     */
+    public synchronized List<IndexingCommand> drain(String sessionId) {
+        List<IndexingCommand> commands = new ArrayList<>();
+        for (Iterator<PendingCommands> it = pending.values().iterator(); it.hasNext();) {
+            PendingCommands p = it.next();
+            if (p.sessionIds.contains(sessionId)) {
+                commands.addAll(p.commands);
+                size -= p.commands.size();
+                it.remove();
+            }
+        }
+        return commands;
+    }
+
+}
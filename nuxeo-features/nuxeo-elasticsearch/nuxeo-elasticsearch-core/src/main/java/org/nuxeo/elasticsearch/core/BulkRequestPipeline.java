@@ -0,0 +1,124 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.elasticsearch.core;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.nuxeo.ecm.core.api.NuxeoException;
+
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.Timer.Context;
+
+/**
+ * Sends bulk requests asynchronously, keeping at most a given number of them in flight so that the next bulk can be
+ * prepared while the previous ones are processed by Elasticsearch.
+ * <p>
+ * This class is not thread safe, the requests must be sent and awaited by the same thread.
+ *
+ * @since 9.1
+ */
+public class BulkRequestPipeline {
+
+    protected final int maxInFlight;
+
+    protected final Semaphore inFlight;
+
+    protected final Timer sendTimer;
+
+    protected final Consumer<BulkResponse> onResponse;
+
+    protected volatile Throwable failure;
+
+    /**
+     * @param maxInFlight the maximum number of requests in flight
+     * @param sendTimer the timer of the requests round trip
+     * @param onResponse the callback receiving the responses, called from the Elasticsearch client threads
+     */
+    public BulkRequestPipeline(int maxInFlight, Timer sendTimer, Consumer<BulkResponse> onResponse) {
+        this.maxInFlight = maxInFlight;
+        inFlight = new Semaphore(maxInFlight);
+        this.sendTimer = sendTimer;
+        this.onResponse = onResponse;
+    }
+
+    /**
+     * Sends a request, first waiting for a request in flight to complete if the maximum is reached.
+     */
+    public void send(BulkRequestBuilder bulkRequest) {
+        checkFailure();
+        inFlight.acquireUninterruptibly();
+        Context context = sendTimer.time();
+        try {
+            bulkRequest.execute(new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    try {
+                        onResponse.accept(response);
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    } finally {
+                        context.stop();
+                        inFlight.release();
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    failure = e;
+                    context.stop();
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            context.stop();
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for all the requests in flight to complete.
+     */
+    public void awaitCompletion() {
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    /**
+     * Throws the failure of a completed request if any.
+     *
+     * @throws NuxeoException if a request failed
+     */
+    public void checkFailure() {
+        Throwable e = failure;
+        if (e == null) {
+            return;
+        }
+        failure = null;
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        throw new NuxeoException("Bulk indexing request failed", e);
+    }
+
+}
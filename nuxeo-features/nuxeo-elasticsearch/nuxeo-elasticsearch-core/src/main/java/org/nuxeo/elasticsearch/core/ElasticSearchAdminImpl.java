@@ -21,6 +21,8 @@
 package org.nuxeo.elasticsearch.core;
 
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.ALL_FIELDS;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEXING_ALIAS_SUFFIX;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_STATUS_TYPE;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -35,20 +37,31 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsResponse;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.transport.NoNodeAvailableException;
 import org.elasticsearch.client.transport.TransportClient;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.health.ClusterHealthStatus;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.Settings.Builder;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.node.NodeBuilder;
+import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.elasticsearch.api.ESClientInitializationService;
 import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
 import org.nuxeo.elasticsearch.config.ElasticSearchIndexConfig;
@@ -56,6 +69,8 @@ import org.nuxeo.elasticsearch.config.ElasticSearchLocalConfig;
 import org.nuxeo.elasticsearch.config.ElasticSearchRemoteConfig;
 import org.nuxeo.runtime.api.Framework;
 
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 import com.google.common.util.concurrent.ListenableFuture;
 
 /**
@@ -66,8 +81,18 @@ public class ElasticSearchAdminImpl implements ElasticSearchAdmin {
 
     private static final String TIMEOUT_WAIT_FOR_CLUSTER = "30s";
 
+    protected static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
+
+    protected static final String NUMBER_OF_REPLICAS_SETTING = "index.number_of_replicas";
+
+    // how long the index being built by a re-indexing is cached before checking it again
+    private static final long REINDEXING_CHECK_INTERVAL_MS = 10_000;
+
     final AtomicInteger totalCommandProcessed = new AtomicInteger(0);
 
+    // number of refreshes requested by this node
+    final AtomicLong refreshCount = new AtomicLong(0);
+
     private final Map<String, String> indexNames = new HashMap<>();
 
     private final Map<String, String> repoNames = new HashMap<>();
@@ -94,6 +119,11 @@ public class ElasticSearchAdminImpl implements ElasticSearchAdmin {
 
     private List<String> repositoryInitialized = new ArrayList<>();
 
+    // index being built by a re-indexing per repository
+    private volatile Map<String, String> reindexingIndexes = Collections.emptyMap();
+
+    private volatile long reindexingCheckTime;
+
     /**
      * Init the admin service, remote configuration if not null will take precedence over local embedded configuration.
      * 
@@ -287,6 +317,7 @@ public class ElasticSearchAdminImpl implements ElasticSearchAdmin {
             log.debug("Refreshing index associated with repo: " + repositoryName);
         }
         getClient().admin().indices().prepareRefresh(getIndexNameForRepository(repositoryName)).execute().actionGet();
+        refreshCount.incrementAndGet();
         if (log.isDebugEnabled()) {
             log.debug("Refreshing index done");
         }
@@ -424,44 +455,56 @@ public class ElasticSearchAdminImpl implements ElasticSearchAdmin {
         if (indexExists) {
             if (!dropIfExists) {
                 log.debug("Index " + conf.getName() + " already exists");
-                mappingExists = getClient().admin()
-                                           .indices()
-                                           .prepareGetMappings(conf.getName())
-                                           .execute()
-                                           .actionGet()
-                                           .getMappings()
-                                           .get(conf.getName())
-                                           .containsKey(conf.getType());
+                // the name may be an alias to the index built by a re-indexing
+                GetMappingsResponse response = getClient().admin()
+                                                          .indices()
+                                                          .prepareGetMappings(conf.getName())
+                                                          .execute()
+                                                          .actionGet();
+                for (ObjectCursor<ImmutableOpenMap<String, MappingMetaData>> cursor : response.getMappings().values()) {
+                    mappingExists |= cursor.value.containsKey(conf.getType());
+                }
             } else {
                 if (!Framework.isTestModeSet()) {
                     log.warn(String.format(
                             "Initializing index: %s, type: %s with " + "dropIfExists flag, deleting an existing index",
                             conf.getName(), conf.getType()));
                 }
-                getClient().admin().indices().delete(new DeleteIndexRequest(conf.getName())).actionGet();
+                List<String> indexes = getAliasedIndexes(conf.getName());
+                if (indexes.isEmpty()) {
+                    indexes.add(conf.getName());
+                }
+                for (String index : indexes) {
+                    getClient().admin().indices().delete(new DeleteIndexRequest(index)).actionGet();
+                }
                 indexExists = false;
             }
         }
+        String mappingIndex = conf.getName();
         if (!indexExists) {
-            log.info(String.format("Creating index: %s", conf.getName()));
+            CreateIndexRequestBuilder request;
+            if (conf.isDocumentIndex()) {
+                // a repository index is created behind an alias, so that it can be re-indexed online
+                mappingIndex = conf.getName() + "-" + System.currentTimeMillis();
+                log.info(String.format("Creating index: %s with alias: %s", mappingIndex, conf.getName()));
+                request = getClient().admin().indices().prepareCreate(mappingIndex).addAlias(new Alias(conf.getName()));
+            } else {
+                log.info(String.format("Creating index: %s", conf.getName()));
+                request = getClient().admin().indices().prepareCreate(conf.getName());
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Using settings: " + conf.getSettings());
             }
-            getClient().admin()
-                       .indices()
-                       .prepareCreate(conf.getName())
-                       .setSettings(conf.getSettings())
-                       .execute()
-                       .actionGet();
+            request.setSettings(conf.getSettings()).execute().actionGet();
         }
         if (!mappingExists) {
-            log.info(String.format("Creating mapping type: %s on index: %s", conf.getType(), conf.getName()));
+            log.info(String.format("Creating mapping type: %s on index: %s", conf.getType(), mappingIndex));
             if (log.isDebugEnabled()) {
                 log.debug("Using mapping: " + conf.getMapping());
             }
             getClient().admin()
                        .indices()
-                       .preparePutMapping(conf.getName())
+                       .preparePutMapping(mappingIndex)
                        .setType(conf.getType())
                        .setSource(conf.getMapping())
                        .execute()
@@ -474,6 +517,34 @@ public class ElasticSearchAdminImpl implements ElasticSearchAdmin {
         checkClusterHealth(conf.getName());
     }
 
+    /**
+     * Gets the indexes an alias points to, none if the name is not an alias.
+     */
+    protected List<String> getAliasedIndexes(String name) {
+        List<String> indexes = new ArrayList<>();
+        ImmutableOpenMap<String, List<AliasMetaData>> found = getClient().admin()
+                                                                         .indices()
+                                                                         .prepareGetAliases(name)
+                                                                         .get()
+                                                                         .getAliases();
+        for (ObjectCursor<String> cursor : found.keys()) {
+            indexes.add(cursor.value);
+        }
+        return indexes;
+    }
+
+    /**
+     * Checks that the index of a repository is an alias, which is required to swap it with a re-indexed index.
+     */
+    protected void checkRepositoryIndexIsAlias(String repositoryName, String alias) {
+        MetaData metaData = getClient().admin().cluster().prepareState().get().getState().getMetaData();
+        if (metaData.getIndices().containsKey(alias)) {
+            throw new NuxeoException(String.format("Cannot re-index repository: %s online, its index: %s is not an "
+                    + "alias. Drop and re-index the repository once from the Elasticsearch admin page, the new index "
+                    + "is created behind an alias.", repositoryName, alias));
+        }
+    }
+
     @Override
     public long getPendingWorkerCount() {
         // impl of scheduling is left to the ESService
@@ -553,4 +624,137 @@ public class ElasticSearchAdminImpl implements ElasticSearchAdmin {
     public List<String> getInitializedRepositories() {
         return repositoryInitialized;
     }
+
+    /**
+     * Creates the index into which a repository is re-indexed, with the settings and mapping of the repository index.
+     * The refresh and the replicas are disabled until {@link #completeReindexing}, and the index is made visible to
+     * the other nodes through an alias suffixed by
+     * {@link org.nuxeo.elasticsearch.ElasticSearchConstants#REINDEXING_ALIAS_SUFFIX}.
+     * <p>
+     * The repository index must be an alias, as created by {@link #initIndexes}, otherwise the re-indexing is refused
+     * to avoid deleting the live index before the swap.
+     *
+     * @return the refresh interval and number of replicas settings to restore on completion
+     * @since 9.1
+     */
+    public Settings createReindexingIndex(String repositoryName, String indexName) {
+        ElasticSearchIndexConfig conf = getRepositoryIndexConfig(repositoryName);
+        checkRepositoryIndexIsAlias(repositoryName, conf.getName());
+        log.info(String.format("Creating index: %s to re-index repository: %s", indexName, repositoryName));
+        getClient().admin().indices().prepareCreate(indexName).setSettings(conf.getSettings()).execute().actionGet();
+        getClient().admin()
+                   .indices()
+                   .preparePutMapping(indexName)
+                   .setType(conf.getType())
+                   .setSource(conf.getMapping())
+                   .execute()
+                   .actionGet();
+        // the progress is only read by id, it does not depend on the dynamic mapping settings
+        getClient().admin()
+                   .indices()
+                   .preparePutMapping(indexName)
+                   .setType(REINDEX_STATUS_TYPE)
+                   .setSource("{\"dynamic\": false}")
+                   .execute()
+                   .actionGet();
+        GetSettingsResponse response = getClient().admin().indices().prepareGetSettings(indexName).get();
+        String refreshInterval = response.getSetting(indexName, REFRESH_INTERVAL_SETTING);
+        String replicas = response.getSetting(indexName, NUMBER_OF_REPLICAS_SETTING);
+        Settings restore = Settings.settingsBuilder()
+                                   .put(REFRESH_INTERVAL_SETTING, refreshInterval == null ? "1s" : refreshInterval)
+                                   .put(NUMBER_OF_REPLICAS_SETTING, replicas == null ? "1" : replicas)
+                                   .build();
+        getClient().admin()
+                   .indices()
+                   .prepareUpdateSettings(indexName)
+                   .setSettings(Settings.settingsBuilder()
+                                        .put(REFRESH_INTERVAL_SETTING, "-1")
+                                        .put(NUMBER_OF_REPLICAS_SETTING, 0))
+                   .execute()
+                   .actionGet();
+        getClient().admin()
+                   .indices()
+                   .prepareAliases()
+                   .addAlias(indexName, conf.getName() + REINDEXING_ALIAS_SUFFIX)
+                   .execute()
+                   .actionGet();
+        reindexingCheckTime = 0;
+        checkClusterHealth(indexName);
+        return restore;
+    }
+
+    /**
+     * Gets the index into which a repository is being re-indexed, or {@code null} if there is no re-indexing in
+     * progress. The result is cached for a few seconds.
+     *
+     * @since 9.1
+     */
+    public String getReindexingIndex(String repositoryName) {
+        long now = System.currentTimeMillis();
+        if (now - reindexingCheckTime > REINDEXING_CHECK_INTERVAL_MS) {
+            Map<String, String> indexes = new HashMap<>();
+            Map<String, String> repositoriesByAlias = new HashMap<>();
+            for (Map.Entry<String, String> es : indexNames.entrySet()) {
+                repositoriesByAlias.put(es.getValue() + REINDEXING_ALIAS_SUFFIX, es.getKey());
+            }
+            if (!repositoriesByAlias.isEmpty()) {
+                String[] aliases = repositoriesByAlias.keySet().toArray(new String[repositoriesByAlias.size()]);
+                ImmutableOpenMap<String, List<AliasMetaData>> found = getClient().admin()
+                                                                                 .indices()
+                                                                                 .prepareGetAliases(aliases)
+                                                                                 .get()
+                                                                                 .getAliases();
+                for (ObjectObjectCursor<String, List<AliasMetaData>> cursor : found) {
+                    for (AliasMetaData alias : cursor.value) {
+                        indexes.put(repositoriesByAlias.get(alias.alias()), cursor.key);
+                    }
+                }
+            }
+            reindexingIndexes = indexes;
+            reindexingCheckTime = now;
+        }
+        return reindexingIndexes.get(repositoryName);
+    }
+
+    /**
+     * Restores the settings of the index into which a repository has been re-indexed, then atomically points the
+     * repository index name to it and deletes the previous index.
+     *
+     * @param restore the settings returned by {@link #createReindexingIndex}
+     * @since 9.1
+     */
+    public void completeReindexing(String repositoryName, String indexName, Settings restore) {
+        String alias = getIndexNameForRepository(repositoryName);
+        // the repository index may have been re-created as a concrete index meanwhile, it is not deleted
+        checkRepositoryIndexIsAlias(repositoryName, alias);
+        getClient().admin().indices().prepareUpdateSettings(indexName).setSettings(restore).execute().actionGet();
+        getClient().admin().indices().prepareRefresh(indexName).execute().actionGet();
+        checkClusterHealth(indexName);
+        IndicesAliasesRequestBuilder request = getClient().admin()
+                                                          .indices()
+                                                          .prepareAliases()
+                                                          .removeAlias(indexName, alias + REINDEXING_ALIAS_SUFFIX)
+                                                          .addAlias(indexName, alias);
+        List<String> previousIndexes = getAliasedIndexes(alias);
+        for (String previousIndex : previousIndexes) {
+            request.removeAlias(previousIndex, alias);
+        }
+        request.execute().actionGet();
+        reindexingCheckTime = 0;
+        log.warn(String.format("Repository: %s re-indexed, alias: %s now points to index: %s", repositoryName, alias,
+                indexName));
+        for (String previousIndex : previousIndexes) {
+            log.info("Deleting previous index: " + previousIndex);
+            getClient().admin().indices().delete(new DeleteIndexRequest(previousIndex)).actionGet();
+        }
+    }
+
+    protected ElasticSearchIndexConfig getRepositoryIndexConfig(String repositoryName) {
+        for (ElasticSearchIndexConfig conf : indexConfig.values()) {
+            if (conf.isDocumentIndex() && repositoryName.equals(conf.getRepositoryName())) {
+                return conf;
+            }
+        }
+        throw new NoSuchElementException("No index defined for repository: " + repositoryName);
+    }
 }
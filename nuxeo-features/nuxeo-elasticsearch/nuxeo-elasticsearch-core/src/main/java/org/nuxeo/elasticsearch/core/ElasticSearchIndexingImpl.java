@@ -20,17 +20,24 @@
 
 package org.nuxeo.elasticsearch.core;
 
-import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.CHILDREN_FIELD;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.DOC_TYPE;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.INDEX_BULK_MAX_IN_FLIGHT_PROPERTY;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.INDEX_BULK_MAX_SIZE_PROPERTY;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.PATH_FIELD;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BUCKET_READ_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BUCKET_WRITE_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_STATUS_TYPE;
 
 import java.io.IOException;
-import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -42,10 +49,15 @@ import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.get.GetRequestBuilder;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
+import org.elasticsearch.action.index.IndexRequest.OpType;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
@@ -56,14 +68,19 @@ import org.elasticsearch.search.SearchHit;
 import org.nuxeo.common.logging.SequenceTracer;
 import org.nuxeo.ecm.automation.jaxrs.io.documents.JsonESDocumentWriter;
 import org.nuxeo.ecm.core.api.ConcurrentUpdateException;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.CoreSessionService;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.NuxeoException;
-import org.nuxeo.elasticsearch.api.ElasticSearchIndexing;
+import org.nuxeo.ecm.core.api.ScrollResult;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.elasticsearch.Timestamp;
 import org.nuxeo.elasticsearch.commands.IndexingCommand;
 import org.nuxeo.elasticsearch.commands.IndexingCommand.Type;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.metrics.MetricsService;
+import org.nuxeo.runtime.transaction.TransactionHelper;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
@@ -71,9 +88,19 @@ import com.codahale.metrics.Timer;
 import com.codahale.metrics.Timer.Context;
 
 /**
+ * Sends the indexing commands to Elasticsearch.
+ * <p>
+ * This class is also the engine of the repository re-indexing: the documents are written to a new index, split into
+ * slices of document id ranges processed concurrently by {@link org.nuxeo.elasticsearch.work.SliceIndexingWorker}.
+ * Each slice checkpoints its progress in the new index so that it can be resumed after a restart, and the commands
+ * received meanwhile are written to both indexes. The new index replaces the current one when all slices are done.
+ * <p>
+ * The scheduling of the indexing jobs is left to the {@link org.nuxeo.elasticsearch.ElasticSearchComponent}, which
+ * implements {@link org.nuxeo.elasticsearch.api.ElasticSearchIndexing} on top of this class.
+ *
  * @since 6.0
  */
-public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
+public class ElasticSearchIndexingImpl {
     private static final Log log = LogFactory.getLog(ElasticSearchIndexingImpl.class);
 
     // debug curl line max size
@@ -82,6 +109,34 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
     // send the bulk indexing command when this size is reached, optimal is 5-10m
     private static final int DEFAULT_MAX_BULK_SIZE = 5 * 1024 * 1024;
 
+    // number of ranges of document ids, the unit of progress of a re-indexing slice
+    protected static final int ID_RANGES = 4096;
+
+    // ids that can be split into ranges by their first hex digits
+    protected static final Pattern UUID_PATTERN = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    protected static final String REINDEX_STATUS_ID = "reindex";
+
+    protected static final String REINDEX_COMPLETED_ID = "completed";
+
+    protected static final String SLICE_STATUS_PREFIX = "slice-";
+
+    private static final String DEFAULT_BUCKET_READ_SIZE = "500";
+
+    private static final String DEFAULT_BUCKET_WRITE_SIZE = "50";
+
+    private static final String DEFAULT_MAX_BULK_IN_FLIGHT = "2";
+
+    // number of documents loaded by a single query when building a bulk request
+    protected static final int PREFETCH_SIZE = 100;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // rendering buffer reused by each indexing thread, reset keeps a single page
+    private static final ThreadLocal<BytesStreamOutput> RENDER_BUFFER = ThreadLocal.withInitial(
+            BytesStreamOutput::new);
+
     private final ElasticSearchAdminImpl esa;
 
     private final Timer deleteTimer;
@@ -90,6 +145,12 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
 
     private final Timer bulkIndexTimer;
 
+    private final Timer bulkFetchTimer;
+
+    private final Timer bulkRenderTimer;
+
+    private final Timer bulkSendTimer;
+
     private final boolean useExternalVersion;
 
     private JsonESDocumentWriter jsonESDocumentWriter;
@@ -100,6 +161,11 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
         indexTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "index"));
         deleteTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "delete"));
         bulkIndexTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkIndex"));
+        bulkFetchTimer = registry.timer(
+                MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkIndex", "fetch"));
+        bulkRenderTimer = registry.timer(
+                MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkIndex", "render"));
+        bulkSendTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkIndex", "send"));
         this.jsonESDocumentWriter = new JsonESDocumentWriter();// default writer
         this.useExternalVersion = esa.useExternalVersion();
     }
@@ -112,17 +178,6 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
         this.jsonESDocumentWriter = jsonESDocumentWriter;
     }
 
-    @Override
-    public void runIndexingWorker(List<IndexingCommand> cmds) {
-        throw new UnsupportedOperationException("Not implemented");
-    }
-
-    @Override
-    public void runReindexingWorker(String repositoryName, String nxql) {
-        throw new UnsupportedOperationException("Not implemented");
-    }
-
-    @Override
     public void indexNonRecursive(List<IndexingCommand> cmds) {
         int nbCommands = cmds.size();
         if (nbCommands == 1) {
@@ -152,10 +207,29 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
     }
 
     void processBulkIndexCommands(List<IndexingCommand> cmds) {
-        BulkRequestBuilder bulkRequest = esa.getClient().prepareBulk();
+        processBulkIndexCommands(cmds, null);
+    }
+
+    /**
+     * @param indexName the index to write to, or {@code null} for the repository index and the index being built by
+     *            its re-indexing if any
+     */
+    void processBulkIndexCommands(List<IndexingCommand> cmds, String indexName) {
+        processBulkIndexCommands(cmds, indexName, null);
+    }
+
+    /**
+     * Indexes the documents of the commands, loading them by batches and sending the bulk requests asynchronously so
+     * that the next request is built while the previous ones are processed.
+     *
+     * @param indexName the index to write to, or {@code null} for the repository index and the index being built by
+     *            its re-indexing if any
+     * @param docs the already loaded documents by id, or {@code null} to load them
+     * @since 9.1
+     */
+    void processBulkIndexCommands(List<IndexingCommand> cmds, String indexName, Map<String, DocumentModel> docs) {
+        List<IndexingCommand> indexCmds = new ArrayList<>(cmds.size());
         Set<String> docIds = new HashSet<>(cmds.size());
-        int bulkSize = 0;
-        final int maxBulkSize = getMaxBulkSize();
         for (IndexingCommand cmd : cmds) {
             if (cmd.getType() == Type.DELETE || cmd.getType() == Type.UPDATE_DIRECT_CHILDREN) {
                 continue;
@@ -164,27 +238,103 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
                 // do not submit the same doc 2 times
                 continue;
             }
-            try {
-                IndexRequestBuilder idxRequest = buildEsIndexingRequest(cmd);
-                if (idxRequest != null) {
-                    bulkSize += idxRequest.request().source().length();
-                    bulkRequest.add(idxRequest);
+            indexCmds.add(cmd);
+        }
+        BulkRequestPipeline pipeline = new BulkRequestPipeline(getMaxBulkInFlight(), bulkSendTimer, response -> {
+            if (response.hasFailures()) {
+                logBulkFailure(response);
+            }
+        });
+        BulkRequestBuilder bulkRequest = esa.getClient().prepareBulk();
+        int bulkSize = 0;
+        final int maxBulkSize = getMaxBulkSize();
+        Map<String, DocumentModel> batch = docs;
+        try {
+            for (int i = 0; i < indexCmds.size(); i++) {
+                if (docs == null && i % PREFETCH_SIZE == 0) {
+                    try (Context ignored = bulkFetchTimer.time()) {
+                        batch = prefetchDocuments(indexCmds.subList(i, Math.min(i + PREFETCH_SIZE, indexCmds.size())));
+                    }
+                }
+                IndexingCommand cmd = indexCmds.get(i);
+                try {
+                    IndexRequestBuilder idxRequest = buildEsIndexingRequest(cmd, batch.get(cmd.getTargetDocumentId()),
+                            indexName);
+                    if (idxRequest != null) {
+                        bulkSize += idxRequest.request().source().length();
+                        bulkRequest.add(idxRequest);
+                        String reindexingIndex = indexName == null ? esa.getReindexingIndex(cmd.getRepositoryName())
+                                : null;
+                        if (reindexingIndex != null) {
+                            bulkSize += idxRequest.request().source().length();
+                            bulkRequest.add(prepareIndex(reindexingIndex, cmd, idxRequest.request().source()));
+                        }
+                    }
+                } catch (ConcurrentUpdateException e) {
+                    throw e; // bubble up, usually until AbstractWork catches it and maybe retries
+                } catch (DocumentNotFoundException e) {
+                    log.info("Ignore indexing command in bulk, doc does not exists anymore: " + cmd);
+                } catch (IllegalArgumentException e) {
+                    log.error("Ignore indexing command in bulk, fail to create request: " + cmd, e);
+                }
+                if (bulkSize > maxBulkSize) {
+                    log.warn("Max bulk size reached " + bulkSize + ", sending bulk command");
+                    sendBulkCommand(pipeline, bulkRequest, bulkSize);
+                    bulkRequest = esa.getClient().prepareBulk();
+                    bulkSize = 0;
+                }
+            }
+            sendBulkCommand(pipeline, bulkRequest, bulkSize);
+        } finally {
+            pipeline.awaitCompletion();
+        }
+        pipeline.checkFailure();
+    }
+
+    /**
+     * Loads the target documents of the commands with one query per session.
+     *
+     * @return the loaded documents by id, documents that are not visible by a query are missing and loaded one by one
+     *         when building their indexing request
+     * @since 9.1
+     */
+    protected Map<String, DocumentModel> prefetchDocuments(List<IndexingCommand> cmds) {
+        Map<String, List<String>> idsBySession = new LinkedHashMap<>();
+        for (IndexingCommand cmd : cmds) {
+            if (cmd.getSessionId() != null) {
+                idsBySession.computeIfAbsent(cmd.getSessionId(), k -> new ArrayList<>()).add(cmd.getTargetDocumentId());
+            }
+        }
+        Map<String, DocumentModel> docs = new HashMap<>(cmds.size());
+        idsBySession.forEach((sessionId, ids) -> {
+            CoreSession session = Framework.getService(CoreSessionService.class).getCoreSession(sessionId);
+            if (session != null) {
+                for (DocumentModel doc : queryDocuments(session, ids)) {
+                    docs.put(doc.getId(), doc);
                 }
-            } catch (ConcurrentUpdateException e) {
-                throw e; // bubble up, usually until AbstractWork catches it and maybe retries
-            } catch (DocumentNotFoundException e) {
-                log.info("Ignore indexing command in bulk, doc does not exists anymore: " + cmd);
-            } catch (IllegalArgumentException e) {
-                log.error("Ignore indexing command in bulk, fail to create request: " + cmd, e);
             }
-            if (bulkSize > maxBulkSize) {
-                log.warn("Max bulk size reached " + bulkSize + ", sending bulk command");
-                sendBulkCommand(bulkRequest, bulkSize);
-                bulkRequest = esa.getClient().prepareBulk();
-                bulkSize = 0;
+        });
+        return docs;
+    }
+
+    /**
+     * @since 9.1
+     */
+    protected List<DocumentModel> queryDocuments(CoreSession session, List<String> ids) {
+        return session.query(getDocumentsQuery(ids));
+    }
+
+    protected static String getDocumentsQuery(List<String> ids) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SELECT * FROM Document, Relation WHERE ecm:uuid IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sb.append(NXQL.escapeString(ids.get(i)));
+            if (i < ids.size() - 1) {
+                sb.append(", ");
             }
         }
-        sendBulkCommand(bulkRequest, bulkSize);
+        sb.append(")");
+        return sb.toString();
     }
 
     int getMaxBulkSize() {
@@ -192,21 +342,44 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
         return Integer.parseInt(value);
     }
 
+    int getMaxBulkInFlight() {
+        String value = Framework.getProperty(INDEX_BULK_MAX_IN_FLIGHT_PROPERTY, DEFAULT_MAX_BULK_IN_FLIGHT);
+        return Math.max(1, Integer.parseInt(value));
+    }
+
     void sendBulkCommand(BulkRequestBuilder bulkRequest, int bulkSize) {
         if (bulkRequest.numberOfActions() > 0) {
-            if (log.isDebugEnabled()) {
-                logDebugMessageTruncated(String.format(
-                        "Index %d docs (%d bytes) in bulk request: curl -XPOST 'http://localhost:9200/_bulk' -d '%s'",
-                        bulkRequest.numberOfActions(), bulkSize,
-                        bulkRequest.request().requests().toString()), MAX_CURL_LINE);
-            }
-            BulkResponse response = bulkRequest.execute().actionGet();
-            if (response.hasFailures()) {
-                logBulkFailure(response);
+            logBulkCommand(bulkRequest, bulkSize);
+            try (Context ignored = bulkSendTimer.time()) {
+                BulkResponse response = bulkRequest.execute().actionGet();
+                if (response.hasFailures()) {
+                    logBulkFailure(response);
+                }
             }
         }
     }
 
+    /**
+     * Sends the bulk request without waiting for its response.
+     *
+     * @since 9.1
+     */
+    void sendBulkCommand(BulkRequestPipeline pipeline, BulkRequestBuilder bulkRequest, int bulkSize) {
+        if (bulkRequest.numberOfActions() > 0) {
+            logBulkCommand(bulkRequest, bulkSize);
+            pipeline.send(bulkRequest);
+        }
+    }
+
+    protected void logBulkCommand(BulkRequestBuilder bulkRequest, int bulkSize) {
+        if (log.isDebugEnabled()) {
+            logDebugMessageTruncated(String.format(
+                    "Index %d docs (%d bytes) in bulk request: curl -XPOST 'http://localhost:9200/_bulk' -d '%s'",
+                    bulkRequest.numberOfActions(), bulkSize, bulkRequest.request().requests().toString()),
+                    MAX_CURL_LINE);
+        }
+    }
+
     void logBulkFailure(BulkResponse response) {
         boolean isError = false;
         StringBuilder sb = new StringBuilder();
@@ -242,7 +415,6 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
         return false;
     }
 
-    @Override
     public void indexNonRecursive(IndexingCommand cmd) {
         Type type = cmd.getType();
         if (type == Type.UPDATE_DIRECT_CHILDREN) {
@@ -281,6 +453,14 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
                     esa.getIndexNameForRepository(cmd.getRepositoryName()), DOC_TYPE, cmd.getTargetDocumentId(),
                     request.request().toString()), MAX_CURL_LINE);
         }
+        executeIndexRequest(cmd, request);
+        String reindexingIndex = esa.getReindexingIndex(cmd.getRepositoryName());
+        if (reindexingIndex != null) {
+            executeIndexRequest(cmd, prepareIndex(reindexingIndex, cmd, request.request().source()));
+        }
+    }
+
+    void executeIndexRequest(IndexingCommand cmd, IndexRequestBuilder request) {
         try {
             request.execute().actionGet();
         } catch (VersionConflictEngineException e) {
@@ -300,15 +480,31 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
     }
 
     void processDeleteCommand(IndexingCommand cmd) {
+        String indexName = esa.getIndexNameForRepository(cmd.getRepositoryName());
+        String reindexingIndex = esa.getReindexingIndex(cmd.getRepositoryName());
         if (cmd.isRecurse()) {
-            processDeleteCommandRecursive(cmd);
+            // we don't want to rely on target document because the document can be
+            // already removed
+            String docPath = getPathOfDocFromEs(cmd.getRepositoryName(), cmd.getTargetDocumentId());
+            if (docPath == null) {
+                if (!Framework.isTestModeSet()) {
+                    log.warn("Trying to delete a non existing doc: " + cmd.toString());
+                }
+                return;
+            }
+            processDeleteCommandRecursive(indexName, docPath);
+            if (reindexingIndex != null) {
+                processDeleteCommandRecursive(reindexingIndex, docPath);
+            }
         } else {
-            processDeleteCommandNonRecursive(cmd);
+            processDeleteCommandNonRecursive(cmd, indexName);
+            if (reindexingIndex != null) {
+                processDeleteCommandNonRecursive(cmd, reindexingIndex);
+            }
         }
     }
 
-    void processDeleteCommandNonRecursive(IndexingCommand cmd) {
-        String indexName = esa.getIndexNameForRepository(cmd.getRepositoryName());
+    void processDeleteCommandNonRecursive(IndexingCommand cmd, String indexName) {
         DeleteRequestBuilder request = esa.getClient().prepareDelete(indexName, DOC_TYPE, cmd.getTargetDocumentId());
         if (log.isDebugEnabled()) {
             log.debug(String.format("Delete request: curl -XDELETE 'http://localhost:9200/%s/%s/%s'", indexName,
@@ -317,17 +513,7 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
         request.execute().actionGet();
     }
 
-    void processDeleteCommandRecursive(IndexingCommand cmd) {
-        String indexName = esa.getIndexNameForRepository(cmd.getRepositoryName());
-        // we don't want to rely on target document because the document can be
-        // already removed
-        String docPath = getPathOfDocFromEs(cmd.getRepositoryName(), cmd.getTargetDocumentId());
-        if (docPath == null) {
-            if (!Framework.isTestModeSet()) {
-                log.warn("Trying to delete a non existing doc: " + cmd.toString());
-            }
-            return;
-        }
+    void processDeleteCommandRecursive(String indexName, String docPath) {
         // Refresh index before bulk delete
         esa.getClient().admin().indices().prepareRefresh(indexName).get();
 
@@ -396,26 +582,287 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
      * @throws java.lang.IllegalStateException if the command is not attached to a session
      */
     IndexRequestBuilder buildEsIndexingRequest(IndexingCommand cmd) {
-        DocumentModel doc = cmd.getTargetDocument();
+        return buildEsIndexingRequest(cmd, null);
+    }
+
+    /**
+     * Return indexing request to the given index, or to the repository index if {@code null}, or null if the doc does
+     * not exists anymore.
+     *
+     * @throws java.lang.IllegalStateException if the command is not attached to a session
+     * @since 9.1
+     */
+    IndexRequestBuilder buildEsIndexingRequest(IndexingCommand cmd, String indexName) {
+        return buildEsIndexingRequest(cmd, null, indexName);
+    }
+
+    /**
+     * Return indexing request of an already loaded document to the given index, or to the repository index if
+     * {@code null}, or null if the doc does not exists anymore.
+     *
+     * @param doc the document, or {@code null} to load it
+     * @throws java.lang.IllegalStateException if the command is not attached to a session
+     * @since 9.1
+     */
+    IndexRequestBuilder buildEsIndexingRequest(IndexingCommand cmd, DocumentModel doc, String indexName) {
         if (doc == null) {
-            return null;
+            try (Context ignored = bulkFetchTimer.time()) {
+                doc = cmd.getTargetDocument();
+            }
+            if (doc == null) {
+                return null;
+            }
         }
-        try {
-            JsonFactory factory = new JsonFactory();
-            OutputStream out = new BytesStreamOutput();
-            JsonGenerator jsonGen = factory.createJsonGenerator(out);
+        BytesReference source;
+        BytesStreamOutput out = RENDER_BUFFER.get();
+        try (Context ignored = bulkRenderTimer.time()) {
+            JsonGenerator jsonGen = JSON_FACTORY.createJsonGenerator(out);
             jsonESDocumentWriter.writeESDocument(jsonGen, doc, cmd.getSchemas(), null);
-            IndexRequestBuilder ret = esa.getClient()
-                                         .prepareIndex(esa.getIndexNameForRepository(cmd.getRepositoryName()), DOC_TYPE,
-                                                 cmd.getTargetDocumentId())
-                                         .setSource(jsonBuilder(out));
-            if (useExternalVersion && cmd.getOrder() > 0) {
-                ret.setVersionType(VersionType.EXTERNAL).setVersion(cmd.getOrder());
-            }
-            return ret;
+            source = out.bytes().copyBytesArray();
         } catch (IOException e) {
             throw new NuxeoException("Unable to create index request for Document " + cmd.getTargetDocumentId(), e);
+        } finally {
+            out.reset();
+        }
+        if (indexName == null) {
+            indexName = esa.getIndexNameForRepository(cmd.getRepositoryName());
+        }
+        return prepareIndex(indexName, cmd, source);
+    }
+
+    IndexRequestBuilder prepareIndex(String indexName, IndexingCommand cmd, BytesReference source) {
+        IndexRequestBuilder ret = esa.getClient()
+                                     .prepareIndex(indexName, DOC_TYPE, cmd.getTargetDocumentId())
+                                     .setSource(source);
+        if (useExternalVersion && cmd.getOrder() > 0) {
+            ret.setVersionType(VersionType.EXTERNAL).setVersion(cmd.getOrder());
+        }
+        return ret;
+    }
+
+    // Re-indexing ============================================================
+
+    /**
+     * Creates the index into which a repository is re-indexed and initializes the status of its slices.
+     *
+     * @return the name of the new index
+     * @since 9.1
+     */
+    public String startReindexing(String repositoryName, int slices) {
+        if (slices < 1 || slices > ID_RANGES) {
+            throw new IllegalArgumentException("Invalid number of slices: " + slices);
+        }
+        String indexName = esa.getIndexNameForRepository(repositoryName) + "-" + System.currentTimeMillis();
+        Settings restore = esa.createReindexingIndex(repositoryName, indexName);
+        Map<String, Object> status = new HashMap<>();
+        status.put("repository", repositoryName);
+        status.put("slices", slices);
+        // field names cannot contain dots
+        status.put("refreshInterval", restore.get(ElasticSearchAdminImpl.REFRESH_INTERVAL_SETTING));
+        status.put("replicas", restore.get(ElasticSearchAdminImpl.NUMBER_OF_REPLICAS_SETTING));
+        status.put("startTime", System.currentTimeMillis());
+        BulkRequestBuilder bulkRequest = esa.getClient().prepareBulk();
+        bulkRequest.add(esa.getClient().prepareIndex(indexName, REINDEX_STATUS_TYPE, REINDEX_STATUS_ID).setSource(
+                status));
+        for (int slice = 0; slice < slices; slice++) {
+            bulkRequest.add(esa.getClient()
+                               .prepareIndex(indexName, REINDEX_STATUS_TYPE, SLICE_STATUS_PREFIX + slice)
+                               .setSource(getSliceStatus(getFirstIdRange(slice, slices), 0, false)));
+        }
+        BulkResponse response = bulkRequest.execute().actionGet();
+        if (response.hasFailures()) {
+            throw new NuxeoException("Unable to initialize the re-indexing status: " + response.buildFailureMessage());
+        }
+        log.warn(String.format("Re-indexing repository: %s into index: %s using %d slices", repositoryName,
+                indexName, slices));
+        return indexName;
+    }
+
+    /**
+     * Gets the slices of a re-indexing that are not done yet.
+     *
+     * @since 9.1
+     */
+    public List<Integer> getPendingSlices(String indexName) {
+        List<Integer> pending = new ArrayList<>();
+        for (MultiGetItemResponse item : getSliceStatuses(indexName)) {
+            Map<String, Object> source = item.getResponse().getSource();
+            if (!Boolean.TRUE.equals(source.get("done"))) {
+                pending.add(Integer.valueOf(item.getId().substring(SLICE_STATUS_PREFIX.length())));
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Re-indexes the documents of a slice, one range of ids after the other, starting from the last checkpoint. The
+     * re-indexing is completed by the last slice to finish.
+     * <p>
+     * The ranges split UUIDs. When the repository uses another id type, such as sequence ids, the first slice
+     * re-indexes all the documents in a single pass and the other slices have nothing to do.
+     *
+     * @since 9.1
+     */
+    public void reindexSlice(CoreSession session, String indexName, int slice) {
+        Map<String, Object> status = getStatus(indexName, REINDEX_STATUS_ID);
+        int slices = ((Number) status.get("slices")).intValue();
+        Map<String, Object> sliceStatus = getStatus(indexName, SLICE_STATUS_PREFIX + slice);
+        if (Boolean.TRUE.equals(sliceStatus.get("done"))) {
+            return;
+        }
+        long count = ((Number) sliceStatus.get("count")).longValue();
+        int last = getFirstIdRange(slice + 1, slices);
+        if (!UUID_PATTERN.matcher(session.getRootDocument().getId()).matches()) {
+            if (slice == 0) {
+                for (String type : new String[] { "Document", "Relation" }) {
+                    count += reindexQuery(session, indexName, "SELECT ecm:uuid FROM " + type);
+                }
+            }
+            saveSliceStatus(indexName, slice, last, count, true);
+        } else {
+            for (int range = ((Number) sliceStatus.get("next")).intValue(); range < last; range++) {
+                for (String type : new String[] { "Document", "Relation" }) {
+                    count += reindexQuery(session, indexName, getIdRangeQuery(type, range));
+                }
+                saveSliceStatus(indexName, slice, range + 1, count, range + 1 == last);
+            }
+        }
+        log.info(String.format("Re-indexing slice: %d of index: %s done, %d documents", slice, indexName, count));
+        completeReindexingIfDone(session.getRepositoryName(), indexName, status);
+    }
+
+    /**
+     * Re-indexes the documents returned by a query of ids, committing the transaction after each scroll.
+     *
+     * @return the number of documents
+     */
+    protected long reindexQuery(CoreSession session, String indexName, String query) {
+        int readSize = Integer.parseInt(Framework.getProperty(REINDEX_BUCKET_READ_PROPERTY, DEFAULT_BUCKET_READ_SIZE));
+        int writeSize = Integer.parseInt(
+                Framework.getProperty(REINDEX_BUCKET_WRITE_PROPERTY, DEFAULT_BUCKET_WRITE_SIZE));
+        long count = 0;
+        ScrollResult ret = session.scroll(query, readSize, 60);
+        while (ret.hasResults()) {
+            List<String> ids = ret.getResultIds();
+            for (int i = 0; i < ids.size(); i += writeSize) {
+                indexDocuments(session, indexName, ids.subList(i, Math.min(i + writeSize, ids.size())));
+            }
+            count += ids.size();
+            ret = session.scroll(ret.getScrollId());
+            TransactionHelper.commitOrRollbackTransaction();
+            TransactionHelper.startTransaction();
+        }
+        return count;
+    }
+
+    protected void saveSliceStatus(String indexName, int slice, int next, long count, boolean done) {
+        esa.getClient()
+           .prepareIndex(indexName, REINDEX_STATUS_TYPE, SLICE_STATUS_PREFIX + slice)
+           .setSource(getSliceStatus(next, count, done))
+           .execute()
+           .actionGet();
+    }
+
+    protected void completeReindexingIfDone(String repositoryName, String indexName, Map<String, Object> status) {
+        if (!getPendingSlices(indexName).isEmpty()) {
+            return;
+        }
+        try {
+            // only one of the last slices completes the re-indexing
+            esa.getClient()
+               .prepareIndex(indexName, REINDEX_STATUS_TYPE, REINDEX_COMPLETED_ID)
+               .setOpType(OpType.CREATE)
+               .setSource("time", System.currentTimeMillis())
+               .execute()
+               .actionGet();
+        } catch (VersionConflictEngineException e) {
+            return;
+        }
+        // the status documents are kept, searches only target the document type
+        Settings restore = Settings.settingsBuilder()
+                                   .put(ElasticSearchAdminImpl.REFRESH_INTERVAL_SETTING,
+                                           (String) status.get("refreshInterval"))
+                                   .put(ElasticSearchAdminImpl.NUMBER_OF_REPLICAS_SETTING,
+                                           (String) status.get("replicas"))
+                                   .build();
+        esa.completeReindexing(repositoryName, indexName, restore);
+    }
+
+    protected Map<String, Object> getStatus(String indexName, String id) {
+        GetResponse response = esa.getClient().prepareGet(indexName, REINDEX_STATUS_TYPE, id).get();
+        if (!response.isExists()) {
+            throw new NuxeoException("No re-indexing status: " + id + " in index: " + indexName);
+        }
+        return response.getSource();
+    }
+
+    protected List<MultiGetItemResponse> getSliceStatuses(String indexName) {
+        int slices = ((Number) getStatus(indexName, REINDEX_STATUS_ID).get("slices")).intValue();
+        MultiGetRequestBuilder request = esa.getClient().prepareMultiGet();
+        for (int slice = 0; slice < slices; slice++) {
+            request.add(indexName, REINDEX_STATUS_TYPE, SLICE_STATUS_PREFIX + slice);
+        }
+        List<MultiGetItemResponse> items = new ArrayList<>(slices);
+        for (MultiGetItemResponse item : request.get()) {
+            if (item.isFailed() || !item.getResponse().isExists()) {
+                throw new NuxeoException("No re-indexing status: " + item.getId() + " in index: " + indexName);
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    protected Map<String, Object> getSliceStatus(int next, long count, boolean done) {
+        Map<String, Object> source = new HashMap<>();
+        source.put("next", next);
+        source.put("count", count);
+        source.put("done", done);
+        return source;
+    }
+
+    /**
+     * Gets the first range of ids of a slice, the ranges being evenly distributed between the slices.
+     */
+    protected static int getFirstIdRange(int slice, int slices) {
+        return (int) ((long) slice * ID_RANGES / slices);
+    }
+
+    /**
+     * Gets the query of the ids of the documents of the given type in a range. The bounds are UUIDs starting with the
+     * 3 hex digits of the range number, the first and last ranges being open so that any id is in exactly one range.
+     */
+    protected static String getIdRangeQuery(String type, int range) {
+        StringBuilder sb = new StringBuilder("SELECT ecm:uuid FROM ").append(type);
+        if (range > 0) {
+            sb.append(" WHERE ecm:uuid >= ").append(NXQL.escapeString(getIdRangeBound(range)));
+        }
+        if (range < ID_RANGES - 1) {
+            sb.append(range > 0 ? " AND " : " WHERE ");
+            sb.append("ecm:uuid < ").append(NXQL.escapeString(getIdRangeBound(range + 1)));
+        }
+        return sb.toString();
+    }
+
+    protected static String getIdRangeBound(int range) {
+        return String.format("%03x00000-0000-0000-0000-000000000000", range);
+    }
+
+    protected void indexDocuments(CoreSession session, String indexName, List<String> ids) {
+        List<IndexingCommand> cmds = new ArrayList<>(ids.size());
+        Map<String, DocumentModel> docs = new HashMap<>(ids.size());
+        long now = Timestamp.currentTimeMicros();
+        try (Context ignored = bulkFetchTimer.time()) {
+            for (DocumentModel doc : session.query(getDocumentsQuery(ids))) {
+                IndexingCommand cmd = new IndexingCommand(doc, Type.INSERT, false, false);
+                cmd.setOrder(now);
+                cmds.add(cmd);
+                docs.put(doc.getId(), doc);
+            }
+        }
+        try (Context ignored = bulkIndexTimer.time()) {
+            processBulkIndexCommands(cmds, indexName, docs);
         }
+        esa.totalCommandProcessed.addAndGet(cmds.size());
     }
 
 }
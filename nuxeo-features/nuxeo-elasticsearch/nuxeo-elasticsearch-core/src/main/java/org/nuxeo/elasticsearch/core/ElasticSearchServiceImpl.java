@@ -21,6 +21,8 @@
 package org.nuxeo.elasticsearch.core;
 
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.DOC_TYPE;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.QUERY_CACHE_MAX_SIZE_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.QUERY_CACHE_REFRESH_CHECK_INTERVAL_PROPERTY;
 
 import java.util.List;
 
@@ -44,6 +46,7 @@ import org.nuxeo.ecm.platform.query.api.Aggregate;
 import org.nuxeo.ecm.platform.query.api.Bucket;
 import org.nuxeo.elasticsearch.aggregate.AggregateEsBase;
 import org.nuxeo.elasticsearch.api.ElasticSearchService;
+import org.nuxeo.elasticsearch.api.EsDocumentIterable;
 import org.nuxeo.elasticsearch.api.EsResult;
 import org.nuxeo.elasticsearch.api.EsScrollResult;
 import org.nuxeo.elasticsearch.fetcher.Fetcher;
@@ -64,6 +67,10 @@ public class ElasticSearchServiceImpl implements ElasticSearchService {
 
     private static final java.lang.String LOG_MIN_DURATION_FETCH_KEY = "org.nuxeo.elasticsearch.core.log_min_duration_fetch_ms";
 
+    private static final String DEFAULT_QUERY_CACHE_MAX_SIZE = "1000";
+
+    private static final String DEFAULT_QUERY_CACHE_REFRESH_CHECK_INTERVAL = "1000";
+
     private static final long LOG_MIN_DURATION_FETCH_NS = Long.parseLong(
             Framework.getProperty(LOG_MIN_DURATION_FETCH_KEY, "200")) * 1000000;
 
@@ -78,11 +85,20 @@ public class ElasticSearchServiceImpl implements ElasticSearchService {
 
     private final ElasticSearchAdminImpl esa;
 
+    // null when disabled
+    protected final SearchResponseCache queryCache;
+
     public ElasticSearchServiceImpl(ElasticSearchAdminImpl esa) {
         this.esa = esa;
         searchTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "search"));
         scrollTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "scroll"));
         fetchTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "fetch"));
+        long queryCacheSize = Long.parseLong(
+                Framework.getProperty(QUERY_CACHE_MAX_SIZE_PROPERTY, DEFAULT_QUERY_CACHE_MAX_SIZE));
+        long refreshCheckInterval = Long.parseLong(Framework.getProperty(QUERY_CACHE_REFRESH_CHECK_INTERVAL_PROPERTY,
+                DEFAULT_QUERY_CACHE_REFRESH_CHECK_INTERVAL));
+        queryCache = queryCacheSize > 0 ? new SearchResponseCache(esa, queryCacheSize, refreshCheckInterval, registry)
+                : null;
     }
 
     @Deprecated
@@ -144,6 +160,11 @@ public class ElasticSearchServiceImpl implements ElasticSearchService {
         clearScroll(scrollResult.getScrollId());
     }
 
+    @Override
+    public EsDocumentIterable scrollDocuments(NxQueryBuilder queryBuilder, long keepAlive) {
+        return new EsDocumentIterable(this, scroll(queryBuilder, keepAlive));
+    }
+
     protected void clearScroll(String scrollId) {
         if (log.isDebugEnabled()) {
             log.debug(String.format(
@@ -219,13 +240,20 @@ public class ElasticSearchServiceImpl implements ElasticSearchService {
         try (Context ignored = searchTimer.time()){
             SearchType searchType = SearchType.DFS_QUERY_THEN_FETCH;
             SearchRequestBuilder request = buildEsSearchRequest(query, searchType);
-            logSearchRequest(request, query, searchType);
-            SearchResponse response = request.execute().actionGet();
-            logSearchResponse(response);
-            return response;
+            if (queryCache != null && query.isUseQueryCache()) {
+                return queryCache.get(request, () -> search(request, query, searchType));
+            }
+            return search(request, query, searchType);
         }
     }
 
+    protected SearchResponse search(SearchRequestBuilder request, NxQueryBuilder query, SearchType searchType) {
+        logSearchRequest(request, query, searchType);
+        SearchResponse response = request.execute().actionGet();
+        logSearchResponse(response);
+        return response;
+    }
+
     protected SearchResponse searchScroll(NxQueryBuilder query, SearchType searchType, long keepAlive) {
         try (Context ignored = searchTimer.time()){
             SearchRequestBuilder request = buildEsSearchScrollRequest(query, searchType, keepAlive);
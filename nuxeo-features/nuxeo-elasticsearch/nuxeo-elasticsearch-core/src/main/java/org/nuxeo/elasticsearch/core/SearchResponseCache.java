@@ -0,0 +1,164 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.elasticsearch.core;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Node level cache of search responses, keyed by the search request which includes the security filter of the
+ * principal, the page and the aggregates.
+ * <p>
+ * The cache is invalidated when the repository indexes are refreshed: by this node, or by the cluster which is checked
+ * at most once per interval using the refresh count of the indexes.
+ *
+ * @since 9.1
+ */
+class SearchResponseCache {
+
+    protected static final String HITS_METRIC = MetricRegistry.name("nuxeo", "elasticsearch", "queryCache", "hits");
+
+    protected static final String MISSES_METRIC = MetricRegistry.name("nuxeo", "elasticsearch", "queryCache",
+            "misses");
+
+    protected static final String HIT_RATIO_METRIC = MetricRegistry.name("nuxeo", "elasticsearch", "queryCache",
+            "hitRatio");
+
+    protected final ElasticSearchAdminImpl esa;
+
+    protected final Cache<String, SearchResponse> cache;
+
+    protected final long refreshCheckInterval;
+
+    protected final Counter hits;
+
+    protected final Counter misses;
+
+    protected final AtomicLong refreshCheckTime = new AtomicLong();
+
+    protected long refreshCount = -1;
+
+    protected long localRefreshCount = -1;
+
+    // incremented on each invalidation, so that a response searched before is not cached
+    protected volatile long generation;
+
+    /**
+     * @param maxSize the maximum number of cached responses
+     * @param refreshCheckInterval the interval in ms between two checks of the index refreshes
+     */
+    SearchResponseCache(ElasticSearchAdminImpl esa, long maxSize, long refreshCheckInterval, MetricRegistry registry) {
+        this.esa = esa;
+        this.refreshCheckInterval = refreshCheckInterval;
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+        hits = registry.counter(HITS_METRIC);
+        misses = registry.counter(MISSES_METRIC);
+        if (!registry.getGauges().containsKey(HIT_RATIO_METRIC)) {
+            registry.register(HIT_RATIO_METRIC, (Gauge<Double>) () -> {
+                long count = hits.getCount() + misses.getCount();
+                return Double.valueOf(count == 0 ? 0 : (double) hits.getCount() / count);
+            });
+        }
+    }
+
+    /**
+     * Gets the cached response of the request, or executes the search and caches its response.
+     */
+    SearchResponse get(SearchRequestBuilder request, Supplier<SearchResponse> search) {
+        long searchGeneration = checkRefresh();
+        String key = StringUtils.join(request.request().indices(), ',') + '/' + request.request().searchType() + '/'
+                + request.toString();
+        SearchResponse response = cache.getIfPresent(key);
+        if (response != null) {
+            hits.inc();
+            return response;
+        }
+        misses.inc();
+        response = search.get();
+        if (response.getFailedShards() == 0 && !response.isTimedOut()) {
+            synchronized (this) {
+                if (searchGeneration == generation) {
+                    cache.put(key, response);
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Invalidates the cache if the indexes were refreshed.
+     * <p>
+     * A single thread checks the refreshes of the cluster once per interval, outside of the lock so that the other
+     * searches are not blocked by the remote call.
+     *
+     * @return the generation of the cache
+     */
+    protected long checkRefresh() {
+        long now = System.currentTimeMillis();
+        long checkTime = refreshCheckTime.get();
+        if (now - checkTime >= refreshCheckInterval && refreshCheckTime.compareAndSet(checkTime, now)) {
+            long count = getIndexesRefreshCount();
+            synchronized (this) {
+                if (count != refreshCount) {
+                    refreshCount = count;
+                    invalidate();
+                }
+            }
+        }
+        synchronized (this) {
+            long count = esa.refreshCount.get();
+            if (count != localRefreshCount) {
+                localRefreshCount = count;
+                invalidate();
+            }
+            return generation;
+        }
+    }
+
+    protected void invalidate() {
+        generation++;
+        cache.invalidateAll();
+    }
+
+    protected long getIndexesRefreshCount() {
+        String[] indexes = esa.getSearchIndexes(Collections.emptyList());
+        return esa.getClient()
+                  .admin()
+                  .indices()
+                  .prepareStats(indexes)
+                  .clear()
+                  .setRefresh(true)
+                  .get()
+                  .getTotal()
+                  .getRefresh()
+                  .getTotal();
+    }
+
+}
@@ -18,18 +18,10 @@
  */
 package org.nuxeo.elasticsearch.fetcher;
 
-import static org.nuxeo.elasticsearch.ElasticSearchConstants.HIGHLIGHT_CTX_DATA;
-
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.common.text.Text;
 import org.elasticsearch.search.SearchHit;
-import org.elasticsearch.search.highlight.HighlightField;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
@@ -52,20 +44,7 @@ public class EsFetcher extends Fetcher {
         for (SearchHit hit : getResponse().getHits()) {
             // TODO: this does not work on multi repo
             doc = DocumentModelReaders.fromSource(hit.getSource()).sid(sid).getDocumentModel();
-            // Add highlight if it exists
-            Map<String, HighlightField> esHighlights = hit.highlightFields();
-            if (!esHighlights.isEmpty()) {
-                Map<String, List<String>> fields = new HashMap<>();
-                for (Map.Entry<String, HighlightField> entry : esHighlights.entrySet()) {
-                    String field = entry.getKey();
-                    List<String> list = new ArrayList<>();
-                    for (Text fragment : entry.getValue().getFragments()) {
-                        list.add(fragment.toString());
-                    }
-                    fields.put(field, list);
-                }
-                doc.putContextData(HIGHLIGHT_CTX_DATA, (Serializable) fields);
-            }
+            addHighlights(doc, hit);
             ret.add(doc);
         }
         return ret;
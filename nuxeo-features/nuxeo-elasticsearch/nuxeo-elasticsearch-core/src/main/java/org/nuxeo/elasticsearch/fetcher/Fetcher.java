@@ -18,10 +18,20 @@
  */
 package org.nuxeo.elasticsearch.fetcher;
 
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.HIGHLIGHT_CTX_DATA;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.highlight.HighlightField;
 import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
 
 /**
@@ -53,7 +63,39 @@ public abstract class Fetcher {
         if (repoNames == null) {
             return null;
         }
-        return repoNames.get(indexName);
+        String repoName = repoNames.get(indexName);
+        if (repoName == null) {
+            // the hit comes from an index behind the repository index alias, named <alias>-<timestamp>
+            String alias = null;
+            for (String name : repoNames.keySet()) {
+                if (indexName.startsWith(name + "-") && (alias == null || name.length() > alias.length())) {
+                    alias = name;
+                }
+            }
+            repoName = alias == null ? null : repoNames.get(alias);
+        }
+        return repoName;
+    }
+
+    /**
+     * Adds the highlights of the hit to the context data of the document, if any.
+     *
+     * @since 9.1
+     */
+    protected void addHighlights(DocumentModel doc, SearchHit hit) {
+        Map<String, HighlightField> esHighlights = hit.highlightFields();
+        if (!esHighlights.isEmpty()) {
+            Map<String, List<String>> fields = new HashMap<>();
+            for (Map.Entry<String, HighlightField> entry : esHighlights.entrySet()) {
+                String field = entry.getKey();
+                List<String> list = new ArrayList<>();
+                for (Text fragment : entry.getValue().getFragments()) {
+                    list.add(fragment.toString());
+                }
+                fields.put(field, list);
+            }
+            doc.putContextData(HIGHLIGHT_CTX_DATA, (Serializable) fields);
+        }
     }
 
     abstract public DocumentModelListImpl fetchDocuments();
@@ -0,0 +1,178 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.elasticsearch.fetcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.nuxeo.ecm.core.api.CoreInstance;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DataModel;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentNotFoundException;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.impl.DocumentModelImpl;
+import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.elasticsearch.io.DocumentModelReaders;
+import org.nuxeo.elasticsearch.io.JsonDocumentModelReader;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * Builds the documents from the Elasticsearch _source like {@link EsFetcher}, then loads from the repository the
+ * schemas that are not entirely in the source, with a single call for all the documents of a repository.
+ * <p>
+ * The documents are immutable and attached to the session, so that what is not in the source, like the ACP or the
+ * lock, is loaded on demand.
+ *
+ * @since 9.1
+ */
+public class HybridFetcher extends Fetcher {
+
+    protected static final String PAGES_METRIC = MetricRegistry.name("nuxeo", "elasticsearch", "fetcher", "hybrid",
+            "pages");
+
+    protected static final String PAGES_FROM_INDEX_METRIC = MetricRegistry.name("nuxeo", "elasticsearch", "fetcher",
+            "hybrid", "pagesFromIndex");
+
+    protected static final String PAGES_FROM_INDEX_RATIO_METRIC = MetricRegistry.name("nuxeo", "elasticsearch",
+            "fetcher", "hybrid", "pagesFromIndexRatio");
+
+    protected static final String DOCUMENTS_FROM_REPOSITORY_METRIC = MetricRegistry.name("nuxeo", "elasticsearch",
+            "fetcher", "hybrid", "documentsFromRepository");
+
+    protected final Counter pages;
+
+    protected final Counter pagesFromIndex;
+
+    protected final Counter documentsFromRepository;
+
+    public HybridFetcher(CoreSession session, SearchResponse response, Map<String, String> repoNames) {
+        super(session, response, repoNames);
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        pages = registry.counter(PAGES_METRIC);
+        pagesFromIndex = registry.counter(PAGES_FROM_INDEX_METRIC);
+        documentsFromRepository = registry.counter(DOCUMENTS_FROM_REPOSITORY_METRIC);
+        if (!registry.getGauges().containsKey(PAGES_FROM_INDEX_RATIO_METRIC)) {
+            try {
+                registry.register(PAGES_FROM_INDEX_RATIO_METRIC, (Gauge<Double>) () -> {
+                    long count = pages.getCount();
+                    return Double.valueOf(count == 0 ? 0 : (double) pagesFromIndex.getCount() / count);
+                });
+            } catch (IllegalArgumentException e) {
+                // registered concurrently
+            }
+        }
+    }
+
+    @Override
+    public DocumentModelListImpl fetchDocuments() {
+        List<DocumentModel> docs = new ArrayList<>(getResponse().getHits().getHits().length);
+        // documents needing schemas from the repository, by repository then id
+        Map<String, Map<String, DocumentModel>> incomplete = new HashMap<>();
+        Map<DocumentModel, Set<String>> missingSchemas = new IdentityHashMap<>();
+        String sid = getSession().getSessionId();
+        for (SearchHit hit : getResponse().getHits()) {
+            JsonDocumentModelReader reader = DocumentModelReaders.fromSource(hit.getSource()).sid(sid);
+            DocumentModel doc = reader.getDocumentModel();
+            addHighlights(doc, hit);
+            docs.add(doc);
+            Set<String> schemas = reader.getMissingSchemas(doc);
+            if (!schemas.isEmpty()) {
+                missingSchemas.put(doc, schemas);
+                incomplete.computeIfAbsent(doc.getRepositoryName(), k -> new LinkedHashMap<>()).put(doc.getId(), doc);
+            }
+        }
+        pages.inc();
+        if (incomplete.isEmpty()) {
+            pagesFromIndex.inc();
+        }
+        Set<DocumentModel> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<String, Map<String, DocumentModel>> es : incomplete.entrySet()) {
+            Map<String, DocumentModel> repositoryDocs = es.getValue();
+            documentsFromRepository.inc(repositoryDocs.size());
+            for (DocumentModel loaded : loadDocuments(es.getKey(), repositoryDocs.keySet())) {
+                DocumentModel doc = repositoryDocs.remove(loaded.getId());
+                if (doc != null) {
+                    copySchemas(loaded, doc, missingSchemas.get(doc));
+                }
+            }
+            // not visible anymore in the repository
+            removed.addAll(repositoryDocs.values());
+        }
+        docs.removeIf(removed::contains);
+        DocumentModelListImpl ret = new DocumentModelListImpl(docs.size());
+        ret.addAll(docs);
+        return ret;
+    }
+
+    protected List<DocumentModel> loadDocuments(String repositoryName, Set<String> ids) {
+        boolean closeSession = repositoryName != null && !repositoryName.equals(getSession().getRepositoryName());
+        CoreSession session = closeSession ? CoreInstance.openCoreSession(repositoryName) : getSession();
+        try {
+            DocumentRef[] refs = ids.stream().map(IdRef::new).toArray(DocumentRef[]::new);
+            try {
+                return session.getDocuments(refs);
+            } catch (DocumentNotFoundException e) {
+                // deleted since it was indexed, the query skips missing documents
+                return session.query(getDocumentsQuery(ids));
+            }
+        } finally {
+            if (closeSession) {
+                session.close();
+            }
+        }
+    }
+
+    protected String getDocumentsQuery(Set<String> ids) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SELECT * FROM Document, Relation WHERE ecm:uuid IN (");
+        String sep = "";
+        for (String id : ids) {
+            sb.append(sep).append(NXQL.escapeString(id));
+            sep = ", ";
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+
+    protected void copySchemas(DocumentModel source, DocumentModel target, Set<String> schemas) {
+        for (String schema : schemas) {
+            DataModel dataModel = source.getDataModel(schema);
+            if (dataModel != null) {
+                ((DocumentModelImpl) target).addDataModel(dataModel);
+            }
+        }
+    }
+
+}
@@ -41,6 +41,7 @@ import org.nuxeo.ecm.core.api.impl.DocumentModelImpl;
 import org.nuxeo.ecm.core.schema.DocumentType;
 import org.nuxeo.ecm.core.schema.FacetNames;
 import org.nuxeo.ecm.core.schema.SchemaManager;
+import org.nuxeo.ecm.core.schema.types.Field;
 import org.nuxeo.ecm.core.schema.types.Schema;
 import org.nuxeo.runtime.api.Framework;
 
@@ -100,6 +101,7 @@ public class JsonDocumentModelReader {
         DocumentRef parentRef = parentId == null ? null : new IdRef(parentId);
         DocumentModelImpl doc = new DocumentModelImpl(sid, type, id, pathObj, docRef, parentRef, null, facets, sourceId,
                 repositoryName, isProxy);
+        doc.setIsVersion(Boolean.TRUE.equals(getProperty("ecm:isVersion")));
 
         // preload DataModel to prevent DB access
         for (String schemaName : doc.getSchemas()) { // all schemas including from facets
@@ -136,6 +138,31 @@ public class JsonDocumentModelReader {
         return doc;
     }
 
+    /**
+     * Gets the schemas of the document having fields that are not in the source, because they are excluded from the
+     * fetched source or were not indexed.
+     *
+     * @since 9.1
+     */
+    public Set<String> getMissingSchemas(DocumentModel doc) {
+        SchemaManager schemaManager = Framework.getService(SchemaManager.class);
+        Set<String> ret = new HashSet<>();
+        for (String schemaName : doc.getSchemas()) {
+            Schema schema = schemaManager.getSchema(schemaName);
+            String prefix = schema.getNamespace().prefix;
+            if (prefix == null || prefix.isEmpty()) {
+                prefix = schemaName;
+            }
+            for (Field field : schema.getFields()) {
+                if (!source.containsKey(prefix + ":" + field.getName().getLocalName())) {
+                    ret.add(schemaName);
+                    break;
+                }
+            }
+        }
+        return ret;
+    }
+
     protected Serializable getProperty(String name) {
         return (Serializable) source.get(name);
     }
@@ -56,6 +56,30 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
 
     public static final String SEARCH_ON_ALL_REPOSITORIES_PROPERTY = "searchAllRepositories";
 
+    /**
+     * Where the documents of the page are built from: "database" (the default), "elasticsearch", or "hybrid" to build
+     * them from Elasticsearch and load from the database the schemas that are not in the index.
+     *
+     * @since 9.1
+     */
+    public static final String FETCH_MODE_PROPERTY = "fetchMode";
+
+    /**
+     * When "true", the next pages are searched after the sort values of the last hit of the previous page instead of
+     * using an offset, so that deep pages cost the same as the first one.
+     *
+     * @since 9.1
+     */
+    public static final String CURSOR_PAGINATION_PROPERTY = "cursorPagination";
+
+    /**
+     * When "true", the Elasticsearch responses are cached on the node until the next refresh of the indexes, the
+     * documents of the page are still fetched for each query.
+     *
+     * @since 9.1
+     */
+    public static final String QUERY_CACHE_PROPERTY = "queryCache";
+
     protected static final Log log = LogFactory.getLog(ElasticSearchNxqlPageProvider.class);
 
     private static final long serialVersionUID = 1L;
@@ -64,6 +88,9 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
 
     protected HashMap<String, Aggregate<? extends Bucket>> currentAggregates;
 
+    // sort values of the hit preceding a page, by page offset
+    protected HashMap<Long, Object[]> searchAfterValues;
+
     @Override
     public List<DocumentModel> getCurrentPage() {
 
@@ -97,6 +124,19 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
             if (searchOnAllRepositories()) {
                 nxQuery.searchOnAllRepositories();
             }
+            setFetchMode(nxQuery);
+            if (useQueryCache()) {
+                nxQuery.useQueryCache();
+            }
+            Object[] searchAfter = null;
+            boolean cursorPagination = useCursorPagination();
+            if (cursorPagination) {
+                if (searchAfterValues == null) {
+                    searchAfterValues = new HashMap<>();
+                }
+                searchAfter = searchAfterValues.get(getCurrentPageOffset());
+                nxQuery.searchAfter(searchAfter);
+            }
 
             List<String> highlightFields = getHighlights();
             if (highlightFields != null && !highlightFields.isEmpty()) {
@@ -109,7 +149,19 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
             for (Aggregate<Bucket> agg : ret.getAggregates()) {
                 currentAggregates.put(agg.getId(), agg);
             }
-            setResultsCount(dmList.totalSize());
+            if (searchAfter == null) {
+                setResultsCount(dmList.totalSize());
+            } else {
+                // only the hits following the previous page are counted
+                setResultsCount(getCurrentPageOffset() + dmList.totalSize());
+            }
+            if (cursorPagination) {
+                Object[] nextSearchAfter = ret.getSearchAfter();
+                if (nextSearchAfter != null) {
+                    int hits = ret.getElasticsearchResponse().getHits().getHits().length;
+                    searchAfterValues.put(getCurrentPageOffset() + hits, nextSearchAfter);
+                }
+            }
             currentPageDocuments = dmList;
         } catch (QueryParseException e) {
             error = e;
@@ -147,6 +199,7 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
     public void refresh() {
         currentPageDocuments = null;
         currentAggregates = null;
+        searchAfterValues = null;
         super.refresh();
     }
 
@@ -168,6 +221,51 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
         return ret;
     }
 
+    /**
+     * @since 9.1
+     */
+    protected void setFetchMode(NxQueryBuilder nxQuery) {
+        String value = (String) getProperties().get(FETCH_MODE_PROPERTY);
+        if (value == null) {
+            return;
+        }
+        switch (value) {
+        case "database":
+            nxQuery.fetchFromDatabase();
+            break;
+        case "elasticsearch":
+            nxQuery.fetchFromElasticsearch();
+            break;
+        case "hybrid":
+            nxQuery.fetchFromElasticsearchAndDatabase();
+            break;
+        default:
+            log.warn(String.format("Unknown fetch mode '%s' for provider '%s'", value, getName()));
+        }
+    }
+
+    /**
+     * @since 9.1
+     */
+    protected boolean useCursorPagination() {
+        String value = (String) getProperties().get(CURSOR_PAGINATION_PROPERTY);
+        if (value == null) {
+            return false;
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    /**
+     * @since 9.1
+     */
+    protected boolean useQueryCache() {
+        String value = (String) getProperties().get(QUERY_CACHE_PROPERTY);
+        if (value == null) {
+            return false;
+        }
+        return Boolean.parseBoolean(value);
+    }
+
     protected boolean searchOnAllRepositories() {
         String value = (String) getProperties().get(SEARCH_ON_ALL_REPOSITORIES_PROPERTY);
         if (value == null) {
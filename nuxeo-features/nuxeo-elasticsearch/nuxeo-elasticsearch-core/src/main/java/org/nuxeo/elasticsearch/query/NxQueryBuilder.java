@@ -34,6 +34,7 @@ import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
 import org.elasticsearch.search.sort.FieldSortBuilder;
@@ -42,6 +43,7 @@ import org.elasticsearch.search.sort.SortOrder;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.NuxeoPrincipal;
 import org.nuxeo.ecm.core.api.SortInfo;
+import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.core.schema.types.Type;
 import org.nuxeo.ecm.core.security.SecurityService;
 import org.nuxeo.ecm.platform.query.api.Aggregate;
@@ -51,6 +53,7 @@ import org.nuxeo.elasticsearch.aggregate.AggregateEsBase;
 import org.nuxeo.elasticsearch.api.EsResult;
 import org.nuxeo.elasticsearch.fetcher.EsFetcher;
 import org.nuxeo.elasticsearch.fetcher.Fetcher;
+import org.nuxeo.elasticsearch.fetcher.HybridFetcher;
 import org.nuxeo.elasticsearch.fetcher.VcsFetcher;
 import org.nuxeo.runtime.api.Framework;
 
@@ -83,6 +86,8 @@ public class NxQueryBuilder {
 
     private boolean fetchFromElasticsearch = false;
 
+    private boolean fetchMissingFromDatabase = false;
+
     private boolean searchOnAllRepo = false;
 
     private String[] selectFields = { ElasticSearchConstants.ID_FIELD };
@@ -95,6 +100,12 @@ public class NxQueryBuilder {
 
     private List<String> highlightFields;
 
+    private boolean searchAfterMode = false;
+
+    private Object[] searchAfter;
+
+    private boolean useQueryCache = false;
+
     public NxQueryBuilder(CoreSession coreSession) {
         session = coreSession;
         repositories.add(coreSession.getRepositoryName());
@@ -159,11 +170,49 @@ public class NxQueryBuilder {
         return this;
     }
 
+    /**
+     * Returns the hits following the hit having the given sort values, instead of skipping an offset, so that deep
+     * pages cost the same as the first one and are not limited by the max result window.
+     * <p>
+     * A sort on the document id is added as last sort, so that the sort values identify a hit. The same query must be
+     * used to get all the pages, passing {@code null} for the first one and then the values returned by
+     * {@link EsResult#getSearchAfter()}. The total size of a result is the number of hits following the given sort
+     * values. The aggregates are computed on all hits.
+     *
+     * @param sortValues the sort values of the last hit of the previous page, or {@code null} for the first page
+     * @since 9.1
+     */
+    public NxQueryBuilder searchAfter(Object[] sortValues) {
+        searchAfterMode = true;
+        searchAfter = sortValues;
+        return this;
+    }
+
+    /**
+     * @since 9.1
+     */
+    public Object[] getSearchAfter() {
+        return searchAfter;
+    }
+
     /**
      * Ask for the Elasticsearch _source field, use it to build documents.
      */
     public NxQueryBuilder fetchFromElasticsearch() {
         fetchFromElasticsearch = true;
+        fetchMissingFromDatabase = false;
+        return this;
+    }
+
+    /**
+     * Ask for the Elasticsearch _source field, use it to build documents, and load from the database the schemas that
+     * are not entirely in the source.
+     *
+     * @since 9.1
+     */
+    public NxQueryBuilder fetchFromElasticsearchAndDatabase() {
+        fetchFromElasticsearch = true;
+        fetchMissingFromDatabase = true;
         return this;
     }
 
@@ -172,6 +221,7 @@ public class NxQueryBuilder {
      */
     public NxQueryBuilder fetchFromDatabase() {
         fetchFromElasticsearch = false;
+        fetchMissingFromDatabase = false;
         return this;
     }
 
@@ -186,6 +236,17 @@ public class NxQueryBuilder {
         return this;
     }
 
+    /**
+     * Gets the Elasticsearch response from the node query cache when the same request was already done since the last
+     * refresh of the indexes. The documents are still fetched for each query.
+     *
+     * @since 9.1
+     */
+    public NxQueryBuilder useQueryCache() {
+        useQueryCache = true;
+        return this;
+    }
+
     public NxQueryBuilder addAggregate(AggregateEsBase<? extends Bucket> aggregate) {
         aggregates.add(aggregate);
         return this;
@@ -226,6 +287,13 @@ public class NxQueryBuilder {
         return fetchFromElasticsearch;
     }
 
+    /**
+     * @since 9.1
+     */
+    public boolean isUseQueryCache() {
+        return useQueryCache;
+    }
+
     public CoreSession getSession() {
         return session;
     }
@@ -262,6 +330,7 @@ public class NxQueryBuilder {
 
     public SortBuilder[] getSortBuilders() {
         SortBuilder[] ret;
+        List<SortInfo> sortInfos = getRequestSortInfos();
         if (sortInfos.isEmpty()) {
             return new SortBuilder[0];
         }
@@ -274,6 +343,62 @@ public class NxQueryBuilder {
         return ret;
     }
 
+    /**
+     * Gets the sorts of the request, ending with a sort on the document id when searching after sort values.
+     */
+    protected List<SortInfo> getRequestSortInfos() {
+        if (!searchAfterMode) {
+            return sortInfos;
+        }
+        if (!sortInfos.isEmpty() && NXQL.ECM_UUID.equals(sortInfos.get(sortInfos.size() - 1).getSortColumn())) {
+            return sortInfos;
+        }
+        List<SortInfo> ret = new ArrayList<>(sortInfos);
+        ret.add(new SortInfo(NXQL.ECM_UUID, true));
+        return ret;
+    }
+
+    /**
+     * Gets the filter matching the hits sorted after the search after values: the hits whose first sort value is
+     * after the first search after value, or equal to it and whose second sort value is after the second one, and so
+     * on. Hits missing a sort value are sorted last.
+     */
+    protected QueryBuilder getSearchAfterFilter() {
+        List<SortInfo> sorts = getRequestSortInfos();
+        if (searchAfter.length != sorts.size()) {
+            throw new IllegalArgumentException(String.format("Expecting %d search after values for sorts %s, got %d",
+                    sorts.size(), sorts, searchAfter.length));
+        }
+        BoolQueryBuilder ret = QueryBuilders.boolQuery();
+        for (int i = 0; i < sorts.size(); i++) {
+            Object value = searchAfter[i];
+            if (value == null) {
+                // only hits also missing the value can follow
+                continue;
+            }
+            BoolQueryBuilder clause = QueryBuilders.boolQuery();
+            for (int j = 0; j < i; j++) {
+                String field = sorts.get(j).getSortColumn();
+                clause.filter(searchAfter[j] == null ? QueryBuilders.boolQuery().mustNot(
+                        QueryBuilders.existsQuery(field)) : QueryBuilders.termQuery(field, searchAfter[j]));
+            }
+            String field = sorts.get(i).getSortColumn();
+            RangeQueryBuilder range = QueryBuilders.rangeQuery(field);
+            if (sorts.get(i).getSortAscending()) {
+                range.gt(value);
+            } else {
+                range.lt(value);
+            }
+            clause.filter(QueryBuilders.boolQuery().should(range).should(
+                    QueryBuilders.boolQuery().mustNot(QueryBuilders.existsQuery(field))));
+            ret.should(clause);
+        }
+        if (!ret.hasClauses()) {
+            return QueryBuilders.boolQuery().mustNot(QueryBuilders.matchAllQuery());
+        }
+        return ret.minimumNumberShouldMatch(1);
+    }
+
     protected QueryBuilder getAggregateFilter() {
         BoolQueryBuilder ret = QueryBuilders.boolQuery();
         for (AggregateEsBase agg : aggregates) {
@@ -282,6 +407,10 @@ public class NxQueryBuilder {
                 ret.must(filter);
             }
         }
+        if (searchAfter != null) {
+            // as a post filter so that the aggregates are computed on all hits
+            ret.must(getSearchAfterFilter());
+        }
         if (!ret.hasClauses()) {
             return null;
         }
@@ -321,7 +450,7 @@ public class NxQueryBuilder {
 
     public void updateRequest(SearchRequestBuilder request) {
         // Set limits
-        request.setFrom(getOffset()).setSize(getLimit());
+        request.setFrom(searchAfter == null ? getOffset() : 0).setSize(getLimit());
         // Build query with security checks
         request.setQuery(makeQuery());
         // Add sort
@@ -405,6 +534,9 @@ public class NxQueryBuilder {
      */
     public Fetcher getFetcher(SearchResponse response, Map<String, String> repoNames) {
         if (isFetchFromElasticsearch()) {
+            if (fetchMissingFromDatabase) {
+                return new HybridFetcher(session, response, repoNames);
+            }
             return new EsFetcher(session, response, repoNames);
         }
         return new VcsFetcher(session, response, repoNames);
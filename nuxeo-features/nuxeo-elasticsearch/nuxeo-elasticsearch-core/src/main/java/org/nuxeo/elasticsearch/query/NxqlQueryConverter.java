@@ -31,6 +31,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -78,6 +80,9 @@ import org.nuxeo.ecm.core.schema.types.Type;
 import org.nuxeo.ecm.core.storage.sql.jdbc.NXQLQueryMaker;
 import org.nuxeo.runtime.api.Framework;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * Helper class that holds the conversion logic. Conversion is based on the existing NXQL Parser, we are just using a
  * visitor to build the ES request.
@@ -91,6 +96,18 @@ final public class NxqlQueryConverter {
 
     private static final String SIMPLE_QUERY_PREFIX = "es: ";
 
+    private static final int PARSED_QUERY_CACHE_SIZE = 1000;
+
+    // parsed queries by NXQL template, the conversion and the security policies don't modify them
+    private static final Cache<String, SQLQuery> PARSED_QUERIES = CacheBuilder.newBuilder()
+                                                                          .maximumSize(PARSED_QUERY_CACHE_SIZE)
+                                                                          .build();
+
+    // starts the placeholder of a string literal in a template, followed by the index of its parameter
+    private static final char PARAMETER_MARK = '\0';
+
+    private static final Pattern PARAMETER_PATTERN = Pattern.compile(PARAMETER_MARK + "(\\d+)");
+
     private NxqlQueryConverter() {
     }
 
@@ -100,7 +117,8 @@ final public class NxqlQueryConverter {
 
     public static QueryBuilder toESQueryBuilder(final String nxql, final CoreSession session) {
         final LinkedList<ExpressionBuilder> builders = new LinkedList<>();
-        SQLQuery nxqlQuery = getSqlQuery(nxql);
+        final List<String> parameters = new ArrayList<>();
+        SQLQuery nxqlQuery = getSqlQuery(nxql, parameters);
         if (session != null) {
             nxqlQuery = addSecurityPolicy(session, nxqlQuery);
         }
@@ -156,12 +174,12 @@ final public class NxqlQueryConverter {
                     }
                 } else {
                     Reference ref = node.lvalue instanceof Reference ? (Reference) node.lvalue : null;
-                    String name = ref != null ? ref.name : node.lvalue.toString();
+                    String name = ref != null ? ref.name : bindParameters(node.lvalue.toString(), parameters);
                     String value = null;
                     if (node.rvalue instanceof Literal) {
-                        value = ((Literal) node.rvalue).asString();
+                        value = bindParameters(((Literal) node.rvalue).asString(), parameters);
                     } else if (node.rvalue != null) {
-                        value = node.rvalue.toString();
+                        value = bindParameters(node.rvalue.toString(), parameters);
                     }
                     Object[] values = null;
                     if (node.rvalue instanceof LiteralList) {
@@ -169,7 +187,7 @@ final public class NxqlQueryConverter {
                         values = new Object[items.size()];
                         int i = 0;
                         for (Literal item : items) {
-                            values[i++] = item.asString();
+                            values[i++] = bindParameters(item.asString(), parameters);
                         }
                     }
                     // add expression to the last builder
@@ -187,20 +205,130 @@ final public class NxqlQueryConverter {
         return queryBuilder;
     }
 
+    /**
+     * Gets the parsed query, without binding its string literals. Only usable for the clauses without literals.
+     */
     protected static SQLQuery getSqlQuery(String nxql) {
+        return getSqlQuery(nxql, new ArrayList<>());
+    }
+
+    /**
+     * Gets the parsed query, which is cached by template so that the queries differing only by their string literals
+     * are parsed once. The string literals of the parsed query are placeholders, their values are added to the given
+     * parameters and bound by {@link #bindParameters}.
+     */
+    protected static SQLQuery getSqlQuery(String nxql, List<String> parameters) {
         String query = completeQueryWithSelect(nxql);
-        SQLQuery nxqlQuery;
+        String template = getQueryTemplate(query, parameters);
+        SQLQuery nxqlQuery = PARSED_QUERIES.getIfPresent(template);
+        if (nxqlQuery != null) {
+            return nxqlQuery;
+        }
         try {
-            nxqlQuery = SQLQueryParser.parse(new StringReader(query));
+            nxqlQuery = SQLQueryParser.parse(new StringReader(template));
         } catch (QueryParseException e) {
             if (log.isDebugEnabled()) {
                 log.debug(e.getMessage() + " for query:\n" + query);
             }
-            throw e;
+            if (template.equals(query)) {
+                throw e;
+            }
+            // report the error on the query itself
+            parameters.clear();
+            return SQLQueryParser.parse(new StringReader(query));
         }
+        PARSED_QUERIES.put(template, nxqlQuery);
         return nxqlQuery;
     }
 
+    /**
+     * Replaces the string literals of a query by placeholders, following the escaping rules of the NXQL lexer. The
+     * literals of DATE and TIMESTAMP are kept as they are parsed as dates. The query is returned unchanged if it
+     * contains a hint or a placeholder mark.
+     */
+    protected static String getQueryTemplate(String query, List<String> parameters) {
+        if (query.indexOf(PARAMETER_MARK) >= 0 || query.contains("/*")) {
+            return query;
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder template = new StringBuilder(query.length());
+        int i = 0;
+        while (i < query.length()) {
+            char quote = query.charAt(i);
+            if (quote != '\'' && quote != '"') {
+                template.append(quote);
+                i++;
+                continue;
+            }
+            StringBuilder value = new StringBuilder();
+            int end = -1;
+            for (int j = i + 1; j < query.length() && end < 0;) {
+                char c = query.charAt(j);
+                if (c == quote) {
+                    end = j;
+                } else if (c == '\n' || c == '\r') {
+                    break;
+                } else if (c == '\\' && j + 1 < query.length() && "tnr\\".indexOf(query.charAt(j + 1)) >= 0) {
+                    char escaped = query.charAt(j + 1);
+                    value.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : '\\');
+                    j += 2;
+                } else if (c == '\\' && j + 1 < query.length() && query.charAt(j + 1) == quote) {
+                    value.append(quote);
+                    j += 2;
+                } else {
+                    value.append(c);
+                    j++;
+                }
+            }
+            if (end < 0) {
+                // unterminated, let the parser report it
+                return query;
+            }
+            if (isDateKeyword(template)) {
+                template.append(query, i, end + 1);
+            } else {
+                template.append('\'').append(PARAMETER_MARK).append(values.size()).append('\'');
+                values.add(value.toString());
+            }
+            i = end + 1;
+        }
+        parameters.addAll(values);
+        return template.toString();
+    }
+
+    protected static boolean isDateKeyword(CharSequence query) {
+        int end = query.length();
+        while (end > 0 && Character.isWhitespace(query.charAt(end - 1))) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && Character.isLetter(query.charAt(start - 1))) {
+            start--;
+        }
+        if (start > 0 && (Character.isLetterOrDigit(query.charAt(start - 1)) || query.charAt(start - 1) == ':')) {
+            return false;
+        }
+        String word = query.subSequence(start, end).toString();
+        return "DATE".equalsIgnoreCase(word) || "TIMESTAMP".equalsIgnoreCase(word);
+    }
+
+    /**
+     * Replaces the placeholders of a value of a parsed query template by the values of the string literals.
+     */
+    protected static String bindParameters(String value, List<String> parameters) {
+        if (value == null || parameters.isEmpty() || value.indexOf(PARAMETER_MARK) < 0) {
+            return value;
+        }
+        Matcher matcher = PARAMETER_PATTERN.matcher(value);
+        StringBuffer sb = new StringBuffer(value.length());
+        while (matcher.find()) {
+            String parameter = parameters.get(Integer.parseInt(matcher.group(1)));
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(parameter));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
     protected static SQLQuery addSecurityPolicy(CoreSession session, SQLQuery query) {
         Collection<SQLQuery.Transformer> transformers = NXCore.getSecurityService().getPoliciesQueryTransformers(
                 session.getRepositoryName());
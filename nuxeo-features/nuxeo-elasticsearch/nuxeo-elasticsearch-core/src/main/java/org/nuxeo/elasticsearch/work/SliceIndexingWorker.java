@@ -0,0 +1,60 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.elasticsearch.work;
+
+import org.nuxeo.ecm.core.work.api.Work;
+import org.nuxeo.elasticsearch.api.ElasticSearchIndexing;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Worker re-indexing a slice of a repository into a new index.
+ * <p>
+ * The work id depends on the slice, so that a slice is not scheduled twice in the same queue. When the work queues are
+ * shared between the nodes (Redis queuing), a slice is processed by a single worker in the cluster.
+ *
+ * @since 9.1
+ */
+public class SliceIndexingWorker extends BaseIndexingWorker implements Work {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final String indexName;
+
+    protected final int slice;
+
+    public SliceIndexingWorker(String repositoryName, String indexName, int slice) {
+        super(indexName + ":" + slice);
+        this.repositoryName = repositoryName;
+        this.indexName = indexName;
+        this.slice = slice;
+    }
+
+    @Override
+    public String getTitle() {
+        return "Elasticsearch re-indexing of slice " + slice + " into index: " + indexName;
+    }
+
+    @Override
+    protected void doWork() {
+        openSystemSession();
+        ElasticSearchIndexing esi = Framework.getLocalService(ElasticSearchIndexing.class);
+        esi.reindexSlice(session, indexName, slice);
+    }
+
+}
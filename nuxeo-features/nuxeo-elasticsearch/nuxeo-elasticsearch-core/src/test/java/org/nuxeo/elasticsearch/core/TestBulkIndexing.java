@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.elasticsearch.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.client.Client;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
+import org.nuxeo.elasticsearch.commands.IndexingCommand;
+import org.nuxeo.elasticsearch.commands.IndexingCommand.Type;
+import org.nuxeo.elasticsearch.test.RepositoryElasticSearchFeature;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.LocalDeploy;
+
+import com.codahale.metrics.Timer;
+
+/**
+ * @since 9.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features({ RepositoryElasticSearchFeature.class })
+@LocalDeploy({ "org.nuxeo.elasticsearch.core:disable-listener-contrib.xml",
+        "org.nuxeo.elasticsearch.core:elasticsearch-test-contrib.xml" })
+public class TestBulkIndexing {
+
+    private static final String TYPE_NAME = "doc";
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected ElasticSearchAdmin esa;
+
+    @Before
+    public void setupIndex() throws Exception {
+        esa.initIndexes(true);
+    }
+
+    protected String getIndexName() {
+        return esa.getIndexNameForRepository(session.getRepositoryName());
+    }
+
+    @Test
+    public void shouldRethrowFailedBulkAfterCompletion() {
+        Client client = esa.getClient();
+        BulkRequestPipeline pipeline = new BulkRequestPipeline(2, new Timer(), response -> {
+            throw new NuxeoException("Failure on response");
+        });
+        BulkRequestBuilder bulkRequest = client.prepareBulk();
+        bulkRequest.add(client.prepareIndex(getIndexName(), TYPE_NAME, "1").setSource("{\"ecm:title\": \"test\"}"));
+        // the failure happens once the request is in flight
+        pipeline.send(bulkRequest);
+        pipeline.awaitCompletion();
+        try {
+            pipeline.checkFailure();
+            fail("The failure of the bulk request should be rethrown");
+        } catch (NuxeoException e) {
+            assertEquals("Failure on response", e.getMessage());
+        }
+        // reported once
+        pipeline.checkFailure();
+
+        // a bulk request without action is rejected by Elasticsearch
+        pipeline = new BulkRequestPipeline(2, new Timer(), response -> {
+        });
+        pipeline.send(client.prepareBulk());
+        pipeline.awaitCompletion();
+        try {
+            pipeline.checkFailure();
+            fail("The failure of the bulk request should be rethrown");
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldLoadDocumentsNotReturnedByThePrefetchQuery() throws Exception {
+        DocumentModel doc1 = session.createDocument(session.createDocumentModel("/", "doc1", "File"));
+        DocumentModel doc2 = session.createDocument(session.createDocumentModel("/", "doc2", "File"));
+        session.save();
+        List<IndexingCommand> cmds = Arrays.asList(new IndexingCommand(doc1, Type.INSERT, false, false),
+                new IndexingCommand(doc2, Type.INSERT, false, false));
+
+        ElasticSearchAdminImpl admin = mock(ElasticSearchAdminImpl.class);
+        when(admin.getClient()).thenReturn(esa.getClient());
+        when(admin.getIndexNameForRepository(session.getRepositoryName())).thenReturn(getIndexName());
+        List<String> queried = new ArrayList<>();
+        ElasticSearchIndexingImpl indexing = new ElasticSearchIndexingImpl(admin) {
+            @Override
+            protected List<DocumentModel> queryDocuments(CoreSession session, List<String> ids) {
+                queried.addAll(ids);
+                // as if doc2 was not visible by a query
+                return super.queryDocuments(session, ids).stream().filter(
+                        doc -> !doc.getId().equals(doc2.getId())).collect(Collectors.toList());
+            }
+        };
+        assertFalse(indexing.prefetchDocuments(cmds).containsKey(doc2.getId()));
+        assertEquals(Arrays.asList(doc1.getId(), doc2.getId()), queried);
+
+        indexing.processBulkIndexCommands(cmds);
+        esa.refresh();
+        assertTrue(esa.getClient().prepareGet(getIndexName(), TYPE_NAME, doc1.getId()).get().isExists());
+        assertTrue(esa.getClient().prepareGet(getIndexName(), TYPE_NAME, doc2.getId()).get().isExists());
+    }
+
+}
@@ -19,12 +19,16 @@
  */
 package org.nuxeo.elasticsearch.test;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.client.Client;
 import org.elasticsearch.search.SearchHit;
 import org.junit.Assert;
 import org.junit.Test;
@@ -38,11 +42,16 @@ import org.nuxeo.elasticsearch.api.ElasticSearchService;
 import org.nuxeo.elasticsearch.api.EsResult;
 import org.nuxeo.elasticsearch.query.NxQueryBuilder;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
 import org.nuxeo.runtime.test.runner.LocalDeploy;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
 @RunWith(FeaturesRunner.class)
 @Features({ RepositoryElasticSearchFeature.class })
 @LocalDeploy("org.nuxeo.elasticsearch.core:elasticsearch-test-contrib.xml")
@@ -117,6 +126,69 @@ public class TestFetchDocumentsFromEs {
 
     }
 
+    /**
+     * @since 9.1
+     */
+    @Test
+    public void shouldLoadDocumentFromEsAndDatabase() throws Exception {
+        buildAndIndexTree();
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        Counter pagesFromIndex = registry.counter(
+                MetricRegistry.name("nuxeo", "elasticsearch", "fetcher", "hybrid", "pagesFromIndex"));
+        long count = pagesFromIndex.getCount();
+        DocumentModelList docs = ess.query(new NxQueryBuilder(session).nxql("select * from Document")
+                                                                      .limit(20)
+                                                                      .fetchFromElasticsearchAndDatabase());
+        Assert.assertEquals(10, docs.totalSize());
+        for (DocumentModel doc : docs) {
+            Assert.assertTrue(doc.getTitle().startsWith("Folder"));
+            Assert.assertTrue(doc.isImmutable());
+        }
+        // all the schemas are in the index
+        Assert.assertEquals(count + 1, pagesFromIndex.getCount());
+    }
+
+    /**
+     * @since 9.1
+     */
+    @Test
+    public void shouldLoadMissingSchemasFromDatabase() throws Exception {
+        buildAndIndexTree();
+        String deletedId = "00000000-0000-0000-0000-000000000000";
+        Client client = esa.getClient();
+        SearchResponse response = client.prepareSearch(IDX_NAME).setTypes(TYPE_NAME).setSize(60).get();
+        BulkRequestBuilder bulkRequest = client.prepareBulk();
+        for (SearchHit hit : response.getHits()) {
+            // as if the title was excluded from the source
+            Map<String, Object> source = new HashMap<>(hit.getSource());
+            source.remove("dc:title");
+            bulkRequest.add(client.prepareIndex(IDX_NAME, TYPE_NAME, hit.getId()).setSource(source));
+        }
+        // a document deleted from the repository since it was indexed
+        Map<String, Object> source = new HashMap<>(response.getHits().getAt(0).getSource());
+        source.remove("dc:title");
+        source.put("ecm:uuid", deletedId);
+        bulkRequest.add(client.prepareIndex(IDX_NAME, TYPE_NAME, deletedId).setSource(source));
+        Assert.assertFalse(bulkRequest.get().hasFailures());
+        esa.refresh();
+
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        Counter documentsFromRepository = registry.counter(
+                MetricRegistry.name("nuxeo", "elasticsearch", "fetcher", "hybrid", "documentsFromRepository"));
+        long count = documentsFromRepository.getCount();
+        DocumentModelList docs = ess.query(new NxQueryBuilder(session).nxql("select * from Document")
+                                                                      .limit(20)
+                                                                      .fetchFromElasticsearchAndDatabase());
+        // the deleted document is dropped
+        Assert.assertEquals(10, docs.size());
+        for (DocumentModel doc : docs) {
+            Assert.assertNotEquals(deletedId, doc.getId());
+            // loaded from the repository
+            Assert.assertTrue(doc.getTitle().startsWith("Folder"));
+        }
+        Assert.assertEquals(count + 11, documentsFromRepository.getCount());
+    }
+
     @Test
     public void checkNotFetch() throws Exception {
         buildAndIndexTree();
@@ -56,11 +56,16 @@ import org.nuxeo.elasticsearch.provider.ElasticSearchNativePageProvider;
 import org.nuxeo.elasticsearch.provider.ElasticSearchNxqlPageProvider;
 import org.nuxeo.elasticsearch.query.PageProviderQueryBuilder;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
 import org.nuxeo.runtime.test.runner.LocalDeploy;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
 @SuppressWarnings("unchecked")
 @RunWith(FeaturesRunner.class)
 @Features({ RepositoryElasticSearchFeature.class })
@@ -230,6 +235,47 @@ public class TestPageProvider {
 
     }
 
+    @Test
+    public void ICanUseANxqlPageProviderWithQueryCache() throws Exception {
+        PageProviderService pps = Framework.getService(PageProviderService.class);
+        PageProviderDefinition ppdef = pps.getPageProviderDefinition("NXQL_PP_PATTERN2");
+        HashMap<String, Serializable> props = new HashMap<>();
+        props.put(ElasticSearchNativePageProvider.CORE_SESSION_PROPERTY, (Serializable) session);
+        props.put(ElasticSearchNxqlPageProvider.QUERY_CACHE_PROPERTY, "true");
+        ElasticSearchNxqlPageProvider pp = (ElasticSearchNxqlPageProvider) pps.getPageProvider("NXQL_PP_PATTERN2",
+                ppdef, null, null, (long) 10, (long) 0, props);
+        Counter hits = SharedMetricRegistries.getOrCreate(MetricsService.class.getName()).counter(
+                MetricRegistry.name("nuxeo", "elasticsearch", "queryCache", "hits"));
+
+        startTransaction();
+        for (int i = 0; i < 5; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "testDoc" + i, "File");
+            doc.setPropertyValue("dc:title", "TestMe" + i);
+            doc = session.createDocument(doc);
+        }
+        TransactionHelper.commitOrRollbackTransaction();
+        waitForCompletion();
+
+        startTransaction();
+        long hitCount = hits.getCount();
+        Assert.assertEquals(5, pp.getCurrentPage().size());
+        pp.refresh();
+        Assert.assertEquals(5, pp.getCurrentPage().size());
+        Assert.assertEquals(hitCount + 1, hits.getCount());
+
+        // the index refresh invalidates the cache
+        DocumentModel doc = session.createDocumentModel("/", "testDoc5", "File");
+        doc.setPropertyValue("dc:title", "TestMe5");
+        session.createDocument(doc);
+        TransactionHelper.commitOrRollbackTransaction();
+        waitForCompletion();
+
+        startTransaction();
+        pp.refresh();
+        Assert.assertEquals(6, pp.getCurrentPage().size());
+        Assert.assertEquals(hitCount + 1, hits.getCount());
+    }
+
     @Test
     public void ICanUseANxqlPageProviderWithParameters() throws Exception {
         PageProviderService pps = Framework.getService(PageProviderService.class);
@@ -38,6 +38,7 @@ import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.PathRef;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.api.impl.blob.StringBlob;
@@ -57,7 +58,12 @@ import org.nuxeo.runtime.test.runner.LocalDeploy;
 import org.nuxeo.runtime.test.runner.LogCaptureFeature;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.DOC_TYPE;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.INDEX_BULK_MAX_SIZE_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEXING_ALIAS_SUFFIX;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_SLICES_PROPERTY;
 
 /**
  * Test "on the fly" indexing via the listener system
@@ -169,6 +175,74 @@ public class TestReindex {
 
     }
 
+    @Test
+    public void shouldReindexRepositoryBySlices() throws Exception {
+        buildDocs();
+        startTransaction();
+        String nxql = "SELECT * FROM Document, Relation order by ecm:uuid";
+        DocumentModelList coreDocs = session.query(nxql);
+        String indexName = esa.getIndexNameForRepository(session.getRepositoryName());
+        // the repository index is created behind an alias
+        Assert.assertFalse(esa.getClient()
+                              .admin()
+                              .indices()
+                              .prepareGetAliases(indexName)
+                              .get()
+                              .getAliases()
+                              .isEmpty());
+        long before = esa.getClient().prepareCount(indexName).setTypes(DOC_TYPE).get().getCount();
+        TransactionHelper.commitOrRollbackTransaction();
+
+        System.setProperty(REINDEX_SLICES_PROPERTY, "3");
+        try {
+            esi.reindexRepository(session.getRepositoryName());
+            waitForCompletion();
+        } finally {
+            System.clearProperty(REINDEX_SLICES_PROPERTY);
+        }
+
+        startTransaction();
+        // the alias now points to the new index only
+        Assert.assertEquals(1,
+                esa.getClient().admin().indices().prepareGetAliases(indexName).get().getAliases().size());
+        Assert.assertEquals(before, esa.getClient().prepareCount(indexName).setTypes(DOC_TYPE).get().getCount());
+        DocumentModelList docs = ess.query(new NxQueryBuilder(session).nxql(nxql).limit(100));
+        Assert.assertEquals(getDigest(coreDocs), getDigest(docs));
+    }
+
+    @Test
+    public void shouldRefuseToReindexConcreteRepositoryIndex() throws Exception {
+        buildDocs();
+        String indexName = esa.getIndexNameForRepository(session.getRepositoryName());
+        // an index created before the repository indexes were created behind an alias
+        for (ObjectCursor<String> cursor : esa.getClient()
+                                              .admin()
+                                              .indices()
+                                              .prepareGetAliases(indexName)
+                                              .get()
+                                              .getAliases()
+                                              .keys()) {
+            esa.getClient().admin().indices().prepareDelete(cursor.value).get();
+        }
+        esa.getClient().admin().indices().prepareCreate(indexName).get();
+        esa.getClient().prepareIndex(indexName, DOC_TYPE, "doc").setSource("ecm:title", "live").setRefresh(true).get();
+        try {
+            esi.reindexRepository(session.getRepositoryName());
+            Assert.fail("Re-indexing should be refused");
+        } catch (NuxeoException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("is not an alias"));
+        }
+        // the live index is untouched
+        Assert.assertEquals(1, esa.getClient().prepareCount(indexName).setTypes(DOC_TYPE).get().getCount());
+        Assert.assertTrue(esa.getClient()
+                             .admin()
+                             .indices()
+                             .prepareGetAliases(indexName + REINDEXING_ALIAS_SUFFIX)
+                             .get()
+                             .getAliases()
+                             .isEmpty());
+    }
+
     private void buildDocs() throws Exception {
         startTransaction();
 
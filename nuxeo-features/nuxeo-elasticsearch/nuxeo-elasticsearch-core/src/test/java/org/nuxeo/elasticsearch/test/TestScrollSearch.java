@@ -40,6 +40,8 @@ import org.nuxeo.ecm.core.api.DocumentModelList;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
 import org.nuxeo.elasticsearch.api.ElasticSearchService;
+import org.nuxeo.elasticsearch.api.EsDocumentIterable;
+import org.nuxeo.elasticsearch.api.EsResult;
 import org.nuxeo.elasticsearch.api.EsScrollResult;
 import org.nuxeo.elasticsearch.query.NxQueryBuilder;
 import org.nuxeo.runtime.test.runner.Features;
@@ -106,6 +108,42 @@ public class TestScrollSearch {
                 docPaths);
     }
 
+    @Test
+    public void testScrollDocuments() throws Exception {
+
+        buildAndIndexTree(100);
+
+        String query = "select * from Document order by ecm:path";
+        List<String> docPaths = new ArrayList<>();
+        try (EsDocumentIterable docs = ess.scrollDocuments(new NxQueryBuilder(session).nxql(query).limit(30), 10000)) {
+            assertEquals(100, docs.size());
+            for (DocumentModel doc : docs) {
+                docPaths.add(doc.getPathAsString());
+            }
+        }
+        assertEquals(session.query(query).stream().map(doc -> doc.getPathAsString()).collect(Collectors.toList()),
+                docPaths);
+    }
+
+    @Test
+    public void testSearchAfter() throws Exception {
+
+        buildAndIndexTree(100);
+
+        String query = "select * from Document order by ecm:path";
+        List<String> docPaths = new ArrayList<>();
+        Object[] searchAfter = null;
+        do {
+            EsResult res = ess.queryAndAggregate(
+                    new NxQueryBuilder(session).nxql(query).limit(30).searchAfter(searchAfter));
+            assertEquals(100 - docPaths.size(), res.getDocuments().totalSize());
+            docPaths.addAll(res.getDocuments().stream().map(doc -> doc.getPathAsString()).collect(Collectors.toList()));
+            searchAfter = res.getSearchAfter();
+        } while (searchAfter != null);
+        assertEquals(session.query(query).stream().map(doc -> doc.getPathAsString()).collect(Collectors.toList()),
+                docPaths);
+    }
+
     protected void buildAndIndexTree(int docCount) throws Exception {
         startTransaction();
         buildTree(docCount);
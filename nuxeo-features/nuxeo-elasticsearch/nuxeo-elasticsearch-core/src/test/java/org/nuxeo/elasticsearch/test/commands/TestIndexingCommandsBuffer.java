@@ -0,0 +1,121 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.elasticsearch.test.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.impl.DocumentModelImpl;
+import org.nuxeo.elasticsearch.commands.IndexingCommand;
+import org.nuxeo.elasticsearch.commands.IndexingCommand.Type;
+import org.nuxeo.elasticsearch.commands.IndexingCommandsBuffer;
+
+/**
+ * @since 9.1
+ */
+public class TestIndexingCommandsBuffer {
+
+    protected static class MockDocumentModel extends DocumentModelImpl {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final String uid;
+
+        protected final String sessionId;
+
+        public MockDocumentModel(String uid, String sessionId) {
+            this.uid = uid;
+            this.sessionId = sessionId;
+        }
+
+        @Override
+        public String getId() {
+            return uid;
+        }
+
+        @Override
+        public String getSessionId() {
+            return sessionId;
+        }
+
+    }
+
+    protected IndexingCommand command(String uid, String sessionId, Type type, boolean recurse) {
+        return new IndexingCommand(new MockDocumentModel(uid, sessionId), type, false, recurse);
+    }
+
+    @Test
+    public void shouldMergeCommandsOfSuccessiveTransactions() {
+        IndexingCommandsBuffer buffer = new IndexingCommandsBuffer();
+        buffer.add(command("1", "s1", Type.INSERT, false));
+        buffer.add(command("2", "s1", Type.UPDATE, false));
+        buffer.add(command("1", "s2", Type.UPDATE, false));
+        buffer.add(command("2", "s3", Type.UPDATE, false));
+        buffer.add(command("2", "s3", Type.UPDATE_SECURITY, false));
+        assertEquals(2, buffer.size());
+
+        List<IndexingCommand> cmds = buffer.drain();
+        assertEquals(2, cmds.size());
+        assertEquals("1", cmds.get(0).getTargetDocumentId());
+        assertEquals(Type.INSERT, cmds.get(0).getType());
+        assertEquals("2", cmds.get(1).getTargetDocumentId());
+        assertEquals(Type.UPDATE, cmds.get(1).getType());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void shouldKeepOrderOfDocumentCommands() {
+        IndexingCommandsBuffer buffer = new IndexingCommandsBuffer();
+        buffer.add(command("1", "s1", Type.UPDATE_SECURITY, true));
+        buffer.add(command("1", "s2", Type.UPDATE, false));
+        buffer.add(command("1", "s2", Type.UPDATE, true));
+
+        List<IndexingCommand> cmds = buffer.drain();
+        assertEquals(2, cmds.size());
+        assertEquals(Type.UPDATE_SECURITY, cmds.get(0).getType());
+        assertEquals(Type.UPDATE, cmds.get(1).getType());
+        assertTrue(cmds.get(1).isRecurse());
+
+        buffer.add(command("1", "s1", Type.UPDATE, true));
+        buffer.add(command("1", "s2", Type.DELETE, true));
+        cmds = buffer.drain();
+        assertEquals(1, cmds.size());
+        assertEquals(Type.DELETE, cmds.get(0).getType());
+    }
+
+    @Test
+    public void shouldDrainDocumentsChangedBySession() {
+        IndexingCommandsBuffer buffer = new IndexingCommandsBuffer();
+        buffer.add(command("1", "s1", Type.INSERT, false));
+        buffer.add(command("2", "s2", Type.INSERT, false));
+        buffer.add(command("1", "s2", Type.UPDATE, false));
+        buffer.add(command("3", "s1", Type.INSERT, false));
+
+        List<IndexingCommand> cmds = buffer.drain("s2");
+        assertEquals(2, cmds.size());
+        assertEquals("1", cmds.get(0).getTargetDocumentId());
+        assertEquals("2", cmds.get(1).getTargetDocumentId());
+        assertEquals(1, buffer.size());
+        assertEquals("3", buffer.drain().get(0).getTargetDocumentId());
+    }
+
+}
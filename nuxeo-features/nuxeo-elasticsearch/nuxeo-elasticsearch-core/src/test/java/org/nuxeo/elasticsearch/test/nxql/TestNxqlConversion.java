@@ -1299,4 +1299,18 @@ public class TestNxqlConversion {
                 "}", es);
 
     }
+
+    @Test
+    public void testConvertQueriesSharingATemplate() throws Exception {
+        String nxql = "SELECT * FROM Document WHERE dc:title = %s AND dc:nature IN (%s, 'b')"
+                + " AND dc:created > DATE '2017-01-01' AND ecm:path STARTSWITH '/default-domain' ORDER BY dc:title";
+        String es = NxqlQueryConverter.toESQueryBuilder(String.format(nxql, "'foo'", "'a'"), session).toString();
+        // the second query reuses the parsed template, with its own literals
+        String es2 = NxqlQueryConverter.toESQueryBuilder(String.format(nxql, "'it\\'s \"bar\"'", "\"c\""), session)
+                                       .toString();
+        Assert.assertFalse(es2.contains("\0"));
+        Assert.assertEquals(es.replace("\"foo\"", "\"it's \\\"bar\\\"\"").replace("\"a\"", "\"c\""), es2);
+        Assert.assertEquals(1, NxqlQueryConverter.getSortInfo(String.format(nxql, "'x'", "'y'")).size());
+    }
+
 }
@@ -18,8 +18,14 @@
  */
 package org.nuxeo.elasticsearch.seqgen;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.client.Client;
 import org.nuxeo.ecm.core.api.NuxeoException;
@@ -41,6 +47,13 @@ import org.nuxeo.runtime.api.Framework;
  */
 public class ESUIDSequencer extends AbstractUIDSequencer {
 
+    /**
+     * Maximum number of increments of a sequence sent in a single bulk request by {@link #getNextBlock(String, int)}.
+     *
+     * @since 9.1
+     */
+    public static final int MAX_BULK_BLOCK_SIZE = 1000;
+
     protected Client esClient = null;
 
     protected Client getClient() {
@@ -59,6 +72,7 @@ public class ESUIDSequencer extends AbstractUIDSequencer {
 
     @Override
     public void dispose() {
+        disposeBlocks();
         if (esClient != null) {
             esClient.close();
         }
@@ -66,12 +80,54 @@ public class ESUIDSequencer extends AbstractUIDSequencer {
 
     @Override
     public long getNextLong(String sequenceName) {
+        if (isBlockAllocation()) {
+            return getNextFromBlock(sequenceName);
+        }
         String source = "{ \"ts\" : " + System.currentTimeMillis() + "}";
         IndexResponse res = getClient().prepareIndex(getESIndexName(), ElasticSearchConstants.SEQ_ID_TYPE, sequenceName).setSource(
                 source).execute().actionGet();
         return res.getVersion();
     }
 
+    /**
+     * Gets the block with bulk requests incrementing the sequence version once per UID, each request incrementing it at
+     * most {@link #MAX_BULK_BLOCK_SIZE} times.
+     * <p>
+     * The range is not reserved by a single write of an external version, as elasticsearch only checks that an
+     * external version is greater than the current one: it could overlap the UIDs handed out by a concurrent increment.
+     *
+     * @since 9.1
+     */
+    @Override
+    public List<Long> getNextBlock(String sequenceName, int blockSize) {
+        List<Long> ret = new ArrayList<>(blockSize);
+        if (blockSize == 0) {
+            return ret;
+        }
+        String source = "{ \"ts\" : " + System.currentTimeMillis() + "}";
+        Client client = getClient();
+        String indexName = getESIndexName();
+        while (ret.size() < blockSize) {
+            int size = Math.min(blockSize - ret.size(), MAX_BULK_BLOCK_SIZE);
+            BulkRequestBuilder bulkRequest = client.prepareBulk();
+            for (int i = 0; i < size; i++) {
+                bulkRequest.add(client.prepareIndex(indexName, ElasticSearchConstants.SEQ_ID_TYPE, sequenceName)
+                                      .setSource(source));
+            }
+            BulkResponse response = bulkRequest.execute().actionGet();
+            for (BulkItemResponse item : response.getItems()) {
+                if (item.isFailed()) {
+                    throw new NuxeoException(String.format("Unable to increment sequence %s: %s", sequenceName,
+                            item.getFailureMessage()));
+                }
+                ret.add(item.getVersion());
+            }
+        }
+        // items on the same document are applied in order by its shard, sort anyway in case of retries
+        Collections.sort(ret);
+        return ret;
+    }
+
     @Override
     public int getNext(String sequenceName) {
         return (int) getNextLong(sequenceName);
@@ -22,6 +22,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -77,6 +79,25 @@ public class TestSequenceGeneratorWithElasticSearch {
         assertTrue(seq.getNextLong("mySequence") > 10);
     }
 
+    @Test
+    public void testGetNextBlock() {
+        UIDSequencer seq = uidGeneratorService.getSequencer();
+
+        assertEquals(1, seq.getNext("myBlockSequence"));
+        assertEquals(Arrays.asList(2L, 3L, 4L), seq.getNextBlock("myBlockSequence", 3));
+        assertEquals(0, seq.getNextBlock("myBlockSequence", 0).size());
+        assertEquals(5, seq.getNext("myBlockSequence"));
+
+        // a block larger than a bulk request is reserved by several requests
+        int size = ESUIDSequencer.MAX_BULK_BLOCK_SIZE + 10;
+        List<Long> ids = seq.getNextBlock("myBlockSequence", size);
+        assertEquals(size, ids.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals(6L + i, ids.get(i).longValue());
+        }
+        assertEquals(6L + size, seq.getNextLong("myBlockSequence"));
+    }
+
     @Test
     @Ignore("NXP-20582: timeout waiting termination")
     public void testConcurrency() throws Exception {
@@ -18,7 +18,7 @@
  */
 package org.nuxeo.ecm.platform.audit.service;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -40,7 +40,18 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
-
+import com.codahale.metrics.Timer;
+
+/**
+ * Queues the log entries and writes them to the backend by bulks from a dedicated thread.
+ * <p>
+ * The bulk size adapts to the backend within the configured bounds: it is doubled when a full bulk is written faster
+ * than half the target latency, and halved when a bulk is slower than the target latency. While the queue holds more
+ * than half its capacity, full bulks double the bulk size whatever their latency, to catch up the backlog.
+ * <p>
+ * When the queue exceeds its capacity, the producers are blocked until it is drained below. On shutdown the queue is
+ * flushed before the thread stops, waiting at most the configured shutdown timeout.
+ */
 public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
 
     final Log log = LogFactory.getLog(DefaultAuditBulker.class);
@@ -51,7 +62,16 @@ public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
 
         @Override
         public Integer getValue() {
-            return queue.size();
+            return size.get();
+        }
+
+    };
+
+    final Gauge<Integer> bulkSizeGauge = new Gauge<Integer>() {
+
+        @Override
+        public Integer getValue() {
+            return bulksize;
         }
 
     };
@@ -62,16 +82,35 @@ public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
 
     final Counter drainedCount = registry.counter(MetricRegistry.name("nuxeo", "audit", "drained"));
 
+    final Counter blockedCount = registry.counter(MetricRegistry.name("nuxeo", "audit", "blocked"));
+
+    final Timer flushTimer = registry.timer(MetricRegistry.name("nuxeo", "audit", "flush"));
+
     int timeout;
 
-    int bulksize;
+    volatile int bulksize;
+
+    final int minBulkSize;
+
+    final int maxBulkSize;
+
+    final int targetLatency;
+
+    final int capacity;
+
+    final int shutdownTimeout;
 
-    Thread thread;
+    volatile Thread thread;
 
     DefaultAuditBulker(AuditBackend backend, AuditBulkerDescriptor config) {
         this.backend = backend;
         timeout = config.timeout;
+        minBulkSize = Math.max(1, Math.min(config.minSize, config.size));
+        maxBulkSize = Math.max(config.maxSize, config.size);
         bulksize = config.size;
+        targetLatency = config.targetLatency;
+        capacity = Math.max(config.capacity, maxBulkSize);
+        shutdownTimeout = config.shutdownTimeout;
     }
 
     @Override
@@ -83,19 +122,36 @@ public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
             publisher.registerResource("audit-bulker", "audit-bulker", AuditBulkerMBean.class, this);
         }
         registry.register(MetricRegistry.name("nuxeo", "audit", "size"), sizeGauge);
+        registry.register(MetricRegistry.name("nuxeo", "audit", "bulkSize"), bulkSizeGauge);
     }
 
     @Override
     public void onShutdown() {
         registry.remove(MetricRegistry.name("nuxeo", "audit", "size"));
+        registry.remove(MetricRegistry.name("nuxeo", "audit", "bulkSize"));
         ResourcePublisher publisher = Framework.getService(ResourcePublisher.class);
         if (publisher != null) {
             publisher.unregisterResource("audit-bulker", "audit-bulker");
         }
         stopped = true;
+        // wake up the consumer and the blocked producers, the consumer flushes the queue before stopping
+        lock.lock();
+        try {
+            isFilled.signalAll();
+            isNotFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
         try {
-            thread.interrupt();
+            thread.join(shutdownTimeout);
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
         } finally {
+            if (thread.isAlive()) {
+                log.warn("audit queue not flushed after " + shutdownTimeout + "ms, " + size.get()
+                        + " entries lost");
+                thread.interrupt();
+            }
             thread = null;
         }
     }
@@ -108,6 +164,8 @@ public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
 
     final Condition isFilled = lock.newCondition();
 
+    final Condition isNotFull = lock.newCondition();
+
     final Queue<LogEntry> queue = new ConcurrentLinkedQueue<>();
 
     volatile boolean stopped;
@@ -120,7 +178,8 @@ public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
         queue.add(entry);
         queuedCount.inc();
 
-        if (size.incrementAndGet() >= bulksize) {
+        int queued = size.incrementAndGet();
+        if (queued >= bulksize) {
             lock.lock();
             try {
                 isFilled.signalAll();
@@ -128,6 +187,30 @@ public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
                 lock.unlock();
             }
         }
+        if (queued >= capacity) {
+            awaitCapacity();
+        }
+    }
+
+    /**
+     * Blocks the producer until the queue is drained below its capacity, as long as the consumer is running.
+     */
+    void awaitCapacity() {
+        Thread consumer = thread;
+        if (stopped || consumer == null || consumer == Thread.currentThread()) {
+            return;
+        }
+        blockedCount.inc();
+        lock.lock();
+        try {
+            while (size.get() >= capacity && !stopped && consumer.isAlive()) {
+                isNotFull.await(timeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -145,25 +228,76 @@ public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
     }
 
     int drain() {
-        List<LogEntry> entries = new LinkedList<>();
-        while (!queue.isEmpty()) {
-            entries.add(queue.remove());
+        int count = 0;
+        try {
+            for (int delta = flush(bulksize); delta > 0; delta = flush(bulksize)) {
+                count += delta;
+            }
+        } finally {
+            if (queue.isEmpty()) {
+                lock.lock();
+                try {
+                    isEmpty.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes a bulk of at most the given number of entries to the backend, then adapts the bulk size to its latency.
+     */
+    int flush(int max) {
+        List<LogEntry> entries = new ArrayList<>(Math.min(max, Math.max(size.get(), 1)));
+        LogEntry entry;
+        while (entries.size() < max && (entry = queue.poll()) != null) {
+            entries.add(entry);
         }
-        backend.addLogEntries(entries);
         int delta = entries.size();
-        size.addAndGet(-delta);
-        drainedCount.inc(delta);
-        if (queue.isEmpty()) {
+        if (delta == 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long elapsed;
+        // entries failing to be written are dropped as well
+        try {
+            backend.addLogEntries(entries);
+        } finally {
+            elapsed = System.nanoTime() - start;
+            flushTimer.update(elapsed, TimeUnit.NANOSECONDS);
+            size.addAndGet(-delta);
+            drainedCount.inc(delta);
             lock.lock();
             try {
-                isEmpty.signalAll();
+                isNotFull.signalAll();
             } finally {
                 lock.unlock();
             }
         }
+        adaptBulkSize(delta, TimeUnit.NANOSECONDS.toMillis(elapsed));
         return delta;
     }
 
+    void adaptBulkSize(int count, long elapsed) {
+        int value = bulksize;
+        boolean backlog = size.get() >= capacity / 2;
+        if (elapsed > targetLatency && !backlog) {
+            value /= 2;
+        } else if (count >= value && (backlog || elapsed < targetLatency / 2)) {
+            value *= 2;
+        }
+        value = Math.max(minBulkSize, Math.min(maxBulkSize, value));
+        if (value != bulksize) {
+            if (log.isDebugEnabled()) {
+                log.debug("bulk size adapted from " + bulksize + " to " + value + " after writing " + count
+                        + " entries in " + elapsed + "ms");
+            }
+            bulksize = value;
+        }
+    }
+
     class Consumer implements Runnable {
 
         @Override
@@ -172,30 +306,39 @@ public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
             while (!stopped) {
                 lock.lock();
                 try {
-                    isFilled.await(timeout, TimeUnit.MILLISECONDS);
+                    if (size.get() < bulksize && !stopped) {
+                        isFilled.await(timeout, TimeUnit.MILLISECONDS);
+                    }
                     if (queue.isEmpty()) {
                         continue;
                     }
                 } catch (InterruptedException cause) {
                     Thread.currentThread().interrupt();
+                    log.warn("bulk audit logger interrupted, " + size.get() + " entries not flushed");
                     return;
                 } finally {
                     lock.unlock();
                 }
-                try {
-                    int count = drain();
-                    if (log.isDebugEnabled()) {
-                        log.debug("flushed " + count + " events");
-                    }
-                } catch (RuntimeException cause) {
-                    log.error("caught error while draining audit queue", cause);
-                }
+                drainSafely();
             }
+            // flush what was queued before the shutdown
+            drainSafely();
             log.info("bulk audit logger stopped");
         }
 
     }
 
+    void drainSafely() {
+        try {
+            int count = drain();
+            if (log.isDebugEnabled()) {
+                log.debug("flushed " + count + " events");
+            }
+        } catch (RuntimeException cause) {
+            log.error("caught error while draining audit queue", cause);
+        }
+    }
+
     @Override
     public int getBulkTimeout() {
         return timeout;
@@ -213,12 +356,13 @@ public class DefaultAuditBulker implements AuditBulkerMBean, AuditBulker {
 
     @Override
     public void setBulkSize(int value) {
-        bulksize = value;
+        bulksize = Math.max(minBulkSize, Math.min(maxBulkSize, value));
     }
 
     @Override
     public void resetMetrics() {
         queuedCount.dec(queuedCount.getCount());
         drainedCount.dec(drainedCount.getCount());
+        blockedCount.dec(blockedCount.getCount());
     }
 }
@@ -109,20 +109,29 @@ public class NXAuditEventsService extends DefaultComponent {
                     return;
                 }
                 Framework.removeListener(this);
-                try {
-                    backend.onShutdown();
-                } finally {
-                    try {
-                        bulker.onShutdown();
-                    } finally {
-                        bulker = null;
-                    }
-                    backend = null;
-                }
+                shutdown();
             }
         });
     }
 
+    /**
+     * Shuts down the bulker, flushing its queue, then the backend.
+     *
+     * @since 9.1
+     */
+    protected void shutdown() {
+        try {
+            bulker.onShutdown();
+        } finally {
+            bulker = null;
+            try {
+                backend.onShutdown();
+            } finally {
+                backend = null;
+            }
+        }
+    }
+
     protected void doRegisterAdapter(AdapterDescriptor desc) {
         if (log.isDebugEnabled()) {
             log.debug("Registered adapter : " + desc.getName());
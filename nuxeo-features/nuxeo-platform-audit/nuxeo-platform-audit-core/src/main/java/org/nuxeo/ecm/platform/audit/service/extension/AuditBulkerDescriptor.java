@@ -41,6 +41,46 @@ public class AuditBulkerDescriptor implements Serializable {
     @XNode("size")
     public int size = 1000;
 
+    /**
+     * Lower bound of the adaptive bulk size.
+     *
+     * @since 9.1
+     */
+    @XNode("minSize")
+    public int minSize = 100;
+
+    /**
+     * Upper bound of the adaptive bulk size.
+     *
+     * @since 9.1
+     */
+    @XNode("maxSize")
+    public int maxSize = 10000;
+
+    /**
+     * Backend latency of a bulk, in milliseconds, above which the bulk size is reduced.
+     *
+     * @since 9.1
+     */
+    @XNode("targetLatency")
+    public int targetLatency = 1000; // 1 second
+
+    /**
+     * Number of queued entries above which the producers are blocked until the queue is drained.
+     *
+     * @since 9.1
+     */
+    @XNode("capacity")
+    public int capacity = 100000;
+
+    /**
+     * Time given to the bulker to flush the queue on shutdown, in milliseconds.
+     *
+     * @since 9.1
+     */
+    @XNode("shutdownTimeout")
+    public int shutdownTimeout = 10000; // 10 seconds
+
     public AuditBulker newInstance(AuditBackend backend) {
         try {
             Constructor<? extends AuditBulker> declaredConstructor = klass.getDeclaredConstructor(AuditBackend.class, AuditBulkerDescriptor.class);
@@ -0,0 +1,195 @@
+/*
+ * (C) Copyright 2017 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.audit.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.platform.audit.impl.LogEntryImpl;
+import org.nuxeo.ecm.platform.audit.service.extension.AuditBulkerDescriptor;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.RuntimeFeature;
+
+/**
+ * @since 9.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features(RuntimeFeature.class)
+public class TestDefaultAuditBulker {
+
+    protected static final long DELAY_MS = 10000;
+
+    /**
+     * Backend recording its calls, writing the entries with a given latency once its gate is open.
+     */
+    protected static class FakeBackend implements InvocationHandler {
+
+        protected final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+        protected final AtomicInteger entries = new AtomicInteger();
+
+        protected volatile long latency;
+
+        protected volatile CountDownLatch gate = new CountDownLatch(0);
+
+        protected AuditBackend newProxy() {
+            return (AuditBackend) Proxy.newProxyInstance(AuditBackend.class.getClassLoader(),
+                    new Class<?>[] { AuditBackend.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(this, args);
+            }
+            switch (method.getName()) {
+            case "addLogEntries":
+                gate.await();
+                Thread.sleep(latency);
+                int count = ((List<?>) args[0]).size();
+                entries.addAndGet(count);
+                calls.add("addLogEntries:" + count);
+                return null;
+            case "onShutdown":
+                calls.add("onShutdown");
+                return null;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+    }
+
+    protected AuditBulkerDescriptor newConfig(int size, int minSize, int maxSize, int capacity) {
+        AuditBulkerDescriptor config = new AuditBulkerDescriptor();
+        config.size = size;
+        config.minSize = minSize;
+        config.maxSize = maxSize;
+        config.capacity = capacity;
+        config.targetLatency = 100;
+        return config;
+    }
+
+    protected void offer(AuditBulker bulker, int count) {
+        for (int i = 0; i < count; i++) {
+            bulker.offer(new LogEntryImpl());
+        }
+    }
+
+    protected void waitFor(String message, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DELAY_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError(message + " after " + DELAY_MS + " ms");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void shouldGrowBulkSizeWithFastBackend() {
+        FakeBackend backend = new FakeBackend();
+        DefaultAuditBulker bulker = new DefaultAuditBulker(backend.newProxy(), newConfig(100, 10, 1000, 10000));
+        offer(bulker, 400);
+        // drained by the test thread, the consumer is not started
+        assertEquals(400, bulker.drain());
+        // full bulks written faster than half the target latency double the size
+        assertEquals(Arrays.asList("addLogEntries:100", "addLogEntries:200", "addLogEntries:100"), backend.calls);
+        assertEquals(400, bulker.getBulkSize());
+    }
+
+    @Test
+    public void shouldShrinkBulkSizeWithSlowBackend() {
+        FakeBackend backend = new FakeBackend();
+        backend.latency = 150;
+        DefaultAuditBulker bulker = new DefaultAuditBulker(backend.newProxy(), newConfig(100, 10, 1000, 10000));
+        offer(bulker, 150);
+        assertEquals(150, bulker.drain());
+        // bulks slower than the target latency halve the size
+        assertEquals(Arrays.asList("addLogEntries:100", "addLogEntries:50"), backend.calls);
+        assertEquals(25, bulker.getBulkSize());
+    }
+
+    @Test
+    public void shouldBlockProducerWhenQueueIsFull() throws Exception {
+        FakeBackend backend = new FakeBackend();
+        backend.gate = new CountDownLatch(1);
+        AuditBulkerDescriptor config = newConfig(10, 1, 10, 20);
+        config.timeout = 10;
+        DefaultAuditBulker bulker = new DefaultAuditBulker(backend.newProxy(), config);
+        bulker.onApplicationStarted();
+        try {
+            long blocked = bulker.blockedCount.getCount();
+            AtomicInteger offered = new AtomicInteger();
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 30; i++) {
+                    bulker.offer(new LogEntryImpl());
+                    offered.incrementAndGet();
+                }
+            }, "audit-producer");
+            producer.start();
+            // the consumer is stuck in the backend, the queue reaches its capacity
+            waitFor("Producer not blocked", () -> bulker.blockedCount.getCount() > blocked);
+            assertTrue(producer.isAlive());
+            assertTrue(offered.get() < 30);
+
+            backend.gate.countDown();
+            producer.join(DELAY_MS);
+            assertFalse(producer.isAlive());
+            assertEquals(30, offered.get());
+            waitFor("Queue not drained", () -> backend.entries.get() == 30);
+        } finally {
+            backend.gate.countDown();
+            bulker.onShutdown();
+        }
+    }
+
+    @Test
+    public void shouldFlushQueueBeforeBackendShutdown() {
+        FakeBackend backend = new FakeBackend();
+        AuditBulkerDescriptor config = newConfig(100, 10, 1000, 10000);
+        // the consumer would not flush by itself during the test
+        config.timeout = 60000;
+        NXAuditEventsService service = new NXAuditEventsService();
+        service.backend = backend.newProxy();
+        service.bulker = new DefaultAuditBulker(service.backend, config);
+        service.bulker.onApplicationStarted();
+        offer(service.bulker, 5);
+
+        service.shutdown();
+        assertEquals(Arrays.asList("addLogEntries:5", "onShutdown"), backend.calls);
+    }
+
+}
@@ -18,6 +18,8 @@
  */
 package org.nuxeo.ecm.platform.uidgen;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -63,6 +65,7 @@ public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
      */
     @Override
     public void dispose() {
+        disposeBlocks();
         deactivatePersistenceProvider();
         tpe.shutdownNow();
     }
@@ -106,19 +109,29 @@ public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
 
         protected final String key;
 
+        protected final int count;
+
         protected int result;
 
         protected boolean completed = false;
 
         public SeqRunner(final String key) {
+            this(key, 1);
+        }
+
+        /**
+         * @since 9.1
+         */
+        public SeqRunner(final String key, final int count) {
             this.key = key;
+            this.count = count;
         }
 
         @Override
         public void run() {
             TransactionHelper.startTransaction();
             try {
-                result = doGetNext(key);
+                result = doGetNext(key, count);
                 completed = true;
             } finally {
                 TransactionHelper.commitOrRollbackTransaction();
@@ -138,8 +151,31 @@ public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
 
     @Override
     public int getNext(final String key) {
+        if (isBlockAllocation()) {
+            return (int) getNextFromBlock(key);
+        }
+        return runSequence(new SeqRunner(key));
+    }
+
+    /**
+     * Gets the block in a single transaction incrementing the sequence index by the block size.
+     *
+     * @since 9.1
+     */
+    @Override
+    public List<Long> getNextBlock(final String key, final int blockSize) {
+        List<Long> ret = new ArrayList<>(blockSize);
+        if (blockSize == 0) {
+            return ret;
+        }
+        long last = runSequence(new SeqRunner(key, blockSize));
+        for (long id = last - blockSize + 1; id <= last; id++) {
+            ret.add(id);
+        }
+        return ret;
+    }
 
-        SeqRunner runner = new SeqRunner(key);
+    protected int runSequence(SeqRunner runner) {
 
         Future<?> future = tpe.submit(runner);
 
@@ -154,17 +190,33 @@ public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
 
     }
 
-    @SuppressWarnings("boxing")
     protected int doGetNext(final String key) {
+        return doGetNext(key, 1);
+    }
+
+    /**
+     * @since 9.1
+     */
+    @SuppressWarnings("boxing")
+    protected int doGetNext(final String key, final int count) {
         return getOrCreatePersistenceProvider().run(true, new RunCallback<Integer>() {
             @Override
             public Integer runWith(EntityManager em) {
-                return getNext(em, key);
+                return getNext(em, key, count);
             }
         });
     }
 
     protected int getNext(EntityManager em, String key) {
+        return getNext(em, key, 1);
+    }
+
+    /**
+     * Increments the sequence of the key by the given count, returning the last reserved index.
+     *
+     * @since 9.1
+     */
+    protected int getNext(EntityManager em, String key, int count) {
         UIDSequenceBean seq;
         try {
             seq = (UIDSequenceBean) em.createNamedQuery("UIDSequence.findByKey").setParameter("key", key).getSingleResult();
@@ -173,7 +225,7 @@ public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
             seq = new UIDSequenceBean(key);
             em.persist(seq);
         }
-        return seq.nextIndex();
+        return seq.nextIndex(count);
     }
 
 }
@@ -97,7 +97,16 @@ public class UIDSequenceBean {
     }
 
     public int nextIndex() {
-        index += 1;
+        return nextIndex(1);
+    }
+
+    /**
+     * Increments the index by the given count, reserving the indexes up to the returned one.
+     *
+     * @since 9.1
+     */
+    public int nextIndex(int count) {
+        index += count;
         log.debug("updated to " + this);
         return index;
     }
@@ -23,6 +23,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import javax.inject.Inject;
 
 import org.junit.Before;
@@ -69,4 +72,25 @@ public class TestJPAUIDSequencer {
         assertTrue(seq.getNext("mySequence") > 10);
     }
 
+    @Test
+    public void testBlockAllocation() {
+        JPAUIDSequencerImpl seq = (JPAUIDSequencerImpl) service.getSequencer("hibernateSequencer");
+        seq.setBlockSize(10);
+        try {
+            assertEquals(10, seq.getNextBlock("myBlockSequence", 10).size());
+            Set<Integer> ids = new HashSet<>();
+            int last = 10;
+            for (int i = 0; i < 35; i++) {
+                int id = seq.getNext("myBlockSequence");
+                assertTrue(id > last);
+                assertTrue(ids.add(Integer.valueOf(id)));
+                last = id;
+            }
+        } finally {
+            seq.setBlockSize(1);
+        }
+        // at most the current and the prefetched blocks have been reserved
+        assertTrue(seq.getNext("myBlockSequence") <= 10 + 4 * 10 + 1);
+    }
+
 }